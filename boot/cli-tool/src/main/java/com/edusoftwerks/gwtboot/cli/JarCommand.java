@@ -1,6 +1,7 @@
 package com.edusoftwerks.gwtboot.cli;
 
 import java.io.IOException;
+import java.nio.file.DirectoryStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
@@ -25,11 +26,19 @@ public class JarCommand implements Callable<Integer> {
 
   @CommandLine.Option(
     names = { "-w", "--workers" },
-    description = "Number of local workers for parallel compilation (default: ${DEFAULT-VALUE})",
+    description = "Number of local workers for parallel compilation, or 0 to size "
+      + "automatically from processors and memory (default: ${DEFAULT-VALUE})",
     defaultValue = "2"
   )
   private int workers;
 
+  @CommandLine.Option(
+    names = { "-r", "--report" },
+    description = "Render the HTML compile report from the recorded report data, "
+      + "while the JAR is packaged"
+  )
+  private boolean renderReport;
+
   @Override
   public Integer call() throws Exception {
     Console.info("===================================");
@@ -110,11 +119,27 @@ public class JarCommand implements Callable<Integer> {
       return 1;
     }
 
+    // The compiler only records the compile report data; rendering it is a
+    // separate step that runs alongside packaging when asked for.
+    List<Process> reportRenderers = new ArrayList<>();
+    if (renderReport) {
+      reportRenderers = startReportRenderers(classpath);
+    }
+
     // Step 4: Package Spring Boot fat JAR
     Console.println("");
     Console.info("Step 4: Creating Spring Boot fat JAR...");
     Console.println("");
     exitCode = Utils.executeMavenCommand("package", "-DskipTests");
+
+    boolean reportsRendered = true;
+    for (Process reportRenderer : reportRenderers) {
+      reportsRendered &= reportRenderer.waitFor() == 0;
+    }
+    if (!reportsRendered) {
+      Console.warning("Some compile reports could not be rendered");
+    }
+
     if (exitCode != 0) {
       Console.error("Maven package failed");
       return 1;
@@ -127,6 +152,10 @@ public class JarCommand implements Callable<Integer> {
     Console.println("");
     Console.info("JAR location: target/*.jar");
     Console.println("");
+    if (renderReport) {
+      Console.info("Compile reports: target/extra/*/soycReport/compile-report/index.html");
+      Console.println("");
+    }
     Console.info("To run the application:");
     Console.info("  java -jar target/*.jar");
     Console.println("");
@@ -156,7 +185,8 @@ public class JarCommand implements Callable<Integer> {
     command.add(String.valueOf(workers));
     command.add("-extra");
     command.add("target/extra");
-    command.add("-compileReport");
+    // Record the compile report data without rendering it inside the compile.
+    command.add("-XdisableSoycHtml");
     command.add("-XcompilerMetrics");
 
     // Add all module names to the command
@@ -164,4 +194,40 @@ public class JarCommand implements Callable<Integer> {
 
     return ProcessExecutor.executeCommand(command);
   }
+
+  /**
+   * Starts rendering the compile report of each compiled module in the
+   * background, from the data the compiler recorded under target/extra.
+   */
+  private List<Process> startReportRenderers(String classpath)
+    throws IOException {
+    List<Process> renderers = new ArrayList<>();
+    Path extraDir = Paths.get("target", "extra");
+    if (!Files.isDirectory(extraDir)) {
+      return renderers;
+    }
+    try (DirectoryStream<Path> modules = Files.newDirectoryStream(extraDir)) {
+      for (Path module : modules) {
+        Path reportData = module.resolve("soycReport");
+        if (!Files.isDirectory(reportData)) {
+          continue;
+        }
+        Console.info("Rendering compile report for " + module.getFileName());
+        List<String> command = new ArrayList<>();
+        command.add("java");
+        command.add("-Xmx" + maxMemoryMb + "m");
+        command.add("-cp");
+        command.add(classpath);
+        command.add("com.google.gwt.soyc.SoycDashboard");
+        command.add(reportData.toString());
+        renderers.add(
+          ProcessExecutor.executeCommandInBackground(
+            command,
+            reportData.resolve("render.log").toString()
+          )
+        );
+      }
+    }
+    return renderers;
+  }
 }
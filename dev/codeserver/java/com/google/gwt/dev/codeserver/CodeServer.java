@@ -22,8 +22,10 @@ import com.google.gwt.core.ext.UnableToCompleteException;
 import com.google.gwt.dev.MinimalRebuildCacheManager;
 import com.google.gwt.dev.javac.UnitCache;
 import com.google.gwt.dev.javac.UnitCacheSingleton;
+import com.google.gwt.dev.resource.impl.ZipFileIndexCache;
 import com.google.gwt.dev.util.DiskCachingUtil;
 import com.google.gwt.dev.util.log.PrintWriterTreeLogger;
+import com.google.gwt.thirdparty.guava.common.collect.ImmutableList;
 import com.google.gwt.thirdparty.guava.common.collect.ImmutableMap;
 
 import java.io.File;
@@ -41,6 +43,11 @@ import java.nio.file.Files;
  */
 public class CodeServer {
 
+  /**
+   * How long to wait after a source file changes for more changes before recompiling.
+   */
+  private static final long SOURCE_CHANGE_DELAY_MILLIS = 300;
+
   /**
    * Starts the code server. Shuts down the JVM if startup fails.
    * @param args Command-line options that can be parsed by {@link Options}.
@@ -68,6 +75,7 @@ public class CodeServer {
       try {
         File baseCacheDir =
             DiskCachingUtil.computePreferredCacheDir(options.getModuleNames(), logger);
+        useZipFileIndexCache(baseCacheDir);
         UnitCache unitCache = UnitCacheSingleton.get(logger, null, baseCacheDir,
             new CompilerOptionsImpl(options));
 
@@ -116,6 +124,16 @@ public class CodeServer {
     }
   }
 
+  /**
+   * Keeps the indexes of jar files in the cache directory, so that unchanged jars aren't listed
+   * again after a restart. A directory set with a system property takes precedence.
+   */
+  private static void useZipFileIndexCache(File baseCacheDir) {
+    if (baseCacheDir != null && ZipFileIndexCache.getCacheDir() == null) {
+      ZipFileIndexCache.setCacheDir(new File(baseCacheDir, "zip-index"));
+    }
+  }
+
   private static MinimalRebuildCacheManager createMinimalRebuildCacheManager(
       PrintWriterTreeLogger logger, Options options,File baseCacheDir) {
     return new MinimalRebuildCacheManager(
@@ -143,6 +161,7 @@ public class CodeServer {
     TreeLogger startupLogger = topLogger.branch(Type.INFO, "Super Dev Mode starting up");
     File baseCacheDir =
         DiskCachingUtil.computePreferredCacheDir(options.getModuleNames(), startupLogger);
+    useZipFileIndexCache(baseCacheDir);
     UnitCache unitCache = UnitCacheSingleton.get(
         startupLogger, null, baseCacheDir, new CompilerOptionsImpl(options));
     MinimalRebuildCacheManager minimalRebuildCacheManager =
@@ -151,9 +170,10 @@ public class CodeServer {
         makeOutboxTable(options, startupLogger, unitCache, minimalRebuildCacheManager);
 
     JobEventTable eventTable = new JobEventTable();
-    JobRunner runner = new JobRunner(eventTable, minimalRebuildCacheManager);
+    JobRunner runner = new JobRunner(eventTable, minimalRebuildCacheManager,
+        options.getCompileThreads());
 
-    JsonExporter exporter = new JsonExporter(options, outboxTable);
+    JsonExporter exporter = new JsonExporter(options, outboxTable, minimalRebuildCacheManager);
 
     SourceHandler sourceHandler = new SourceHandler(outboxTable, exporter);
     SymbolMapHandler symbolMapHandler = new SymbolMapHandler(outboxTable);
@@ -161,9 +181,34 @@ public class CodeServer {
         runner, eventTable, options.getBindAddress(), options.getPort());
     webServer.start(topLogger);
 
+    if (options.shouldRecompileOnChange()) {
+      startSourceWatcher(options, outboxTable, runner, topLogger);
+    }
+
     return webServer;
   }
 
+  /**
+   * Starts recompiling each module in the background when its source files change, so that
+   * the browser finds the compile finished (or at least started) when the page is reloaded.
+   */
+  private static void startSourceWatcher(Options options, final OutboxTable outboxTable,
+      final JobRunner runner, final TreeLogger logger) throws IOException {
+    SourceWatcher.Listener listener = new SourceWatcher.Listener() {
+      @Override
+      public void onSourceChange(ImmutableList<String> changedFiles) {
+        for (Outbox box : outboxTable.getOutboxes()) {
+          Job job = box.makeJobForChanges(changedFiles, logger);
+          if (job != null) {
+            runner.submit(job);
+          }
+        }
+      }
+    };
+    new SourceWatcher(options.getSourcePath(), SOURCE_CHANGE_DELAY_MILLIS, listener, logger)
+        .start();
+  }
+
   /**
    * Configures and compiles all the modules (unless {@link Options#getNoPrecompile} is false).
    */
@@ -21,6 +21,7 @@ import com.google.gwt.dev.cfg.ModuleDef;
 import com.google.gwt.dev.codeserver.JobEvent.CompileStrategy;
 import com.google.gwt.dev.codeserver.JobEvent.Status;
 import com.google.gwt.dev.util.log.AbstractTreeLogger;
+import com.google.gwt.dev.util.log.CancellableTreeLogger;
 import com.google.gwt.thirdparty.guava.common.base.Preconditions;
 import com.google.gwt.thirdparty.guava.common.collect.ImmutableList;
 import com.google.gwt.thirdparty.guava.common.collect.ImmutableMap;
@@ -29,10 +30,12 @@ import com.google.gwt.thirdparty.guava.common.util.concurrent.Futures;
 import com.google.gwt.thirdparty.guava.common.util.concurrent.ListenableFuture;
 import com.google.gwt.thirdparty.guava.common.util.concurrent.SettableFuture;
 
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 
 /**
@@ -57,10 +60,19 @@ class Job {
 
   private final ImmutableSortedMap<String, String> bindingProperties;
 
+  private final ImmutableList<String> changedFiles;
+
   // Output
 
   private final SettableFuture<Result> result = SettableFuture.create();
 
+  /**
+   * Set when a newer job makes this one's compile stale.
+   */
+  private final AtomicBoolean cancelled = new AtomicBoolean();
+
+  private Job supersededBy; // non-null after a newer job cancelled this one
+
   // Listeners
 
   private final Outbox outbox;
@@ -93,12 +105,23 @@ class Job {
    */
   Job(Outbox box, Map<String, String> bindingProperties,
       TreeLogger parentLogger, Options options) {
+    this(box, bindingProperties, ImmutableList.<String>of(), parentLogger, options);
+  }
+
+  /**
+   * Creates a job to update an outbox after some source files changed.
+   * @param changedFiles  The files whose changes started this job. (Empty if the job wasn't
+   *     started by a file change.)
+   */
+  Job(Outbox box, Map<String, String> bindingProperties, List<String> changedFiles,
+      TreeLogger parentLogger, Options options) {
     this.id = chooseNextId(box);
     this.outbox = box;
     this.inputModuleName = box.getInputModuleName();
     // TODO: we will use the binding properties to find or create the outbox,
     // then take binding properties from the outbox here.
     this.bindingProperties = ImmutableSortedMap.copyOf(bindingProperties);
+    this.changedFiles = ImmutableList.copyOf(changedFiles);
     this.jobChangeListener = Preconditions.checkNotNull(options.getJobChangeListener());
     this.args = Preconditions.checkNotNull(options.getArgs());
     this.tags = Preconditions.checkNotNull(options.getTags());
@@ -139,6 +162,22 @@ class Job {
     return bindingProperties;
   }
 
+  /**
+   * The source files whose changes started this job, or an empty list if the job was
+   * requested some other way.
+   */
+  ImmutableList<String> getChangedFiles() {
+    return changedFiles;
+  }
+
+  /**
+   * Returns true if this job was started because source files changed, rather than
+   * requested by the browser.
+   */
+  boolean isStartedByChange() {
+    return !changedFiles.isEmpty();
+  }
+
   /**
    * The outbox that will serve the job's result (if successful).
    */
@@ -171,6 +210,18 @@ class Job {
     return listenerFailure;
   }
 
+  /**
+   * Wraps a logger used to compile this job so that the compile stops at its next log call
+   * once the job is cancelled. (It throws a {@link java.util.concurrent.CancellationException}.)
+   */
+  TreeLogger makeCancellable(TreeLogger logger) {
+    return new CancellableTreeLogger(logger, cancelled);
+  }
+
+  boolean isCancelled() {
+    return cancelled.get();
+  }
+
   // === state transitions ===
 
   /**
@@ -239,6 +290,13 @@ class Job {
       throw new IllegalStateException("compile job is not active: " + id);
     }
 
+    if (supersededBy != null && !newResult.isOk()) {
+      // Cancelled; the newer job will report what happened.
+      publish(makeEvent(Status.GONE, "superseded by " + supersededBy.getId()));
+      result.setFuture(supersededBy.getFutureResult());
+      return;
+    }
+
     // Report that we finished
     result.set(newResult);
     outputModuleName = newResult.outputModuleName;
@@ -249,6 +307,32 @@ class Job {
     }
   }
 
+  /**
+   * Reports that a newer job for the same permutation replaced this job before it started.
+   * This job will not be compiled; its result will be the newer job's result.
+   */
+  synchronized void onSuperseded(Job newer) {
+    if (table == null || !table.isActive(this)) {
+      throw new IllegalStateException("compile job is not active: " + id);
+    }
+    publish(makeEvent(Status.GONE, "superseded by " + newer.getId()));
+    result.setFuture(newer.getFutureResult());
+  }
+
+  /**
+   * Asks this job to stop compiling because a newer job for the same permutation will
+   * compile more recent sources. If the compile stops early, this job's result will be the
+   * newer job's result. (If it finishes anyway, its result is used as usual.)
+   * Does nothing if this job isn't compiling.
+   */
+  synchronized void cancel(Job newer) {
+    if (table == null || table.getPublishedEvent(this).getStatus() != Status.COMPILING) {
+      return;
+    }
+    supersededBy = newer;
+    cancelled.set(true);
+  }
+
   /**
    * Reports that this job's output is no longer available.
    */
@@ -268,6 +352,7 @@ class Job {
     out.setJobId(getId());
     out.setInputModuleName(getInputModuleName());
     out.setBindings(getBindingProperties());
+    out.setChangedFiles(changedFiles);
     out.setStatus(status);
     out.setMessage(message);
     out.setOutputModuleName(outputModuleName);
@@ -40,6 +40,7 @@ public final class JobEvent {
 
   private final String inputModuleName;
   private final ImmutableSortedMap<String, String> bindings;
+  private final ImmutableList<String> changedFiles;
   private final Status status;
   private final String message;
 
@@ -54,6 +55,7 @@ public final class JobEvent {
     this.jobId = Preconditions.checkNotNull(builder.jobId);
     this.inputModuleName = Preconditions.checkNotNull(builder.inputModuleName);
     this.bindings = ImmutableSortedMap.copyOf(builder.bindings);
+    this.changedFiles = ImmutableList.copyOf(builder.changedFiles);
     this.status = Preconditions.checkNotNull(builder.status);
     this.message = builder.message == null ? status.defaultMessage : builder.message;
 
@@ -92,6 +94,14 @@ public final class JobEvent {
     return bindings;
   }
 
+  /**
+   * The source files whose changes started the job. (Not null but empty if the job was
+   * requested by the browser.)
+   */
+  public List<String> getChangedFiles() {
+    return changedFiles;
+  }
+
   /**
    * The last reported status of the job.
    */
@@ -227,6 +237,7 @@ public final class JobEvent {
 
     private String inputModuleName;
     private Map<String, String> bindings = ImmutableMap.of();
+    private List<String> changedFiles = ImmutableList.of();
     private Status status;
     private String message;
 
@@ -268,6 +279,14 @@ public final class JobEvent {
       this.bindings = bindings;
     }
 
+    /**
+     * The source files whose changes started the job.
+     * Optional but may not be null. If not set, defaults to the empty list.
+     */
+    public void setChangedFiles(List<String> changedFiles) {
+      this.changedFiles = Preconditions.checkNotNull(changedFiles);
+    }
+
     /**
      * The job's current status. Required.
      */
@@ -43,8 +43,7 @@ class JobEventTable {
   private final Set<String> activeJobIds = new LinkedHashSet<String>();
 
   /**
-   * The set of compiling job ids. Since compiling is single-threaded, this set should
-   * contain zero or one entries.
+   * The set of compiling job ids, in the order they started. There is at most one per outbox.
    */
   private final Set<String> compilingJobIds = new LinkedHashSet<String>();
 
@@ -73,7 +72,6 @@ class JobEventTable {
 
     if (event.getStatus() == Status.COMPILING) {
       compilingJobIds.add(id);
-      assert compilingJobIds.size() <= 1;
     } else {
       compilingJobIds.remove(id);
     }
@@ -98,7 +96,7 @@ class JobEventTable {
 
   /**
    * Returns an event indicating the current status of the job that's currently being compiled,
-   * or null if idle.
+   * or null if idle. If more than one job is compiling, returns the one that started first.
    */
   synchronized JobEvent getCompilingJobEvent() {
     if (compilingJobIds.isEmpty()) {
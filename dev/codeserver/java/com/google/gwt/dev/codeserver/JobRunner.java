@@ -20,17 +20,29 @@ import com.google.gwt.core.ext.TreeLogger.Type;
 import com.google.gwt.core.ext.UnableToCompleteException;
 import com.google.gwt.dev.MinimalRebuildCacheManager;
 import com.google.gwt.dev.javac.UnitCacheSingleton;
+import com.google.gwt.thirdparty.guava.common.collect.Maps;
 
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.Map;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 /**
  * Executes requests to compile modules using Super Dev Mode.
  *
- * <p>Guarantees that only one thread invokes the GWT compiler at a time and reports
- * progress on waiting jobs.
+ * <p>Jobs for the same outbox run one at a time, in the order they were submitted. Jobs for
+ * different outboxes may run at the same time, up to the number of compile threads the runner was
+ * created with. (By default there is one, so only one thread invokes the GWT compiler at a time.)
+ *
+ * <p>A job replaces any job for the same outbox and binding properties that is still waiting, and
+ * cancels one that is compiling, since its result would be stale. The replaced jobs finish with
+ * the result of the newer job.
  *
  * <p>JobRunners are thread-safe.
  */
@@ -38,11 +50,33 @@ public class JobRunner {
 
   private final JobEventTable table;
   private final MinimalRebuildCacheManager minimalRebuildCacheManager;
-  private final ExecutorService executor = Executors.newSingleThreadExecutor();
+  private final ExecutorService executor;
+
+  /**
+   * Held for reading while compiling and for writing while cleaning the caches.
+   */
+  private final ReadWriteLock cacheLock = new ReentrantReadWriteLock();
+
+  /**
+   * The job that is compiling for each outbox. Guarded by this.
+   */
+  private final Map<Outbox, Job> compilingJobs = Maps.newHashMap();
+
+  /**
+   * The jobs waiting to compile for each outbox, in the order they were submitted.
+   * Guarded by this.
+   */
+  private final Map<Outbox, Deque<Job>> waitingJobs = Maps.newHashMap();
 
   JobRunner(JobEventTable table, MinimalRebuildCacheManager minimalRebuildCacheManager) {
+    this(table, minimalRebuildCacheManager, 1);
+  }
+
+  JobRunner(JobEventTable table, MinimalRebuildCacheManager minimalRebuildCacheManager,
+      int compileThreads) {
     this.table = table;
     this.minimalRebuildCacheManager = minimalRebuildCacheManager;
+    this.executor = Executors.newFixedThreadPool(Math.max(1, compileThreads));
   }
 
   /**
@@ -58,20 +92,20 @@ public class JobRunner {
   }
 
   /**
-   * Submits a recompile js creation job to be executed. (Waits for completion and returns JS.).
+   * Creates the recompile js. (Waits for completion and returns JS.). This waits for a
+   * compile of the same module, but not for others.
    */
   public String getRecompileJs(final TreeLogger logger, final Outbox box)
       throws ExecutionException {
+    cacheLock.readLock().lock();
     try {
-      return executor.submit(new Callable<String>() {
-        @Override
-        public String call() throws Exception {
-          return box.getRecompileJs(logger);
-        }
-      }).get();
-    } catch (InterruptedException e) {
-      // Allow the JVM to shutdown.
-      return null;
+      return box.getRecompileJs(logger);
+    } catch (UnableToCompleteException e) {
+      throw new ExecutionException(e);
+    } catch (RuntimeException e) {
+      throw new ExecutionException(e);
+    } finally {
+      cacheLock.readLock().unlock();
     }
   }
 
@@ -83,29 +117,89 @@ public class JobRunner {
       throw new IllegalStateException("job already submitted: " + job.getId());
     }
     job.onSubmitted(table);
-    executor.submit(new Runnable() {
+
+    Outbox box = job.getOutbox();
+    Deque<Job> waiting = waitingJobs.get(box);
+    if (waiting == null) {
+      waiting = new ArrayDeque<Job>();
+      waitingJobs.put(box, waiting);
+    }
+
+    // A waiting job for the same permutation would compile the same thing, so it can
+    // share this job's result.
+    for (Iterator<Job> it = waiting.iterator(); it.hasNext();) {
+      Job queued = it.next();
+      if (queued.getBindingProperties().equals(job.getBindingProperties())) {
+        it.remove();
+        queued.onSuperseded(job);
+        job.getLogger().log(Type.TRACE, "replaced waiting job: " + queued.getId());
+      }
+    }
+
+    // A compile that's already running may not see the latest changes. (Unless it was started
+    // by a change and this job wasn't; then it's as up to date as this job.)
+    Job compiling = compilingJobs.get(box);
+    if (compiling != null
+        && compiling.getBindingProperties().equals(job.getBindingProperties())
+        && (job.isStartedByChange() || !compiling.isStartedByChange())) {
+      compiling.cancel(job);
+      job.getLogger().log(Type.TRACE, "cancelled stale job: " + compiling.getId());
+    }
+
+    waiting.add(job);
+    job.getLogger().log(Type.TRACE, "added job to queue");
+    startNextJob(box);
+  }
+
+  /**
+   * Starts the next waiting job for an outbox, unless one is already compiling.
+   */
+  private synchronized void startNextJob(final Outbox box) {
+    if (compilingJobs.containsKey(box)) {
+      return;
+    }
+    Deque<Job> waiting = waitingJobs.get(box);
+    final Job job = waiting == null ? null : waiting.poll();
+    if (job == null) {
+      return;
+    }
+    compilingJobs.put(box, job);
+    executor.execute(new Runnable() {
       @Override
       public void run() {
         try {
-          recompile(job);
-        } catch (Throwable t) {
-          // Try to release the job so the HTTP request will return an error.
-          // (But this might not work if the same exception is thrown while
-          // sending the finished event.)
-          if (!job.isDone()) {
-            try {
-              job.onFinished(new Job.Result(null, null, t));
-              return;
-            } catch (Throwable t2) {
-              // fall through and log original exception
-            }
+          runJob(job);
+        } finally {
+          synchronized (JobRunner.this) {
+            compilingJobs.remove(box);
+            startNextJob(box);
           }
-          // Assume everything is broken. Last-ditch attempt to report the error.
-          t.printStackTrace();
         }
       }
     });
-    job.getLogger().log(Type.TRACE, "added job to queue");
+  }
+
+  private void runJob(Job job) {
+    cacheLock.readLock().lock();
+    try {
+      recompile(job);
+    } catch (Throwable t) {
+      // Try to release the job so the HTTP request will return an error.
+      // (But this might not work if the same exception is thrown while
+      // sending the finished event.)
+      if (!job.isDone()) {
+        try {
+          job.onFinished(new Job.Result(null, null, t));
+          return;
+        } catch (Throwable t2) {
+          // fall through and log original exception
+        }
+      }
+      // Assume everything is broken. Last-ditch attempt to report the error.
+      t.printStackTrace();
+    } finally {
+      cacheLock.readLock().unlock();
+    }
   }
 
   private static void recompile(Job job) {
@@ -117,8 +211,8 @@ public class JobRunner {
    * A callable for clearing both unit and minimalRebuild caches. It also forces the next recompile
    * even if no input files have changed.
    * <p>
-   * By packaging it as a callable and running it in the ExecutorService any danger of clearing
-   * caches at the same time as an active compile job is avoided.
+   * It holds the cache lock for writing, so any danger of clearing caches at the same time as an
+   * active compile job is avoided.
    */
   private class CleanerJob implements Callable<Void> {
 
@@ -132,13 +226,18 @@ public class JobRunner {
 
     @Override
     public Void call() throws UnableToCompleteException {
-      long beforeMs = System.nanoTime() / 1000000L;
-      minimalRebuildCacheManager.deleteCaches();
-      UnitCacheSingleton.clearCache();
-      outboxTable.forceNextRecompileAll();
-      long afterMs = System.nanoTime() / 1000000L;
-      logger.log(TreeLogger.INFO, String.format("Cleaned in %sms.", (afterMs - beforeMs)));
-      return null;
+      cacheLock.writeLock().lock();
+      try {
+        long beforeMs = System.nanoTime() / 1000000L;
+        minimalRebuildCacheManager.deleteCaches();
+        UnitCacheSingleton.clearCache();
+        outboxTable.forceNextRecompileAll();
+        long afterMs = System.nanoTime() / 1000000L;
+        logger.log(TreeLogger.INFO, String.format("Cleaned in %sms.", (afterMs - beforeMs)));
+        return null;
+      } finally {
+        cacheLock.writeLock().unlock();
+      }
     }
   }
 }
@@ -15,12 +15,14 @@
  */
 package com.google.gwt.dev.codeserver;
 
+import com.google.gwt.dev.MinimalRebuildCacheManager;
 import com.google.gwt.dev.codeserver.Job.Result;
 import com.google.gwt.dev.json.JsonArray;
 import com.google.gwt.dev.json.JsonObject;
 
 import java.io.File;
 import java.util.Arrays;
+import java.util.Map;
 import java.util.SortedMap;
 
 /**
@@ -31,10 +33,13 @@ import java.util.SortedMap;
 class JsonExporter {
   private final Options options;
   private final OutboxTable outboxTable;
+  private final MinimalRebuildCacheManager minimalRebuildCacheManager;
 
-  JsonExporter(Options options, OutboxTable outboxTable) {
+  JsonExporter(Options options, OutboxTable outboxTable,
+      MinimalRebuildCacheManager minimalRebuildCacheManager) {
     this.options = options;
     this.outboxTable = outboxTable;
+    this.minimalRebuildCacheManager = minimalRebuildCacheManager;
   }
 
   // === API responses ===
@@ -62,6 +67,17 @@ class JsonExporter {
     out.put("message", progress.getMessage());
     out.put("inputModule", progress.getInputModuleName());
     out.put("bindings", exportMap(progress.getBindings()));
+    out.put("rebuildCaches", exportRebuildCacheStats());
+    return out;
+  }
+
+  /**
+   * Creates the response to a /progress request when nothing is being compiled.
+   */
+  JsonObject exportIdleProgressResponse() {
+    JsonObject out = new JsonObject();
+    out.put("status", "idle");
+    out.put("rebuildCaches", exportRebuildCacheStats());
     return out;
   }
 
@@ -198,6 +214,18 @@ class JsonExporter {
     return result;
   }
 
+  /**
+   * Reports how well the in-memory tier of the rebuild caches is doing.
+   */
+  private JsonObject exportRebuildCacheStats() {
+    JsonObject out = new JsonObject();
+    for (Map.Entry<String, Long> entry :
+        minimalRebuildCacheManager.getMemoryCacheStats().entrySet()) {
+      out.put(entry.getKey(), entry.getValue().longValue());
+    }
+    return out;
+  }
+
   private JsonObject exportMap(SortedMap<String, String> bindings) {
     JsonObject out = new JsonObject();
     for (String name : bindings.keySet()) {
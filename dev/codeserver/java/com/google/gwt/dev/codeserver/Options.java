@@ -86,6 +86,8 @@ public class Options {
   private SourceLevel sourceLevel = SourceLevel.DEFAULT_SOURCE_LEVEL;
   private boolean failOnError = false;
   private int compileTestRecompiles = 0;
+  private int compileThreads = 1;
+  private boolean recompileOnChange = false;
   private boolean generateJsInteropExports = false;
   private WhitelistRegexFilter jsInteropExportFilter = new WhitelistRegexFilter();
   private OptionMethodNameDisplayMode.Mode methodNameDisplayMode =
@@ -260,6 +262,21 @@ public class Options {
     return compileTestRecompiles;
   }
 
+  /**
+   * Whether to recompile as soon as a file in the source path changes, rather than waiting for
+   * the browser to ask.
+   */
+  boolean shouldRecompileOnChange() {
+    return recompileOnChange;
+  }
+
+  /**
+   * The maximum number of modules that may be compiled at the same time.
+   */
+  int getCompileThreads() {
+    return compileThreads;
+  }
+
   /**
    * The hostname to put in a URL pointing to the code server.
    */
@@ -315,6 +332,8 @@ public class Options {
       registerHandler(new AllowMissingSourceDirFlag());
       registerHandler(new CompileTestFlag());
       registerHandler(new CompileTestRecompilesFlag());
+      registerHandler(new CompileThreadsFlag());
+      registerHandler(new RecompileOnChangeFlag());
       registerHandler(new FailOnErrorFlag());
       registerHandler(new ModuleNameArgument());
       registerHandler(new NoPrecompileFlag());
@@ -518,6 +537,54 @@ public class Options {
     }
   }
 
+  private class RecompileOnChangeFlag extends ArgHandlerFlag {
+
+    @Override
+    public String getLabel() {
+      return "recompileOnChange";
+    }
+
+    @Override
+    public String getPurposeSnippet() {
+      return "Recompiles modules as soon as files in the source path change, instead of when "
+          + "the page is reloaded.";
+    }
+
+    @Override
+    public boolean setFlag(boolean value) {
+      recompileOnChange = value;
+      return true;
+    }
+
+    @Override
+    public boolean getDefaultValue() {
+      return recompileOnChange;
+    }
+  }
+
+  private class CompileThreadsFlag extends ArgHandlerInt {
+
+    @Override
+    public String getTag() {
+      return "-compileThreads";
+    }
+
+    @Override
+    public String[] getTagArgs() {
+      return new String[] { "count" };
+    }
+
+    @Override
+    public String getPurpose() {
+      return "The maximum number of modules to compile at the same time. (Defaults to 1.)";
+    }
+
+    @Override
+    public void setInt(int value) {
+      compileThreads = Math.max(1, value);
+    }
+  }
+
   private class PortFlag extends ArgHandlerInt {
 
     @Override
@@ -52,6 +52,12 @@ class Outbox {
   private final AtomicReference<Result> published = new AtomicReference<Result>();
   private Job publishedJob; // may be null if the Result wasn't created by a Job.
 
+  /**
+   * The output files of the published result that have been sent, kept in memory, along with
+   * strong-named files sent for earlier results.
+   */
+  private volatile OutputCache outputCache = new OutputCache(OutputCache.DEFAULT_MAX_BYTES);
+
   Outbox(String id, Recompiler recompiler, Options options, TreeLogger logger)
       throws UnableToCompleteException {
     Preconditions.checkArgument(isValidOutboxId(id));
@@ -122,6 +128,19 @@ class Outbox {
     return new Job(this, bindingProperties, parentLogger, options);
   }
 
+  /**
+   * Creates a Job to recompile this outbox after source files changed, using the same binding
+   * properties as the compile being served. Returns null if there isn't one yet, since then
+   * there's no way to tell which permutation the browser wants.
+   */
+  synchronized Job makeJobForChanges(List<String> changedFiles, TreeLogger parentLogger) {
+    if (publishedJob == null) {
+      return null;
+    }
+    return new Job(this, publishedJob.getBindingProperties(), changedFiles, parentLogger,
+        options);
+  }
+
   /**
    * Compiles the module again, possibly changing the output directory.
    * After returning, the result of the compile can be found via {@link Job#waitForResult}
@@ -151,6 +170,7 @@ class Outbox {
     }
     publishedJob = job;
     published.set(result);
+    outputCache = outputCache.forNextCompile(result.outputDir.getWarDir());
   }
 
   private CompileDir getOutputDir() {
@@ -284,6 +304,17 @@ class Outbox {
     return new File(getOutputDir().getWarDir(), urlPath);
   }
 
+  /**
+   * Returns the contents of a file in the compiler's output directory from the last time this
+   * module was recompiled, kept in memory after the first request.
+   * @param urlPath The path to the file. This should be a relative path beginning
+   * with the module name (after renaming).
+   * @return the contents, or null if the file doesn't exist.
+   */
+  OutputCache.Entry getCachedOutputFile(String urlPath) throws IOException {
+    return outputCache.get(getOutputDir().getWarDir(), urlPath);
+  }
+
   /**
    * Returns the log file from the last time this module was recompiled. This changes
    * after each compile.
@@ -0,0 +1,237 @@
+/*
+ * Copyright 2026 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.gwt.dev.codeserver;
+
+import com.google.gwt.thirdparty.guava.common.collect.ImmutableSet;
+import com.google.gwt.thirdparty.guava.common.hash.Hashing;
+import com.google.gwt.thirdparty.guava.common.io.Files;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Holds the contents of the output files of the published compile in memory, so that they can
+ * be sent without reading and compressing them again on every page load.
+ *
+ * <p>Each file is kept gzipped, unless its type is already compressed (such as images and ".gz"
+ * files), in which case it is kept as is. Files are loaded on first use and never change
+ * afterwards, since each compile writes to a new directory.
+ *
+ * <p>Files whose name starts with a strong name are kept by their path in the war directory,
+ * since their name identifies their contents; when a new compile is published, those that it
+ * wrote again are carried over to the next cache (see {@link #forNextCompile}). Other files are
+ * kept by location, for one compile only.
+ *
+ * <p>OutputCaches are thread-safe.
+ */
+class OutputCache {
+
+  /**
+   * The default number of bytes to keep for each outbox.
+   */
+  static final long DEFAULT_MAX_BYTES = 128L << 20;
+
+  /**
+   * Names of files that are identified by their contents, such as "[strong name].cache.js".
+   */
+  private static final Pattern STRONG_NAMED_FILE =
+      Pattern.compile(WebServer.STRONG_NAME + "\\.cache\\..+");
+
+  /**
+   * The suffixes of files that are already compressed, and gain nothing from gzip.
+   */
+  private static final ImmutableSet<String> INCOMPRESSIBLE_SUFFIXES = ImmutableSet.of(".br",
+      ".gif", ".gz", ".ico", ".jar", ".jpeg", ".jpg", ".mp3", ".mp4", ".ogg", ".png", ".webm",
+      ".webp", ".woff", ".woff2", ".zip");
+
+  private final long maxBytes;
+  private final ConcurrentMap<String, Entry> entries = new ConcurrentHashMap<String, Entry>();
+  private final AtomicLong bytesUsed = new AtomicLong();
+
+  OutputCache(long maxBytes) {
+    this.maxBytes = maxBytes;
+  }
+
+  /**
+   * Returns the cached contents of an output file, loading it if needed.
+   * @param warDir the war directory of the compile.
+   * @param path the path of the file in the war directory. If it doesn't exist, a gzipped copy
+   *     (with a ".gz" suffix) is used instead.
+   * @return the contents, or null if neither the file nor a gzipped copy exists.
+   */
+  Entry get(File warDir, String path) throws IOException {
+    File file = new File(warDir, path);
+    String key = isStrongNamed(file) ? path : file.getPath();
+    Entry entry = entries.get(key);
+    if (entry != null) {
+      return entry;
+    }
+
+    entry = load(file);
+    if (entry == null) {
+      return null;
+    }
+    return add(key, entry);
+  }
+
+  /**
+   * Returns a new cache for the next compile, which keeps the entries of the strong-named files
+   * that the next compile wrote too. (Permutations that changed get new strong names, so the
+   * entries of their old files are dropped.)
+   * @param warDir the war directory of the next compile.
+   */
+  OutputCache forNextCompile(File warDir) {
+    OutputCache next = new OutputCache(maxBytes);
+    for (Map.Entry<String, Entry> entry : entries.entrySet()) {
+      File file = new File(warDir, entry.getKey());
+      if (isStrongNamed(file)
+          && (file.isFile() || new File(file.getPath() + ".gz").isFile())) {
+        next.add(entry.getKey(), entry.getValue());
+      }
+    }
+    return next;
+  }
+
+  /**
+   * Returns the number of bytes held in memory.
+   */
+  long getBytesUsed() {
+    return bytesUsed.get();
+  }
+
+  private Entry add(String key, Entry entry) {
+    // Over the limit, the entry is still returned but not kept.
+    if (bytesUsed.addAndGet(entry.getSize()) > maxBytes) {
+      bytesUsed.addAndGet(-entry.getSize());
+      return entry;
+    }
+    Entry previous = entries.putIfAbsent(key, entry);
+    if (previous != null) {
+      bytesUsed.addAndGet(-entry.getSize());
+      return previous;
+    }
+    return entry;
+  }
+
+  private static boolean isStrongNamed(File file) {
+    return STRONG_NAMED_FILE.matcher(file.getName()).matches();
+  }
+
+  private static boolean isCompressible(File file) {
+    String name = file.getName().toLowerCase(Locale.ROOT);
+    int dot = name.lastIndexOf('.');
+    return dot == -1 || !INCOMPRESSIBLE_SUFFIXES.contains(name.substring(dot));
+  }
+
+  private static Entry load(File file) throws IOException {
+    if (file.isFile() && !isCompressible(file)) {
+      byte[] identity = Files.toByteArray(file);
+      return new Entry(identity, null, Hashing.murmur3_128().hashBytes(identity).toString());
+    }
+
+    byte[] gzipped;
+    if (file.isFile()) {
+      gzipped = gzip(Files.toByteArray(file));
+    } else {
+      File gzippedFile = new File(file.getPath() + ".gz");
+      if (!gzippedFile.isFile()) {
+        return null;
+      }
+      gzipped = Files.toByteArray(gzippedFile);
+    }
+
+    String hash = Hashing.murmur3_128().hashBytes(gzipped).toString();
+    return new Entry(null, gzipped, hash);
+  }
+
+  private static byte[] gzip(byte[] bytes) throws IOException {
+    ByteArrayOutputStream buffer = new ByteArrayOutputStream(bytes.length / 4 + 64);
+    OutputStream out = new GZIPOutputStream(buffer);
+    out.write(bytes);
+    out.close();
+    return buffer.toByteArray();
+  }
+
+  /**
+   * The contents of an output file.
+   */
+  static class Entry {
+    private final byte[] identity;
+    private final byte[] gzipped;
+    private final String hash;
+
+    private Entry(byte[] identity, byte[] gzipped, String hash) {
+      this.identity = identity;
+      this.gzipped = gzipped;
+      this.hash = hash;
+    }
+
+    /**
+     * The file's contents, if they are kept uncompressed because the file's type is already
+     * compressed; otherwise null.
+     */
+    byte[] getIdentity() {
+      return identity;
+    }
+
+    /**
+     * The file's contents gzipped, or null if they are kept uncompressed.
+     */
+    byte[] getGzipped() {
+      return gzipped;
+    }
+
+    /**
+     * Returns an ETag identifying the file's contents in the given content encoding.
+     * @param contentEncoding "gzip", or null for the uncompressed contents.
+     */
+    String getETag(String contentEncoding) {
+      return "\"" + hash + (contentEncoding == null ? "" : "-" + contentEncoding) + "\"";
+    }
+
+    /**
+     * Returns true if an If-None-Match header matches any encoding of these contents.
+     */
+    boolean matches(String ifNoneMatch) {
+      if (ifNoneMatch == null) {
+        return false;
+      }
+      for (String tag : ifNoneMatch.split(",")) {
+        tag = tag.trim();
+        if (tag.startsWith("W/")) {
+          tag = tag.substring(2);
+        }
+        if (tag.equals("*") || tag.equals(getETag(null)) || tag.equals(getETag("gzip"))) {
+          return true;
+        }
+      }
+      return false;
+    }
+
+    private long getSize() {
+      return (identity == null ? 0 : identity.length) + (gzipped == null ? 0 : gzipped.length);
+    }
+  }
+}
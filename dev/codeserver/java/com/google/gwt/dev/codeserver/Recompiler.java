@@ -56,6 +56,7 @@ import java.io.File;
 import java.io.IOException;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CancellationException;
 import java.util.concurrent.atomic.AtomicReference;
 
 /**
@@ -136,6 +137,10 @@ public class Recompiler {
       // No point in logging a stack trace for this exception
       job.getLogger().log(TreeLogger.Type.WARN, "recompile failed");
       result = new Result(null, null, e);
+    } catch (CancellationException e) {
+      job.getLogger().log(TreeLogger.Type.INFO,
+          "recompile cancelled because a newer job replaced it");
+      result = new Result(null, null, e);
     } catch (Throwable error) {
       job.getLogger().log(TreeLogger.Type.WARN, "recompile failed", error);
       result = new Result(null, null, error);
@@ -359,7 +364,9 @@ public class Recompiler {
     job.setCompileStrategy(minimalRebuildCache.isPopulated() ? CompileStrategy.INCREMENTAL
         : CompileStrategy.FULL);
 
-    boolean success = Compiler.compile(compileLogger, runOptions, minimalRebuildCache, module);
+    // Stops early if a newer job for the same permutation cancels this one.
+    boolean success = Compiler.compile(job.makeCancellable(compileLogger), runOptions,
+        minimalRebuildCache, module);
     if (success) {
       publishedCompileDir = compileDir;
       previousInputSummary = inputSummary;
@@ -26,6 +26,7 @@ import com.google.gwt.thirdparty.guava.common.io.Files;
 import com.google.gwt.thirdparty.guava.common.io.Resources;
 
 import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
@@ -34,6 +35,7 @@ import java.io.PrintWriter;
 import java.io.Writer;
 import java.net.URL;
 import java.util.regex.Pattern;
+import java.util.zip.GZIPInputStream;
 
 import javax.servlet.ServletOutputStream;
 import javax.servlet.http.HttpServletRequest;
@@ -66,6 +68,83 @@ public class Responses {
     };
   }
 
+  /**
+   * A HTTP response that sends an output file kept in memory by an {@link OutputCache}.
+   * Sends the contents gzipped if the client accepts that, and replies with 304 Not Modified if
+   * the client already has the contents.
+   * @param file the uncompressed location of the file, which is sent to clients that don't accept
+   *     the encoding the contents are kept in.
+   */
+  static Response newCachedFileResponse(final String mimeType, final OutputCache.Entry entry,
+      final File file) {
+    return new Response() {
+      @Override
+      public void send(HttpServletRequest request, HttpServletResponse response, TreeLogger logger)
+          throws IOException {
+        String acceptEncoding = request.getHeader("Accept-Encoding");
+        String contentEncoding;
+        byte[] bytes;
+        if (entry.getGzipped() != null && acceptsEncoding(acceptEncoding, "gzip")) {
+          contentEncoding = "gzip";
+          bytes = entry.getGzipped();
+        } else {
+          contentEncoding = null;
+          bytes = entry.getIdentity();
+        }
+
+        response.setHeader("Vary", "Accept-Encoding");
+        response.setHeader("ETag", entry.getETag(contentEncoding));
+        if (entry.matches(request.getHeader("If-None-Match"))) {
+          response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+          return;
+        }
+
+        response.setStatus(HttpServletResponse.SC_OK);
+        response.setContentType(mimeType);
+        if (bytes == null) {
+          // Rare; send the file from disk, or decompress while sending if there's only a
+          // gzipped copy.
+          if (file.isFile()) {
+            Files.copy(file, response.getOutputStream());
+          } else {
+            ByteStreams.copy(new GZIPInputStream(new ByteArrayInputStream(entry.getGzipped())),
+                response.getOutputStream());
+          }
+          return;
+        }
+        if (contentEncoding != null) {
+          response.setHeader("Content-Encoding", contentEncoding);
+        }
+        response.setContentLength(bytes.length);
+        response.getOutputStream().write(bytes);
+      }
+    };
+  }
+
+  /**
+   * Returns true if an Accept-Encoding header allows the given content coding.
+   */
+  static boolean acceptsEncoding(String acceptEncoding, String coding) {
+    if (acceptEncoding == null) {
+      return false;
+    }
+    for (String item : acceptEncoding.split(",")) {
+      String[] parts = item.trim().split(";");
+      String name = parts[0].trim();
+      if (!name.equalsIgnoreCase(coding) && !name.equals("*")) {
+        continue;
+      }
+      for (int i = 1; i < parts.length; i++) {
+        String param = parts[i].replace(" ", "");
+        if (param.startsWith("q=") && param.substring(2).matches("0(\\.0*)?")) {
+          return false;
+        }
+      }
+      return true;
+    }
+    return false;
+  }
+
   /**
    * Returns a JSON response. If the request contains a _callback parameter, it will
    * automatically be sent as a JSONP response. Otherwise, it's an AJAX response.
@@ -0,0 +1,190 @@
+/*
+ * Copyright 2026 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.gwt.dev.codeserver;
+
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_DELETE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
+import static java.nio.file.StandardWatchEventKinds.OVERFLOW;
+
+import com.google.gwt.core.ext.TreeLogger;
+import com.google.gwt.core.ext.TreeLogger.Type;
+import com.google.gwt.thirdparty.guava.common.collect.ImmutableList;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Watches the source directories for changes to files that affect a compile, so that
+ * Super Dev Mode can recompile before the browser asks for it.
+ *
+ * <p>Changes are reported in batches. A batch is reported once no more changes have been seen
+ * for the debounce delay, so that saving several files (or an IDE's "safe write") starts one
+ * compile instead of several.
+ */
+class SourceWatcher {
+
+  /**
+   * The suffixes of the files whose changes are reported.
+   */
+  private static final ImmutableList<String> WATCHED_SUFFIXES =
+      ImmutableList.of(".java", ".ui.xml", ".css", ".gwt.xml");
+
+  /**
+   * Receives the changes seen by a SourceWatcher.
+   */
+  interface Listener {
+    /**
+     * Called on the watcher's thread after a batch of changes.
+     * @param changedFiles the absolute paths of the files that changed, in the order seen.
+     */
+    void onSourceChange(ImmutableList<String> changedFiles);
+  }
+
+  private final List<File> sourcePath;
+  private final long debounceMillis;
+  private final Listener listener;
+  private final TreeLogger logger;
+
+  private WatchService watchService; // non-null after start
+
+  SourceWatcher(List<File> sourcePath, long debounceMillis, Listener listener,
+      TreeLogger logger) {
+    this.sourcePath = ImmutableList.copyOf(sourcePath);
+    this.debounceMillis = debounceMillis;
+    this.listener = listener;
+    this.logger = logger;
+  }
+
+  /**
+   * Starts watching the source directories on a background thread.
+   */
+  synchronized void start() throws IOException {
+    if (watchService != null) {
+      throw new IllegalStateException("already started");
+    }
+    watchService = FileSystems.getDefault().newWatchService();
+    for (File dir : sourcePath) {
+      if (dir.isDirectory()) {
+        registerTree(dir.toPath());
+      }
+    }
+
+    Thread thread = new Thread(new Runnable() {
+      @Override
+      public void run() {
+        watch();
+      }
+    }, "SourceWatcher");
+    thread.setDaemon(true);
+    thread.start();
+  }
+
+  /**
+   * Stops watching. Changes that haven't been reported yet are dropped.
+   */
+  synchronized void stop() throws IOException {
+    if (watchService != null) {
+      watchService.close();
+    }
+  }
+
+  private void watch() {
+    try {
+      while (true) {
+        Set<String> changedFiles = new LinkedHashSet<String>();
+        WatchKey key = watchService.take();
+        while (key != null) {
+          handleEvents(key, changedFiles);
+          key = changedFiles.isEmpty() ? watchService.take()
+              : watchService.poll(debounceMillis, TimeUnit.MILLISECONDS);
+        }
+        logger.log(Type.INFO, changedFiles.size() + " source file(s) changed; recompiling");
+        try {
+          listener.onSourceChange(ImmutableList.copyOf(changedFiles));
+        } catch (RuntimeException e) {
+          logger.log(Type.WARN, "unable to recompile after a source change", e);
+        }
+      }
+    } catch (ClosedWatchServiceException e) {
+      // stopped
+    } catch (InterruptedException e) {
+      // Allow the JVM to shutdown.
+    }
+  }
+
+  private void handleEvents(WatchKey key, Set<String> changedFiles) {
+    Path dir = (Path) key.watchable();
+    for (WatchEvent<?> event : key.pollEvents()) {
+      if (event.kind() == OVERFLOW) {
+        // Some events were lost, so report the directory instead.
+        changedFiles.add(dir.toString());
+        continue;
+      }
+      Path child = dir.resolve((Path) event.context());
+      if (event.kind() == ENTRY_CREATE && Files.isDirectory(child)) {
+        try {
+          registerTree(child);
+        } catch (IOException e) {
+          logger.log(Type.WARN, "unable to watch directory: " + child, e);
+        }
+        continue;
+      }
+      if (isWatchedFile(child)) {
+        changedFiles.add(child.toString());
+      }
+    }
+    key.reset();
+  }
+
+  private void registerTree(Path root) throws IOException {
+    Files.walkFileTree(root, new SimpleFileVisitor<Path>() {
+      @Override
+      public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs)
+          throws IOException {
+        if (Files.isHidden(dir) && !dir.equals(root)) {
+          return FileVisitResult.SKIP_SUBTREE;
+        }
+        dir.register(watchService, ENTRY_CREATE, ENTRY_DELETE, ENTRY_MODIFY);
+        return FileVisitResult.CONTINUE;
+      }
+    });
+  }
+
+  static boolean isWatchedFile(Path path) {
+    String name = path.getFileName().toString();
+    for (String suffix : WATCHED_SUFFIXES) {
+      if (name.endsWith(suffix)) {
+        return true;
+      }
+    }
+    return false;
+  }
+}
@@ -286,8 +286,7 @@ public class WebServer {
 
       JsonObject json;
       if (event == null) {
-        json = new JsonObject();
-        json.put("status", "idle");
+        json = jsonExporter.exportIdleProgressResponse();
       } else {
         json = jsonExporter.exportProgressResponse(event);
       }
@@ -325,7 +324,7 @@ public class WebServer {
   /**
    * Returns a file that the compiler wrote to its war directory.
    */
-  private Response makeCompilerOutputPage(String target) {
+  private Response makeCompilerOutputPage(String target) throws IOException {
 
     int secondSlash = target.indexOf('/', 1);
     String moduleName = target.substring(1, secondSlash);
@@ -334,17 +333,10 @@ public class WebServer {
       return new ErrorPage("No such module: " + moduleName);
     }
 
-    final String contentEncoding;
     File file = box.getOutputFile(target);
-    if (!file.isFile()) {
-      // perhaps it's compressed
-      file = box.getOutputFile(target + ".gz");
-      if (!file.isFile()) {
-        return new ErrorPage("not found: " + file.toString());
-      }
-      contentEncoding = "gzip";
-    } else {
-      contentEncoding = null;
+    OutputCache.Entry entry = box.getCachedOutputFile(target);
+    if (entry == null) {
+      return new ErrorPage("not found: " + file);
     }
 
     final String sourceMapUrl;
@@ -358,7 +350,7 @@ public class WebServer {
     }
 
     String mimeType = guessMimeType(target);
-    final Response barePage = Responses.newFileResponse(mimeType, file);
+    final Response barePage = Responses.newCachedFileResponse(mimeType, entry, file);
 
     // Wrap the response to send the extra headers.
     return new Response() {
@@ -373,15 +365,6 @@ public class WebServer {
           response.setHeader("SourceMap", sourceMapUrl);
         }
 
-        if (contentEncoding != null) {
-          if (!request.getHeader("Accept-Encoding").contains("gzip")) {
-            response.sendError(HttpServletResponse.SC_NOT_IMPLEMENTED);
-            logger.log(TreeLogger.WARN, "client doesn't accept gzip; bailing");
-            return;
-          }
-          response.setHeader("Content-Encoding", "gzip");
-        }
-
         barePage.send(request, response, logger);
       }
     };
@@ -0,0 +1,161 @@
+/*
+ * Copyright 2026 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.gwt.dev.codeserver;
+
+import com.google.gwt.thirdparty.guava.common.io.ByteStreams;
+
+import junit.framework.TestCase;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Tests {@link OutputCache} and the response that sends its entries.
+ */
+public class OutputCacheTest extends TestCase {
+
+  private File dir;
+
+  public void testUncompressedFile() throws IOException {
+    File file = new File(dir, "foo.cache.js");
+    Files.write(file.toPath(), "var foo;".getBytes("UTF-8"));
+
+    OutputCache cache = new OutputCache(OutputCache.DEFAULT_MAX_BYTES);
+    OutputCache.Entry entry = cache.get(dir, "foo.cache.js");
+    assertEquals("var foo;", gunzip(entry.getGzipped()));
+    assertSame(entry, cache.get(dir, "foo.cache.js"));
+    assertEquals(entry.getGzipped().length, cache.getBytesUsed());
+  }
+
+  public void testPrecompressedFile() throws IOException {
+    writeGzipped(new File(dir, "bar.cache.js.gz"), "var bar;");
+
+    OutputCache.Entry entry =
+        new OutputCache(OutputCache.DEFAULT_MAX_BYTES).get(dir, "bar.cache.js");
+    assertEquals("var bar;", gunzip(entry.getGzipped()));
+  }
+
+  public void testIncompressibleFile() throws IOException {
+    File file = new File(dir, "foo.png");
+    Files.write(file.toPath(), new byte[] {1, 2, 3});
+
+    OutputCache cache = new OutputCache(OutputCache.DEFAULT_MAX_BYTES);
+    OutputCache.Entry entry = cache.get(dir, "foo.png");
+    assertTrue(Arrays.equals(new byte[] {1, 2, 3}, entry.getIdentity()));
+    assertNull(entry.getGzipped());
+    assertEquals(3, cache.getBytesUsed());
+  }
+
+  public void testStrongNamedFilesAreKeptForTheNextCompile() throws IOException {
+    String keptPath = "foo/0123456789ABCDEF0123456789ABCDEF.cache.js";
+    String droppedPath = "foo/FEDCBA9876543210FEDCBA9876543210.cache.js";
+    String gzippedPath = "foo/00112233445566778899AABBCCDDEEFF.cache.js";
+    String otherPath = "foo/foo.nocache.js";
+    File firstDir = new File(dir, "first");
+    for (String path : new String[] {keptPath, droppedPath, gzippedPath, otherPath}) {
+      write(new File(firstDir, path), "var foo;");
+    }
+    OutputCache cache = new OutputCache(OutputCache.DEFAULT_MAX_BYTES);
+    OutputCache.Entry keptEntry = cache.get(firstDir, keptPath);
+    OutputCache.Entry gzippedEntry = cache.get(firstDir, gzippedPath);
+    cache.get(firstDir, droppedPath);
+    OutputCache.Entry otherEntry = cache.get(firstDir, otherPath);
+
+    // The next compile writes to another directory, and only some of the same permutations.
+    File nextDir = new File(dir, "next");
+    write(new File(nextDir, keptPath), "var foo;");
+    writeGzipped(new File(nextDir, gzippedPath + ".gz"), "var foo;");
+    write(new File(nextDir, otherPath), "var bar;");
+    OutputCache next = cache.forNextCompile(nextDir);
+    assertEquals(2 * keptEntry.getGzipped().length, next.getBytesUsed());
+    assertSame(keptEntry, next.get(nextDir, keptPath));
+    assertSame(gzippedEntry, next.get(nextDir, gzippedPath));
+    assertNull(next.get(nextDir, droppedPath));
+    OutputCache.Entry nextOtherEntry = next.get(nextDir, otherPath);
+    assertNotSame(otherEntry, nextOtherEntry);
+    assertEquals("var bar;", gunzip(nextOtherEntry.getGzipped()));
+  }
+
+  public void testMissingFile() throws IOException {
+    assertNull(new OutputCache(OutputCache.DEFAULT_MAX_BYTES).get(dir, "none.js"));
+  }
+
+  public void testLimit() throws IOException {
+    File file = new File(dir, "foo.cache.js");
+    Files.write(file.toPath(), "var foo;".getBytes("UTF-8"));
+
+    OutputCache cache = new OutputCache(1);
+    OutputCache.Entry entry = cache.get(dir, "foo.cache.js");
+    assertNotNull(entry);
+    assertNotSame(entry, cache.get(dir, "foo.cache.js"));
+    assertEquals(0, cache.getBytesUsed());
+  }
+
+  public void testETags() throws IOException {
+    File file = new File(dir, "foo.cache.js");
+    Files.write(file.toPath(), "var foo;".getBytes("UTF-8"));
+    OutputCache.Entry entry =
+        new OutputCache(OutputCache.DEFAULT_MAX_BYTES).get(dir, "foo.cache.js");
+
+    assertFalse(entry.getETag(null).equals(entry.getETag("gzip")));
+    assertTrue(entry.matches(entry.getETag("gzip")));
+    assertTrue(entry.matches("\"other\", W/" + entry.getETag(null)));
+    assertTrue(entry.matches("*"));
+    assertFalse(entry.matches("\"other\""));
+    assertFalse(entry.matches(null));
+  }
+
+  public void testAcceptsEncoding() {
+    assertTrue(Responses.acceptsEncoding("gzip, deflate, br", "gzip"));
+    assertTrue(Responses.acceptsEncoding("gzip, deflate, br", "br"));
+    assertTrue(Responses.acceptsEncoding("GZIP;q=0.5", "gzip"));
+    assertTrue(Responses.acceptsEncoding("*", "br"));
+    assertFalse(Responses.acceptsEncoding("gzip;q=0", "gzip"));
+    assertFalse(Responses.acceptsEncoding("gzip; q=0.0", "gzip"));
+    assertFalse(Responses.acceptsEncoding("deflate", "gzip"));
+    assertFalse(Responses.acceptsEncoding(null, "gzip"));
+  }
+
+  @Override
+  protected void setUp() throws Exception {
+    super.setUp();
+    dir = Files.createTempDirectory("outputCacheTest").toFile();
+  }
+
+  private static void write(File file, String contents) throws IOException {
+    file.getParentFile().mkdirs();
+    Files.write(file.toPath(), contents.getBytes("UTF-8"));
+  }
+
+  private static void writeGzipped(File file, String contents) throws IOException {
+    file.getParentFile().mkdirs();
+    OutputStream out = new GZIPOutputStream(new FileOutputStream(file));
+    out.write(contents.getBytes("UTF-8"));
+    out.close();
+  }
+
+  private static String gunzip(byte[] bytes) throws IOException {
+    return new String(ByteStreams.toByteArray(
+        new GZIPInputStream(new ByteArrayInputStream(bytes))), "UTF-8");
+  }
+}
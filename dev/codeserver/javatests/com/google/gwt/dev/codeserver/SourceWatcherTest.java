@@ -0,0 +1,107 @@
+/*
+ * Copyright 2026 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.gwt.dev.codeserver;
+
+import com.google.gwt.core.ext.TreeLogger;
+import com.google.gwt.dev.util.log.PrintWriterTreeLogger;
+import com.google.gwt.thirdparty.guava.common.collect.ImmutableList;
+
+import junit.framework.TestCase;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tests {@link SourceWatcher}.
+ */
+public class SourceWatcherTest extends TestCase {
+
+  private final BlockingQueue<ImmutableList<String>> changes =
+      new LinkedBlockingQueue<ImmutableList<String>>();
+  private File sourceDir;
+  private SourceWatcher watcher;
+
+  public void testReportsBatchOfChanges() throws Exception {
+    File fooFile = new File(sourceDir, "com/example/Foo.java");
+    File barFile = new File(sourceDir, "com/example/Bar.ui.xml");
+    write(fooFile, "class Foo {}");
+    write(barFile, "<ui:UiBinder/>");
+    write(new File(sourceDir, "com/example/notes.txt"), "ignored");
+
+    ImmutableList<String> changedFiles = changes.poll(30, TimeUnit.SECONDS);
+    assertNotNull(changedFiles);
+    assertTrue(changedFiles.contains(fooFile.getPath()));
+    assertTrue(changedFiles.contains(barFile.getPath()));
+    for (String path : changedFiles) {
+      assertFalse(path.endsWith(".txt"));
+    }
+  }
+
+  public void testWatchesNewDirectories() throws Exception {
+    File newDir = new File(sourceDir, "com/example/client");
+    assertTrue(newDir.mkdirs());
+    // Let the watcher see the new directory before writing to it.
+    Thread.sleep(500);
+    changes.clear();
+
+    File bazFile = new File(newDir, "Baz.css");
+    write(bazFile, ".baz {}");
+    ImmutableList<String> changedFiles = changes.poll(30, TimeUnit.SECONDS);
+    assertNotNull(changedFiles);
+    assertTrue(changedFiles.contains(bazFile.getPath()));
+  }
+
+  public void testIsWatchedFile() {
+    assertTrue(SourceWatcher.isWatchedFile(Paths.get("com/example/Foo.java")));
+    assertTrue(SourceWatcher.isWatchedFile(Paths.get("com/example/Foo.ui.xml")));
+    assertTrue(SourceWatcher.isWatchedFile(Paths.get("com/example/Foo.css")));
+    assertTrue(SourceWatcher.isWatchedFile(Paths.get("com/example/Foo.gwt.xml")));
+    assertFalse(SourceWatcher.isWatchedFile(Paths.get("com/example/Foo.xml")));
+    assertFalse(SourceWatcher.isWatchedFile(Paths.get("com/example/Foo.java~")));
+  }
+
+  @Override
+  protected void setUp() throws Exception {
+    super.setUp();
+    sourceDir = Files.createTempDirectory("sourceWatcherTest").toFile();
+    assertTrue(new File(sourceDir, "com/example").mkdirs());
+    PrintWriterTreeLogger logger = new PrintWriterTreeLogger();
+    logger.setMaxDetail(TreeLogger.ERROR);
+    watcher = new SourceWatcher(ImmutableList.of(sourceDir), 100, new SourceWatcher.Listener() {
+      @Override
+      public void onSourceChange(ImmutableList<String> changedFiles) {
+        changes.add(changedFiles);
+      }
+    }, logger);
+    watcher.start();
+  }
+
+  @Override
+  protected void tearDown() throws Exception {
+    watcher.stop();
+    super.tearDown();
+  }
+
+  private static void write(File file, String content) throws IOException {
+    file.getParentFile().mkdirs();
+    Files.write(file.toPath(), content.getBytes("UTF-8"));
+  }
+}
@@ -69,12 +69,7 @@ public abstract class AbstractLinker extends Linker {
    */
   protected final SyntheticArtifact emitInputStream(TreeLogger logger,
       InputStream what, String partialPath) throws UnableToCompleteException {
-    try (what) {
-      return emitBytes(logger, what.readAllBytes(), partialPath);
-    } catch (IOException e) {
-      logger.log(TreeLogger.ERROR, "Error during copy", e);
-      throw new UnableToCompleteException();
-    }
+    return emitInputStream(logger, what, partialPath, System.currentTimeMillis());
   }
 
   /**
@@ -91,7 +86,7 @@ public abstract class AbstractLinker extends Linker {
       InputStream what, String partialPath, long lastModified)
       throws UnableToCompleteException {
     try (what) {
-      return emitBytes(logger, what.readAllBytes(), partialPath, lastModified);
+      return new SyntheticArtifact(getClass(), partialPath, what, lastModified);
     } catch (IOException e) {
       logger.log(TreeLogger.ERROR, "Error during copy", e);
       throw new UnableToCompleteException();
@@ -20,17 +20,89 @@ import com.google.gwt.core.ext.Linker;
 import com.google.gwt.core.linker.SoycReportLinker;
 import com.google.gwt.dev.js.SizeBreakdown;
 
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
 /**
  * Captures some metrics from the compile permutations step of the build.
  */
 @Transferable
 public class CompilationMetricsArtifact extends Artifact<CompilationMetricsArtifact> {
 
+  /**
+   * What one Java optimizer cost and changed over the whole optimization loop.
+   */
+  public static class OptimizerMetrics implements Serializable {
+    private static final long serialVersionUID = 0L;
+
+    private final String name;
+    private final int runs;
+    private final int skipped;
+    private final long elapsedMilliseconds;
+    private final long nodesVisited;
+    private final long nodesChanged;
+
+    private OptimizerMetrics(String name, int runs, int skipped, long elapsedMilliseconds,
+        long nodesVisited, long nodesChanged) {
+      this.name = name;
+      this.runs = runs;
+      this.skipped = skipped;
+      this.elapsedMilliseconds = elapsedMilliseconds;
+      this.nodesVisited = nodesVisited;
+      this.nodesChanged = nodesChanged;
+    }
+
+    /**
+     * @return wall clock time spent in the optimizer
+     */
+    public long getElapsedMilliseconds() {
+      return elapsedMilliseconds;
+    }
+
+    /**
+     * @return the name of the optimizer
+     */
+    public String getName() {
+      return name;
+    }
+
+    /**
+     * @return the number of times the optimizer changed the AST
+     */
+    public long getNodesChanged() {
+      return nodesChanged;
+    }
+
+    /**
+     * @return the number of AST nodes the optimizer traversed
+     */
+    public long getNodesVisited() {
+      return nodesVisited;
+    }
+
+    /**
+     * @return the number of times the optimizer ran
+     */
+    public int getRuns() {
+      return runs;
+    }
+
+    /**
+     * @return the number of optimization passes in which the optimizer was skipped
+     */
+    public int getSkipped() {
+      return skipped;
+    }
+  }
+
   private long compileElapsedMilliseconds;
   private long elapsedMilliseconds;
   private final int permutationId;
   private String permutationDescription;
   private int[] jsSize;
+  private final List<OptimizerMetrics> optimizerMetrics = new ArrayList<OptimizerMetrics>();
 
   public CompilationMetricsArtifact(int permutationId) {
     this(SoycReportLinker.class, permutationId);
@@ -63,6 +135,13 @@ public class CompilationMetricsArtifact extends Artifact<CompilationMetricsArtif
     return this.jsSize;
   }
 
+  /**
+   * @return the cost and effect of each Java optimizer, in the order they first ran.
+   */
+  public List<OptimizerMetrics> getOptimizerMetrics() {
+    return Collections.unmodifiableList(optimizerMetrics);
+  }
+
   /**
    * @return the permutation id associated with compiling this permutation.
    */
@@ -77,6 +156,16 @@ public class CompilationMetricsArtifact extends Artifact<CompilationMetricsArtif
     return permutationDescription;
   }
 
+  /**
+   * Records what a Java optimizer cost and changed over the whole optimization loop.
+   */
+  public CompilationMetricsArtifact addOptimizerMetrics(String name, int runs, int skipped,
+      long elapsedMilliseconds, long nodesVisited, long nodesChanged) {
+    optimizerMetrics.add(new OptimizerMetrics(name, runs, skipped, elapsedMilliseconds,
+        nodesVisited, nodesChanged));
+    return this;
+  }
+
   @Override
   public int hashCode() {
     return getName().hashCode();
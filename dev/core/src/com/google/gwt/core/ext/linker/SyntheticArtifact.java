@@ -49,6 +49,18 @@ public class SyntheticArtifact extends EmittedArtifact {
     this.token = diskCache.writeByteArray(data);
   }
 
+  /**
+   * Creates an artifact with the rest of the data in a stream, which is copied
+   * to the disk cache without being held in memory. The stream is not closed.
+   */
+  public SyntheticArtifact(Class<? extends Linker> linkerType,
+      String partialPath, InputStream data, long lastModified) throws IOException {
+    super(linkerType, partialPath);
+    assert data != null;
+    this.lastModified = lastModified;
+    this.token = diskCache.transferFromStream(data);
+  }
+
   @Override
   public InputStream getContents(TreeLogger logger)
       throws UnableToCompleteException {
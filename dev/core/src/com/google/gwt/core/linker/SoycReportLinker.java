@@ -35,6 +35,7 @@ import com.google.gwt.soyc.SoycDashboard;
 import com.google.gwt.soyc.io.ArtifactsOutputDirectory;
 
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
@@ -43,10 +44,20 @@ import java.util.TreeMap;
 
 /**
  * Converts SOYC report files into emitted private artifacts.
+ * <p>
+ * A file describing the permutations is emitted along with the report data, so that
+ * {@link SoycDashboard#main} can render the HTML from the data later, for instance when the
+ * compiler was told to record the data only.
  */
 @LinkerOrder(Order.POST)
 @Shardable
 public class SoycReportLinker extends Linker {
+
+  /**
+   * The private artifact that lists the permutations, one deferred binding description per line,
+   * as a permutation id and the description separated by a tab.
+   */
+  public static final String PERMUTATION_DESCRIPTIONS_FILE = "permutations.txt";
   /**
    * An artifact giving a one-line description of a permutation ID in terms of
    * its deferred bindings.
@@ -116,9 +127,10 @@ public class SoycReportLinker extends Linker {
       ArtifactSet artifacts, boolean onePermutation) {
 
     boolean reportFilesPresent = anyReportFilesPresent(artifacts);
+    boolean reportDataPresent = anyReportDataPresent(artifacts);
     boolean metricsPresent = anyCompilerMetricsPresent(artifacts);
 
-    if (!reportFilesPresent && !metricsPresent) {
+    if (!reportFilesPresent && !reportDataPresent && !metricsPresent) {
       return artifacts;
     }
 
@@ -128,11 +140,16 @@ public class SoycReportLinker extends Linker {
       buildCompilerMetricsXml(artifacts);
     }
 
-    if (reportFilesPresent) {
+    if (reportFilesPresent || reportDataPresent) {
       if (onePermutation) {
         emitPermutationDescriptions(artifacts);
       } else {
-        buildTopLevelFiles(logger, artifacts);
+        if (reportFilesPresent) {
+          buildTopLevelFiles(logger, artifacts);
+        }
+        if (reportDataPresent) {
+          buildPermutationDescriptionsFile(artifacts);
+        }
       }
     }
 
@@ -165,6 +182,19 @@ public class SoycReportLinker extends Linker {
     return false;
   }
 
+  /**
+   * Check whether an artifact set contains the data the SOYC report documents are made from.
+   */
+  boolean anyReportDataPresent(ArtifactSet artifacts) {
+    for (EmittedArtifact art : artifacts.find(EmittedArtifact.class)) {
+      if (art.getPartialPath().startsWith("splitPoints")
+          && art.getPartialPath().endsWith(".xml.gz")) {
+        return true;
+      }
+    }
+    return false;
+  }
+
   /**
    * Compiler Metrics are captured in the module load, precompilation,
    * and compile permutations step, then all merged together into a single
@@ -211,6 +241,21 @@ public class SoycReportLinker extends Linker {
     artifacts.addAll(out.getArtifacts());
   }
 
+  private void buildPermutationDescriptionsFile(ArtifactSet artifacts) {
+    StringBuilder descriptions = new StringBuilder();
+    for (Map.Entry<String, List<String>> entry :
+        extractPermutationDescriptions(artifacts).entrySet()) {
+      for (String permDesc : entry.getValue()) {
+        descriptions.append(entry.getKey()).append('\t').append(permDesc).append('\n');
+      }
+    }
+    EmittedArtifact descriptionsArtifact = new SyntheticArtifact(SoycReportLinker.class,
+        PERMUTATION_DESCRIPTIONS_FILE,
+        descriptions.toString().getBytes(StandardCharsets.UTF_8));
+    descriptionsArtifact.setVisibility(Visibility.Private);
+    artifacts.add(descriptionsArtifact);
+  }
+
   private void emitPermutationDescriptions(ArtifactSet artifacts) {
     for (CompilationResult res : artifacts.find(CompilationResult.class)) {
       int permId = res.getPermutationId();
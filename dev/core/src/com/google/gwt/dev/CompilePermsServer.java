@@ -22,17 +22,12 @@ import com.google.gwt.dev.jjs.PermutationResult;
 import com.google.gwt.dev.jjs.UnifiedAst;
 import com.google.gwt.dev.util.PerfCounter;
 import com.google.gwt.dev.util.PersistenceBackedObject;
-import com.google.gwt.dev.util.StringInterningObjectInputStream;
 import com.google.gwt.dev.util.arg.ArgHandlerLogLevel;
 import com.google.gwt.dev.util.arg.OptionLogLevel;
 import com.google.gwt.dev.util.log.PrintWriterTreeLogger;
 import com.google.gwt.util.tools.ArgHandlerString;
 
-import java.io.File;
-import java.io.FileInputStream;
 import java.io.IOException;
-import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
 import java.net.Socket;
 import java.net.UnknownHostException;
 
@@ -250,34 +245,29 @@ public class CompilePermsServer {
       Socket s = new Socket(options.getCompileHost(), options.getCompilePort());
       logger.log(TreeLogger.DEBUG, "Socket opened");
 
-      ObjectOutputStream out = new ObjectOutputStream(s.getOutputStream());
-      ObjectInputStream in = new StringInterningObjectInputStream(s.getInputStream());
+      PermutationWorkerProtocol protocol =
+          new PermutationWorkerProtocol(s.getInputStream(), s.getOutputStream());
 
       // Write my cookie
-      out.writeUTF(options.getCookie());
-      out.flush();
-
-      // Read the File that contains the serialized UnifiedAst
-      File astFile = (File) in.readObject();
-      ObjectInputStream astIn = new StringInterningObjectInputStream(new FileInputStream(
-          astFile));
-      UnifiedAst ast = (UnifiedAst) astIn.readObject();
+      protocol.writeHello(options.getCookie());
+
+      // Map the File that contains the shared UnifiedAst
+      UnifiedAst ast = UnifiedAst.readShared(protocol.readAstFile());
       ast.prepare();
       logger.log(TreeLogger.SPAM, "Created new UnifiedAst instance");
 
       // Report on the amount of memory we think we're using
       long estimatedMemory = Runtime.getRuntime().totalMemory()
           - Runtime.getRuntime().freeMemory();
-      out.writeLong(estimatedMemory);
-      out.flush();
+      protocol.writeMemoryUse(estimatedMemory);
 
-      boolean keepGoing = in.readBoolean();
-      while (keepGoing) {
-        compilePermutation(logger, ast, in, out);
+      PermutationWorkerProtocol.CompileRequest request = protocol.readCompileRequest();
+      while (request != null) {
+        compilePermutation(logger, ast, request, protocol);
 
-        keepGoing = in.readBoolean();
+        request = protocol.readCompileRequest();
         if (logger.isLoggable(TreeLogger.SPAM)) {
-          logger.log(TreeLogger.SPAM, "keepGoing = " + keepGoing);
+          logger.log(TreeLogger.SPAM, "keepGoing = " + (request != null));
         }
       }
 
@@ -296,11 +286,10 @@ public class CompilePermsServer {
   }
 
   static void compilePermutation(TreeLogger logger, UnifiedAst ast,
-      ObjectInputStream in, ObjectOutputStream out)
-      throws ClassNotFoundException, IOException {
-    PersistenceBackedObject<PermutationResult> resultFile =
-        (PersistenceBackedObject<PermutationResult>) in.readObject();
-    Permutation permutation = (Permutation) in.readObject();
+      PermutationWorkerProtocol.CompileRequest request, PermutationWorkerProtocol protocol)
+      throws IOException {
+    PersistenceBackedObject<PermutationResult> resultFile = request.getResultFile();
+    Permutation permutation = request.getPermutation();
     logger.log(TreeLogger.SPAM, "Permutation read");
 
     Throwable caught = null;
@@ -321,8 +310,7 @@ public class CompilePermsServer {
     }
 
     // Might send a placeholder null indicating no Throwable.
-    out.writeObject(caught);
-    out.flush();
+    protocol.writeResult(caught);
     logger.log(TreeLogger.SPAM, "Sent result");
   }
 }
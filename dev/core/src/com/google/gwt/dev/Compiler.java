@@ -25,6 +25,7 @@ import com.google.gwt.dev.javac.UnitCache;
 import com.google.gwt.dev.javac.UnitCacheSingleton;
 import com.google.gwt.dev.jjs.PermutationResult;
 import com.google.gwt.dev.js.JsNamespaceOption;
+import com.google.gwt.dev.util.DiskCache;
 import com.google.gwt.dev.util.Memory;
 import com.google.gwt.dev.util.PersistenceBackedObject;
 import com.google.gwt.dev.util.arg.ArgHandlerDeployDir;
@@ -220,6 +221,9 @@ public class Compiler {
         double compileSeconds = (afterCompileMs - beforeCompileMs) / 1000d;
         branch.log(TreeLogger.INFO,
             String.format("Compilation succeeded -- %.3fs", compileSeconds));
+        if (branch.isLoggable(TreeLogger.DEBUG)) {
+          branch.log(TreeLogger.DEBUG, "Disk cache: " + DiskCache.INSTANCE.getStats());
+        }
 
         long beforeLinkMs = System.currentTimeMillis();
         Event linkEvent = SpeedTracerLogger.start(CompilerEventType.LINK);
@@ -20,7 +20,6 @@ import com.google.gwt.core.ext.UnableToCompleteException;
 import com.google.gwt.dev.jjs.PermutationResult;
 import com.google.gwt.dev.jjs.UnifiedAst;
 import com.google.gwt.dev.util.PersistenceBackedObject;
-import com.google.gwt.dev.util.StringInterningObjectInputStream;
 import com.google.gwt.dev.util.log.speedtracer.CompilerEventType;
 import com.google.gwt.dev.util.log.speedtracer.SpeedTracerLogger;
 import com.google.gwt.util.tools.shared.StringUtils;
@@ -28,12 +27,8 @@ import com.google.gwt.util.tools.shared.StringUtils;
 import java.io.BufferedReader;
 import java.io.EOFException;
 import java.io.File;
-import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStreamReader;
-import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
-import java.io.OutputStream;
 import java.lang.management.ManagementFactory;
 import java.net.ServerSocket;
 import java.net.Socket;
@@ -94,8 +89,7 @@ public class ExternalPermutationWorkerFactory extends PermutationWorkerFactory {
   private static class ExternalPermutationWorker implements PermutationWorker {
     private final File astFile;
     private final Set<String> cookies;
-    private ObjectInputStream in;
-    private ObjectOutputStream out;
+    private PermutationWorkerProtocol protocol;
     private final CountedServerSocket serverSocket;
     private Socket workerSocket;
 
@@ -120,20 +114,20 @@ public class ExternalPermutationWorkerFactory extends PermutationWorkerFactory {
            */
           workerSocket = serverSocket.accept();
 
-          in = new StringInterningObjectInputStream(workerSocket.getInputStream());
-          out = new ObjectOutputStream(workerSocket.getOutputStream());
+          protocol = new PermutationWorkerProtocol(workerSocket.getInputStream(),
+              workerSocket.getOutputStream());
 
           // Verify we're talking to the right worker
-          String c = in.readUTF();
+          String c = protocol.readHello();
           if (!cookies.contains(c)) {
             throw new TransientWorkerException("Received unknown cookie " + c,
                 null);
           }
 
-          out.writeObject(astFile);
+          protocol.writeAstFile(astFile);
 
           // Get the remote worker's estimate of memory use
-          long memoryUse = in.readLong();
+          long memoryUse = protocol.readMemoryUse();
           if (logger.isLoggable(TreeLogger.SPAM)) {
             logger.log(TreeLogger.SPAM, "Remote process indicates " + memoryUse
                 + " bytes of memory used");
@@ -149,12 +143,9 @@ public class ExternalPermutationWorkerFactory extends PermutationWorkerFactory {
       }
 
       try {
-        out.writeBoolean(true);
-        out.writeObject(resultFile);
-        out.writeObject(permutation);
-        out.flush();
+        protocol.writeCompileRequest(resultFile, permutation);
 
-        Throwable t = (Throwable) in.readObject();
+        Throwable t = protocol.readResult();
         if (t != null) {
           logger.log(TreeLogger.ERROR, "Error from external worker", t);
           throw new UnableToCompleteException();
@@ -178,19 +169,9 @@ public class ExternalPermutationWorkerFactory extends PermutationWorkerFactory {
 
     @Override
     public void shutdown() {
-      if (out != null) {
+      if (protocol != null) {
         try {
-          out.writeBoolean(false);
-          out.flush();
-          out.close();
-        } catch (IOException e) {
-          // Not much to do here
-        }
-      }
-
-      if (in != null) {
-        try {
-          in.close();
+          protocol.writeShutdown();
         } catch (IOException e) {
           // Not much to do here
         }
@@ -223,6 +204,114 @@ public class ExternalPermutationWorkerFactory extends PermutationWorkerFactory {
    */
   private static Random random = new Random();
 
+  /**
+   * Returns the number of local workers to use when
+   * {@link PermutationWorkerFactory#WORKERS_AUTO} is requested: one per
+   * available processor, but no more than the physical memory left over by
+   * this JVM can hold worker processes with the maximum heap they are launched
+   * with. Always at least one.
+   */
+  static int getAutoLocalWorkerCount(TreeLogger logger) {
+    Runtime runtime = Runtime.getRuntime();
+    long physicalMemory = getPhysicalMemory();
+    long workerMaxHeap = getMaxHeap(getWorkerJvmArgs(), physicalMemory);
+    int localWorkers = computeLocalWorkerCount(runtime.availableProcessors(),
+        physicalMemory, runtime.maxMemory(), workerMaxHeap);
+    if (logger.isLoggable(TreeLogger.DEBUG)) {
+      logger.log(TreeLogger.DEBUG, "Using up to " + localWorkers
+          + " local workers to compile permutations (" + (physicalMemory >> 20)
+          + " MB physical memory, " + (workerMaxHeap >> 20) + " MB max heap per worker)");
+    }
+    return localWorkers;
+  }
+
+  /**
+   * Returns the local worker count used by {@link #getAutoLocalWorkerCount},
+   * given the number of processors, the physical memory, the max heap of this
+   * JVM and the max heap of each worker (or -1 for sizes that are unknown).
+   */
+  static int computeLocalWorkerCount(int processors, long physicalMemory, long maxHeap,
+      long workerMaxHeap) {
+    if (physicalMemory <= 0 || workerMaxHeap <= 0) {
+      // Don't risk running out of memory.
+      return 1;
+    }
+    long workersForMemory = (physicalMemory - maxHeap) / workerMaxHeap;
+    return (int) Math.max(1, Math.min(processors, workersForMemory));
+  }
+
+  /**
+   * Returns the max heap set by -Xmx or -XX:MaxHeapSize in the given JVM args,
+   * or else the JVM's default of a quarter of the physical memory, or -1 if
+   * that is unknown.
+   */
+  static long getMaxHeap(List<String> jvmArgs, long physicalMemory) {
+    long maxHeap = physicalMemory > 0 ? physicalMemory / 4 : -1;
+    for (String arg : jvmArgs) {
+      if (arg.startsWith("-Xmx")) {
+        maxHeap = parseMemorySize(arg.substring("-Xmx".length()));
+      } else if (arg.startsWith("-XX:MaxHeapSize=")) {
+        maxHeap = parseMemorySize(arg.substring("-XX:MaxHeapSize=".length()));
+      }
+    }
+    return maxHeap;
+  }
+
+  /**
+   * Returns the physical memory of this machine, or -1 if it's unknown.
+   */
+  private static long getPhysicalMemory() {
+    try {
+      // Through the interface, since com.sun.management may not be available.
+      return (Long) Class.forName("com.sun.management.OperatingSystemMXBean")
+          .getMethod("getTotalPhysicalMemorySize")
+          .invoke(ManagementFactory.getOperatingSystemMXBean());
+    } catch (Exception e) {
+      return -1;
+    }
+  }
+
+  /**
+   * Returns the JVM args that workers are launched with, which include -Xmx,
+   * -D, etc...
+   */
+  private static List<String> getWorkerJvmArgs() {
+    String userJvmArgs = System.getProperty(JVM_ARGS_PROPERTY);
+    if (userJvmArgs == null) {
+      return ManagementFactory.getRuntimeMXBean().getInputArguments();
+    }
+    return Arrays.asList(userJvmArgs.split(" "));
+  }
+
+  /**
+   * Parses a JVM memory size such as "512m" or "2G", or returns -1 if it isn't
+   * one.
+   */
+  private static long parseMemorySize(String size) {
+    int shift = 0;
+    switch (size.isEmpty() ? ' ' : Character.toLowerCase(size.charAt(size.length() - 1))) {
+      case 'k':
+        shift = 10;
+        break;
+      case 'm':
+        shift = 20;
+        break;
+      case 'g':
+        shift = 30;
+        break;
+      case 't':
+        shift = 40;
+        break;
+      default:
+        break;
+    }
+    try {
+      return Long.parseLong(shift == 0 ? size : size.substring(0, size.length() - 1)) << shift;
+    } catch (NumberFormatException e) {
+      return -1;
+    }
+  }
+
   /**
    * Launches an external worker and returns the cookie that worker should
    * return via the network connection.
@@ -241,13 +330,7 @@ public class ExternalPermutationWorkerFactory extends PermutationWorkerFactory {
     List<String> args = new ArrayList<String>();
     args.add(javaCommand);
 
-    // This will include -Xmx, -D, etc...
-    String userJvmArgs = System.getProperty(JVM_ARGS_PROPERTY);
-    if (userJvmArgs == null) {
-      args.addAll(ManagementFactory.getRuntimeMXBean().getInputArguments());
-    } else {
-      args.addAll(Arrays.asList(userJvmArgs.split(" ")));
-    }
+    args.addAll(getWorkerJvmArgs());
 
     // Determine the logLevel for the external program
     TreeLogger.Type logLevel = TreeLogger.ERROR;
@@ -358,13 +441,12 @@ public class ExternalPermutationWorkerFactory extends PermutationWorkerFactory {
     ensureSocket(logger);
     File astFile;
     try {
-      astFile = File.createTempFile("externalPermutationWorkerFactory", ".ser");
+      astFile = File.createTempFile("externalPermutationWorkerFactory", ".ast");
       astFile.deleteOnExit();
       SpeedTracerLogger.Event writeObjectAsFileEvent = SpeedTracerLogger.start(
           CompilerEventType.WRITE_OBJECT_AS_FILE);
-      try (OutputStream stream = new FileOutputStream(astFile);
-           ObjectOutputStream objectStream = new ObjectOutputStream(stream)) {
-        objectStream.writeObject(unifiedAst);
+      try {
+        unifiedAst.writeShared(astFile);
       } catch (IOException e) {
         logger.log(TreeLogger.ERROR, "Unable to write file: "
             + astFile.getAbsolutePath(), e);
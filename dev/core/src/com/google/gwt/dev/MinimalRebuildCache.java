@@ -37,6 +37,7 @@ import com.google.gwt.thirdparty.guava.common.collect.HashMultimap;
 import com.google.gwt.thirdparty.guava.common.collect.ImmutableList;
 import com.google.gwt.thirdparty.guava.common.collect.ImmutableSet;
 import com.google.gwt.thirdparty.guava.common.collect.Iterables;
+import com.google.gwt.thirdparty.guava.common.collect.Lists;
 import com.google.gwt.thirdparty.guava.common.collect.Maps;
 import com.google.gwt.thirdparty.guava.common.collect.Multimap;
 import com.google.gwt.thirdparty.guava.common.collect.Multimaps;
@@ -44,12 +45,17 @@ import com.google.gwt.thirdparty.guava.common.collect.Sets;
 
 import cern.colt.list.IntArrayList;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
 import java.io.Serializable;
+import java.io.UncheckedIOException;
 import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
+import java.util.concurrent.ConcurrentMap;
 
 /**
  * MinimalRebuildCache contains compiler information that can be persisted between compiles to
@@ -63,6 +69,9 @@ import java.util.Set;
  * <p>
  * A "typeName" here might be a root type or nested type but a "compilationUnitName" here will
  * always be the name of just the root type in a compilation unit.
+ * <p>
+ * When the cache is persisted by {@link MinimalRebuildCacheManager}, the per-type JS, statement
+ * ranges and source maps are kept in a {@link PerTypeJsStore} and only read when they are used.
  */
 public class MinimalRebuildCache implements Serializable {
 
@@ -91,6 +100,12 @@ public class MinimalRebuildCache implements Serializable {
     toMap.putAll(fromMap);
   }
 
+  @SuppressWarnings("unchecked")
+  private static <V> Map<String, V> readMap(ObjectInputStream in)
+      throws IOException, ClassNotFoundException {
+    return (Map<String, V>) in.readObject();
+  }
+
   /**
    * Diffs lastModifiedByResourcePath from the previous compile against currentResources from the
    * current compile. modifiedResourcePaths is wiped and recreated to be a list of just the modified
@@ -164,7 +179,7 @@ public class MinimalRebuildCache implements Serializable {
   private final Multimap<String, String> generatedCompilationUnitNamesByReboundTypeNames =
       HashMultimap.create();
   private final IntTypeMapper intTypeMapper = new IntTypeMapper();
-  private final Map<String, String> jsByTypeName = Maps.newHashMap();
+  private transient Map<String, String> jsByTypeName = Maps.newHashMap();
   private final JsIncrementalNamerState jsIncrementalNamerState = new JsIncrementalNamerState();
   private final Set<String> jsoStatusChangedTypeNames = Sets.newHashSet();
   private final Set<String> jsoTypeNames = Sets.newHashSet();
@@ -186,9 +201,21 @@ public class MinimalRebuildCache implements Serializable {
   private final Set<String> rootTypeNames = Sets.newHashSet();
   private final Set<String> singleJsoImplInterfaceNames = Sets.newHashSet();
   private final Set<String> sourceCompilationUnitNames = Sets.newHashSet();
-  private final Map<String, JsSourceMap> sourceMapsByTypeName = Maps.newHashMap();
+  private transient Map<String, JsSourceMap> sourceMapsByTypeName = Maps.newHashMap();
   private final Set<String> staleTypeNames = Sets.newHashSet();
-  private final Map<String, StatementRanges> statementRangesByTypeName = Maps.newHashMap();
+  private transient Map<String, StatementRanges> statementRangesByTypeName = Maps.newHashMap();
+  /**
+   * Where the output of types is stored, for types whose output didn't change since the cache was
+   * saved or loaded. (Updated by {@link MinimalRebuildCacheManager} while the cache is shared.)
+   */
+  private transient ConcurrentMap<String, PerTypeJsStore.Record> storedTypeOutputs =
+      Maps.newConcurrentMap();
+  /**
+   * Types whose output is stored but hasn't been read yet. (Updated by
+   * {@link MinimalRebuildCacheManager} while the cache is shared.)
+   */
+  private transient ConcurrentMap<String, PerTypeJsStore.Record> unloadedTypeOutputs =
+      Maps.newConcurrentMap();
   private StringAnalyzableTypeEnvironment typeEnvironment = new StringAnalyzableTypeEnvironment();
   private final Multimap<String, String> typeNamesByReferencingTypeName = HashMultimap.create();
 
@@ -258,7 +285,9 @@ public class MinimalRebuildCache implements Serializable {
     referencedTypeNamesByTypeName.clear();
     sourceMapsByTypeName.clear();
     statementRangesByTypeName.clear();
+    storedTypeOutputs.clear();
     typeNamesByReferencingTypeName.clear();
+    unloadedTypeOutputs.clear();
   }
 
   public void clearRebinderTypeAssociations(String rebinderTypeName) {
@@ -289,6 +318,17 @@ public class MinimalRebuildCache implements Serializable {
       return Sets.newHashSet();
     }
 
+    if (!PerTypeJsStore.canRead(unloadedTypeOutputs.values())) {
+      // The output of types was stored in a file that was damaged since. Rather than failing when
+      // it's used, clear all per-file compile related caches to force a full build.
+      logger.log(TreeLogger.WARN,
+          "The cached output of some types can't be read anymore. Recreating it is forcing a full "
+          + "recompile.");
+      clearPerTypeJsCache();
+      staleTypeNames.clear();
+      return Sets.newHashSet();
+    }
+
     // Cache the ReboundTypeNames -> GeneratedCompilationUnitNames reverse map as it will be needed
     // several times.
     generatedCompilationUnitNamesByReboundTypeNames.clear();
@@ -469,6 +509,8 @@ public class MinimalRebuildCache implements Serializable {
     copyMap(that.lastModifiedByResourcePath, this.lastModifiedByResourcePath);
     copyMap(that.sourceMapsByTypeName, this.sourceMapsByTypeName);
     copyMap(that.statementRangesByTypeName, this.statementRangesByTypeName);
+    copyMap(that.storedTypeOutputs, this.storedTypeOutputs);
+    copyMap(that.unloadedTypeOutputs, this.unloadedTypeOutputs);
 
     copyMultimap(that.exportedGlobalNamesByTypeName, this.exportedGlobalNamesByTypeName);
     copyMultimap(that.generatedCompilationUnitNamesByReboundTypeNames,
@@ -515,6 +557,7 @@ public class MinimalRebuildCache implements Serializable {
   }
 
   public String getJs(String typeName) {
+    loadTypeOutput(typeName);
     return jsByTypeName.get(typeName);
   }
 
@@ -545,6 +588,7 @@ public class MinimalRebuildCache implements Serializable {
   }
 
   public JsSourceMap getSourceMap(String typeName) {
+    loadTypeOutput(typeName);
     return sourceMapsByTypeName.get(typeName);
   }
 
@@ -554,6 +598,7 @@ public class MinimalRebuildCache implements Serializable {
   }
 
   public StatementRanges getStatementRanges(String typeName) {
+    loadTypeOutput(typeName);
     return statementRangesByTypeName.get(typeName);
   }
 
@@ -566,6 +611,7 @@ public class MinimalRebuildCache implements Serializable {
   }
 
   public boolean hasJs(String typeName) {
+    loadTypeOutput(typeName);
     return jsByTypeName.containsKey(typeName);
   }
 
@@ -697,6 +743,7 @@ public class MinimalRebuildCache implements Serializable {
 
   public void setJsForType(TreeLogger logger, String typeName, String typeJs) {
     logger.log(TreeLogger.SPAM, "caching JS for type " + typeName);
+    changeTypeOutput(typeName);
     jsByTypeName.put(typeName, typeJs);
   }
 
@@ -748,16 +795,39 @@ public class MinimalRebuildCache implements Serializable {
   }
 
   public void setSourceMapForType(String typeName, JsSourceMap sourceMap) {
+    changeTypeOutput(typeName);
     sourceMapsByTypeName.put(typeName, sourceMap);
   }
 
   public void setStatementRangesForType(String typeName, StatementRanges statementRanges) {
+    changeTypeOutput(typeName);
     statementRangesByTypeName.put(typeName, statementRanges);
   }
 
+  /**
+   * Returns the total size of the stored output of types.
+   */
+  long getStoredTypeOutputBytes() {
+    long bytes = 0;
+    for (PerTypeJsStore.Record record : storedTypeOutputs.values()) {
+      bytes += record.getLength();
+    }
+    return bytes;
+  }
+
+  /**
+   * Returns the number of per-type JS and source map entries held in memory, as an estimate of
+   * how much memory the cache uses. Output that is stored but hasn't been read isn't counted.
+   */
+  int getTypeOutputWeight() {
+    return jsByTypeName.size() + sourceMapsByTypeName.size();
+  }
+
   @VisibleForTesting
   boolean hasSameContent(MinimalRebuildCache that) {
     // Ignoring processedStaleTypeNames since it is transient.
+    this.loadAllTypeOutputs();
+    that.loadAllTypeOutputs();
     return this.immediateTypeRelations.hasSameContent(that.immediateTypeRelations) && Objects.equal(
         this.compilationUnitTypeNameByNestedTypeName, that.compilationUnitTypeNameByNestedTypeName)
         && Objects.equal(this.contentHashByGeneratedTypeName, that.contentHashByGeneratedTypeName)
@@ -800,6 +870,30 @@ public class MinimalRebuildCache implements Serializable {
         && Objects.equal(this.typeNamesByReferencingTypeName, that.typeNamesByReferencingTypeName);
   }
 
+  /**
+   * Makes sure that the output of every type is in the file of the given appender, appending the
+   * output of types that changed since the cache was last saved or loaded.
+   */
+  void storeTypeOutputs(PerTypeJsStore.Appender appender) throws IOException {
+    Set<String> typeNames = Sets.newHashSet(jsByTypeName.keySet());
+    typeNames.addAll(sourceMapsByTypeName.keySet());
+    typeNames.addAll(statementRangesByTypeName.keySet());
+    typeNames.addAll(unloadedTypeOutputs.keySet());
+    for (String typeName : typeNames) {
+      PerTypeJsStore.Record record = storedTypeOutputs.get(typeName);
+      if (record == null) {
+        // Not getJs() and friends, which could modify the cache while it's being copied.
+        record = appender.append(new PerTypeJsStore.TypeOutput(jsByTypeName.get(typeName),
+            statementRangesByTypeName.get(typeName), sourceMapsByTypeName.get(typeName)));
+      } else {
+        record = appender.copy(record);
+      }
+      storedTypeOutputs.put(typeName, record);
+      // Lets the file that records were copied from be closed once no other cache uses it.
+      unloadedTypeOutputs.replace(typeName, record);
+    }
+  }
+
   private void appendReferencingTypes(Set<String> accumulatedTypeNames,
       Collection<String> referencedTypeNames) {
     for (String referencedTypeName : referencedTypeNames) {
@@ -842,10 +936,20 @@ public class MinimalRebuildCache implements Serializable {
     } while (discoveredMoreStaleTypes);
   }
 
+  /**
+   * Reads the output of a type that is about to change and forgets where it was stored.
+   */
+  private void changeTypeOutput(String typeName) {
+    loadTypeOutput(typeName);
+    storedTypeOutputs.remove(typeName);
+  }
+
   private void clearCachedTypeOutput(String staleTypeName) {
     jsByTypeName.remove(staleTypeName);
     statementRangesByTypeName.remove(staleTypeName);
     sourceMapsByTypeName.remove(staleTypeName);
+    storedTypeOutputs.remove(staleTypeName);
+    unloadedTypeOutputs.remove(staleTypeName);
   }
 
   /**
@@ -904,4 +1008,66 @@ public class MinimalRebuildCache implements Serializable {
     }
     return typesThatRebindTypes;
   }
+
+  private void loadAllTypeOutputs() {
+    for (String typeName : Lists.newArrayList(unloadedTypeOutputs.keySet())) {
+      loadTypeOutput(typeName);
+    }
+  }
+
+  /**
+   * Reads the output of a type, if it was stored and hasn't been read yet.
+   * <p>
+   * Output that can't be read fails the compile rather than being left out of it. The next compile
+   * then starts over (see {@link #computeAndClearStaleTypesCache}).
+   *
+   * @throws UncheckedIOException if the output of the type can't be read
+   */
+  private void loadTypeOutput(String typeName) {
+    PerTypeJsStore.Record record = unloadedTypeOutputs.get(typeName);
+    if (record == null) {
+      return;
+    }
+    PerTypeJsStore.TypeOutput typeOutput = record.read();
+    unloadedTypeOutputs.remove(typeName);
+    if (typeOutput.js != null) {
+      jsByTypeName.put(typeName, typeOutput.js);
+    }
+    if (typeOutput.statementRanges != null) {
+      statementRangesByTypeName.put(typeName, typeOutput.statementRanges);
+    }
+    if (typeOutput.sourceMap != null) {
+      sourceMapsByTypeName.put(typeName, typeOutput.sourceMap);
+    }
+  }
+
+  private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+    in.defaultReadObject();
+    storedTypeOutputs = Maps.newConcurrentMap();
+    unloadedTypeOutputs = Maps.newConcurrentMap();
+    if (in instanceof PerTypeJsStore.GraphInputStream) {
+      storedTypeOutputs.putAll(((PerTypeJsStore.GraphInputStream) in).readIndex());
+      unloadedTypeOutputs.putAll(storedTypeOutputs);
+      jsByTypeName = Maps.newHashMap();
+      sourceMapsByTypeName = Maps.newHashMap();
+      statementRangesByTypeName = Maps.newHashMap();
+    } else {
+      jsByTypeName = readMap(in);
+      sourceMapsByTypeName = readMap(in);
+      statementRangesByTypeName = readMap(in);
+    }
+  }
+
+  private void writeObject(ObjectOutputStream out) throws IOException {
+    out.defaultWriteObject();
+    if (out instanceof PerTypeJsStore.GraphOutputStream) {
+      // The output of types was stored separately, only say where.
+      ((PerTypeJsStore.GraphOutputStream) out).writeIndex(storedTypeOutputs);
+    } else {
+      loadAllTypeOutputs();
+      out.writeObject(jsByTypeName);
+      out.writeObject(sourceMapsByTypeName);
+      out.writeObject(statementRangesByTypeName);
+    }
+  }
 }
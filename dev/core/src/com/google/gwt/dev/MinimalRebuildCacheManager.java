@@ -19,6 +19,12 @@ import com.google.gwt.dev.util.CompilerVersion;
 import com.google.gwt.thirdparty.guava.common.annotations.VisibleForTesting;
 import com.google.gwt.thirdparty.guava.common.cache.Cache;
 import com.google.gwt.thirdparty.guava.common.cache.CacheBuilder;
+import com.google.gwt.thirdparty.guava.common.cache.CacheStats;
+import com.google.gwt.thirdparty.guava.common.cache.RemovalCause;
+import com.google.gwt.thirdparty.guava.common.cache.RemovalListener;
+import com.google.gwt.thirdparty.guava.common.cache.RemovalNotification;
+import com.google.gwt.thirdparty.guava.common.cache.Weigher;
+import com.google.gwt.thirdparty.guava.common.collect.Maps;
 import com.google.gwt.thirdparty.guava.common.hash.Hashing;
 import com.google.gwt.thirdparty.guava.common.io.Closeables;
 import com.google.gwt.thirdparty.guava.common.util.concurrent.Futures;
@@ -36,34 +42,97 @@ import java.nio.charset.StandardCharsets;
 import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Manages caching of MinimalRebuildCache instances.
  * <p>
  * Changes are immediately performed in memory and are asynchronously persisted to disk in original
  * request order.
+ * <p>
+ * On disk, the per-type output of each cache is kept in a {@link PerTypeJsStore}, so that only the
+ * types that changed are written when a cache is saved, and types are read when they are used.
+ * <p>
+ * The caches kept in memory are bounded by weight rather than count: each weighs
+ * {@link #BASE_CACHE_WEIGHT} plus its number of per-type JS and source map entries in memory. The
+ * least recently used caches are evicted when the total exceeds the weight set by the system
+ * property {@value #MAX_MEMORY_WEIGHT_PROPERTY}. Every cache in memory has already been written to
+ * (or read from) disk, so an evicted cache is simply read again, lazily, when it is next needed.
  */
 public class MinimalRebuildCacheManager {
 
-  private static final int MEMORY_CACHE_COUNT_LIMIT = 3;
+  /**
+   * A system property that sets the total weight of the caches kept in memory.
+   */
+  public static final String MAX_MEMORY_WEIGHT_PROPERTY = "gwt.rebuildCache.maxMemoryWeight";
+
+  /**
+   * The weight of a cache that holds no per-type output, which stands for the rest of its state.
+   */
+  private static final int BASE_CACHE_WEIGHT = 1000;
+  private static final long DEFAULT_MAX_MEMORY_WEIGHT = 100000;
   private static final String REBUILD_CACHE_PREFIX = "gwt-rebuildCache";
 
   private final ExecutorService executorService =
       MoreExecutors.getExitingExecutorService((ThreadPoolExecutor) Executors.newFixedThreadPool(1));
   private final TreeLogger logger;
   private final File minimalRebuildCacheDir;
-  private final Cache<String, MinimalRebuildCache> minimalRebuildCachesByName =
-      CacheBuilder.newBuilder().maximumSize(MEMORY_CACHE_COUNT_LIMIT).build();
+  private final Cache<String, MinimalRebuildCache> minimalRebuildCachesByName;
+  /**
+   * The weight of each cache in memory, as it was when the cache was put in memory, which is what
+   * counts toward the total.
+   */
+  private final ConcurrentMap<String, Integer> weightsByCacheName = Maps.newConcurrentMap();
+  /**
+   * The number of caches that were missing from memory and were read from disk.
+   */
+  private final AtomicLong diskReadCount = new AtomicLong();
   private final Map<String, String> options = new LinkedHashMap<>();
+  /**
+   * Only used by the executor thread.
+   */
+  private final Map<String, PerTypeJsStore> perTypeJsStoresByName = Maps.newHashMap();
 
   public MinimalRebuildCacheManager(
       TreeLogger logger, File baseCacheDir, Map<String, String> options) {
+    this(logger, baseCacheDir, options,
+        Long.getLong(MAX_MEMORY_WEIGHT_PROPERTY, DEFAULT_MAX_MEMORY_WEIGHT));
+  }
+
+  @VisibleForTesting
+  MinimalRebuildCacheManager(TreeLogger logger, File baseCacheDir, Map<String, String> options,
+      long maxMemoryWeight) {
     this.logger = logger;
+    // A single segment, so that the weight bounds all caches rather than each segment's share.
+    this.minimalRebuildCachesByName = CacheBuilder.newBuilder()
+        .concurrencyLevel(1)
+        .maximumWeight(maxMemoryWeight)
+        .weigher(new Weigher<String, MinimalRebuildCache>() {
+          @Override
+          public int weigh(String cacheName, MinimalRebuildCache minimalRebuildCache) {
+            int weight = BASE_CACHE_WEIGHT + minimalRebuildCache.getTypeOutputWeight();
+            weightsByCacheName.put(cacheName, weight);
+            return weight;
+          }
+        })
+        .removalListener(new RemovalListener<String, MinimalRebuildCache>() {
+          @Override
+          public void onRemoval(
+              RemovalNotification<String, MinimalRebuildCache> removalNotification) {
+            // A replaced cache's weight was already overwritten by the weight of its replacement.
+            if (removalNotification.getCause() != RemovalCause.REPLACED) {
+              weightsByCacheName.remove(removalNotification.getKey());
+            }
+          }
+        })
+        .recordStats()
+        .build();
     this.options.putAll(options);
     if (baseCacheDir != null) {
       minimalRebuildCacheDir = new File(baseCacheDir, REBUILD_CACHE_PREFIX);
@@ -103,6 +172,7 @@ public class MinimalRebuildCacheManager {
       // Might return null.
       minimalRebuildCache = syncReadDiskCache(moduleName, permutationDescription);
       if (minimalRebuildCache != null) {
+        diskReadCount.incrementAndGet();
         minimalRebuildCachesByName.put(cacheName, minimalRebuildCache);
       }
     }
@@ -120,6 +190,31 @@ public class MinimalRebuildCacheManager {
     return mutableMinimalRebuildCache;
   }
 
+  /**
+   * Returns statistics about the caches kept in memory: the number of lookups that found a cache
+   * in memory ("hits") or not ("misses"), of caches evicted from memory ("evictions") and of
+   * caches read from disk after a miss ("diskReads"), and the number and total weight of the caches
+   * in memory now ("size" and "weight").
+   * <p>
+   * Doesn't wait for caches being read from or written to disk. A cache weighs what it weighed when
+   * it was put in memory, even if it changed since.
+   */
+  public Map<String, Long> getMemoryCacheStats() {
+    CacheStats stats = minimalRebuildCachesByName.stats();
+    long weight = 0;
+    for (int cacheWeight : weightsByCacheName.values()) {
+      weight += cacheWeight;
+    }
+    Map<String, Long> statsByName = new LinkedHashMap<>();
+    statsByName.put("hits", stats.hitCount());
+    statsByName.put("misses", stats.missCount());
+    statsByName.put("evictions", stats.evictionCount());
+    statsByName.put("diskReads", diskReadCount.get());
+    statsByName.put("size", minimalRebuildCachesByName.size());
+    statsByName.put("weight", weight);
+    return statsByName;
+  }
+
   /**
    * Stores a MinimalRebuildCache specific to the given module and binding properties.
    * <p>
@@ -147,6 +242,9 @@ public class MinimalRebuildCacheManager {
             logger.log(TreeLogger.WARN, "Couldn't delete " + cacheFile);
           }
         }
+        for (PerTypeJsStore perTypeJsStore : perTypeJsStoresByName.values()) {
+          perTypeJsStore.reset();
+        }
         return null;
       }
     });
@@ -171,8 +269,9 @@ public class MinimalRebuildCacheManager {
           ObjectInputStream objectInputStream = null;
           // Try to read it.
           try {
-            objectInputStream = new ObjectInputStream(
-                new BufferedInputStream(new FileInputStream(minimalRebuildCacheFile)));
+            objectInputStream = new PerTypeJsStore.GraphInputStream(
+                new BufferedInputStream(new FileInputStream(minimalRebuildCacheFile)),
+                getPerTypeJsStore(minimalRebuildCacheFile));
             return (MinimalRebuildCache) objectInputStream.readObject();
           } catch (IOException e) {
             logger.log(TreeLogger.WARN,
@@ -200,7 +299,8 @@ public class MinimalRebuildCacheManager {
    * properties and the location where the JVM was launched.
    * <p>
    * Care is taken to completely and successfully write a new cache (to a different location on
-   * disk) before replacing the old cache (at the regular location on disk).
+   * disk) before replacing the old cache (at the regular location on disk). The output of types
+   * that didn't change since the cache was loaded or last saved isn't written again.
    * <p>
    * Write requests will occur in the order requested and will queue up if requests are made faster
    * than they can be completed.
@@ -222,14 +322,24 @@ public class MinimalRebuildCacheManager {
 
         // Write the new cache to disk.
         try {
-          try (ObjectOutputStream objectOutputStream = new ObjectOutputStream(
-              new BufferedOutputStream(new FileOutputStream(newMinimalRebuildCacheFile)))) {
+          PerTypeJsStore perTypeJsStore = getPerTypeJsStore(oldMinimalRebuildCacheFile);
+          PerTypeJsStore.Appender appender =
+              perTypeJsStore.startAppending(minimalRebuildCache.getStoredTypeOutputBytes());
+          try {
+            minimalRebuildCache.storeTypeOutputs(appender);
+          } finally {
+            appender.close();
+          }
+          try (ObjectOutputStream objectOutputStream = new PerTypeJsStore.GraphOutputStream(
+              new BufferedOutputStream(new FileOutputStream(newMinimalRebuildCacheFile)),
+              appender.getFile())) {
             objectOutputStream.writeObject(minimalRebuildCache);
           }
 
           // Replace the old cache file with the new one.
           oldMinimalRebuildCacheFile.delete();
           newMinimalRebuildCacheFile.renameTo(oldMinimalRebuildCacheFile);
+          perTypeJsStore.deleteUnusedFiles();
         } catch (IOException e) {
           logger.log(TreeLogger.WARN,
               "Unable to update the cache in " + oldMinimalRebuildCacheFile + ".");
@@ -293,6 +403,19 @@ public class MinimalRebuildCacheManager {
     return REBUILD_CACHE_PREFIX + "-" + consistentHash;
   }
 
+  /**
+   * Returns the store of the per-type output of the cache in the given file.
+   */
+  private PerTypeJsStore getPerTypeJsStore(File minimalRebuildCacheFile) {
+    String cacheName = minimalRebuildCacheFile.getName();
+    PerTypeJsStore perTypeJsStore = perTypeJsStoresByName.get(cacheName);
+    if (perTypeJsStore == null) {
+      perTypeJsStore = new PerTypeJsStore(minimalRebuildCacheFile.getParentFile(), cacheName);
+      perTypeJsStoresByName.put(cacheName, perTypeJsStore);
+    }
+    return perTypeJsStore;
+  }
+
   private boolean haveCacheDir() {
     return minimalRebuildCacheDir != null && minimalRebuildCacheDir.isDirectory();
   }
@@ -0,0 +1,369 @@
+/*
+ * Copyright 2026 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.gwt.dev;
+
+import com.google.gwt.core.ext.linker.StatementRanges;
+import com.google.gwt.dev.jjs.JsSourceMap;
+import com.google.gwt.dev.util.StringInterningObjectInputStream;
+import com.google.gwt.thirdparty.guava.common.collect.Maps;
+import com.google.gwt.thirdparty.guava.common.collect.Sets;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Stores the per-type output (JavaScript, statement ranges and source map) of a persisted
+ * {@link MinimalRebuildCache} as records in an append-only file, so that saving a cache only
+ * writes the types whose output changed since it was last saved or loaded, and loading a cache
+ * only reads a type's output when it is first used. (Helper class for
+ * {@link MinimalRebuildCacheManager}.)
+ * <p>
+ * The rest of the cache (its "graph") is still written as a whole, by a {@link GraphOutputStream},
+ * followed by the index of the records that the cache uses. Records that are no longer used are
+ * dropped by copying the used ones to a new file once the file is more than twice their size. The
+ * old file is deleted once the cache was saved, but it stays open until no cache in memory refers
+ * to it anymore, so that compiles that started from an older copy of the cache can still read it.
+ * A file that turns out to be damaged can't be read anymore (see {@link #canRead}).
+ */
+class PerTypeJsStore {
+
+  /**
+   * The output of a type.
+   */
+  static final class TypeOutput {
+    final String js;
+    final JsSourceMap sourceMap;
+    final StatementRanges statementRanges;
+
+    TypeOutput(String js, StatementRanges statementRanges, JsSourceMap sourceMap) {
+      this.js = js;
+      this.statementRanges = statementRanges;
+      this.sourceMap = sourceMap;
+    }
+  }
+
+  /**
+   * Where the output of a type is stored.
+   */
+  static final class Record {
+    private final RecordFile file;
+    private final int length;
+    private final long offset;
+
+    private Record(RecordFile file, long offset, int length) {
+      this.file = file;
+      this.offset = offset;
+      this.length = length;
+    }
+
+    int getLength() {
+      return length;
+    }
+
+    /**
+     * Reads the output of the type.
+     *
+     * @throws UncheckedIOException if the record can't be read
+     */
+    TypeOutput read() {
+      try {
+        ObjectInputStream in = new StringInterningObjectInputStream(
+            new ByteArrayInputStream(file.read(offset, length)));
+        return new TypeOutput((String) in.readObject(), (StatementRanges) in.readObject(),
+            (JsSourceMap) in.readObject());
+      } catch (ClassNotFoundException | ClassCastException e) {
+        throw file.damaged(new IOException(e));
+      } catch (IOException e) {
+        throw file.damaged(e);
+      }
+    }
+  }
+
+  /**
+   * A file of records.
+   * <p>
+   * The file is never closed explicitly: it is closed when the file object is garbage collected,
+   * which is once no cache in memory has records in it anymore.
+   */
+  static final class RecordFile {
+    private final File file;
+    private final FileChannel channel;
+    private long length;
+    private volatile boolean damaged;
+
+    /**
+     * Opens the file for reading right away, so that records remain readable after the file is
+     * deleted.
+     */
+    @SuppressWarnings("resource")
+    private RecordFile(File file) throws IOException {
+      this.file = file;
+      this.channel = new RandomAccessFile(file, "r").getChannel();
+      this.length = channel.size();
+    }
+
+    private byte[] read(long offset, int length) throws IOException {
+      ByteBuffer buffer = ByteBuffer.allocate(length);
+      while (buffer.hasRemaining()) {
+        if (channel.read(buffer, offset + buffer.position()) < 0) {
+          throw new EOFException("Truncated rebuild cache in " + file);
+        }
+      }
+      return buffer.array();
+    }
+
+    /**
+     * Marks the file as damaged, so that caches that use it are recompiled, and returns the
+     * exception to throw.
+     */
+    private UncheckedIOException damaged(IOException e) {
+      damaged = true;
+      return new UncheckedIOException("Unable to read the rebuild cache in " + file, e);
+    }
+
+    private boolean canRead() {
+      try {
+        return !damaged && channel.size() >= length;
+      } catch (IOException e) {
+        return false;
+      }
+    }
+  }
+
+  /**
+   * Appends records to a file.
+   */
+  static final class Appender {
+    private final RecordFile file;
+    private final OutputStream out;
+
+    private Appender(RecordFile file) throws IOException {
+      this.file = file;
+      this.out = new BufferedOutputStream(new FileOutputStream(file.file, true));
+    }
+
+    /**
+     * Appends the output of a type.
+     */
+    Record append(TypeOutput typeOutput) throws IOException {
+      ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+      ObjectOutputStream objectOut = new ObjectOutputStream(bytes);
+      objectOut.writeObject(typeOutput.js);
+      objectOut.writeObject(typeOutput.statementRanges);
+      objectOut.writeObject(typeOutput.sourceMap);
+      objectOut.close();
+      return append(bytes.toByteArray());
+    }
+
+    /**
+     * Returns a record in the file being appended to, copying it there if needed.
+     */
+    Record copy(Record record) throws IOException {
+      if (record.file == file) {
+        return record;
+      }
+      return append(record.file.read(record.offset, record.length));
+    }
+
+    private Record append(byte[] bytes) throws IOException {
+      Record record = new Record(file, file.length, bytes.length);
+      out.write(bytes);
+      file.length += bytes.length;
+      return record;
+    }
+
+    void close() throws IOException {
+      out.close();
+    }
+
+    RecordFile getFile() {
+      return file;
+    }
+  }
+
+  /**
+   * Writes the graph of a cache whose per-type output has been saved in a file, followed by the
+   * index of its records.
+   */
+  static class GraphOutputStream extends ObjectOutputStream {
+    private final RecordFile file;
+
+    GraphOutputStream(OutputStream out, RecordFile file) throws IOException {
+      super(out);
+      this.file = file;
+    }
+
+    void writeIndex(Map<String, Record> recordsByTypeName) throws IOException {
+      writeUTF(file.file.getName());
+      writeInt(recordsByTypeName.size());
+      for (Map.Entry<String, Record> entry : recordsByTypeName.entrySet()) {
+        Record record = entry.getValue();
+        if (record.file != file) {
+          throw new IOException("The output of " + entry.getKey() + " wasn't saved");
+        }
+        writeUTF(entry.getKey());
+        writeLong(record.offset);
+        writeInt(record.length);
+      }
+    }
+  }
+
+  /**
+   * Reads what a {@link GraphOutputStream} wrote.
+   */
+  static class GraphInputStream extends StringInterningObjectInputStream {
+    private final PerTypeJsStore store;
+
+    GraphInputStream(InputStream in, PerTypeJsStore store) throws IOException {
+      super(in);
+      this.store = store;
+    }
+
+    Map<String, Record> readIndex() throws IOException {
+      RecordFile file = store.open(readUTF());
+      int count = readInt();
+      Map<String, Record> recordsByTypeName = Maps.newHashMapWithExpectedSize(count);
+      for (int i = 0; i < count; i++) {
+        String typeName = readUTF();
+        long offset = readLong();
+        int length = readInt();
+        if (offset < 0 || offset + length > file.length) {
+          throw new IOException("Bad record for " + typeName + " in " + file.file);
+        }
+        recordsByTypeName.put(typeName, new Record(file, offset, length));
+      }
+      return recordsByTypeName;
+    }
+  }
+
+  /**
+   * Returns whether the given records can still be read, which they can't once their file was
+   * truncated or a record in it couldn't be read.
+   */
+  static boolean canRead(Iterable<Record> records) {
+    Set<RecordFile> checkedFiles = Sets.newIdentityHashSet();
+    for (Record record : records) {
+      if (checkedFiles.add(record.file) && !record.file.canRead()) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Don't bother compacting files smaller than this.
+   */
+  private static final long MIN_COMPACTION_BYTES = 1024 * 1024;
+
+  private final File dir;
+  private final String filePrefix;
+  /**
+   * The files that the last saved or loaded cache may use, by name.
+   */
+  private final Map<String, RecordFile> openFilesByName = Maps.newHashMap();
+
+  /**
+   * The file that records are appended to, or null if there isn't one yet.
+   */
+  private RecordFile currentFile;
+
+  PerTypeJsStore(File dir, String cacheName) {
+    this.dir = dir;
+    this.filePrefix = cacheName + "-types-";
+  }
+
+  /**
+   * Starts appending records, to a new file if the current one holds mostly unused records.
+   *
+   * @param liveBytes the size of the records that will be kept
+   */
+  synchronized Appender startAppending(long liveBytes) throws IOException {
+    if (currentFile == null || (currentFile.length > MIN_COMPACTION_BYTES
+        && currentFile.length > 2 * liveBytes)) {
+      currentFile = createFile();
+    }
+    return new Appender(currentFile);
+  }
+
+  /**
+   * Deletes the record files that the last saved cache doesn't use. Copies of older caches can
+   * still read them until they are garbage collected. (Where open files can't be deleted, they are
+   * deleted by a later call.)
+   */
+  synchronized void deleteUnusedFiles() {
+    openFilesByName.values().retainAll(Collections.singleton(currentFile));
+    File[] files = dir.listFiles();
+    if (files == null) {
+      return;
+    }
+    for (File file : files) {
+      if (file.getName().startsWith(filePrefix)
+          && (currentFile == null || !file.equals(currentFile.file))) {
+        file.delete();
+      }
+    }
+  }
+
+  /**
+   * Forgets all files, after they were deleted.
+   */
+  synchronized void reset() {
+    openFilesByName.clear();
+    currentFile = null;
+  }
+
+  private synchronized RecordFile open(String fileName) throws IOException {
+    if (!fileName.startsWith(filePrefix) || fileName.indexOf(File.separatorChar) >= 0) {
+      throw new IOException("Not a rebuild cache record file: " + fileName);
+    }
+    RecordFile file = openFilesByName.get(fileName);
+    if (file == null) {
+      file = new RecordFile(new File(dir, fileName));
+      openFilesByName.put(fileName, file);
+    }
+    if (currentFile == null) {
+      currentFile = file;
+    }
+    return file;
+  }
+
+  private RecordFile createFile() throws IOException {
+    long timestamp = System.currentTimeMillis();
+    File file;
+    do {
+      file = new File(dir, filePrefix + String.format("%016X", timestamp++));
+    } while (!file.createNewFile());
+    RecordFile recordFile = new RecordFile(file);
+    openFilesByName.put(file.getName(), recordFile);
+    return recordFile;
+  }
+}
@@ -57,6 +57,17 @@ public final class Permutation implements Serializable {
     }
   }
 
+  /**
+   * Recreates a permutation from its parts; used by {@link PermutationWorkerProtocol}.
+   */
+  Permutation(int id, List<BindingProperties> orderedProps,
+      List<PropertyAndBindingInfo> propertyAndBindingInfos) {
+    assert orderedProps.size() == propertyAndBindingInfos.size();
+    this.id = id;
+    this.orderedProps = Lists.newArrayList(orderedProps);
+    this.propertyAndBindingInfos = Lists.newArrayList(propertyAndBindingInfos);
+  }
+
   public int getId() {
     return id;
   }
@@ -333,8 +333,7 @@ public abstract class PermutationWorkerFactory {
       int workersNeeded, int localWorkers, List<PermutationWorker> workers)
       throws UnableToCompleteException {
     if (localWorkers <= WORKERS_AUTO) {
-      // TODO: something smarter?
-      localWorkers = 1;
+      localWorkers = ExternalPermutationWorkerFactory.getAutoLocalWorkerCount(logger);
     }
 
     for (PermutationWorkerFactory factory : PermutationWorkerFactory.createAll(logger)) {
@@ -0,0 +1,469 @@
+/*
+ * Copyright 2026 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.gwt.dev;
+
+import com.google.gwt.dev.cfg.BindingProperties;
+import com.google.gwt.dev.cfg.BindingProperty;
+import com.google.gwt.dev.cfg.ConfigurationProperties;
+import com.google.gwt.dev.jjs.PermutationResult;
+import com.google.gwt.dev.util.FileBackedObject;
+import com.google.gwt.dev.util.PersistenceBackedObject;
+import com.google.gwt.dev.util.StringInterningObjectInputStream;
+import com.google.gwt.thirdparty.guava.common.collect.Lists;
+import com.google.gwt.thirdparty.guava.common.collect.Maps;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+
+/**
+ * The wire protocol spoken between {@link ExternalPermutationWorkerFactory}
+ * and {@link CompilePermsServer}.
+ * <p>
+ * The conversation is:
+ * <ol>
+ * <li>worker: magic number, protocol version and cookie</li>
+ * <li>host: path of the AST file written by
+ * {@link com.google.gwt.dev.jjs.UnifiedAst#writeShared(java.io.File)}</li>
+ * <li>worker: estimated memory use</li>
+ * <li>host: a compile request, answered by the worker with a result, any
+ * number of times; then a shutdown request</li>
+ * </ol>
+ * Integers are written as varints. Each side of a connection keeps a table of
+ * the strings it has sent, so property names, values and rebound types that
+ * recur in every permutation are sent once and referred to by index after
+ * that. The binding property definitions and configuration properties, which
+ * all permutations share, are likewise Java-serialized only the first time they
+ * are sent. Everything else that has no compact encoding, such as the
+ * exception of a failed compile, is sent as a length-prefixed Java-serialized
+ * block.
+ */
+final class PermutationWorkerProtocol {
+
+  /**
+   * A request to compile one permutation.
+   */
+  static final class CompileRequest {
+    private final Permutation permutation;
+    private final PersistenceBackedObject<PermutationResult> resultFile;
+
+    CompileRequest(Permutation permutation,
+        PersistenceBackedObject<PermutationResult> resultFile) {
+      this.permutation = permutation;
+      this.resultFile = resultFile;
+    }
+
+    Permutation getPermutation() {
+      return permutation;
+    }
+
+    PersistenceBackedObject<PermutationResult> getResultFile() {
+      return resultFile;
+    }
+  }
+
+  /**
+   * Identifies a {@link PermutationWorkerProtocol} connection ("GWPW").
+   */
+  static final int MAGIC = 0x47575057;
+
+  /**
+   * Incremented on any change to the wire format.
+   */
+  static final int VERSION = 1;
+
+  private static final int COMPILE = 1;
+  private static final int SHUTDOWN = 0;
+
+  private static final int RESULT_FAILED = 1;
+  private static final int RESULT_OK = 0;
+
+  private static final int RESULT_FILE_PATH = 1;
+  private static final int RESULT_FILE_SERIALIZED = 0;
+
+  private final DataInputStream in;
+  private final DataOutputStream out;
+
+  /**
+   * Objects received so far that the peer may refer to again, by index.
+   */
+  private final List<Object> readObjects = Lists.newArrayList();
+
+  /**
+   * Strings received so far, by index.
+   */
+  private final List<String> readStrings = Lists.newArrayList();
+
+  /**
+   * Objects sent so far that can be referred to by index, by identity.
+   */
+  private final Map<Object, Integer> writtenObjects = new IdentityHashMap<Object, Integer>();
+
+  /**
+   * Strings sent so far, mapped to their index.
+   */
+  private final Map<String, Integer> writtenStrings = Maps.newHashMap();
+
+  PermutationWorkerProtocol(InputStream in, OutputStream out) {
+    this.in = new DataInputStream(new BufferedInputStream(in));
+    this.out = new DataOutputStream(new BufferedOutputStream(out));
+  }
+
+  /**
+   * Returns the number of bytes sent on this connection so far.
+   */
+  int getBytesWritten() {
+    return out.size();
+  }
+
+  /**
+   * Reads the path of the AST file sent by {@link #writeAstFile(File)}.
+   */
+  File readAstFile() throws IOException {
+    return new File(readString());
+  }
+
+  /**
+   * Reads the next request sent by {@link #writeCompileRequest} or
+   * {@link #writeShutdown()}.
+   *
+   * @return the request, or <code>null</code> if the worker should shut down
+   */
+  CompileRequest readCompileRequest() throws IOException, ClassNotFoundException {
+    int command = in.readUnsignedByte();
+    if (command == SHUTDOWN) {
+      return null;
+    }
+    if (command != COMPILE) {
+      throw new IOException("Unknown command " + command);
+    }
+    PersistenceBackedObject<PermutationResult> resultFile = readResultFile();
+    Permutation permutation = readPermutation();
+    return new CompileRequest(permutation, resultFile);
+  }
+
+  /**
+   * Reads and checks the greeting sent by {@link #writeHello(String)}.
+   *
+   * @return the cookie of the worker
+   * @throws IOException if the peer does not speak this version of the protocol
+   */
+  String readHello() throws IOException {
+    int magic = in.readInt();
+    if (magic != MAGIC) {
+      throw new IOException("Unexpected data from worker; not a permutation worker?");
+    }
+    int version = in.readInt();
+    if (version != VERSION) {
+      throw new IOException("Worker protocol version " + version + " does not match "
+          + VERSION + "; probable classpath misconfiguration");
+    }
+    return readString();
+  }
+
+  /**
+   * Reads the memory use sent by {@link #writeMemoryUse(long)}.
+   */
+  long readMemoryUse() throws IOException {
+    return readVarLong();
+  }
+
+  /**
+   * Reads the outcome of a compile sent by {@link #writeResult(Throwable)}.
+   *
+   * @return the exception that made the compile fail, or <code>null</code>
+   */
+  Throwable readResult() throws IOException, ClassNotFoundException {
+    int result = in.readUnsignedByte();
+    if (result == RESULT_OK) {
+      return null;
+    }
+    if (result != RESULT_FAILED) {
+      throw new IOException("Unknown result " + result);
+    }
+    return (Throwable) readSerialized();
+  }
+
+  void writeAstFile(File astFile) throws IOException {
+    writeString(astFile.getAbsolutePath());
+    out.flush();
+  }
+
+  void writeCompileRequest(PersistenceBackedObject<PermutationResult> resultFile,
+      Permutation permutation) throws IOException {
+    out.writeByte(COMPILE);
+    writeResultFile(resultFile);
+    writePermutation(permutation);
+    out.flush();
+  }
+
+  void writeHello(String cookie) throws IOException {
+    out.writeInt(MAGIC);
+    out.writeInt(VERSION);
+    writeString(cookie);
+    out.flush();
+  }
+
+  void writeMemoryUse(long memoryUse) throws IOException {
+    writeVarLong(memoryUse);
+    out.flush();
+  }
+
+  /**
+   * Writes the outcome of a compile.
+   *
+   * @param caught the exception that made the compile fail, or
+   *          <code>null</code> if it succeeded
+   */
+  void writeResult(Throwable caught) throws IOException {
+    if (caught == null) {
+      out.writeByte(RESULT_OK);
+    } else {
+      out.writeByte(RESULT_FAILED);
+      writeSerialized(caught);
+    }
+    out.flush();
+  }
+
+  void writeShutdown() throws IOException {
+    out.writeByte(SHUTDOWN);
+    out.flush();
+  }
+
+  private BindingProperties readBindingProperties() throws IOException, ClassNotFoundException {
+    BindingProperty[] properties = (BindingProperty[]) readSharedObject();
+    ConfigurationProperties configurationProperties = (ConfigurationProperties) readSharedObject();
+    String[] values = new String[readVarInt()];
+    for (int i = 0; i < values.length; i++) {
+      values[i] = readString();
+    }
+    return new BindingProperties(properties, values, configurationProperties);
+  }
+
+  private Permutation readPermutation() throws IOException, ClassNotFoundException {
+    int id = readVarInt();
+    int softPermutationCount = readVarInt();
+    List<BindingProperties> orderedProps = Lists.newArrayListWithCapacity(softPermutationCount);
+    List<PropertyAndBindingInfo> infos = Lists.newArrayListWithCapacity(softPermutationCount);
+    for (int i = 0; i < softPermutationCount; i++) {
+      orderedProps.add(readBindingProperties());
+      SortedMap<String, String> reboundTypes = readStringMap();
+      SortedMap<String, String> propertyValues = readStringMap();
+      infos.add(new PropertyAndBindingInfo(reboundTypes, propertyValues));
+    }
+    return new Permutation(id, orderedProps, infos);
+  }
+
+  @SuppressWarnings("unchecked")
+  private PersistenceBackedObject<PermutationResult> readResultFile()
+      throws IOException, ClassNotFoundException {
+    int kind = in.readUnsignedByte();
+    if (kind == RESULT_FILE_PATH) {
+      File directory = new File(readString());
+      return new FileBackedObject<PermutationResult>(PermutationResult.class,
+          new File(directory, readString()));
+    }
+    return (PersistenceBackedObject<PermutationResult>) readSerialized();
+  }
+
+  private Object readSerialized() throws IOException, ClassNotFoundException {
+    byte[] bytes = new byte[readVarInt()];
+    in.readFully(bytes);
+    ObjectInputStream objectIn =
+        new StringInterningObjectInputStream(new ByteArrayInputStream(bytes));
+    return objectIn.readObject();
+  }
+
+  /**
+   * Reads an object written by {@link #writeSharedObject(Object)}.
+   */
+  private Object readSharedObject() throws IOException, ClassNotFoundException {
+    int index = readVarInt();
+    if (index > 0) {
+      return readObjects.get(index - 1);
+    }
+    Object object = readSerialized();
+    readObjects.add(object);
+    return object;
+  }
+
+  /**
+   * Reads a string written by {@link #writeString(String)}.
+   */
+  private String readString() throws IOException {
+    int index = readVarInt();
+    if (index == 0) {
+      return null;
+    }
+    if (index > 1) {
+      return readStrings.get(index - 2);
+    }
+    byte[] bytes = new byte[readVarInt()];
+    in.readFully(bytes);
+    String string = new String(bytes, StandardCharsets.UTF_8);
+    readStrings.add(string);
+    return string;
+  }
+
+  private SortedMap<String, String> readStringMap() throws IOException {
+    SortedMap<String, String> map = Maps.newTreeMap();
+    for (int size = readVarInt(); size > 0; size--) {
+      String key = readString();
+      map.put(key, readString());
+    }
+    return map;
+  }
+
+  private int readVarInt() throws IOException {
+    long value = readVarLong();
+    if (value > Integer.MAX_VALUE) {
+      throw new IOException("Integer out of range: " + value);
+    }
+    return (int) value;
+  }
+
+  private long readVarLong() throws IOException {
+    long value = 0;
+    for (int shift = 0; shift < 64; shift += 7) {
+      int b = in.readUnsignedByte();
+      value |= (long) (b & 0x7f) << shift;
+      if ((b & 0x80) == 0) {
+        return value;
+      }
+    }
+    throw new IOException("Malformed varint");
+  }
+
+  private void writeBindingProperties(BindingProperties properties) throws IOException {
+    writeSharedObject(properties.getOrderedProps());
+    writeSharedObject(properties.getConfigurationProperties());
+    String[] values = properties.getOrderedPropValues();
+    writeVarInt(values.length);
+    for (String value : values) {
+      writeString(value);
+    }
+  }
+
+  private void writePermutation(Permutation permutation) throws IOException {
+    List<BindingProperties> orderedProps = permutation.getProperties().getSoftProperties();
+    List<PropertyAndBindingInfo> infos = permutation.getPropertyAndBindingInfos();
+    assert orderedProps.size() == infos.size();
+    writeVarInt(permutation.getId());
+    writeVarInt(infos.size());
+    for (int i = 0; i < infos.size(); i++) {
+      writeBindingProperties(orderedProps.get(i));
+      writeStringMap(infos.get(i).getReboundTypes());
+      writeStringMap(infos.get(i).getPropertyValues());
+    }
+  }
+
+  /**
+   * Results are normally written to files next to each other, so only the
+   * location of a file is sent; other kinds of persistence are serialized.
+   */
+  private void writeResultFile(PersistenceBackedObject<PermutationResult> resultFile)
+      throws IOException {
+    if (resultFile.getClass() == FileBackedObject.class) {
+      File file = new File(resultFile.getPath());
+      out.writeByte(RESULT_FILE_PATH);
+      writeString(file.getParent());
+      writeString(file.getName());
+    } else {
+      out.writeByte(RESULT_FILE_SERIALIZED);
+      writeSerialized(resultFile);
+    }
+  }
+
+  private void writeSerialized(Object object) throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (ObjectOutputStream objectOut = new ObjectOutputStream(bytes)) {
+      objectOut.writeObject(object);
+    }
+    writeVarInt(bytes.size());
+    bytes.writeTo(out);
+  }
+
+  /**
+   * Writes an object that is likely to be sent again. The first time, the
+   * object is serialized; after that only its index is sent.
+   */
+  private void writeSharedObject(Object object) throws IOException {
+    Integer index = writtenObjects.get(object);
+    if (index != null) {
+      writeVarInt(index + 1);
+      return;
+    }
+    writeVarInt(0);
+    writeSerialized(object);
+    writtenObjects.put(object, writtenObjects.size());
+  }
+
+  /**
+   * Writes a string: 0 for null, 1 followed by UTF-8 bytes for a string that
+   * has not been sent before, or its index + 2 in the table of sent strings.
+   */
+  private void writeString(String string) throws IOException {
+    if (string == null) {
+      writeVarInt(0);
+      return;
+    }
+    Integer index = writtenStrings.get(string);
+    if (index != null) {
+      writeVarInt(index + 2);
+      return;
+    }
+    byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+    writeVarInt(1);
+    writeVarInt(bytes.length);
+    out.write(bytes);
+    writtenStrings.put(string, writtenStrings.size());
+  }
+
+  private void writeStringMap(Map<String, String> map) throws IOException {
+    writeVarInt(map.size());
+    for (Map.Entry<String, String> entry : map.entrySet()) {
+      writeString(entry.getKey());
+      writeString(entry.getValue());
+    }
+  }
+
+  private void writeVarInt(int value) throws IOException {
+    assert value >= 0;
+    writeVarLong(value);
+  }
+
+  private void writeVarLong(long value) throws IOException {
+    while ((value & ~0x7fL) != 0) {
+      out.writeByte((int) (value & 0x7f) | 0x80);
+      value >>>= 7;
+    }
+    out.writeByte((int) value);
+  }
+}
@@ -22,6 +22,7 @@ import com.google.gwt.thirdparty.guava.common.collect.SortedSetMultimap;
 import com.google.gwt.thirdparty.guava.common.collect.TreeMultimap;
 
 import java.io.Serializable;
+import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
@@ -43,13 +44,27 @@ public class PropertyAndBindingInfo implements Serializable {
     propertyValueByPropertyName = Maps.newTreeMap();
   }
 
-  private PropertyAndBindingInfo(
+  PropertyAndBindingInfo(
       SortedMap<String, String> reboundTypeByGwtCreateType,
       SortedMap<String, String> propertyValueByPropertyName) {
     this.reboundTypeByGwtCreateType = reboundTypeByGwtCreateType;
     this.propertyValueByPropertyName = propertyValueByPropertyName;
   }
 
+  /**
+   * Returns all property values, by property name.
+   */
+  SortedMap<String, String> getPropertyValues() {
+    return Collections.unmodifiableSortedMap(propertyValueByPropertyName);
+  }
+
+  /**
+   * Returns all rebound types, by GWT.create() argument.
+   */
+  SortedMap<String, String> getReboundTypes() {
+    return Collections.unmodifiableSortedMap(reboundTypeByGwtCreateType);
+  }
+
   /**
    * Returns the property value for a propertyname.
    */
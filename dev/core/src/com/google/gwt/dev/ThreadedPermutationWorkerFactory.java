@@ -27,9 +27,11 @@ import java.util.Collections;
 import java.util.List;
 
 /**
- * Create a single in-process PermutationWorker. This WorkerFactory is intended
- * to be used as a fall-back in case the other PermutationWorkers are unable to
- * complete.
+ * Creates in-process PermutationWorkers, each compiling permutations on its own
+ * thread from its own copy of the AST. Only a single one is created unless
+ * {@value #MAX_THREADS_PROPERTY} is set, since the compiler still keeps some
+ * state in static fields; other local workers are left to the other factories,
+ * which run in their own processes.
  */
 public class ThreadedPermutationWorkerFactory extends PermutationWorkerFactory {
 
@@ -26,6 +26,7 @@ import com.google.gwt.dev.jjs.ast.JDeclaredType;
 import com.google.gwt.dev.jjs.impl.GwtAstBuilder;
 import com.google.gwt.dev.js.ast.JsRootScope;
 import com.google.gwt.dev.resource.Resource;
+import com.google.gwt.dev.util.ParallelTasks;
 import com.google.gwt.dev.util.StringInterner;
 import com.google.gwt.dev.util.log.speedtracer.CompilerEventType;
 import com.google.gwt.dev.util.log.speedtracer.DevModeEventType;
@@ -61,7 +62,6 @@ import java.util.Locale;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
-import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.TimeUnit;
 
 /**
@@ -191,7 +191,7 @@ public class CompilationStateBuilder {
      */
     private final Map<String, CompiledClass> allValidClasses = Maps.newHashMap();
 
-    private transient LinkedBlockingQueue<CompilationUnitBuilder> buildQueue;
+    private transient CompilationUnitBuildQueue buildQueue;
 
     /**
      * The JDT compiler.
@@ -283,64 +283,28 @@ public class CompilationStateBuilder {
       do {
         final TreeLogger branch = logger.branch(TreeLogger.TRACE, "Compiling...");
         // Compile anything that needs to be compiled.
-        buildQueue = new LinkedBlockingQueue<CompilationUnitBuilder>();
-        final List<CompilationUnit> newlyBuiltUnits = Lists.newArrayList();
-        final CompilationUnitBuilder sentinel = CompilationUnitBuilder.create((GeneratedUnit) null);
-        final Throwable[] workerException = new Throwable[1];
         final ProgressLogger progressLogger =
             new ProgressLogger(branch, TreeLogger.TRACE, builders.size(), 10);
-        Thread buildThread = new Thread() {
-          @Override
-          public void run() {
-            int processedCompilationUnitBuilders = 0;
-            try {
-              do {
-                CompilationUnitBuilder builder = buildQueue.take();
-                if (!progressLogger.isTimerStarted()) {
-                  // Set start time here, after first job has arrived, since it can take a little
-                  // while for the first job to arrive, and this helps with the accuracy of the
-                  // estimated times.
-                  progressLogger.startTimer();
-                }
-                if (builder == sentinel) {
-                  return;
-                }
-                // Expensive, must serialize GWT AST types to bytes.
-                CompilationUnit unit = builder.build();
-                newlyBuiltUnits.add(unit);
-
-                processedCompilationUnitBuilders++;
-                progressLogger.updateProgress(processedCompilationUnitBuilders);
-              } while (true);
-            } catch (Throwable e) {
-              workerException[0] = e;
-            }
-          }
-        };
-        buildThread.setName("CompilationUnitBuilder");
-        buildThread.start();
+        // JDT hands over units one at a time and its AST and bindings can't be used from other
+        // threads, so units are processed (JSNI collection, restriction checks, GWT AST
+        // construction) on the JDT thread, and only built on several threads.
+        buildQueue = new CompilationUnitBuildQueue(ParallelTasks.getParallelism(), progressLogger);
         Event jdtCompilerEvent = SpeedTracerLogger.start(eventType);
         long compilationStartNanos = System.nanoTime();
         try {
           compiler.doCompile(branch, builders);
         } finally {
           jdtCompilerEvent.end();
+          buildQueue.close();
         }
-        buildQueue.add(sentinel);
+        List<CompilationUnit> newlyBuiltUnits;
         try {
-          buildThread.join();
+          newlyBuiltUnits = buildQueue.finish();
           long compilationNanos = System.nanoTime() - compilationStartNanos;
           // Convert nanos to seconds.
           double compilationSeconds = compilationNanos / (double) TimeUnit.SECONDS.toNanos(1);
           branch.log(TreeLogger.TRACE,
               String.format("Compilation completed in %.02f seconds", compilationSeconds));
-          if (workerException[0] != null) {
-            throw workerException[0];
-          }
-        } catch (RuntimeException e) {
-          throw e;
-        } catch (Throwable e) {
-          throw new RuntimeException("Exception processing units", e);
         } finally {
           buildQueue = null;
         }
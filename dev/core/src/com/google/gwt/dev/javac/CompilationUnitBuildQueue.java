@@ -0,0 +1,141 @@
+/*
+ * Copyright 2026 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.gwt.dev.javac;
+
+import com.google.gwt.thirdparty.guava.common.collect.Lists;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.LinkedBlockingQueue;
+
+/**
+ * Builds compilation units on several threads, while JDT compiles and processes more of them.
+ * <p>
+ * Building a unit serializes its GWT AST and computes the signature hashes of its classes, which
+ * doesn't involve JDT. (Processing a unit, which reads JDT's AST and bindings, stays on the JDT
+ * thread.)
+ */
+class CompilationUnitBuildQueue {
+
+  private final LinkedBlockingQueue<CompilationUnitBuilder> queue =
+      new LinkedBlockingQueue<CompilationUnitBuilder>();
+  private final List<CompilationUnit> builtUnits =
+      Collections.synchronizedList(Lists.<CompilationUnit>newArrayList());
+  private final CompilationUnitBuilder sentinel =
+      CompilationUnitBuilder.create((GeneratedUnit) null);
+  private final ProgressLogger progressLogger;
+  private final Thread[] buildThreads;
+  private int builtUnitCount;
+  private Throwable failure;
+
+  /**
+   * Starts the given number of threads, which build the units that are added until the queue is
+   * closed.
+   */
+  CompilationUnitBuildQueue(int threadCount, ProgressLogger progressLogger) {
+    this.progressLogger = progressLogger;
+    buildThreads = new Thread[threadCount];
+    for (int i = 0; i < threadCount; i++) {
+      buildThreads[i] = new Thread() {
+        @Override
+        public void run() {
+          try {
+            buildUntilClosed();
+          } catch (Throwable e) {
+            synchronized (CompilationUnitBuildQueue.this) {
+              if (failure == null) {
+                failure = e;
+              }
+            }
+          }
+        }
+      };
+      buildThreads[i].setName("CompilationUnitBuilder-" + i);
+      buildThreads[i].start();
+    }
+  }
+
+  void add(CompilationUnitBuilder builder) {
+    queue.add(builder);
+  }
+
+  /**
+   * Lets the threads stop once they have built the units that were added. Must be called even if
+   * compiling failed, so that the threads stop.
+   */
+  void close() {
+    for (int i = 0; i < buildThreads.length; i++) {
+      queue.add(sentinel);
+    }
+  }
+
+  /**
+   * Waits for the threads to stop, after the queue was closed, and returns the built units.
+   * <p>
+   * Units are built in no particular order; they are returned sorted by
+   * {@link CompilationUnit#COMPARATOR}, so that the unit cache sees them in the same order every
+   * time.
+   *
+   * @throws RuntimeException if building a unit failed
+   */
+  List<CompilationUnit> finish() {
+    try {
+      for (Thread buildThread : buildThreads) {
+        buildThread.join();
+      }
+      synchronized (this) {
+        if (failure != null) {
+          throw failure;
+        }
+      }
+    } catch (RuntimeException e) {
+      throw e;
+    } catch (Throwable e) {
+      throw new RuntimeException("Exception processing units", e);
+    }
+    List<CompilationUnit> units = Lists.newArrayList(builtUnits);
+    Collections.sort(units, CompilationUnit.COMPARATOR);
+    return units;
+  }
+
+  private void buildUntilClosed() throws InterruptedException {
+    do {
+      CompilationUnitBuilder builder = queue.take();
+      synchronized (progressLogger) {
+        if (!progressLogger.isTimerStarted()) {
+          // Set start time here, after first job has arrived, since it can take a little while for
+          // the first job to arrive, and this helps with the accuracy of the estimated times.
+          progressLogger.startTimer();
+        }
+      }
+      if (builder == sentinel) {
+        return;
+      }
+      // Expensive, must serialize GWT AST types to bytes.
+      CompilationUnit unit = builder.build();
+      // Also expensive; needed later to resolve the dependencies of every unit.
+      for (CompiledClass cc : unit.getCompiledClasses()) {
+        cc.getSignatureHash();
+      }
+      builtUnits.add(unit);
+
+      synchronized (progressLogger) {
+        builtUnitCount++;
+        progressLogger.updateProgress(builtUnitCount);
+      }
+    } while (true);
+  }
+}
@@ -24,4 +24,11 @@ class ContentId extends StringKey {
   public ContentId(String sourceTypeName, String strongHash) {
     super(sourceTypeName + ':' + strongHash);
   }
+
+  /**
+   * Recreates a key from the value returned by {@link #get}.
+   */
+  ContentId(String value) {
+    super(value);
+  }
 }
@@ -18,13 +18,16 @@ package com.google.gwt.dev.javac;
 import com.google.gwt.core.ext.TreeLogger;
 import com.google.gwt.core.ext.TreeLogger.Type;
 import com.google.gwt.core.ext.UnableToCompleteException;
+import com.google.gwt.dev.javac.PersistentUnitCacheDir.UnitRecord;
 import com.google.gwt.dev.jjs.InternalCompilerException;
 import com.google.gwt.thirdparty.guava.common.annotations.VisibleForTesting;
 import com.google.gwt.thirdparty.guava.common.base.Preconditions;
 import com.google.gwt.thirdparty.guava.common.collect.Lists;
+import com.google.gwt.thirdparty.guava.common.collect.Maps;
 
 import java.io.File;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
@@ -46,14 +49,14 @@ import java.util.concurrent.atomic.AtomicInteger;
  * intended to support only a single PersistentUnitCache instance in the
  * compiler at a time.
  * <p>
- * As new units are compiled, the cache data is appended to a log. This allows
- * Java serialization to efficiently store references. The next time the cache
- * is started, all logs are replayed and loaded into the cache in chronological
- * order, with newer units taking precedence. A new cache file is created for
- * any newly compiled units in this session. After a threshold of a certain
- * number of files in the directory is reached
- * {@link PersistentUnitCache#CACHE_FILE_THRESHOLD} , the cache files are
- * consolidated back into a single file.
+ * As new units are compiled, the cache data is appended to a log. The next
+ * time the cache is started, the index of every log is read in chronological
+ * order, with newer units taking precedence. Units themselves are only read
+ * from the (memory-mapped) logs when they are first found. A new cache file is
+ * created for any newly compiled units in this session. After a threshold of a
+ * certain number of files in the directory is reached
+ * {@link PersistentUnitCache#CACHE_FILE_THRESHOLD} , the units still in use are
+ * copied, without deserializing them, back into a single file.
  *
  * <p>
  * System Properties (see {@link UnitCacheSingleton}).
@@ -68,10 +71,9 @@ import java.util.concurrent.atomic.AtomicInteger;
  * Known Issues:
  *
  * <ul>
- * <li>This design uses an eager cache to load every unit in the cache on the
- * first reference to find() or add(). When the cache is large (10000 units), it
- * uses lots of heap and takes 5-10 seconds. Once the PersistentUnitCache is
- * created, it starts eagerly loading the cache in a background thread).</li>
+ * <li>The first reference to find() or add() waits until the index of every
+ * cache file has been read. (Once the PersistentUnitCache is created, it starts
+ * reading them in a background thread.)</li>
  *
  * <li>Although units logged to disk with the same resource path are eventually
  * cleaned up, the most recently compiled unit stays in the cache forever. This
@@ -85,6 +87,36 @@ import java.util.concurrent.atomic.AtomicInteger;
  */
 class PersistentUnitCache extends MemoryUnitCache {
 
+  /**
+   * A unit that is on disk and hasn't been read yet.
+   */
+  private static class LazyUnitCacheEntry extends UnitCacheEntry {
+    private final ContentId contentId;
+    private final long lastModified;
+    private final String resourcePath;
+
+    /**
+     * Set once the unit is read; guarded by this entry.
+     */
+    private volatile CompilationUnit loadedUnit;
+    private boolean failed;
+
+    LazyUnitCacheEntry(UnitRecord record) {
+      super(null, UnitOrigin.PERSISTENT);
+      this.resourcePath = record.getResourcePath();
+      this.contentId = record.getContentId();
+      this.lastModified = record.getLastModified();
+    }
+
+    /**
+     * Returns the unit if it was read already, otherwise null.
+     */
+    @Override
+    public CompilationUnit getUnit() {
+      return loadedUnit;
+    }
+  }
+
   /**
    * If there are more than this many files in the cache, clean up the old
    * files.
@@ -101,6 +133,12 @@ class PersistentUnitCache extends MemoryUnitCache {
   private AtomicInteger newUnitsSinceLastCleanup = new AtomicInteger();
   private final String relevantOptionsHash;
 
+  /**
+   * Where each unit in the in-memory cache is stored on disk, by resource path. A unit that is
+   * still being written has no record yet.
+   */
+  private final Map<String, UnitRecord> recordsByResourcePath = Maps.newHashMap();
+
   PersistentUnitCache(final TreeLogger logger, File parentDir, String relevantOptionsHash)
       throws UnableToCompleteException {
     this.relevantOptionsHash = relevantOptionsHash;
@@ -129,6 +167,7 @@ class PersistentUnitCache extends MemoryUnitCache {
     backgroundService.finishAndShutdown();
     synchronized (this) {
       super.clear();
+      recordsByResourcePath.clear();
     }
     backgroundService.start();
   }
@@ -138,7 +177,7 @@ class PersistentUnitCache extends MemoryUnitCache {
    *
    * Normally, only newly compiled units are written to the current log, but
    * when it is time to cleanup, valid units from older log files need to be
-   * re-written.
+   * copied to a new one.
    */
   @Override
   public void cleanup(TreeLogger logger) {
@@ -174,7 +213,7 @@ class PersistentUnitCache extends MemoryUnitCache {
     }
 
     logger.log(Type.TRACE, "Compacting persistent unit cache files");
-    backgroundService.asyncCompact(getUnitsToSaveToDisk(), cleanupInProgress);
+    backgroundService.asyncCompact(this, cleanupInProgress);
   }
 
   /**
@@ -196,22 +235,79 @@ class PersistentUnitCache extends MemoryUnitCache {
   @Override
   public CompilationUnit find(ContentId contentId) {
     backgroundService.waitForCacheToLoad();
+    UnitCacheEntry entry;
     synchronized (this) {
-      return super.find(contentId);
+      entry = unitMapByContentId.get(contentId);
     }
+    return getUnit(entry);
   }
 
   @Override
   public CompilationUnit find(String resourcePath) {
     backgroundService.waitForCacheToLoad();
+    UnitCacheEntry entry;
     synchronized (this) {
-      return super.find(resourcePath);
+      entry = unitMap.get(resourcePath);
     }
+    return getUnit(entry);
   }
 
   @Override
   public synchronized void remove(CompilationUnit unit) {
     super.remove(unit);
+    recordsByResourcePath.remove(unit.getResourcePath());
+  }
+
+  /**
+   * Returns the unit of an entry, reading it from disk if needed. Returns null if the entry is
+   * null or the unit can't be read, in which case the entry is removed.
+   */
+  private CompilationUnit getUnit(UnitCacheEntry entry) {
+    if (!(entry instanceof LazyUnitCacheEntry)) {
+      return entry == null ? null : entry.getUnit();
+    }
+    LazyUnitCacheEntry lazyEntry = (LazyUnitCacheEntry) entry;
+    CompilationUnit unit = lazyEntry.loadedUnit;
+    if (unit != null) {
+      return unit;
+    }
+    // Lock order: the entry, then the cache.
+    synchronized (lazyEntry) {
+      if (lazyEntry.loadedUnit == null && !lazyEntry.failed) {
+        CompilationUnit loadedUnit = readUnit(lazyEntry);
+        if (loadedUnit == null) {
+          lazyEntry.failed = true;
+          synchronized (this) {
+            if (unitMap.get(lazyEntry.resourcePath) == lazyEntry) {
+              unitMap.remove(lazyEntry.resourcePath);
+              unitMapByContentId.remove(lazyEntry.contentId);
+              recordsByResourcePath.remove(lazyEntry.resourcePath);
+            }
+          }
+        }
+        lazyEntry.loadedUnit = loadedUnit;
+      }
+      return lazyEntry.loadedUnit;
+    }
+  }
+
+  private CompilationUnit readUnit(LazyUnitCacheEntry entry) {
+    while (true) {
+      UnitRecord record;
+      synchronized (this) {
+        record = recordsByResourcePath.get(entry.resourcePath);
+      }
+      if (record == null || !record.getContentId().equals(entry.contentId)) {
+        return null;
+      }
+      CachedCompilationUnit unit = backgroundService.readUnit(record);
+      synchronized (this) {
+        if (unit != null || recordsByResourcePath.get(entry.resourcePath) == record) {
+          return unit;
+        }
+      }
+      // The unit was moved by a compaction while we were reading it; try the new file.
+    }
   }
 
   /**
@@ -219,39 +315,83 @@ class PersistentUnitCache extends MemoryUnitCache {
    */
   private synchronized void addNewUnit(CompilationUnit unit) {
     newUnitsSinceLastCleanup.incrementAndGet();
+    UnitCacheEntry oldEntry = unitMap.get(unit.getResourcePath());
+    if (oldEntry != null) {
+      // The old unit may not have been read; don't read it just to remove it.
+      removeEntry(unit.getResourcePath(), oldEntry);
+    }
     super.add(unit);
   }
 
   /**
-   * Adds a compilation unit from disk into the in-memory cache.
+   * Adds a compilation unit on disk into the in-memory cache, without reading it.
    * (Callback from {@link PersistentUnitCacheDir}.)
    */
-  synchronized void maybeAddLoadedUnit(CachedCompilationUnit unit) {
-    UnitCacheEntry entry = new UnitCacheEntry(unit, UnitOrigin.PERSISTENT);
-    UnitCacheEntry existingEntry = unitMap.get(unit.getResourcePath());
+  synchronized void maybeAddLoadedUnit(UnitRecord record) {
+    String resourcePath = record.getResourcePath();
+    UnitCacheEntry entry = new LazyUnitCacheEntry(record);
+    UnitCacheEntry existingEntry = unitMap.get(resourcePath);
     /*
      * Don't assume that an existing entry is stale - an entry might have been loaded already from
      * another source that is more up to date. If the timestamps are the same, accept the latest
      * version. If it turns out to be stale, it will be recompiled and the updated unit will win
      * this test the next time the session starts.
      */
-    if (existingEntry != null
-        && unit.getLastModified() >= existingEntry.getUnit().getLastModified()) {
-      super.remove(existingEntry.getUnit());
-      unitMap.put(unit.getResourcePath(), entry);
-      unitMapByContentId.put(unit.getContentId(), entry);
-    } else if (existingEntry == null) {
-      unitMap.put(unit.getResourcePath(), entry);
-      unitMapByContentId.put(unit.getContentId(), entry);
+    if (existingEntry != null && record.getLastModified() >= getLastModified(existingEntry)) {
+      removeEntry(resourcePath, existingEntry);
+    } else if (existingEntry != null) {
+      return;
+    }
+    unitMap.put(resourcePath, entry);
+    unitMapByContentId.put(record.getContentId(), entry);
+    recordsByResourcePath.put(resourcePath, record);
+  }
+
+  /**
+   * Remembers where a newly compiled unit was written, unless it was replaced in the meantime.
+   * (Callback from the background thread.)
+   */
+  private synchronized void unitWritten(CompilationUnit unit, UnitRecord record) {
+    UnitCacheEntry entry = unitMap.get(unit.getResourcePath());
+    if (entry != null && entry.getUnit() == unit) {
+      recordsByResourcePath.put(unit.getResourcePath(), record);
+    }
+  }
+
+  /**
+   * Returns the records of the units that a compaction should keep.
+   */
+  synchronized List<UnitRecord> getRecordsToKeep() {
+    return Lists.newArrayList(recordsByResourcePath.values());
+  }
+
+  /**
+   * Points the cache at the new locations of units after a compaction.
+   */
+  synchronized void relocate(Map<UnitRecord, UnitRecord> movedRecords) {
+    for (Map.Entry<String, UnitRecord> entry : recordsByResourcePath.entrySet()) {
+      UnitRecord movedRecord = movedRecords.get(entry.getValue());
+      if (movedRecord != null) {
+        entry.setValue(movedRecord);
+      }
+    }
+  }
+
+  private void removeEntry(String resourcePath, UnitCacheEntry entry) {
+    unitMap.remove(resourcePath);
+    if (entry instanceof LazyUnitCacheEntry) {
+      unitMapByContentId.remove(((LazyUnitCacheEntry) entry).contentId);
+    } else {
+      unitMapByContentId.remove(entry.getUnit().getContentId());
     }
+    recordsByResourcePath.remove(resourcePath);
   }
 
-  private synchronized List<CompilationUnit> getUnitsToSaveToDisk() {
-    List<CompilationUnit> result = Lists.newArrayList();
-    for (UnitCacheEntry entry : unitMap.values()) {
-      result.add(Preconditions.checkNotNull(entry.getUnit()));
+  private static long getLastModified(UnitCacheEntry entry) {
+    if (entry instanceof LazyUnitCacheEntry) {
+      return ((LazyUnitCacheEntry) entry).lastModified;
     }
-    return result;
+    return entry.getUnit().getLastModified();
   }
 
   /**
@@ -375,6 +515,10 @@ class PersistentUnitCache extends MemoryUnitCache {
       return cacheDir.getClosedCacheFileCount();
     }
 
+    CachedCompilationUnit readUnit(UnitRecord record) {
+      return cacheDir.readUnit(record);
+    }
+
     /**
      * Rotates to a new file.
      * @param cleanupInProgress a semaphore to release when done.
@@ -397,22 +541,19 @@ class PersistentUnitCache extends MemoryUnitCache {
 
     /**
      * Compacts the persistent unit cache and then rotates to a new file.
-     * There will be one closed file and one empty, open file when done.
-     * @param unitsToSave all compilation units to keep
+     * There will be at most two closed files and one empty, open file when done.
+     * @param cache the cache whose units to keep
      * @param cleanupInProgress a semaphore to release when done.
      * (The permit must already be acquired.)
      */
-    Future<?> asyncCompact(final List<CompilationUnit> unitsToSave,
+    Future<?> asyncCompact(final PersistentUnitCache cache,
         final Semaphore cleanupInProgress) {
 
       return service.submit(new Runnable() {
         @Override
         public void run() {
           try {
-            for (CompilationUnit unit : unitsToSave) {
-              cacheDir.writeUnit(unit);
-            }
-            cacheDir.deleteClosedCacheFiles();
+            cacheDir.compact(cache);
             cacheDir.rotate(); // Move to a new, empty file.
           } catch (UnableToCompleteException e) {
             shutdownNow();
@@ -441,7 +582,10 @@ class PersistentUnitCache extends MemoryUnitCache {
           @Override
           public void run() {
             try {
-              cacheDir.writeUnit(unit);
+              UnitRecord record = cacheDir.writeUnit(unit);
+              if (record != null) {
+                cacheToLoad.unitWritten(unit, record);
+              }
             } catch (UnableToCompleteException e) {
               shutdownNow();
             }
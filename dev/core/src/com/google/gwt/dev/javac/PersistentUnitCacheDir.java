@@ -19,6 +19,7 @@ import com.google.gwt.core.ext.TreeLogger;
 import com.google.gwt.core.ext.TreeLogger.Type;
 import com.google.gwt.core.ext.UnableToCompleteException;
 import com.google.gwt.dev.jjs.impl.GwtAstBuilder;
+import com.google.gwt.dev.util.ByteBufferInputStream;
 import com.google.gwt.dev.util.CompilerVersion;
 import com.google.gwt.dev.util.StringInterningObjectInputStream;
 import com.google.gwt.dev.util.log.speedtracer.DevModeEventType;
@@ -26,37 +27,140 @@ import com.google.gwt.dev.util.log.speedtracer.SpeedTracerLogger;
 import com.google.gwt.dev.util.log.speedtracer.SpeedTracerLogger.Event;
 import com.google.gwt.thirdparty.guava.common.annotations.VisibleForTesting;
 import com.google.gwt.thirdparty.guava.common.collect.Lists;
-import com.google.gwt.thirdparty.guava.common.io.Closeables;
+import com.google.gwt.thirdparty.guava.common.collect.Maps;
 
-import java.io.BufferedInputStream;
 import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
 import java.io.EOFException;
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
 import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
 import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentMap;
 
 /**
  * The directory containing persistent unit cache files.
  * (Helper class for {@link PersistentUnitCache}.)
+ * <p>
+ * Each cache file is a log of units in a binary format:
+ * <pre>
+ * file:    MAGIC FORMAT_VERSION record* [index trailer]
+ * record:  RECORD_TAG header payload
+ * header:  resourcePath contentId lastModified astVersion payloadLength
+ * index:   INDEX_TAG count (payloadOffset header)*
+ * trailer: indexOffset MAGIC
+ * </pre>
+ * The payload is the unit, serialized on its own. The index is written when a file is closed,
+ * so loading a closed file only reads its index. A file that wasn't closed (say, because the
+ * process was killed) is read record by record instead, up to the last complete record.
+ * <p>
+ * Files are memory-mapped for reading, and a unit is only deserialized when the cache is asked
+ * for it (see {@link #readUnit}).
  */
 class PersistentUnitCacheDir {
 
+  /**
+   * Where a unit is stored in a cache file, and what the cache needs to know about the unit
+   * before reading it.
+   */
+  static final class UnitRecord {
+    private final long astVersion;
+    private final ContentId contentId;
+    private final File file;
+    private final long lastModified;
+    private final int payloadLength;
+    private final long payloadOffset;
+    private final String resourcePath;
+
+    private UnitRecord(String resourcePath, ContentId contentId, long lastModified,
+        long astVersion, int payloadLength, File file, long payloadOffset) {
+      this.resourcePath = resourcePath;
+      this.contentId = contentId;
+      this.lastModified = lastModified;
+      this.astVersion = astVersion;
+      this.payloadLength = payloadLength;
+      this.file = file;
+      this.payloadOffset = payloadOffset;
+    }
+
+    ContentId getContentId() {
+      return contentId;
+    }
+
+    long getLastModified() {
+      return lastModified;
+    }
+
+    String getResourcePath() {
+      return resourcePath;
+    }
+
+    private UnitRecord withLocation(File file, long payloadOffset) {
+      return new UnitRecord(resourcePath, contentId, lastModified, astVersion, payloadLength,
+          file, payloadOffset);
+    }
+
+    private static UnitRecord readHeader(DataInput in) throws IOException {
+      return new UnitRecord(in.readUTF(), new ContentId(in.readUTF()), in.readLong(),
+          in.readLong(), in.readInt(), null, -1);
+    }
+
+    private void writeHeader(DataOutput out) throws IOException {
+      out.writeUTF(resourcePath);
+      out.writeUTF(contentId.get());
+      out.writeLong(lastModified);
+      out.writeLong(astVersion);
+      out.writeInt(payloadLength);
+    }
+  }
+
   private static final String DIRECTORY_NAME = "gwt-unitCache";
   private static final String CACHE_FILE_PREFIX = "gwt-unitCache-";
 
   static final String CURRENT_VERSION_CACHE_FILE_PREFIX =
       CACHE_FILE_PREFIX + CompilerVersion.getHash();
 
+  /**
+   * "GWUC", at the start and at the end of a cache file.
+   */
+  private static final int MAGIC = 0x47575543;
+
+  /**
+   * Changes whenever the layout of cache files changes.
+   */
+  private static final int FORMAT_VERSION = 1;
+
+  private static final int FILE_HEADER_LENGTH = 8;
+  private static final int TRAILER_LENGTH = 12;
+
+  private static final byte RECORD_TAG = 1;
+  private static final byte INDEX_TAG = 2;
+
   private final TreeLogger logger;
   private final File dir;
   private final String filePrefix;
 
+  /**
+   * The contents of the closed files read so far. Units are read from them without holding the
+   * lock of this object, so that they can be read while the background thread writes.
+   */
+  private final ConcurrentMap<File, ByteBuffer> mappedFiles = Maps.newConcurrentMap();
+
   // Non-null when a a cache file is open for writing. (Always true in normal operation.)
   private OpenFile openFile;
 
@@ -118,7 +222,8 @@ class PersistentUnitCacheDir {
   }
 
   /**
-   * Load everything cached on disk into memory.
+   * Tells the given cache about every unit cached on disk. The units themselves are read later,
+   * by {@link #readUnit}.
    */
   synchronized void loadUnitMap(PersistentUnitCache destination) {
     Event loadPersistentUnitEvent =
@@ -137,6 +242,23 @@ class PersistentUnitCacheDir {
     }
   }
 
+  /**
+   * Reads a unit from a closed cache file. Safe to call from any thread.
+   *
+   * @return the unit, or null if it can't be read
+   */
+  CachedCompilationUnit readUnit(UnitRecord record) {
+    try {
+      ObjectInputStream in = new StringInterningObjectInputStream(
+          new ByteBufferInputStream(getPayload(record)));
+      return (CachedCompilationUnit) in.readObject();
+    } catch (IOException | ClassNotFoundException | ClassCastException e) {
+      logger.log(TreeLogger.TRACE, "Can't read " + record.resourcePath + " from cache file "
+          + record.file, e);
+    }
+    return null;
+  }
+
   /**
    * Delete all cache files in the directory except for the currently open file.
    */
@@ -157,6 +279,85 @@ class PersistentUnitCacheDir {
     deleteEvent.end();
   }
 
+  /**
+   * Closes the current cache file and writes the units that the given cache still uses into a
+   * new file, then deletes the files they were copied from and any other closed files. Units are
+   * copied as they are stored, without being deserialized, going through the old files one at a
+   * time. Leaves no file open; call {@link #rotate} to open one.
+   * <p>
+   * Compaction is incremental: the largest file is left as it is while at least half of it is
+   * still used (see {@link #chooseFileToKeep}). Usually that's the file written by the previous
+   * compaction, so each compaction copies about what was written since then rather than the
+   * whole cache, and leaves at most two closed files.
+   */
+  synchronized void compact(PersistentUnitCache destination) throws UnableToCompleteException {
+    closeCurrentFile();
+
+    List<UnitRecord> recordsToKeep = destination.getRecordsToKeep();
+    File fileToKeep = chooseFileToKeep(recordsToKeep);
+    if (fileToKeep != null) {
+      for (Iterator<UnitRecord> it = recordsToKeep.iterator(); it.hasNext();) {
+        if (it.next().file.equals(fileToKeep)) {
+          it.remove();
+        }
+      }
+    }
+    Collections.sort(recordsToKeep, new Comparator<UnitRecord>() {
+      @Override
+      public int compare(UnitRecord a, UnitRecord b) {
+        int result = a.file.compareTo(b.file);
+        return result != 0 ? result : Long.compare(a.payloadOffset, b.payloadOffset);
+      }
+    });
+
+    File compactedFile = createEmptyCacheFile(logger, dir, filePrefix);
+    openFile = new OpenFile(logger, compactedFile);
+    Map<UnitRecord, UnitRecord> movedRecords = Maps.newHashMap();
+    for (UnitRecord record : recordsToKeep) {
+      ByteBuffer payload;
+      try {
+        payload = getPayload(record);
+      } catch (IOException e) {
+        logger.log(TreeLogger.TRACE, "Dropping " + record.resourcePath + " from cache file "
+            + record.file, e);
+        continue;
+      }
+      movedRecords.put(record, openFile.writeRecord(logger, record, payload));
+    }
+    closeCurrentFile();
+
+    // Point the cache to the new file before the old ones go away.
+    destination.relocate(movedRecords);
+    for (File candidate : listFiles(CACHE_FILE_PREFIX)) {
+      if (!candidate.equals(compactedFile) && !candidate.equals(fileToKeep)) {
+        deleteUnlessOpen(candidate);
+      }
+    }
+  }
+
+  /**
+   * Returns the largest closed cache file if the units that the cache still uses take at least
+   * half of it, otherwise null.
+   */
+  private File chooseFileToKeep(List<UnitRecord> recordsToKeep) {
+    File largestFile = null;
+    for (File file : selectClosedFiles(listFiles(filePrefix))) {
+      if (largestFile == null || file.length() > largestFile.length()) {
+        largestFile = file;
+      }
+    }
+    if (largestFile == null) {
+      return null;
+    }
+    long usedBytes = 0;
+    for (UnitRecord record : recordsToKeep) {
+      if (record.file.equals(largestFile)) {
+        usedBytes += record.payloadLength;
+      }
+    }
+    return usedBytes * 2 >= largestFile.length() ? largestFile : null;
+  }
+
   /**
    * Closes the current cache file and opens a new one.
    */
@@ -177,6 +378,7 @@ class PersistentUnitCacheDir {
       return false;
     }
     logger.log(Type.TRACE, "Deleting file: " + cacheFile);
+    mappedFiles.remove(cacheFile);
     boolean deleted = cacheFile.delete();
     if (!deleted) {
       logger.log(Type.WARN, "Unable to delete file: " + cacheFile);
@@ -186,13 +388,29 @@ class PersistentUnitCacheDir {
 
   /**
    * Writes a compilation unit to the disk cache.
+   *
+   * @return where the unit was written, or null if no file is open
    */
-  synchronized void writeUnit(CompilationUnit unit) throws UnableToCompleteException {
+  synchronized UnitRecord writeUnit(CompilationUnit unit) throws UnableToCompleteException {
     if (openFile == null) {
       logger.log(Type.TRACE, "Skipped writing compilation unit to cache because no file is open");
-      return;
+      return null;
     }
-    openFile.writeUnit(logger, unit);
+    CachedCompilationUnit cachedUnit = unit.asCachedCompilationUnit();
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try {
+      ObjectOutputStream out = new ObjectOutputStream(bytes);
+      out.writeObject(cachedUnit);
+      out.close();
+    } catch (IOException e) {
+      logger.log(TreeLogger.ERROR, "Error serializing compilation unit "
+          + unit.getResourcePath(), e);
+      throw new UnableToCompleteException();
+    }
+    UnitRecord header = new UnitRecord(cachedUnit.getResourcePath(), cachedUnit.getContentId(),
+        cachedUnit.getLastModified(), cachedUnit.getTypesSerializedVersion(), bytes.size(), null,
+        -1);
+    return openFile.writeRecord(logger, header, ByteBuffer.wrap(bytes.toByteArray()));
   }
 
   /**
@@ -216,63 +434,108 @@ class PersistentUnitCacheDir {
   }
 
   /**
-   * Loads all the units in a cache file into the given cache.
+   * Tells the given cache about the units in a cache file.
    * Delete it if unable to read it.
    */
   private void loadOrDeleteCacheFile(File cacheFile, PersistentUnitCache destination) {
-    FileInputStream fis = null;
-    BufferedInputStream bis = null;
-    ObjectInputStream inputStream = null;
+    List<UnitRecord> records;
+    try {
+      records = readRecords(cacheFile);
+    } catch (IOException e) {
+      logger.log(TreeLogger.TRACE, "Ignoring and deleting cache log "
+          + cacheFile.getAbsolutePath() + " due to read error.", e);
+      deleteUnlessOpen(cacheFile);
+      return;
+    }
+    if (records.isEmpty()) {
+      mappedFiles.remove(cacheFile);
+    }
+
+    int unitsFound = 0;
+    for (UnitRecord record : records) {
+      if (record.astVersion != GwtAstBuilder.getSerializationVersion()) {
+        continue;
+      }
+      destination.maybeAddLoadedUnit(record);
+      unitsFound++;
+    }
+    logger.log(TreeLogger.TRACE, "Found " + unitsFound + " units in cache file: "
+        + cacheFile.getName());
+  }
+
+  /**
+   * Returns the records of the units in a cache file, in the order they were written.
+   */
+  private List<UnitRecord> readRecords(File cacheFile) throws IOException {
+    ByteBuffer contents = map(cacheFile);
+    int end = contents.limit();
+    List<UnitRecord> records = Lists.newArrayList();
+    if (end < FILE_HEADER_LENGTH) {
+      // Nothing was written yet, possibly by another process that still has the file open.
+      return records;
+    }
+    if (contents.getInt(0) != MAGIC || contents.getInt(4) != FORMAT_VERSION) {
+      throw new IOException("Not a cache file in the current format: " + cacheFile);
+    }
 
-    boolean ok = false;
-    int unitsLoaded = 0;
+    ByteBuffer buffer = contents.duplicate();
+    DataInputStream in = new DataInputStream(new ByteBufferInputStream(buffer));
+    if (end >= FILE_HEADER_LENGTH + TRAILER_LENGTH && contents.getInt(end - 4) == MAGIC) {
+      buffer.position((int) contents.getLong(end - TRAILER_LENGTH));
+      if (in.readByte() != INDEX_TAG) {
+        throw new IOException("Bad index in cache file: " + cacheFile);
+      }
+      int numRecords = in.readInt();
+      for (int i = 0; i < numRecords; i++) {
+        long payloadOffset = in.readLong();
+        records.add(UnitRecord.readHeader(in).withLocation(cacheFile, payloadOffset));
+      }
+      return records;
+    }
+
+    // The file wasn't closed; keep what was completely written.
+    buffer.position(FILE_HEADER_LENGTH);
     try {
-      fis = new FileInputStream(cacheFile);
-      bis = new BufferedInputStream(fis);
-      /*
-       * It is possible for the next call to throw an exception, leaving
-       * inputStream null and fis still live.
-       */
-      inputStream = new StringInterningObjectInputStream(bis);
-
-      // Read objects until we get an EOF exception.
-      while (true) {
-        CachedCompilationUnit unit = (CachedCompilationUnit) inputStream.readObject();
-        if (unit == null) {
-          // Won't normally get here. Not sure why this check was here before.
-          logger.log(Type.WARN, "unexpected null in cache file: " + cacheFile);
+      while (buffer.hasRemaining() && buffer.get(buffer.position()) == RECORD_TAG) {
+        in.readByte();
+        UnitRecord record = UnitRecord.readHeader(in);
+        if (record.payloadLength > buffer.remaining()) {
           break;
         }
-        if (unit.getTypesSerializedVersion() != GwtAstBuilder.getSerializationVersion()) {
-          continue;
-        }
-        destination.maybeAddLoadedUnit(unit);
-        unitsLoaded++;
+        records.add(record.withLocation(cacheFile, buffer.position()));
+        buffer.position(buffer.position() + record.payloadLength);
       }
-
     } catch (EOFException ignored) {
-      // This is a normal exit. Go on to the next file.
-      ok = true;
-    } catch (IOException e) {
-      logger.log(TreeLogger.TRACE, "Ignoring and deleting cache log "
-          + cacheFile.getAbsolutePath() + " due to read error.", e);
-    } catch (ClassNotFoundException e) {
-      logger.log(TreeLogger.TRACE, "Ignoring and deleting cache log "
-          + cacheFile.getAbsolutePath() + " due to deserialization error.", e);
-    } finally {
-      Closeables.closeQuietly(inputStream);
-      Closeables.closeQuietly(bis);
-      Closeables.closeQuietly(fis);
+      // The last record was cut short.
     }
+    return records;
+  }
 
-    if (ok) {
-      logger.log(TreeLogger.TRACE, "Loaded " + unitsLoaded +
-          " units from cache file: " + cacheFile.getName());
-    } else {
-      deleteUnlessOpen(cacheFile);
-      logger.log(TreeLogger.TRACE, "Loaded " + unitsLoaded +
-          " units from invalid cache file before deleting it: " + cacheFile.getName());
+  private ByteBuffer getPayload(UnitRecord record) throws IOException {
+    ByteBuffer payload = map(record.file).duplicate();
+    payload.position((int) record.payloadOffset);
+    payload.limit((int) record.payloadOffset + record.payloadLength);
+    return payload;
+  }
+
+  /**
+   * Returns the contents of a closed cache file, mapping it into memory the first time.
+   */
+  private ByteBuffer map(File cacheFile) throws IOException {
+    ByteBuffer contents = mappedFiles.get(cacheFile);
+    if (contents == null) {
+      try (FileChannel channel = FileChannel.open(cacheFile.toPath(), StandardOpenOption.READ)) {
+        if (channel.size() > Integer.MAX_VALUE) {
+          throw new IOException("Cache file is too large: " + cacheFile);
+        }
+        contents = channel.map(MapMode.READ_ONLY, 0, channel.size());
+      }
+      ByteBuffer existing = mappedFiles.putIfAbsent(cacheFile, contents);
+      if (existing != null) {
+        contents = existing;
+      }
     }
+    return contents;
   }
 
   /**
@@ -345,8 +608,8 @@ class PersistentUnitCacheDir {
    */
   private static class OpenFile {
     private final File file;
-    private final ObjectOutputStream stream;
-    private int unitsWritten = 0;
+    private final DataOutputStream stream;
+    private final List<UnitRecord> records = Lists.newArrayList();
 
     /**
      * Opens a file for writing compilation units.
@@ -356,24 +619,35 @@ class PersistentUnitCacheDir {
     OpenFile(TreeLogger logger, File toOpen)
         throws UnableToCompleteException {
       logger.log(Type.TRACE, "Opening cache file: " + toOpen);
-      ObjectOutputStream newStream = openObjectStream(logger, toOpen);
-
       this.file = toOpen;
-      this.stream = newStream;
-      unitsWritten = 0;
+      this.stream = openDataStream(logger, toOpen);
     }
 
     /**
-     * Writes a compilation unit to the currently open file, if any.
-     * @return true if written
-     * @throws UnableToCompleteException if the file was open but we can't append.
+     * Appends a unit to the file.
+     *
+     * @param header the unit's header; its location is ignored
+     * @param payload the serialized unit
+     * @return where the unit was written
+     * @throws UnableToCompleteException if we can't append.
      */
-    boolean writeUnit(TreeLogger logger, CompilationUnit unit)
+    UnitRecord writeRecord(TreeLogger logger, UnitRecord header, ByteBuffer payload)
         throws UnableToCompleteException {
       try {
-        stream.writeObject(unit);
-        unitsWritten++;
-        return true;
+        stream.writeByte(RECORD_TAG);
+        header.writeHeader(stream);
+        long payloadOffset = stream.size();
+        if (payload.hasArray()) {
+          stream.write(payload.array(), payload.arrayOffset() + payload.position(),
+              payload.remaining());
+        } else {
+          byte[] bytes = new byte[payload.remaining()];
+          payload.duplicate().get(bytes);
+          stream.write(bytes);
+        }
+        UnitRecord record = header.withLocation(file, payloadOffset);
+        records.add(record);
+        return record;
       } catch (IOException e) {
         logger.log(TreeLogger.ERROR, "Error saving compilation unit to cache file: " + file, e);
         throw new UnableToCompleteException();
@@ -381,19 +655,30 @@ class PersistentUnitCacheDir {
     }
 
     /**
-     * Closes the current file and deletes it if it's empty.
+     * Writes the index and closes the current file, or deletes it if it's empty.
      */
     void close(TreeLogger logger) {
       logger.log(Type.TRACE,
-          "Closing cache file: " + file + " (" + unitsWritten + " units written)");
+          "Closing cache file: " + file + " (" + records.size() + " units written)");
 
       try {
+        if (!records.isEmpty()) {
+          long indexOffset = stream.size();
+          stream.writeByte(INDEX_TAG);
+          stream.writeInt(records.size());
+          for (UnitRecord record : records) {
+            stream.writeLong(record.payloadOffset);
+            record.writeHeader(stream);
+          }
+          stream.writeLong(indexOffset);
+          stream.writeInt(MAGIC);
+        }
         stream.close();
       } catch (IOException e) {
         logger.log(Type.WARN, "Error closing compilation unit cache file " + file, e);
       }
 
-      if (unitsWritten == 0) {
+      if (records.isEmpty()) {
         // Remove useless empty file.
         logger.log(Type.TRACE, "Deleting empty file: " + file);
         boolean deleted = file.delete();
@@ -403,13 +688,16 @@ class PersistentUnitCacheDir {
       }
     }
 
-    private static ObjectOutputStream openObjectStream(TreeLogger logger, File file)
+    private static DataOutputStream openDataStream(TreeLogger logger, File file)
         throws UnableToCompleteException {
 
       FileOutputStream fstream = null;
       try {
         fstream = new FileOutputStream(file);
-        return new ObjectOutputStream(new BufferedOutputStream(fstream));
+        DataOutputStream stream = new DataOutputStream(new BufferedOutputStream(fstream));
+        stream.writeInt(MAGIC);
+        stream.writeInt(FORMAT_VERSION);
+        return stream;
       } catch (IOException e) {
         logger.log(Type.ERROR, "Can't open persistent unit cache file", e);
         try {
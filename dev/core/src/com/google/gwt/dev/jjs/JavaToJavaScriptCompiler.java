@@ -101,6 +101,7 @@ import com.google.gwt.dev.jjs.impl.MethodCallSpecializer;
 import com.google.gwt.dev.jjs.impl.MethodCallTightener;
 import com.google.gwt.dev.jjs.impl.MethodInliner;
 import com.google.gwt.dev.jjs.impl.OptimizerContext;
+import com.google.gwt.dev.jjs.impl.OptimizerScheduler;
 import com.google.gwt.dev.jjs.impl.OptimizerStats;
 import com.google.gwt.dev.jjs.impl.PostOptimizationCompoundAssignmentNormalizer;
 import com.google.gwt.dev.jjs.impl.Pruner;
@@ -146,6 +147,7 @@ import com.google.gwt.dev.js.JsNamespaceChooser;
 import com.google.gwt.dev.js.JsNamespaceOption;
 import com.google.gwt.dev.js.JsNormalizer;
 import com.google.gwt.dev.js.JsObfuscateNamer;
+import com.google.gwt.dev.js.JsObfuscateNamer.JsObfuscateNamerState;
 import com.google.gwt.dev.js.JsPrettyNamer;
 import com.google.gwt.dev.js.JsReportGenerationVisitor;
 import com.google.gwt.dev.js.JsStackEmulator;
@@ -172,6 +174,7 @@ import com.google.gwt.dev.util.DefaultTextOutput;
 import com.google.gwt.dev.util.Memory;
 import com.google.gwt.dev.util.Name.SourceName;
 import com.google.gwt.dev.util.Pair;
+import com.google.gwt.dev.util.ParallelTasks;
 import com.google.gwt.dev.util.arg.OptionOptimize;
 import com.google.gwt.dev.util.log.speedtracer.CompilerEventType;
 import com.google.gwt.dev.util.log.speedtracer.SpeedTracerLogger;
@@ -189,7 +192,11 @@ import com.google.gwt.thirdparty.guava.common.hash.Hashing;
 import org.xml.sax.SAXException;
 
 import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
 import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.ObjectOutputStream;
@@ -206,6 +213,8 @@ import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
 import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
 import java.util.zip.GZIPInputStream;
 
 import javax.xml.parsers.ParserConfigurationException;
@@ -247,6 +256,7 @@ public final class JavaToJavaScriptCompiler {
   private final PrecompileTaskOptions options;
   private JsProgram jsProgram;
   private JProgram jprogram;
+  private OptimizerScheduler optimizerScheduler;
 
   public JavaToJavaScriptCompiler(TreeLogger logger, CompilerContext compilerContext) {
     this.logger = logger;
@@ -657,6 +667,13 @@ public final class JavaToJavaScriptCompiler {
           System.currentTimeMillis() - ManagementFactory.getRuntimeMXBean().getStartTime());
       compilationMetrics.setJsSize(sizeBreakdowns);
       compilationMetrics.setPermutationDescription(permutation.getProperties().prettyPrint());
+      if (optimizerScheduler != null) {
+        for (OptimizerScheduler.Profile profile : optimizerScheduler.getProfiles()) {
+          compilationMetrics.addOptimizerMetrics(profile.getName(), profile.getNumRuns(),
+              profile.getNumSkipped(), TimeUnit.NANOSECONDS.toMillis(profile.getElapsedNanos()),
+              profile.getNumVisits(), profile.getNumMods());
+        }
+      }
       permutationResult.addArtifacts(Lists.newArrayList(
           unifiedAst.getModuleMetrics(), unifiedAst.getPrecompilationMetrics(),
           compilationMetrics));
@@ -735,66 +752,129 @@ public final class JavaToJavaScriptCompiler {
 
   /**
    * Generate Js code from the given Js ASTs. Also produces information about that transformation.
+   * <p>
+   * Fragments are generated at the same time unless compiling incrementally, since relinking a
+   * fragment updates the {@link MinimalRebuildCache}. The results are stored in fragment order
+   * either way.
    */
-  private void generateJavaScriptCode(JavaToJavaScriptMap jjsMap, String[] jsFragments,
+  private void generateJavaScriptCode(final JavaToJavaScriptMap jjsMap, String[] jsFragments,
       StatementRanges[] ranges, SizeBreakdown[] sizeBreakdowns,
-      List<JsSourceMap> sourceInfoMaps, boolean sourceMapsEnabled) {
+      final List<JsSourceMap> sourceInfoMaps, final boolean sourceMapsEnabled) {
 
     Event generateJavascriptEvent =
         SpeedTracerLogger.start(CompilerEventType.GENERATE_JAVASCRIPT);
 
-    for (int i = 0; i < jsFragments.length; i++) {
-      DefaultTextOutput out = new DefaultTextOutput(!options.isIncrementalCompileEnabled() &&
-          options.getOutput().shouldMinimize());
-      JsReportGenerationVisitor v = new JsReportGenerationVisitor(out, jjsMap,
-          options.isJsonSoycEnabled());
-      v.accept(jsProgram.getFragmentBlock(i));
-
-      StatementRanges statementRanges = v.getStatementRanges();
-      String code = out.toString();
-      JsSourceMap infoMap = (sourceInfoMaps != null) ? v.getSourceInfoMap() : null;
-
-      JsAbstractTextTransformer transformer =
-          new JsNoopTransformer(code, statementRanges, infoMap);
-
-      /**
-       * Cut generated JS up on class boundaries and re-link the source (possibly making use of
-       * source from previous compiles, thus making it possible to perform partial recompiles).
-       */
-      if (options.isIncrementalCompileEnabled()) {
-        transformer = new JsTypeLinker(logger, transformer, v.getClassRanges(),
-            v.getProgramClassRange(), getMinimalRebuildCache(), jprogram.typeOracle);
-        transformer.exec();
+    List<FragmentCode> fragmentCodes;
+    if (options.isIncrementalCompileEnabled()) {
+      fragmentCodes = Lists.newArrayList();
+      for (int i = 0; i < jsFragments.length; i++) {
+        fragmentCodes.add(
+            generateFragmentCode(i, jjsMap, sourceInfoMaps != null, sourceMapsEnabled));
       }
-
-      /**
-       * Reorder function decls to improve compression ratios. Also restructures the top level
-       * blocks into sub-blocks if they exceed 32767 statements.
-       */
-      Event functionClusterEvent = SpeedTracerLogger.start(CompilerEventType.FUNCTION_CLUSTER);
-      // TODO(cromwellian) move to the Js AST optimization, re-enable sourcemaps + clustering
-      if (!sourceMapsEnabled && !options.isClosureCompilerFormatEnabled()
-          && options.shouldClusterSimilarFunctions()
-          && options.getNamespace() == JsNamespaceOption.NONE
-          && options.getOutput() == JsOutputOption.OBFUSCATED) {
-        transformer = new JsFunctionClusterer(transformer);
-        transformer.exec();
+    } else {
+      List<Callable<FragmentCode>> tasks = Lists.newArrayList();
+      for (int i = 0; i < jsFragments.length; i++) {
+        final int fragment = i;
+        tasks.add(new Callable<FragmentCode>() {
+          @Override
+          public FragmentCode call() {
+            return generateFragmentCode(fragment, jjsMap, sourceInfoMaps != null,
+                sourceMapsEnabled);
+          }
+        });
       }
-      functionClusterEvent.end();
+      fragmentCodes = ParallelTasks.invokeAll(tasks);
+    }
 
-      jsFragments[i] = transformer.getJs();
-      ranges[i] = transformer.getStatementRanges();
+    for (int i = 0; i < jsFragments.length; i++) {
+      FragmentCode fragmentCode = fragmentCodes.get(i);
+      jsFragments[i] = fragmentCode.js;
+      ranges[i] = fragmentCode.ranges;
       if (sizeBreakdowns != null) {
-        sizeBreakdowns[i] = v.getSizeBreakdown();
+        sizeBreakdowns[i] = fragmentCode.sizeBreakdown;
       }
       if (sourceInfoMaps != null) {
-        sourceInfoMaps.add(transformer.getSourceInfoMap());
+        sourceInfoMaps.add(fragmentCode.sourceInfoMap);
       }
     }
 
     generateJavascriptEvent.end();
   }
 
+  /**
+   * Generates the JavaScript for one fragment.
+   */
+  private FragmentCode generateFragmentCode(int fragment, JavaToJavaScriptMap jjsMap,
+      boolean collectSourceInfoMap, boolean sourceMapsEnabled) {
+    Event fragmentEvent = SpeedTracerLogger.start(CompilerEventType.GENERATE_JAVASCRIPT,
+        "fragment", String.valueOf(fragment));
+
+    DefaultTextOutput out = new DefaultTextOutput(!options.isIncrementalCompileEnabled() &&
+        options.getOutput().shouldMinimize());
+    JsReportGenerationVisitor v = new JsReportGenerationVisitor(out, jjsMap,
+        options.isJsonSoycEnabled());
+    v.accept(jsProgram.getFragmentBlock(fragment));
+
+    StatementRanges statementRanges = v.getStatementRanges();
+    String code = out.toString();
+    JsSourceMap infoMap = collectSourceInfoMap ? v.getSourceInfoMap() : null;
+
+    JsAbstractTextTransformer transformer =
+        new JsNoopTransformer(code, statementRanges, infoMap);
+
+    /**
+     * Cut generated JS up on class boundaries and re-link the source (possibly making use of
+     * source from previous compiles, thus making it possible to perform partial recompiles).
+     */
+    if (options.isIncrementalCompileEnabled()) {
+      transformer = new JsTypeLinker(logger, transformer, v.getClassRanges(),
+          v.getProgramClassRange(), getMinimalRebuildCache(), jprogram.typeOracle);
+      transformer.exec();
+    }
+
+    /**
+     * Reorder function decls to improve compression ratios. Also restructures the top level
+     * blocks into sub-blocks if they exceed 32767 statements.
+     */
+    Event functionClusterEvent = SpeedTracerLogger.start(CompilerEventType.FUNCTION_CLUSTER);
+    // TODO(cromwellian) move to the Js AST optimization
+    // The clusterer moves source map ranges along with the statements, but clustering with
+    // source maps stays opt-in until it has seen more use.
+    if ((!sourceMapsEnabled || JsFunctionClusterer.isEnabledWithSourceMaps())
+        && !options.isClosureCompilerFormatEnabled()
+        && options.shouldClusterSimilarFunctions()
+        && options.getNamespace() == JsNamespaceOption.NONE
+        && options.getOutput() == JsOutputOption.OBFUSCATED) {
+      transformer = new JsFunctionClusterer(transformer);
+      transformer.exec();
+    }
+    functionClusterEvent.end();
+
+    FragmentCode result = new FragmentCode(transformer.getJs(),
+        transformer.getStatementRanges(), v.getSizeBreakdown(),
+        collectSourceInfoMap ? transformer.getSourceInfoMap() : null);
+    fragmentEvent.end();
+    return result;
+  }
+
+  /**
+   * The JavaScript generated for one fragment, and information about it.
+   */
+  private static class FragmentCode {
+    private final String js;
+    private final StatementRanges ranges;
+    private final SizeBreakdown sizeBreakdown;
+    private final JsSourceMap sourceInfoMap;
+
+    private FragmentCode(String js, StatementRanges ranges, SizeBreakdown sizeBreakdown,
+        JsSourceMap sourceInfoMap) {
+      this.js = js;
+      this.ranges = ranges;
+      this.sizeBreakdown = sizeBreakdown;
+      this.sourceInfoMap = sourceInfoMap;
+    }
+  }
+
   private Collection<? extends Artifact<?>> makeSoycArtifacts(int permutationId, String[] js,
       SizeBreakdown[] sizeBreakdowns, List<JsSourceMap> sourceInfoMaps,
       SyntheticArtifact dependencies, JavaToJavaScriptMap jjsmap,
@@ -806,40 +886,47 @@ public final class JavaToJavaScriptCompiler {
     Memory.maybeDumpMemory("makeSoycArtifactsStart");
     List<SyntheticArtifact> soycArtifacts = new ArrayList<SyntheticArtifact>();
 
-    ByteArrayOutputStream baos = new ByteArrayOutputStream();
-
     Event soycEvent = SpeedTracerLogger.start(CompilerEventType.MAKE_SOYC_ARTIFACTS);
 
-    Event recordSplitPoints = SpeedTracerLogger.start(
-        CompilerEventType.MAKE_SOYC_ARTIFACTS, "phase", "recordSplitPoints");
-    SplitPointRecorder.recordSplitPoints(jprogram, baos, logger);
-    SyntheticArtifact splitPoints = new SyntheticArtifact(
-        SoycReportLinker.class, "splitPoints" + permutationId + ".xml.gz", baos.toByteArray());
-    soycArtifacts.add(splitPoints);
-    recordSplitPoints.end();
-
+    // The recorders write straight to files so that the reports are never held in memory.
+    SyntheticArtifact splitPoints;
     SyntheticArtifact sizeMaps = null;
-    if (sizeBreakdowns != null) {
-      Event recordSizeMap = SpeedTracerLogger.start(
-          CompilerEventType.MAKE_SOYC_ARTIFACTS, "phase", "recordSizeMap");
-      baos.reset();
-      SizeMapRecorder.recordMap(logger, baos, sizeBreakdowns, jjsmap,
-          internedLiteralByVariableName);
-      sizeMaps = new SyntheticArtifact(
-          SoycReportLinker.class, "stories" + permutationId + ".xml.gz", baos.toByteArray());
-      soycArtifacts.add(sizeMaps);
-      recordSizeMap.end();
-    }
-
-    if (sourceInfoMaps != null) {
-      Event recordStories = SpeedTracerLogger.start(
-          CompilerEventType.MAKE_SOYC_ARTIFACTS, "phase", "recordStories");
-      baos.reset();
-      StoryRecorder.recordStories(logger, baos, sourceInfoMaps, js);
-      soycArtifacts.add(new SyntheticArtifact(
-          SoycReportLinker.class, "detailedStories" + permutationId + ".xml.gz",
-          baos.toByteArray()));
-      recordStories.end();
+    File reportFile = File.createTempFile("gwt-soyc", ".xml.gz");
+    try {
+      Event recordSplitPoints = SpeedTracerLogger.start(
+          CompilerEventType.MAKE_SOYC_ARTIFACTS, "phase", "recordSplitPoints");
+      try (OutputStream out = openReportFile(reportFile)) {
+        SplitPointRecorder.recordSplitPoints(jprogram, out, logger);
+      }
+      splitPoints = makeReportArtifact(
+          "splitPoints" + permutationId + ".xml.gz", reportFile);
+      soycArtifacts.add(splitPoints);
+      recordSplitPoints.end();
+
+      if (sizeBreakdowns != null) {
+        Event recordSizeMap = SpeedTracerLogger.start(
+            CompilerEventType.MAKE_SOYC_ARTIFACTS, "phase", "recordSizeMap");
+        try (OutputStream out = openReportFile(reportFile)) {
+          SizeMapRecorder.recordMap(logger, out, sizeBreakdowns, jjsmap,
+              internedLiteralByVariableName);
+        }
+        sizeMaps = makeReportArtifact("stories" + permutationId + ".xml.gz", reportFile);
+        soycArtifacts.add(sizeMaps);
+        recordSizeMap.end();
+      }
+
+      if (sourceInfoMaps != null) {
+        Event recordStories = SpeedTracerLogger.start(
+            CompilerEventType.MAKE_SOYC_ARTIFACTS, "phase", "recordStories");
+        try (OutputStream out = openReportFile(reportFile)) {
+          StoryRecorder.recordStories(logger, out, sourceInfoMaps, js);
+        }
+        soycArtifacts.add(makeReportArtifact(
+            "detailedStories" + permutationId + ".xml.gz", reportFile));
+        recordStories.end();
+      }
+    } finally {
+      reportFile.delete();
     }
 
     if (dependencies != null) {
@@ -977,6 +1064,24 @@ public final class JavaToJavaScriptCompiler {
     return new BufferedInputStream(new GZIPInputStream(artifact.getContents(TreeLogger.NULL)));
   }
 
+  /**
+   * Opens a file for a recorder to write compile report data to.
+   */
+  private static OutputStream openReportFile(File file) throws IOException {
+    return new BufferedOutputStream(new FileOutputStream(file));
+  }
+
+  /**
+   * Makes a compile report artifact of a file that a recorder wrote.
+   */
+  private static SyntheticArtifact makeReportArtifact(String partialPath, File file)
+      throws IOException {
+    try (InputStream in = new FileInputStream(file)) {
+      return new SyntheticArtifact(SoycReportLinker.class, partialPath, in,
+          System.currentTimeMillis());
+    }
+  }
+
   private void optimizeJsLoop(Collection<JsNode> toInline) throws InterruptedException {
     int optimizationLevel = options.getOptimizationLevel();
     List<OptimizerStats> allOptimizerStats = Lists.newArrayList();
@@ -1049,8 +1154,16 @@ public final class JavaToJavaScriptCompiler {
 
     Map<JsName, JsLiteral> internedLiteralByVariableName =
         maybeInternLiterals(JsLiteralInterner.INTERN_ALL);
+    File nameTableFile = getObfuscatedNameTableFile(properties);
+    JsObfuscateNamerState namerState = readObfuscatedNameTable(nameTableFile);
     FreshNameGenerator freshNameGenerator =
-        JsObfuscateNamer.exec(jsProgram, properties.getConfigurationProperties());
+        JsObfuscateNamer.exec(jsProgram, properties.getConfigurationProperties(), namerState);
+    if (namerState != null) {
+      logger.log(TreeLogger.INFO, "Reused " + namerState.getReusedNameCount()
+          + " obfuscated names, reassigned " + namerState.getReassignedNameCount()
+          + " and assigned " + namerState.getNewNameCount() + " new ones");
+      writeObfuscatedNameTable(nameTableFile, namerState);
+    }
     if (options.shouldRemoveDuplicateFunctions()
         && JsStackEmulator.getStackMode(properties) == JsStackEmulator.StackMode.STRIP) {
       JsDuplicateFunctionRemover.exec(jsProgram, freshNameGenerator);
@@ -1058,6 +1171,47 @@ public final class JavaToJavaScriptCompiler {
     return internedLiteralByVariableName;
   }
 
+  /**
+   * Returns the file that keeps the obfuscated names of this module and permutation between
+   * compiles, or {@code null} if {@link JsObfuscateNamer#NAME_TABLE_DIR_PROPERTY} isn't set.
+   */
+  private File getObfuscatedNameTableFile(PermutationProperties properties) {
+    String dir = System.getProperty(JsObfuscateNamer.NAME_TABLE_DIR_PROPERTY);
+    if (dir == null) {
+      return null;
+    }
+    // Permutation ids change when properties are added, so key by the property values instead.
+    String key = Hashing.murmur3_128().newHasher()
+        .putString(String.valueOf(options.getModuleNames()), StandardCharsets.UTF_8)
+        .putString(properties.prettyPrint(), StandardCharsets.UTF_8)
+        .hash().toString();
+    return new File(dir, "names-" + key + ".ser");
+  }
+
+  private JsObfuscateNamerState readObfuscatedNameTable(File file) {
+    if (file == null) {
+      return null;
+    }
+    if (file.isFile()) {
+      try {
+        return JsObfuscateNamerState.readFrom(file);
+      } catch (IOException | ClassNotFoundException | ClassCastException e) {
+        logger.log(TreeLogger.WARN, "Unable to read obfuscated names from " + file
+            + "; assigning them from scratch", e);
+      }
+    }
+    return new JsObfuscateNamerState();
+  }
+
+  private void writeObfuscatedNameTable(File file, JsObfuscateNamerState state) {
+    try {
+      file.getParentFile().mkdirs();
+      state.writeTo(file);
+    } catch (IOException e) {
+      logger.log(TreeLogger.WARN, "Unable to write obfuscated names to " + file, e);
+    }
+  }
+
   private Map<JsName, JsLiteral> runPrettyNamer(JJSOptions options,
       PermutationProperties properties, JavaToJavaScriptMap jjsmap)
       throws IllegalNameException {
@@ -1424,6 +1578,7 @@ public final class JavaToJavaScriptCompiler {
     int passLimit = atMaxLevel ? MAX_PASSES : options.getOptimizationLevel();
     float minChangeRate = atMaxLevel ? FIXED_POINT_CHANGE_RATE : EFFICIENT_CHANGE_RATE;
     OptimizerContext optimizerCtx = new FullOptimizerContext(jprogram);
+    optimizerScheduler = OptimizerScheduler.create(options.isCompilerMetricsEnabled());
     while (true) {
       passCount++;
       if (passCount > passLimit) {
@@ -1434,7 +1589,8 @@ public final class JavaToJavaScriptCompiler {
         throw new InterruptedException();
       }
       AstDumper.maybeDumpAST(jprogram);
-      OptimizerStats stats = optimizeJavaOneTime("Pass " + passCount, nodeCount, optimizerCtx);
+      OptimizerStats stats = optimizeJavaOneTime("Pass " + passCount, nodeCount, optimizerCtx,
+          optimizerScheduler);
       allOptimizerStats.add(stats);
       lastNodeCount = nodeCount;
       nodeCount = jprogram.getNodeCount();
@@ -1450,12 +1606,26 @@ public final class JavaToJavaScriptCompiler {
       logger.log(TreeLogger.Type.WARN,
           "Unsafe dataflow optimization enabled, disable with -XdisableOptimizeDataflow.");
       // Just run it once, because it is very time consuming
-      allOptimizerStats.add(DataflowOptimizer.exec(jprogram));
+      allOptimizerStats.add(optimizerScheduler.run(DataflowOptimizer.class,
+          () -> DataflowOptimizer.exec(jprogram)));
     }
 
+    logOptimizerProfiles();
     optimizeEvent.end();
   }
 
+  private void logOptimizerProfiles() {
+    if (!logger.isLoggable(TreeLogger.DEBUG)) {
+      return;
+    }
+    TreeLogger branch = logger.branch(TreeLogger.DEBUG, "Java optimizer profile");
+    for (OptimizerScheduler.Profile profile : optimizerScheduler.getProfiles()) {
+      branch.log(TreeLogger.DEBUG, String.format("%s: %d ms, %d runs, %d skipped, %d changed",
+          profile.getName(), TimeUnit.NANOSECONDS.toMillis(profile.getElapsedNanos()),
+          profile.getNumRuns(), profile.getNumSkipped(), profile.getNumMods()));
+    }
+  }
+
   private boolean shouldOptimize() {
     return options.getOptimizationLevel() > OptionOptimize.OPTIMIZE_LEVEL_DRAFT;
   }
@@ -1490,27 +1660,37 @@ public final class JavaToJavaScriptCompiler {
   }
 
   private OptimizerStats optimizeJavaOneTime(String passName, int numNodes,
-      OptimizerContext optimizerCtx) {
+      OptimizerContext optimizerCtx, OptimizerScheduler scheduler) {
     Event optimizeEvent = SpeedTracerLogger.start(CompilerEventType.OPTIMIZE, "phase", "loop");
     // Clinits might have become empty become empty.
     jprogram.typeOracle.recomputeAfterOptimizations(jprogram.getDeclaredTypes());
     OptimizerStats stats = new OptimizerStats(passName);
     JavaAstVerifier.assertProgramIsConsistent(jprogram);
-    stats.add(Pruner.exec(jprogram, true, optimizerCtx).recordVisits(numNodes));
-    stats.add(Finalizer.exec(jprogram, optimizerCtx).recordVisits(numNodes));
-    stats.add(MakeCallsStatic.exec(jprogram, options.shouldAddRuntimeChecks(), optimizerCtx)
-        .recordVisits(numNodes));
-    stats.add(TypeTightener.exec(jprogram, optimizerCtx).recordVisits(numNodes));
-    stats.add(MethodCallTightener.exec(jprogram, optimizerCtx).recordVisits(numNodes));
+    stats.add(scheduler.run(Pruner.class,
+        () -> Pruner.exec(jprogram, true, optimizerCtx).recordVisits(numNodes)));
+    stats.add(scheduler.run(Finalizer.class,
+        () -> Finalizer.exec(jprogram, optimizerCtx).recordVisits(numNodes)));
+    stats.add(scheduler.run(MakeCallsStatic.class,
+        () -> MakeCallsStatic.exec(jprogram, options.shouldAddRuntimeChecks(), optimizerCtx)
+            .recordVisits(numNodes)));
+    stats.add(scheduler.run(TypeTightener.class,
+        () -> TypeTightener.exec(jprogram, optimizerCtx).recordVisits(numNodes)));
+    stats.add(scheduler.run(MethodCallTightener.class,
+        () -> MethodCallTightener.exec(jprogram, optimizerCtx).recordVisits(numNodes)));
     // Note: Specialization should be done before inlining.
-    stats.add(MethodCallSpecializer.exec(jprogram, optimizerCtx).recordVisits(numNodes));
-    stats.add(DeadCodeElimination.exec(jprogram, optimizerCtx).recordVisits(numNodes));
-    stats.add(MethodInliner.exec(jprogram, optimizerCtx).recordVisits(numNodes));
+    stats.add(scheduler.run(MethodCallSpecializer.class,
+        () -> MethodCallSpecializer.exec(jprogram, optimizerCtx).recordVisits(numNodes)));
+    stats.add(scheduler.run(DeadCodeElimination.class,
+        () -> DeadCodeElimination.exec(jprogram, optimizerCtx).recordVisits(numNodes)));
+    stats.add(scheduler.run(MethodInliner.class,
+        () -> MethodInliner.exec(jprogram, optimizerCtx).recordVisits(numNodes)));
     if (options.shouldInlineLiteralParameters()) {
-      stats.add(SameParameterValueOptimizer.exec(jprogram, optimizerCtx).recordVisits(numNodes));
+      stats.add(scheduler.run(SameParameterValueOptimizer.class,
+          () -> SameParameterValueOptimizer.exec(jprogram, optimizerCtx).recordVisits(numNodes)));
     }
     if (options.shouldOrdinalizeEnums()) {
-      stats.add(EnumOrdinalizer.exec(jprogram, optimizerCtx).recordVisits(numNodes));
+      stats.add(scheduler.run(EnumOrdinalizer.class,
+          () -> EnumOrdinalizer.exec(jprogram, optimizerCtx).recordVisits(numNodes)));
     }
     optimizeEvent.end();
     return stats;
@@ -17,6 +17,11 @@ package com.google.gwt.dev.jjs;
 
 import com.google.gwt.dev.jjs.Correlation.Axis;
 import com.google.gwt.dev.jjs.CorrelationFactory.RealCorrelationFactory;
+import com.google.gwt.thirdparty.guava.common.collect.Interner;
+import com.google.gwt.thirdparty.guava.common.collect.Interners;
+
+import java.io.Serializable;
+import java.util.Arrays;
 
 /**
  * Tracks file and line information for AST nodes.
@@ -25,8 +30,62 @@ import com.google.gwt.dev.jjs.CorrelationFactory.RealCorrelationFactory;
  */
 public class SourceInfoCorrelation implements SourceInfo {
 
+  /**
+   * An immutable set of Correlations, at most one per Axis. Sets are interned: most nodes have
+   * one of a few combinations (a string literal, a reference to a given field...), so a node
+   * only costs a reference to a shared set rather than an array of its own.
+   */
+  private static final class CorrelationSet implements Serializable {
+    private static final Interner<CorrelationSet> INTERNER = Interners.newWeakInterner();
+
+    private static final CorrelationSet EMPTY = intern(new Correlation[NUM_AXES]);
+
+    private static CorrelationSet intern(Correlation[] correlations) {
+      return INTERNER.intern(new CorrelationSet(correlations));
+    }
+
+    /**
+     * Indexed by the ordinal() of the Correlation.Axis. Never modified.
+     */
+    private final Correlation[] correlations;
+
+    private CorrelationSet(Correlation[] correlations) {
+      this.correlations = correlations;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      return obj instanceof CorrelationSet
+          && Arrays.equals(correlations, ((CorrelationSet) obj).correlations);
+    }
+
+    @Override
+    public int hashCode() {
+      return Arrays.hashCode(correlations);
+    }
+
+    CorrelationSet with(Correlation c) {
+      int index = c.getAxis().ordinal();
+      if (c.equals(correlations[index])) {
+        return this;
+      }
+      Correlation[] newCorrelations = correlations.clone();
+      newCorrelations[index] = c;
+      return intern(newCorrelations);
+    }
+
+    private Object readResolve() {
+      return INTERNER.intern(this);
+    }
+  }
+
   private static final int NUM_AXES = Axis.values().length;
 
+  /**
+   * The axes of the Correlations that {@link #getPrimaryCorrelation} looks for, in order.
+   */
+  private static final Axis[] PRIMARY_AXES = {Axis.FIELD, Axis.METHOD, Axis.CLASS};
+
   /**
    * Holds the origin data for the SourceInfo.
    */
@@ -38,11 +97,10 @@ public class SourceInfoCorrelation implements SourceInfo {
   private final SourceInfoCorrelation parent;
 
   /**
-   * Records the first Correlation on any given Axis applied to the SourceInfo.
-   * Each index of this array corresponds to the Correlation.Axis with the same
-   * ordinal().
+   * Records the last Correlation on any given Axis applied to the SourceInfo, or
+   * <code>null</code> if none were applied.
    */
-  private Correlation[] primaryCorrelations = null;
+  private CorrelationSet primaryCorrelations = null;
 
   public SourceInfoCorrelation(SourceOrigin origin) {
     this.origin = origin;
@@ -59,17 +117,14 @@ public class SourceInfoCorrelation implements SourceInfo {
    */
   @Override
   public void addCorrelation(Correlation c) {
-    if (primaryCorrelations == null) {
-      primaryCorrelations = new Correlation[NUM_AXES];
-    }
-    int index = c.getAxis().ordinal();
-    primaryCorrelations[index] = c;
+    primaryCorrelations =
+        (primaryCorrelations == null ? CorrelationSet.EMPTY : primaryCorrelations).with(c);
   }
 
   @Override
   public Correlation getCorrelation(Axis axis) {
     if (primaryCorrelations != null) {
-      Correlation c = primaryCorrelations[axis.ordinal()];
+      Correlation c = primaryCorrelations.correlations[axis.ordinal()];
       if (c != null) {
         return c;
       }
@@ -86,13 +141,13 @@ public class SourceInfoCorrelation implements SourceInfo {
       if (primaryCorrelations == null) {
         return new Correlation[NUM_AXES];
       } else {
-        return primaryCorrelations.clone();
+        return primaryCorrelations.correlations.clone();
       }
     } else {
       Correlation[] result = parent.getCorrelations();
       if (primaryCorrelations != null) {
         for (int i = 0; i < NUM_AXES; ++i) {
-          Correlation c = primaryCorrelations[i];
+          Correlation c = primaryCorrelations.correlations[i];
           if (c != null) {
             result[i] = c;
           }
@@ -137,21 +192,18 @@ public class SourceInfoCorrelation implements SourceInfo {
         return null;
       }
     }
-    if (primaryCorrelations[Axis.LITERAL.ordinal()] != null) {
-      if (primaryCorrelations[Axis.LITERAL.ordinal()].getIdent().equals("class") &&
+    Correlation[] correlations = primaryCorrelations.correlations;
+    if (correlations[Axis.LITERAL.ordinal()] != null) {
+      if (correlations[Axis.LITERAL.ordinal()].getIdent().equals("class") &&
           parent != null) {
         return this.parent.getPrimaryCorrelation();
       } else {
         return null;
       }
     }
-    int[] order = new int[]{
-        Axis.FIELD.ordinal(),
-        Axis.METHOD.ordinal(),
-        Axis.CLASS.ordinal()};
-    for (int idx : order) {
-      if (primaryCorrelations[idx] != null) {
-        return primaryCorrelations[idx];
+    for (Axis axis : PRIMARY_AXES) {
+      if (correlations[axis.ordinal()] != null) {
+        return correlations[axis.ordinal()];
       }
     }
     return null;
@@ -59,6 +59,40 @@ public class SourceOrigin implements SourceInfo {
     // so there is no need to implement them in this subclass
   }
 
+  /**
+   * A SourceOriginPos whose positions are packed in a single int, which makes it 8 bytes smaller.
+   * Most Java AST nodes are short spans near the start of modestly sized files, which fit.
+   */
+  private static class SourceOriginPackedPos extends SourceOrigin {
+    private static final int LENGTH_BITS = 11;
+    private static final int START_POS_BITS = 20;
+
+    private static boolean canPack(int startPos, int endPos) {
+      return startPos >= 0 && startPos < (1 << START_POS_BITS) && endPos >= startPos
+          && endPos - startPos < (1 << LENGTH_BITS);
+    }
+
+    /**
+     * The start position in the low bits and the length in the high bits.
+     */
+    private final int packedPos;
+
+    private SourceOriginPackedPos(String location, int startLine, int startPos, int endPos) {
+      super(location, startLine);
+      this.packedPos = startPos | ((endPos - startPos) << START_POS_BITS);
+    }
+
+    @Override
+    public int getEndPos() {
+      return getStartPos() + (packedPos >>> START_POS_BITS);
+    }
+
+    @Override
+    public int getStartPos() {
+      return packedPos & ((1 << START_POS_BITS) - 1);
+    }
+  }
+
   public static final SourceOrigin UNKNOWN = new SourceOrigin("Unknown", 0) {
     private Object readResolve() {
       return UNKNOWN;
@@ -90,6 +124,9 @@ public class SourceOrigin implements SourceInfo {
       return create(startLine, fileName);
     }
 
+    if (SourceOriginPackedPos.canPack(startPos, endPos)) {
+      return new SourceOriginPackedPos(fileName, startLine, startPos, endPos);
+    }
     return new SourceOriginPos(fileName, startLine, startPos, endPos);
   }
 
@@ -21,13 +21,24 @@ import com.google.gwt.dev.PrecompileTaskOptions;
 import com.google.gwt.dev.PrecompileTaskOptionsImpl;
 import com.google.gwt.dev.jjs.ast.JProgram;
 import com.google.gwt.dev.js.ast.JsProgram;
+import com.google.gwt.dev.util.ByteBufferInputStream;
 import com.google.gwt.dev.util.DiskCache;
+import com.google.gwt.dev.util.StringInterningObjectInputStream;
 import com.google.gwt.thirdparty.guava.common.collect.Sets;
 
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
+import java.io.OutputStream;
 import java.io.Serializable;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
 import java.util.Collections;
 import java.util.Set;
 import java.util.SortedSet;
@@ -61,6 +72,48 @@ public class UnifiedAst implements Serializable {
 
   private static final DiskCache diskCache = DiskCache.INSTANCE;
 
+  /**
+   * The first four bytes of a file written by {@link #writeShared(File)}.
+   */
+  private static final int SHARED_FILE_MAGIC = 0x47574155;
+
+  /**
+   * Reads a UnifiedAst from a file written by {@link #writeShared(File)}. The
+   * serialized AST is not copied; the file is memory-mapped and fresh ASTs are
+   * deserialized straight from the mapping, so processes that read the same
+   * file share its pages.
+   *
+   * @throws IOException if the file cannot be read or was not written by
+   *           {@link #writeShared(File)}
+   * @throws ClassNotFoundException if the header refers to an unknown class
+   */
+  public static UnifiedAst readShared(File file) throws IOException, ClassNotFoundException {
+    ByteBuffer buffer;
+    try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+      buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+    }
+    if (buffer.remaining() < 8 || buffer.getInt() != SHARED_FILE_MAGIC) {
+      throw new IOException("Not a shared UnifiedAst file: " + file);
+    }
+    int headerLength = buffer.getInt();
+    ByteBuffer header = buffer.slice();
+    header.limit(headerLength);
+    ObjectInputStream headerStream =
+        new StringInterningObjectInputStream(new ByteBufferInputStream(header));
+    PrecompileTaskOptions options = (PrecompileTaskOptions) headerStream.readObject();
+    @SuppressWarnings("unchecked")
+    SortedSet<String> rebindRequests = (SortedSet<String>) headerStream.readObject();
+    ModuleMetricsArtifact moduleMetrics = (ModuleMetricsArtifact) headerStream.readObject();
+    PrecompilationMetricsArtifact precompilationMetrics =
+        (PrecompilationMetricsArtifact) headerStream.readObject();
+
+    buffer.position(buffer.position() + headerLength);
+    UnifiedAst result = new UnifiedAst(options, rebindRequests, buffer.slice());
+    result.moduleMetrics = moduleMetrics;
+    result.precompilationMetrics = precompilationMetrics;
+    return result;
+  }
+
   /**
    * The original AST; nulled out once consumed (by the first call to
    * {@link #getFreshAst()}.
@@ -99,6 +152,13 @@ public class UnifiedAst implements Serializable {
    */
   private transient long serializedAstToken;
 
+  /**
+   * The serialized AST, if this instance was read with {@link #readShared(File)}.
+   * Copies are made with {@link ByteBuffer#duplicate()} since the position is
+   * not shared between threads.
+   */
+  private transient ByteBuffer sharedAst;
+
   public UnifiedAst(PrecompileTaskOptions options, AST initialAst, boolean singlePermutation,
       Set<String> rebindRequests) {
     this.options = new PrecompileTaskOptionsImpl(options);
@@ -107,6 +167,14 @@ public class UnifiedAst implements Serializable {
     this.serializedAstToken = singlePermutation ? -1 : diskCache.writeObject(initialAst);
   }
 
+  private UnifiedAst(PrecompileTaskOptions options, SortedSet<String> rebindRequests,
+      ByteBuffer sharedAst) {
+    this.options = options;
+    this.rebindRequests = rebindRequests;
+    this.serializedAstToken = -1;
+    this.sharedAst = sharedAst;
+  }
+
   /**
    * Return the current AST so that clients can explicitly walk the Java or
    * JavaScript parse trees.
@@ -119,14 +187,15 @@ public class UnifiedAst implements Serializable {
         AST result = initialAst;
         initialAst = null;
         return result;
-      } else {
-        if (serializedAstToken < 0) {
-          throw new IllegalStateException(
-              "No serialized AST was cached and AST was already consumed.");
-        }
-        return diskCache.readObject(serializedAstToken, AST.class);
+      }
+      if (serializedAstToken < 0 && sharedAst == null) {
+        throw new IllegalStateException(
+            "No serialized AST was cached and AST was already consumed.");
       }
     }
+    // Deserialize outside of the lock, so that permutations compiled on
+    // several threads can create their copies concurrently.
+    return readSerializedAst();
   }
 
   /**
@@ -136,6 +205,18 @@ public class UnifiedAst implements Serializable {
     return moduleMetrics;
   }
 
+  /**
+   * Returns the size in bytes of the serialized AST that {@link #getFreshAst()}
+   * makes copies from, or -1 if the AST has not been serialized because there
+   * is a single permutation.
+   */
+  public long getSerializedAstSize() {
+    if (sharedAst != null) {
+      return sharedAst.capacity();
+    }
+    return serializedAstToken < 0 ? -1 : diskCache.readLength(serializedAstToken);
+  }
+
   /**
    * Returns the active set of JJS options associated with this compile.
    */
@@ -164,7 +245,7 @@ public class UnifiedAst implements Serializable {
   public void prepare() {
     synchronized (myLockObject) {
       if (initialAst == null) {
-        initialAst = diskCache.readObject(serializedAstToken, AST.class);
+        initialAst = readSerializedAst();
       }
     }
   }
@@ -184,22 +265,57 @@ public class UnifiedAst implements Serializable {
   }
 
   /**
-   * Re-initialize lock object; copy serialized AST straight to cache.
+   * Writes this UnifiedAst to a file that {@link #readShared(File)} can map
+   * rather than copy. The file starts with the small, Java-serialized header
+   * fields, followed by the raw serialized AST.
+   *
+   * @throws IOException if the file cannot be written
    */
-  private void readObject(ObjectInputStream stream) throws IOException, ClassNotFoundException {
-    stream.defaultReadObject();
-    myLockObject = new Object();
-    serializedAstToken = diskCache.transferFromStream(stream);
+  public void writeShared(File file) throws IOException {
+    ByteArrayOutputStream header = new ByteArrayOutputStream();
+    try (ObjectOutputStream headerStream = new ObjectOutputStream(header)) {
+      headerStream.writeObject(options);
+      headerStream.writeObject(rebindRequests);
+      headerStream.writeObject(moduleMetrics);
+      headerStream.writeObject(precompilationMetrics);
+    }
+    try (DataOutputStream out =
+        new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)))) {
+      out.writeInt(SHARED_FILE_MAGIC);
+      out.writeInt(header.size());
+      header.writeTo(out);
+      writeSerializedAst(out);
+    }
+  }
+
+  private AST readSerializedAst() {
+    if (sharedAst == null) {
+      return diskCache.readObject(serializedAstToken, AST.class);
+    }
+    try {
+      ObjectInputStream in =
+          new StringInterningObjectInputStream(new ByteBufferInputStream(sharedAst.duplicate()));
+      return (AST) in.readObject();
+    } catch (ClassNotFoundException | IOException e) {
+      throw new RuntimeException("Unexpected exception deserializing shared AST", e);
+    }
   }
 
   /**
-   * Force byte serialization of AST before writing.
+   * Writes the serialized form of the AST, which is a complete object stream.
    */
-  private void writeObject(ObjectOutputStream stream) throws IOException {
-    stream.defaultWriteObject();
+  private void writeSerializedAst(OutputStream stream) throws IOException {
     if (serializedAstToken >= 0) {
       // Copy the bytes.
       diskCache.transferToStream(serializedAstToken, stream);
+    } else if (sharedAst != null) {
+      ByteBuffer bytes = sharedAst.duplicate();
+      byte[] buf = new byte[16 * 1024];
+      while (bytes.hasRemaining()) {
+        int length = Math.min(buf.length, bytes.remaining());
+        bytes.get(buf, 0, length);
+        stream.write(buf, 0, length);
+      }
     } else if (initialAst != null) {
       // Serialize into raw bytes. Only flush, don't close
       ObjectOutputStream objectStream = new ObjectOutputStream(stream);
@@ -209,4 +325,21 @@ public class UnifiedAst implements Serializable {
       throw new IllegalStateException("No serialized AST was cached and AST was already consumed.");
     }
   }
+
+  /**
+   * Re-initialize lock object; copy serialized AST straight to cache.
+   */
+  private void readObject(ObjectInputStream stream) throws IOException, ClassNotFoundException {
+    stream.defaultReadObject();
+    myLockObject = new Object();
+    serializedAstToken = diskCache.transferFromStream(stream);
+  }
+
+  /**
+   * Force byte serialization of AST before writing.
+   */
+  private void writeObject(ObjectOutputStream stream) throws IOException {
+    stream.defaultWriteObject();
+    writeSerializedAst(stream);
+  }
 }
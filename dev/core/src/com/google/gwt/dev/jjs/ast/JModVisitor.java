@@ -85,6 +85,7 @@ public class JModVisitor extends JVisitor {
       try {
         for (index = 0; index < list.size(); ++index) {
           removed = replaced = false;
+          countTraversal();
           list.get(index).traverse(JModVisitor.this, this);
         }
       } catch (Throwable e) {
@@ -166,6 +167,7 @@ public class JModVisitor extends JVisitor {
       try {
         for (index = 0; index < list.size(); ++index) {
           removed = replaced = false;
+          countTraversal();
           list.get(index).traverse(JModVisitor.this, this);
         }
         return list;
@@ -358,6 +360,7 @@ public class JModVisitor extends JVisitor {
   }
 
   protected void traverse(JNode node, Context context) {
+    countTraversal();
     node.traverse(this, context);
   }
 
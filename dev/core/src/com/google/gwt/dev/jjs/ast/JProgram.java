@@ -294,6 +294,12 @@ public class JProgram extends JNode implements ArrayTypeCreator {
 
   private final Map<JType, JArrayType> arrayTypes = Maps.newHashMap();
 
+  /**
+   * Whether array types may only be looked up, not created, because several threads read the
+   * program.
+   */
+  private transient boolean arrayTypesReadOnly;
+
   private Map<JReferenceType, JCastMap> castMaps;
 
   private BiMap<JType, JField> classLiteralFieldsByType;
@@ -1017,6 +1023,8 @@ public class JProgram extends JNode implements ArrayTypeCreator {
   public JArrayType getTypeArray(JType elementType) {
     JArrayType arrayType = arrayTypes.get(elementType);
     if (arrayType == null) {
+      assert !arrayTypesReadOnly : "Array type of " + elementType.getName()
+          + " created while array types are read only";
       arrayType = new JArrayType(elementType);
       arrayTypes.put(elementType, arrayType);
     }
@@ -1037,6 +1045,14 @@ public class JProgram extends JNode implements ArrayTypeCreator {
     return result;
   }
 
+  /**
+   * Sets whether array types may only be looked up, which must be the case while several threads
+   * read the program. Creating one then fails an assertion.
+   */
+  public void setArrayTypesReadOnly(boolean arrayTypesReadOnly) {
+    this.arrayTypesReadOnly = arrayTypesReadOnly;
+  }
+
   public JType getTypeByClassLiteralField(JField field) {
     return typesByClassLiteralField.get(field);
   }
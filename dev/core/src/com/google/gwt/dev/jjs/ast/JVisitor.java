@@ -25,6 +25,7 @@ import com.google.gwt.dev.jjs.ast.js.JsniMethodRef;
 import com.google.gwt.dev.jjs.ast.js.JsonArray;
 
 import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * A visitor for iterating through an AST.
@@ -99,6 +100,20 @@ public class JVisitor {
 
   };
 
+  private static final ThreadLocal<LongAdder> traversalCounts = new ThreadLocal<LongAdder>();
+
+  /**
+   * Makes the visitors created on this thread from now on add each node they traverse to
+   * {@code traversalCount}, or stops counting if it is null.
+   */
+  public static void setTraversalCount(LongAdder traversalCount) {
+    if (traversalCount == null) {
+      traversalCounts.remove();
+    } else {
+      traversalCounts.set(traversalCount);
+    }
+  }
+
   protected static InternalCompilerException translateException(JNode node, Throwable e) {
     if (e instanceof VirtualMachineError) {
       // Always rethrow VM errors (an attempt to wrap may fail).
@@ -114,6 +129,8 @@ public class JVisitor {
     return ice;
   }
 
+  private final LongAdder traversalCount = traversalCounts.get();
+
   public final JExpression accept(JExpression node) {
     return (JExpression) accept((JNode) node);
   }
@@ -124,6 +141,7 @@ public class JVisitor {
 
   public JNode accept(JNode node, boolean allowRemove) {
     try {
+      countTraversal();
       node.traverse(this, UNMODIFIABLE_CONTEXT);
       return node;
     } catch (Throwable e) {
@@ -143,6 +161,7 @@ public class JVisitor {
     int i = 0;
     try {
       for (int c = list.size(); i < c; ++i) {
+        countTraversal();
         list.get(i).traverse(this, UNMODIFIABLE_CONTEXT);
       }
     } catch (Throwable e) {
@@ -157,6 +176,7 @@ public class JVisitor {
 
   public JExpression acceptLvalue(JExpression expr) {
     try {
+      countTraversal();
       expr.traverse(this, LVALUE_CONTEXT);
       return expr;
     } catch (Throwable e) {
@@ -832,4 +852,13 @@ public class JVisitor {
   public boolean visit(JYieldStatement x, Context ctx) {
     return visit((JStatement) x, ctx);
   }
+
+  /**
+   * Called before traversing each node.
+   */
+  final void countTraversal() {
+    if (traversalCount != null) {
+      traversalCount.increment();
+    }
+  }
 }
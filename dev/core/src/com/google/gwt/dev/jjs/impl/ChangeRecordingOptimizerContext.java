@@ -0,0 +1,149 @@
+/*
+ * Copyright 2026 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.gwt.dev.jjs.impl;
+
+import com.google.gwt.dev.jjs.ast.JField;
+import com.google.gwt.dev.jjs.ast.JMethod;
+import com.google.gwt.dev.jjs.ast.JNode;
+import com.google.gwt.dev.jjs.ast.JVisitor;
+import com.google.gwt.thirdparty.guava.common.collect.Lists;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * An optimization context that only records which methods and fields were modified, so that a
+ * pass can run on several methods at the same time without touching a shared context.
+ * <p>
+ * The recorded changes are later passed on to the real context with {@link #replayOn}, in the
+ * order they were made. Replaying the contexts of consecutive groups of methods in the groups'
+ * order leaves the real context exactly as if the methods had been visited one after another.
+ * <p>
+ * Removing methods or fields and querying the context are not supported.
+ */
+class ChangeRecordingOptimizerContext implements OptimizerContext {
+
+  private final List<JNode> modifiedNodes = Lists.newArrayList();
+
+  @Override
+  public void markModified(JField modifiedField) {
+    modifiedNodes.add(modifiedField);
+  }
+
+  @Override
+  public void markModified(JMethod modifiedMethod) {
+    modifiedNodes.add(modifiedMethod);
+  }
+
+  /**
+   * Marks the recorded methods and fields as modified in {@code optimizerCtx}.
+   */
+  public void replayOn(OptimizerContext optimizerCtx) {
+    for (JNode node : modifiedNodes) {
+      if (node instanceof JMethod) {
+        optimizerCtx.markModified((JMethod) node);
+      } else {
+        optimizerCtx.markModified((JField) node);
+      }
+    }
+  }
+
+  @Override
+  public Set<JMethod> getCallers(Collection<JMethod> calleeMethods) {
+    throw new UnsupportedOperationException();
+  }
+
+  @Override
+  public Set<JMethod> getCallees(Collection<JMethod> callerMethods) {
+    throw new UnsupportedOperationException();
+  }
+
+  @Override
+  public int getLastStepFor(String optimizerName) {
+    throw new UnsupportedOperationException();
+  }
+
+  @Override
+  public Set<JField> getModifiedFieldsSince(int stepSince) {
+    throw new UnsupportedOperationException();
+  }
+
+  @Override
+  public Set<JMethod> getModifiedMethodsSince(int stepSince) {
+    throw new UnsupportedOperationException();
+  }
+
+  @Override
+  public int getOptimizationStep() {
+    throw new UnsupportedOperationException();
+  }
+
+  @Override
+  public void incOptimizationStep() {
+    throw new UnsupportedOperationException();
+  }
+
+  @Override
+  public void remove(JField field) {
+    throw new UnsupportedOperationException();
+  }
+
+  @Override
+  public void removeFields(Collection<JField> fields) {
+    throw new UnsupportedOperationException();
+  }
+
+  @Override
+  public void remove(JMethod method) {
+    throw new UnsupportedOperationException();
+  }
+
+  @Override
+  public void removeMethods(Collection<JMethod> methods) {
+    throw new UnsupportedOperationException();
+  }
+
+  @Override
+  public void setLastStepFor(String optimizerName, int step) {
+    throw new UnsupportedOperationException();
+  }
+
+  @Override
+  public Set<JMethod> getMethodsByReferencedFields(Collection<JField> fields) {
+    throw new UnsupportedOperationException();
+  }
+
+  @Override
+  public Set<JField> getReferencedFieldsByMethods(Collection<JMethod> methods) {
+    throw new UnsupportedOperationException();
+  }
+
+  @Override
+  public void syncDeletedSubCallGraphsSince(int step, Collection<JMethod> prunedMethods) {
+    throw new UnsupportedOperationException();
+  }
+
+  @Override
+  public Set<JMethod> getRemovedCalleeMethodsSince(int stepSince) {
+    throw new UnsupportedOperationException();
+  }
+
+  @Override
+  public void traverse(JVisitor visitor, Set<? extends JNode> nodes) {
+    throw new UnsupportedOperationException();
+  }
+}
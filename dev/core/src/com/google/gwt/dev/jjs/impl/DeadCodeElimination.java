@@ -27,6 +27,7 @@ import com.google.gwt.dev.jjs.ast.JCastOperation;
 import com.google.gwt.dev.jjs.ast.JCharLiteral;
 import com.google.gwt.dev.jjs.ast.JClassType;
 import com.google.gwt.dev.jjs.ast.JConditional;
+import com.google.gwt.dev.jjs.ast.JConstructor;
 import com.google.gwt.dev.jjs.ast.JContinueStatement;
 import com.google.gwt.dev.jjs.ast.JDeclarationStatement;
 import com.google.gwt.dev.jjs.ast.JDeclaredType;
@@ -69,6 +70,7 @@ import com.google.gwt.dev.jjs.ast.JWhileStatement;
 import com.google.gwt.dev.jjs.ast.RuntimeConstants;
 import com.google.gwt.dev.jjs.ast.js.JMultiExpression;
 import com.google.gwt.dev.util.Ieee754_64_Arithmetic;
+import com.google.gwt.dev.util.ParallelTasks;
 import com.google.gwt.dev.util.log.speedtracer.CompilerEventType;
 import com.google.gwt.dev.util.log.speedtracer.SpeedTracerLogger;
 import com.google.gwt.dev.util.log.speedtracer.SpeedTracerLogger.Event;
@@ -87,6 +89,7 @@ import java.util.List;
 import java.util.ListIterator;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
 
 /**
  * Removes certain kinds of dead code, and simplifies certain expressions. This
@@ -2039,6 +2042,18 @@ public class DeadCodeElimination {
 
   public static final String NAME = DeadCodeElimination.class.getSimpleName();
 
+  /**
+   * The system property that makes the optimizer visit methods on several
+   * threads at the same time. The result is the same as visiting them one after
+   * another.
+   */
+  public static final String PARALLEL_PROPERTY = "gwt.jjs.parallelDeadCodeElimination";
+
+  /**
+   * Runs of fewer consecutive methods than this are visited on one thread.
+   */
+  private static final int MIN_PARALLEL_METHODS = 64;
+
   @VisibleForTesting
   public static OptimizerStats exec(JProgram program) {
     return new DeadCodeElimination(program).execImpl(Collections.singleton(program),
@@ -2057,8 +2072,17 @@ public class DeadCodeElimination {
    * context).
    */
   public static OptimizerStats exec(JProgram program, OptimizerContext optimizerCtx) {
+    return exec(program, optimizerCtx,
+        Boolean.getBoolean(PARALLEL_PROPERTY) && ParallelTasks.getParallelism() > 1);
+  }
+
+  @VisibleForTesting
+  static OptimizerStats exec(JProgram program, OptimizerContext optimizerCtx, boolean parallel) {
     Set<JMethod> affectedMethods = affectedMethods(optimizerCtx);
-    OptimizerStats stats = new DeadCodeElimination(program).execImpl(affectedMethods, optimizerCtx);
+    DeadCodeElimination deadCodeElimination = new DeadCodeElimination(program);
+    OptimizerStats stats = parallel
+        ? deadCodeElimination.execInParallel(Lists.newArrayList(affectedMethods), optimizerCtx)
+        : deadCodeElimination.execImpl(affectedMethods, optimizerCtx);
     optimizerCtx.setLastStepFor(NAME, optimizerCtx.getOptimizationStep());
     optimizerCtx.incOptimizationStep();
     JavaAstVerifier.assertProgramIsConsistent(program);
@@ -2113,5 +2137,93 @@ public class DeadCodeElimination {
     return stats;
   }
 
+  /**
+   * Visits the same methods as {@link #execImpl}, with the same result, but splits runs of
+   * consecutive methods into partitions that are visited at the same time.
+   * <p>
+   * Visiting a method only changes that method's body, and the body of another method is only
+   * read when it is a constructor (to see whether it became empty) or a class or instance
+   * initializer (for the initial values of fields). Those are visited alone, on this thread,
+   * between the partitioned runs, so every method sees the same program as in a serial visit.
+   * Each partition records its modifications in its own context, and they are passed on to
+   * {@code optimizerCtx} in the methods' order once the run is done.
+   */
+  private OptimizerStats execInParallel(List<JMethod> methods, OptimizerContext optimizerCtx) {
+    OptimizerStats stats = new OptimizerStats(NAME);
+    Event optimizeEvent = SpeedTracerLogger.start(CompilerEventType.OPTIMIZE, "optimizer", NAME);
+
+    int numMods = 0;
+    int runStart = 0;
+    for (int i = 0; i <= methods.size(); i++) {
+      JMethod method = i < methods.size() ? methods.get(i) : null;
+      if (method != null && !isReadByOtherMethods(method)) {
+        continue;
+      }
+      numMods += visitRun(methods.subList(runStart, i), optimizerCtx);
+      if (method != null) {
+        DeadCodeVisitor deadCodeVisitor = new DeadCodeVisitor(optimizerCtx);
+        deadCodeVisitor.accept(method);
+        numMods += deadCodeVisitor.getNumMods();
+      }
+      runStart = i + 1;
+    }
+
+    stats.recordModified(numMods);
+    optimizeEvent.end("didChange", "" + stats.didChange());
+    return stats;
+  }
+
+  /**
+   * Visits a run of methods whose bodies are not read while visiting other methods, and returns
+   * the number of modifications.
+   */
+  private int visitRun(List<JMethod> run, OptimizerContext optimizerCtx) {
+    if (run.size() < MIN_PARALLEL_METHODS) {
+      DeadCodeVisitor deadCodeVisitor = new DeadCodeVisitor(optimizerCtx);
+      for (JMethod method : run) {
+        deadCodeVisitor.accept(method);
+      }
+      return deadCodeVisitor.getNumMods();
+    }
+
+    int numPartitions = Math.min(ParallelTasks.getParallelism(), run.size());
+    List<Callable<DeadCodeVisitor>> tasks = Lists.newArrayList();
+    List<ChangeRecordingOptimizerContext> partitionCtxs = Lists.newArrayList();
+    for (int partition = 0; partition < numPartitions; partition++) {
+      final List<JMethod> partitionMethods = run.subList(
+          run.size() * partition / numPartitions, run.size() * (partition + 1) / numPartitions);
+      ChangeRecordingOptimizerContext partitionCtx = new ChangeRecordingOptimizerContext();
+      partitionCtxs.add(partitionCtx);
+      // Created on this thread, so that it counts its traversals where this thread's visitors do.
+      final DeadCodeVisitor deadCodeVisitor = new DeadCodeVisitor(partitionCtx);
+      tasks.add(new Callable<DeadCodeVisitor>() {
+        @Override
+        public DeadCodeVisitor call() {
+          for (JMethod method : partitionMethods) {
+            deadCodeVisitor.accept(method);
+          }
+          return deadCodeVisitor;
+        }
+      });
+    }
+
+    int numMods = 0;
+    for (DeadCodeVisitor deadCodeVisitor : ParallelTasks.invokeAll(tasks)) {
+      numMods += deadCodeVisitor.getNumMods();
+    }
+    for (ChangeRecordingOptimizerContext partitionCtx : partitionCtxs) {
+      partitionCtx.replayOn(optimizerCtx);
+    }
+    return numMods;
+  }
+
+  /**
+   * Returns true if DeadCodeVisitor reads the body of {@code method} while visiting other
+   * methods.
+   */
+  private static boolean isReadByOtherMethods(JMethod method) {
+    return method instanceof JConstructor || JProgram.isClinit(method) || JProgram.isInit(method);
+  }
+
   private enum AnalysisResult { TRUE, FALSE, UNKNOWN }
 }
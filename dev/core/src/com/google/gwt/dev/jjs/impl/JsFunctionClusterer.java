@@ -25,20 +25,49 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.Comparator;
-import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
-import java.util.Map;
 import java.util.regex.Pattern;
 
 /**
  * Re-orders function declarations according to a given metric and clustering
- * algorithm in order to boost gzip/deflation compression efficiency. This
- * version uses the edit-distance algorithm as a metric, and a semi-greedy
- * strategy for grouping functions together.
+ * algorithm in order to boost gzip/deflation compression efficiency. Functions
+ * are grouped together by a semi-greedy strategy, using either the
+ * edit-distance algorithm or MinHash signatures to find similar functions (see
+ * {@link Strategy}).
  */
 public class JsFunctionClusterer extends JsAbstractTextTransformer {
 
+  /**
+   * How similar functions are found.
+   */
+  public enum Strategy {
+    /**
+     * Compares each function with the next few functions of similar size by
+     * edit distance. Precise, but slow when there are many functions.
+     */
+    EDIT_DISTANCE,
+
+    /**
+     * Looks for similar functions with MinHash signatures and locality-sensitive
+     * hashing (see {@link MinHashClustering}). Scales nearly linearly with the
+     * size of the code.
+     */
+    MIN_HASH
+  }
+
+  /**
+   * The system property that chooses the strategy: "editDistance" (the default)
+   * or "minHash".
+   */
+  public static final String STRATEGY_PROPERTY = "gwt.jjs.functionClusterer";
+
+  /**
+   * The system property that, when "true", clusters functions even when source
+   * maps or a JSON compile report are being generated.
+   */
+  public static final String SOURCE_MAPS_PROPERTY = "gwt.jjs.clusterFunctionsWithSourceMaps";
+
   /**
    * Used by isFunctionDeclaration to check a statement is a function
    * declaration or not. This should match standard declarations, such as
@@ -79,8 +108,23 @@ public class JsFunctionClusterer extends JsAbstractTextTransformer {
    */
   private int[] reorderedIndices;
 
+  /**
+   * The code before clustering.
+   */
+  private String originalJs;
+
+  /**
+   * The strategy to use.
+   */
+  private final Strategy strategy;
+
   public JsFunctionClusterer(JsAbstractTextTransformer xformer) {
+    this(xformer, getStrategyFromProperty());
+  }
+
+  public JsFunctionClusterer(JsAbstractTextTransformer xformer, Strategy strategy) {
     super(xformer);
+    this.strategy = strategy;
   }
 
   @Override
@@ -110,6 +154,19 @@ public class JsFunctionClusterer extends JsAbstractTextTransformer {
       }
     });
 
+    int[] clusteredIndices = strategy == Strategy.MIN_HASH
+        ? clusterByMinHash(functionIndices) : clusterByEditDistance(functionIndices);
+
+    reorderedIndices = Arrays.copyOf(clusteredIndices, statementRanges.numStatements());
+    originalJs = js;
+    recomputeJsAndStatementRanges(clusteredIndices);
+  }
+
+  /**
+   * Orders functions by greedily picking, among the next few functions, the
+   * one with the smallest edit distance to the last one picked.
+   */
+  private int[] clusterByEditDistance(LinkedList<Integer> functionIndices) {
     // used to hold the new output order
     int[] clusteredIndices = new int[functionIndices.size()];
     int currentFunction = 0;
@@ -146,9 +203,27 @@ public class JsFunctionClusterer extends JsAbstractTextTransformer {
       clusteredIndices[currentFunction] = bestFunction;
       functionIndices.remove(bestIndex);
     }
+    return clusteredIndices;
+  }
 
-    reorderedIndices = Arrays.copyOf(clusteredIndices, statementRanges.numStatements());
-    recomputeJsAndStatementRanges(clusteredIndices);
+  /**
+   * Orders functions with {@link MinHashClustering}, starting with the
+   * smallest one.
+   */
+  private int[] clusterByMinHash(List<Integer> functionIndices) {
+    int[] indices = new int[functionIndices.size()];
+    List<String> functions = Lists.newArrayListWithCapacity(indices.length);
+    int i = 0;
+    for (int functionIndex : functionIndices) {
+      indices[i++] = functionIndex;
+      functions.add(getJsForRange(functionIndex));
+    }
+    int[] order = MinHashClustering.order(functions);
+    int[] clusteredIndices = new int[order.length];
+    for (i = 0; i < order.length; i++) {
+      clusteredIndices[i] = indices[order[i]];
+    }
+    return clusteredIndices;
   }
 
   @Override
@@ -169,55 +244,124 @@ public class JsFunctionClusterer extends JsAbstractTextTransformer {
 
   /**
    * Fixes the index ranges of individual expressions in the generated
-   * JS after function clustering has reordered statements. Loops over
-   * each expression, determines which statement it falls in, and shifts
-   * the indices according to where that statement moved.
+   * JS after function clustering has reordered statements. Each expression
+   * moves with the statement it falls in: its position and line shift by as
+   * much as the statement's start, and so does its column if it is on the
+   * statement's first line. Ranges that span several statements (such as the
+   * one for the entire program) are left as they are.
    */
   @Override
   protected void updateSourceInfoMap() {
-    if (sourceInfoMap != null) {
-      // create mapping of statement ranges
-      Map<Range, Range> statementShifts = new HashMap<Range, Range>();
-      for (int j = 0; j < statementRanges.numStatements(); j++) {
-        int permutedStart = statementRanges.start(j);
-        int permutedEnd = statementRanges.end(j);
-        int originalStart = originalStatementRanges.start(reorderedIndices[j]);
-        int originalEnd = originalStatementRanges.end(reorderedIndices[j]);
-
-        statementShifts.put(new Range(originalStart, originalEnd),
-            new Range(permutedStart, permutedEnd));
-      }
+    if (sourceInfoMap == null) {
+      return;
+    }
+
+    int numStatements = statementRanges.numStatements();
+    int[] newIndexOfStatement = new int[numStatements];
+    for (int j = 0; j < numStatements; j++) {
+      newIndexOfStatement[reorderedIndices[j]] = j;
+    }
+    int[] originalStarts = new int[numStatements];
+    int[] newStarts = new int[numStatements];
+    for (int i = 0; i < numStatements; i++) {
+      originalStarts[i] = originalStatementRanges.start(i);
+      newStarts[i] = statementRanges.start(newIndexOfStatement[i]);
+    }
+    int[] originalLineStarts = lineStarts(originalJs);
+    int[] newLineStarts = lineStarts(js);
 
-      Range[] oldStatementRanges = statementShifts.keySet().toArray(new Range[0]);
-      Arrays.sort(oldStatementRanges, Range.SOURCE_ORDER_COMPARATOR);
-
-      List<Range> oldExpressionRanges = Lists.newArrayList(sourceInfoMap.getRanges());
-      Collections.sort(oldExpressionRanges, Range.SOURCE_ORDER_COMPARATOR);
-
-      // iterate over expression ranges and shift
-      List<Range> updatedRanges = Lists.newArrayList();
-      Range entireProgram =
-          new Range(0, oldStatementRanges[oldStatementRanges.length - 1].getEnd());
-      for (int i = 0, j = 0; j < oldExpressionRanges.size(); j++) {
-        Range oldExpression = oldExpressionRanges.get(j);
-        if (oldExpression.equals(entireProgram)) {
-          updatedRanges.add(oldExpression);
-          continue;
+    List<Range> updatedRanges = Lists.newArrayListWithCapacity(sourceInfoMap.getRanges().size());
+    for (Range range : sourceInfoMap.getRanges()) {
+      // The last statement starting at or before the range.
+      int statement = Arrays.binarySearch(originalStarts, range.getStart());
+      if (statement < 0) {
+        statement = -statement - 2;
+      } else {
+        while (statement + 1 < numStatements
+            && originalStarts[statement + 1] == range.getStart()) {
+          statement++;
         }
+      }
+      if (statement < 0 || range.getEnd() > originalStatementRanges.end(statement)) {
+        updatedRanges.add(range);
+        continue;
+      }
 
-        Range oldStatement = oldStatementRanges[i];
-        Range newStatement = statementShifts.get(oldStatement);
-        int shift = newStatement.getStart() - oldStatement.getStart();
+      int originalStart = originalStarts[statement];
+      int newStart = newStarts[statement];
+      int originalLine = lineOf(originalLineStarts, originalStart);
+      int newLine = lineOf(newLineStarts, newStart);
+      int columnShift = (newStart - newLineStarts[newLine])
+          - (originalStart - originalLineStarts[originalLine]);
+      updatedRanges.add(shift(range, newStart - originalStart, newLine - originalLine,
+          originalLine, columnShift));
+    }
 
-        Range oldExpressionRange = oldExpressionRanges.get(j);
-        Range newExpressionRange = new Range(oldExpressionRange.getStart() + shift,
-            oldExpressionRange.getEnd() + shift, oldExpressionRange.getSourceInfo());
-        updatedRanges.add(newExpressionRange);
-      }
+    sourceInfoMap =
+        new JsSourceMap(updatedRanges, sourceInfoMap.getBytes(), sourceInfoMap.getLines());
+  }
+
+  /**
+   * Returns a copy of a range moved by the given number of characters and
+   * lines, with the columns on {@code firstLine} also moved by
+   * {@code columnShift}. Line numbers and columns that are unknown stay so.
+   */
+  private static Range shift(Range range, int positionShift, int lineShift, int firstLine,
+      int columnShift) {
+    int startLine = range.getStartLine();
+    int startColumn = range.getStartColumn();
+    int endLine = range.getEndLine();
+    int endColumn = range.getEndColumn();
+    if (startLine >= 0) {
+      startColumn += startLine == firstLine ? columnShift : 0;
+      startLine += lineShift;
+    }
+    if (endLine >= 0) {
+      endColumn += endLine == firstLine ? columnShift : 0;
+      endLine += lineShift;
+    }
+    return new Range(range.getStart() + positionShift, range.getEnd() + positionShift,
+        startLine, startColumn, endLine, endColumn, range.getSourceInfo());
+  }
 
-      sourceInfoMap =
-          new JsSourceMap(updatedRanges, sourceInfoMap.getBytes(), sourceInfoMap.getLines());
+  /**
+   * Returns the positions at which each line of {@code code} starts.
+   */
+  private static int[] lineStarts(String code) {
+    int numLines = 1;
+    for (int i = 0; i < code.length(); i++) {
+      if (code.charAt(i) == '\n') {
+        numLines++;
+      }
     }
+    int[] lineStarts = new int[numLines];
+    for (int i = 0, line = 1; i < code.length(); i++) {
+      if (code.charAt(i) == '\n') {
+        lineStarts[line++] = i + 1;
+      }
+    }
+    return lineStarts;
+  }
+
+  /**
+   * Returns the (zero-based) line that contains a position.
+   */
+  private static int lineOf(int[] lineStarts, int position) {
+    int line = Arrays.binarySearch(lineStarts, position);
+    return line >= 0 ? line : -line - 2;
+  }
+
+  /**
+   * Tells whether functions should be clustered when source maps are enabled
+   * (see {@link #SOURCE_MAPS_PROPERTY}).
+   */
+  public static boolean isEnabledWithSourceMaps() {
+    return Boolean.getBoolean(SOURCE_MAPS_PROPERTY);
+  }
+
+  private static Strategy getStrategyFromProperty() {
+    return "minHash".equals(System.getProperty(STRATEGY_PROPERTY))
+        ? Strategy.MIN_HASH : Strategy.EDIT_DISTANCE;
   }
 
   private int stmtSize(int index1) {
@@ -0,0 +1,264 @@
+/*
+ * Copyright 2026 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.gwt.dev.jjs.impl;
+
+import com.google.gwt.thirdparty.guava.common.collect.Maps;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Orders pieces of code so that similar ones end up next to each other, without comparing every
+ * pair of them.
+ * <p>
+ * Each piece of code gets a MinHash signature computed from the overlapping substrings
+ * ("shingles") of its text. Two signatures agree in about as many places as the two sets of
+ * shingles overlap. The signatures are cut into bands, and pieces whose signatures are equal in
+ * some band are put in the same bucket (locality-sensitive hashing), so similar pieces can be
+ * found by looking only at the pieces that share a bucket.
+ * <p>
+ * The order is built greedily: starting with the first piece, the next one is the most similar
+ * unused piece among the first few of each of the current piece's buckets, or the first unused
+ * piece in the input order if its buckets are empty. The total work is roughly proportional to
+ * the size of the code.
+ */
+final class MinHashClustering {
+
+  /**
+   * The number of characters in a shingle.
+   */
+  private static final int SHINGLE_LENGTH = 5;
+
+  private static final int NUM_BANDS = 8;
+
+  private static final int ROWS_PER_BAND = 3;
+
+  private static final int SIGNATURE_LENGTH = NUM_BANDS * ROWS_PER_BAND;
+
+  /**
+   * The number of unused pieces to compare in each bucket before giving up on it.
+   */
+  private static final int MAX_CANDIDATES_PER_BUCKET = 16;
+
+  /**
+   * Seeds for the hash functions of the signature. They are fixed so that the order is the same
+   * in every compile.
+   */
+  private static final long[] SEEDS = new long[SIGNATURE_LENGTH];
+
+  static {
+    long seed = 0x2545F4914F6CDD1DL;
+    for (int i = 0; i < SIGNATURE_LENGTH; i++) {
+      seed += 0x9E3779B97F4A7C15L;
+      SEEDS[i] = mix(seed);
+    }
+  }
+
+  /**
+   * Returns the indices of {@code codes} in an order that puts similar code next to each other.
+   * The first index is always 0.
+   */
+  static int[] order(List<String> codes) {
+    int numCodes = codes.size();
+    int[][] signatures = new int[numCodes][];
+    for (int i = 0; i < numCodes; i++) {
+      signatures[i] = signature(codes.get(i));
+    }
+
+    Buckets buckets = new Buckets(signatures);
+    boolean[] used = new boolean[numCodes];
+    int[] order = new int[numCodes];
+    int firstMaybeUnused = 0;
+    int current = 0;
+    for (int k = 0; k < numCodes; k++) {
+      if (k > 0) {
+        current = buckets.findMostSimilar(current, used);
+        if (current == -1) {
+          while (used[firstMaybeUnused]) {
+            firstMaybeUnused++;
+          }
+          current = firstMaybeUnused;
+        }
+      }
+      used[current] = true;
+      order[k] = current;
+    }
+    return order;
+  }
+
+  /**
+   * Returns the number of places in which two signatures agree.
+   */
+  static int similarity(int[] signature1, int[] signature2) {
+    int similarity = 0;
+    for (int i = 0; i < SIGNATURE_LENGTH; i++) {
+      if (signature1[i] == signature2[i]) {
+        similarity++;
+      }
+    }
+    return similarity;
+  }
+
+  static int[] signature(String code) {
+    int[] signature = new int[SIGNATURE_LENGTH];
+    Arrays.fill(signature, Integer.MAX_VALUE);
+
+    // A polynomial hash of the current shingle, updated as the shingle slides along the code.
+    long shingleHash = 0;
+    long dropFactor = 1;
+    int shingleLength = Math.min(SHINGLE_LENGTH, code.length());
+    for (int i = 1; i < shingleLength; i++) {
+      dropFactor *= 31;
+    }
+    for (int i = 0; i < code.length(); i++) {
+      if (i >= shingleLength) {
+        shingleHash -= code.charAt(i - shingleLength) * dropFactor;
+      }
+      shingleHash = shingleHash * 31 + code.charAt(i);
+      if (i < shingleLength - 1) {
+        continue;
+      }
+      for (int j = 0; j < SIGNATURE_LENGTH; j++) {
+        int value = (int) (mix(shingleHash ^ SEEDS[j]) >>> 32);
+        if (value < signature[j]) {
+          signature[j] = value;
+        }
+      }
+    }
+    return signature;
+  }
+
+  /**
+   * Scrambles the bits of a long (the finalizer of the SplitMix64 generator).
+   */
+  private static long mix(long value) {
+    value = (value ^ (value >>> 30)) * 0xBF58476D1CE4E5B9L;
+    value = (value ^ (value >>> 27)) * 0x94D049BB133111EBL;
+    return value ^ (value >>> 31);
+  }
+
+  /**
+   * The locality-sensitive hash buckets. Each bucket is a linked list of entries, one entry for
+   * each piece of code in the bucket, kept in input order. Entries of used pieces are unlinked
+   * when they are found.
+   */
+  private static class Buckets {
+    private final int[][] signatures;
+
+    /**
+     * The first entry of each bucket, or -1 if it is empty.
+     */
+    private final int[] heads;
+
+    /**
+     * The entry for piece {@code p} in band {@code b} is {@code p * NUM_BANDS + b}. For each entry,
+     * these hold the bucket it belongs to (or -1 if the piece is alone in its bucket) and the next
+     * entry in that bucket (or -1).
+     */
+    private final int[] bucketOfEntry;
+    private final int[] nextEntry;
+
+    Buckets(int[][] signatures) {
+      this.signatures = signatures;
+      int numEntries = signatures.length * NUM_BANDS;
+      bucketOfEntry = new int[numEntries];
+      nextEntry = new int[numEntries];
+      Arrays.fill(nextEntry, -1);
+
+      int numBuckets = 0;
+      int[] bucketSizes = new int[numEntries];
+      int[] tails = new int[numEntries];
+      int[] firstEntries = new int[numEntries];
+      for (int band = 0; band < NUM_BANDS; band++) {
+        Map<Long, Integer> bucketsByKey = Maps.newHashMap();
+        for (int piece = 0; piece < signatures.length; piece++) {
+          int entry = piece * NUM_BANDS + band;
+          Long key = bandKey(signatures[piece], band);
+          Integer bucket = bucketsByKey.get(key);
+          if (bucket == null) {
+            bucket = numBuckets++;
+            bucketsByKey.put(key, bucket);
+            firstEntries[bucket] = entry;
+          } else {
+            nextEntry[tails[bucket]] = entry;
+          }
+          tails[bucket] = entry;
+          bucketSizes[bucket]++;
+          bucketOfEntry[entry] = bucket;
+        }
+      }
+
+      heads = Arrays.copyOf(firstEntries, numBuckets);
+      for (int entry = 0; entry < numEntries; entry++) {
+        if (bucketSizes[bucketOfEntry[entry]] == 1) {
+          // Nothing else to find in this bucket.
+          bucketOfEntry[entry] = -1;
+        }
+      }
+    }
+
+    /**
+     * Returns the unused piece most similar to {@code piece} among the first few unused pieces in
+     * each of its buckets, or -1 if its buckets hold no unused pieces.
+     */
+    int findMostSimilar(int piece, boolean[] used) {
+      int best = -1;
+      int bestSimilarity = -1;
+      for (int band = 0; band < NUM_BANDS; band++) {
+        int bucket = bucketOfEntry[piece * NUM_BANDS + band];
+        if (bucket == -1) {
+          continue;
+        }
+        int previous = -1;
+        int entry = heads[bucket];
+        int numCandidates = 0;
+        while (entry != -1 && numCandidates < MAX_CANDIDATES_PER_BUCKET) {
+          int candidate = entry / NUM_BANDS;
+          if (used[candidate]) {
+            entry = nextEntry[entry];
+            if (previous == -1) {
+              heads[bucket] = entry;
+            } else {
+              nextEntry[previous] = entry;
+            }
+            continue;
+          }
+          int similarity = similarity(signatures[piece], signatures[candidate]);
+          if (similarity > bestSimilarity || similarity == bestSimilarity && candidate < best) {
+            best = candidate;
+            bestSimilarity = similarity;
+          }
+          numCandidates++;
+          previous = entry;
+          entry = nextEntry[entry];
+        }
+      }
+      return best;
+    }
+
+    private static Long bandKey(int[] signature, int band) {
+      long key = 0;
+      for (int row = band * ROWS_PER_BAND; row < (band + 1) * ROWS_PER_BAND; row++) {
+        key = key * 0x100000001B3L + signature[row];
+      }
+      return key;
+    }
+  }
+
+  private MinHashClustering() {
+  }
+}
@@ -0,0 +1,208 @@
+/*
+ * Copyright 2026 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.gwt.dev.jjs.impl;
+
+import com.google.gwt.dev.jjs.ast.JVisitor;
+import com.google.gwt.thirdparty.guava.common.base.Ticker;
+import com.google.gwt.thirdparty.guava.common.collect.ImmutableList;
+import com.google.gwt.thirdparty.guava.common.collect.Maps;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Runs the optimizers of the optimization loop, keeping a profile of how much time each one
+ * takes and how much it changes. Counting the nodes each optimizer traverses slows the visitors
+ * down a little, so it is only done when asked for.
+ * <p>
+ * The scheduler can also skip optimizers that have stopped paying for themselves. When an
+ * optimizer's last run changed fewer nodes per millisecond than the minimum yield, it is skipped
+ * in the next pass. If it is still unproductive when it runs again, it is skipped for twice as
+ * many passes, up to {@link #MAX_SKIPPED_PASSES}. Optimizers only look at what changed since
+ * their last run (see {@link OptimizerContext}), so a skipped optimizer catches up on everything
+ * it missed the next time it runs.
+ * <p>
+ * Since these decisions depend on timing, the output can differ from one compile to the next
+ * when a minimum yield is set. By default the minimum yield is zero, and every optimizer runs in
+ * every pass.
+ */
+public class OptimizerScheduler {
+
+  /**
+   * An optimizer run by the scheduler.
+   */
+  public interface Optimizer {
+    /**
+     * Runs the optimizer once.
+     */
+    OptimizerStats exec();
+  }
+
+  /**
+   * What an optimizer has cost and changed in all its runs so far.
+   */
+  public static class Profile {
+    private final String name;
+    private int numRuns;
+    private int numSkipped;
+    private long elapsedNanos;
+    private long numVisits;
+    private long numMods;
+
+    private int skipInterval;
+    private int passesToSkip;
+
+    private Profile(String name) {
+      this.name = name;
+    }
+
+    public long getElapsedNanos() {
+      return elapsedNanos;
+    }
+
+    public String getName() {
+      return name;
+    }
+
+    public long getNumMods() {
+      return numMods;
+    }
+
+    public int getNumRuns() {
+      return numRuns;
+    }
+
+    /**
+     * @return the number of passes in which the optimizer was skipped
+     */
+    public int getNumSkipped() {
+      return numSkipped;
+    }
+
+    /**
+     * @return the number of nodes the optimizer traversed, or zero if they weren't counted
+     */
+    public long getNumVisits() {
+      return numVisits;
+    }
+  }
+
+  /**
+   * The system property that sets the minimum yield, in changed nodes per millisecond.
+   */
+  public static final String MIN_YIELD_PROPERTY = "gwt.jjs.minOptimizerYield";
+
+  /**
+   * The most passes in a row that an optimizer can be skipped.
+   */
+  static final int MAX_SKIPPED_PASSES = 8;
+
+  /**
+   * Optimizers that run faster than this are never skipped; there is little to gain.
+   */
+  static final long MIN_SKIPPED_NANOS = TimeUnit.MILLISECONDS.toNanos(5);
+
+  /**
+   * Creates a scheduler with the minimum yield set by {@value #MIN_YIELD_PROPERTY}.
+   *
+   * @param countVisits whether to count the nodes each optimizer traverses
+   */
+  public static OptimizerScheduler create(boolean countVisits) {
+    String minYield = System.getProperty(MIN_YIELD_PROPERTY);
+    return new OptimizerScheduler(minYield == null ? 0 : Float.parseFloat(minYield), countVisits,
+        Ticker.systemTicker());
+  }
+
+  private final float minYield;
+  private final boolean countVisits;
+  private final Ticker ticker;
+  private final Map<String, Profile> profilesByName = Maps.newLinkedHashMap();
+
+  /**
+   * @param minYield the number of nodes per millisecond an optimizer must change to keep
+   *     running in every pass, or zero to never skip optimizers.
+   * @param countVisits whether to count the nodes each optimizer traverses
+   * @param ticker the clock that optimizers are timed with
+   */
+  OptimizerScheduler(float minYield, boolean countVisits, Ticker ticker) {
+    this.minYield = minYield;
+    this.countVisits = countVisits;
+    this.ticker = ticker;
+  }
+
+  /**
+   * Returns the profiles of the optimizers run so far, in the order they first ran.
+   */
+  public ImmutableList<Profile> getProfiles() {
+    return ImmutableList.copyOf(profilesByName.values());
+  }
+
+  /**
+   * Runs an optimizer, unless it should be skipped in this pass.
+   *
+   * @param optimizerClass the class of the optimizer, which gives the optimizer its name.
+   * @return the optimizer's stats, or empty stats if it was skipped.
+   */
+  public OptimizerStats run(Class<?> optimizerClass, Optimizer optimizer) {
+    String name = optimizerClass.getSimpleName();
+    Profile profile = profilesByName.get(name);
+    if (profile == null) {
+      profile = new Profile(name);
+      profilesByName.put(name, profile);
+    }
+
+    if (profile.passesToSkip > 0) {
+      profile.passesToSkip--;
+      profile.numSkipped++;
+      return new OptimizerStats(name);
+    }
+
+    LongAdder numVisits = new LongAdder();
+    if (countVisits) {
+      JVisitor.setTraversalCount(numVisits);
+    }
+    long startNanos = ticker.read();
+    OptimizerStats stats;
+    try {
+      stats = optimizer.exec();
+    } finally {
+      if (countVisits) {
+        JVisitor.setTraversalCount(null);
+      }
+    }
+    long elapsedNanos = ticker.read() - startNanos;
+    stats.recordElapsedNanos(elapsedNanos);
+    record(profile, numVisits.sum(), stats.getNumMods(), elapsedNanos);
+    return stats;
+  }
+
+  private void record(Profile profile, long numVisits, long numMods, long elapsedNanos) {
+    profile.numRuns++;
+    profile.elapsedNanos += elapsedNanos;
+    profile.numVisits += numVisits;
+    profile.numMods += numMods;
+
+    boolean unproductive = minYield > 0 && elapsedNanos >= MIN_SKIPPED_NANOS
+        && numMods < minYield * elapsedNanos / TimeUnit.MILLISECONDS.toNanos(1);
+    if (unproductive) {
+      profile.skipInterval = Math.min(Math.max(1, profile.skipInterval * 2), MAX_SKIPPED_PASSES);
+      profile.passesToSkip = profile.skipInterval;
+    } else {
+      profile.skipInterval = 0;
+    }
+  }
+}
@@ -29,6 +29,7 @@ public class OptimizerStats {
   private final String name;
   private int numMods = 0;
   private int numVisits = 0;
+  private long elapsedNanos = 0;
 
   public OptimizerStats(String name) {
     this.name = name;
@@ -63,6 +64,17 @@ public class OptimizerStats {
     return children;
   }
 
+  /**
+   * @return the wall clock time spent in the optimizer, in nanoseconds
+   */
+  public long getElapsedNanos() {
+    long childNanos = 0;
+    for (OptimizerStats child : children) {
+      childNanos += child.getElapsedNanos();
+    }
+    return elapsedNanos + childNanos;
+  }
+
   public String getName() {
     return name;
   }
@@ -116,6 +128,16 @@ public class OptimizerStats {
     return this;
   }
 
+  /**
+   * Add to the wall clock time spent in the optimizer.
+   *
+   * @param elapsedNanos the time spent, in nanoseconds.
+   */
+  public OptimizerStats recordElapsedNanos(long elapsedNanos) {
+    this.elapsedNanos += elapsedNanos;
+    return this;
+  }
+
   /**
    * Increment the number of times tree nodes were visited.
    */
@@ -0,0 +1,114 @@
+/*
+ * Copyright 2026 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.gwt.dev.jjs.impl.codesplitter;
+
+import com.google.gwt.dev.jjs.ast.JDeclaredType;
+import com.google.gwt.dev.jjs.ast.JField;
+import com.google.gwt.dev.jjs.ast.JMethod;
+import com.google.gwt.dev.jjs.ast.JNode;
+import com.google.gwt.dev.jjs.impl.ControlFlowAnalyzer;
+import com.google.gwt.thirdparty.guava.common.collect.Maps;
+
+import java.util.BitSet;
+import java.util.Map;
+
+/**
+ * A {@link CfaLivenessPredicate} reduced to a bit set over an {@link AtomIndex}, so that the
+ * {@link ControlFlowAnalyzer} it was computed from, and its hash sets, need not be kept.
+ * <p>
+ * Only atoms that are live in the whole program can be live; others, such as the atoms of the
+ * immortal codegen types that an analysis starting from the initial sequence includes, are never
+ * live. That is all that {@link ExclusivityMap} asks about.
+ */
+class BitSetLivenessPredicate implements LivenessPredicate {
+
+  /**
+   * Numbers the atoms (fields, methods and types) that a control flow analysis of the whole
+   * program found live. An analysis of part of the program only finds some of them live.
+   */
+  static class AtomIndex {
+    private final Map<JNode, Integer> idsByAtom = Maps.newHashMap();
+
+    AtomIndex(ControlFlowAnalyzer completeCfa) {
+      addAll(completeCfa.getLiveFieldsAndMethods());
+      addAll(completeCfa.getFieldsWritten());
+      addAll(completeCfa.getInstantiatedTypes());
+    }
+
+    private void addAll(Iterable<? extends JNode> atoms) {
+      for (JNode atom : atoms) {
+        if (!idsByAtom.containsKey(atom)) {
+          idsByAtom.put(atom, idsByAtom.size());
+        }
+      }
+    }
+
+    private int getId(JNode atom) {
+      Integer id = idsByAtom.get(atom);
+      return id == null ? -1 : id;
+    }
+  }
+
+  private final AtomIndex index;
+
+  /**
+   * The live fields and methods, the written fields and the instantiated types. Since these are
+   * distinct atoms, one set answers every kind of query.
+   */
+  private final BitSet live;
+
+  BitSetLivenessPredicate(AtomIndex index, ControlFlowAnalyzer cfa) {
+    this.index = index;
+    this.live = new BitSet(index.idsByAtom.size());
+    add(cfa.getLiveFieldsAndMethods());
+    add(cfa.getFieldsWritten());
+    add(cfa.getInstantiatedTypes());
+  }
+
+  @Override
+  public boolean isLive(JDeclaredType type) {
+    return isIndexedAndLive(type);
+  }
+
+  @Override
+  public boolean isLive(JField field) {
+    return isIndexedAndLive(field);
+  }
+
+  @Override
+  public boolean isLive(JMethod method) {
+    return isIndexedAndLive(method);
+  }
+
+  @Override
+  public boolean miscellaneousStatementsAreLive() {
+    return true;
+  }
+
+  private void add(Iterable<? extends JNode> atoms) {
+    for (JNode atom : atoms) {
+      int id = index.getId(atom);
+      if (id >= 0) {
+        live.set(id);
+      }
+    }
+  }
+
+  private boolean isIndexedAndLive(JNode atom) {
+    int id = index.getId(atom);
+    return id >= 0 && live.get(id);
+  }
+}
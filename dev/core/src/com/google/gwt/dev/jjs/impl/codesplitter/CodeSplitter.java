@@ -22,12 +22,14 @@ import com.google.gwt.dev.jjs.ast.JProgram;
 import com.google.gwt.dev.jjs.ast.JRunAsync;
 import com.google.gwt.dev.jjs.impl.ControlFlowAnalyzer;
 import com.google.gwt.dev.jjs.impl.JavaToJavaScriptMap;
+import com.google.gwt.dev.jjs.impl.codesplitter.BitSetLivenessPredicate.AtomIndex;
 import com.google.gwt.dev.js.ast.JsBlock;
 import com.google.gwt.dev.js.ast.JsContext;
 import com.google.gwt.dev.js.ast.JsModVisitor;
 import com.google.gwt.dev.js.ast.JsNumericEntry;
 import com.google.gwt.dev.js.ast.JsProgram;
 import com.google.gwt.dev.js.ast.JsStatement;
+import com.google.gwt.dev.util.ParallelTasks;
 import com.google.gwt.dev.util.log.speedtracer.CompilerEventType;
 import com.google.gwt.dev.util.log.speedtracer.SpeedTracerLogger;
 import com.google.gwt.dev.util.log.speedtracer.SpeedTracerLogger.Event;
@@ -45,6 +47,7 @@ import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
 
 /**
  * <p>
@@ -271,39 +274,84 @@ public class CodeSplitter {
 
   /**
    * For each exclusive fragment (those that are not part of the initial load sequence) compute
-   * a CFA that traces every split point not in the fragment; i.e. computes the atoms that are
-   * live in (WholeProgram - Fragment).
+   * what is live in (WholeProgram - Fragment), by tracing every split point not in the fragment.
+   * <p>
+   * The analyses are independent and only read the program, so they run in parallel unless their
+   * dependency graphs are being recorded, which must happen one at a time. (Any array type that
+   * they need was already created by the complete CFA, so the program's array types are made read
+   * only meanwhile.) Each result is reduced to a bit set as soon as it is computed.
    */
-  private Map<Fragment, ControlFlowAnalyzer> computeNotExclusiveCfaForFragments(
-      Collection<Fragment> exclusiveFragments) {
-    String dependencyGraphNameAfterInitialSequence = dependencyGraphNameAfterInitialSequence();
-
-    Map<Fragment, ControlFlowAnalyzer> notExclusiveCfaByFragment = Maps.newHashMap();
+  private Map<Fragment, LivenessPredicate> computeNotExclusiveLivenessForFragments(
+      Collection<Fragment> exclusiveFragments, AtomIndex atomIndex) {
+    List<LivenessPredicate> notExclusiveLivenesses;
+    jprogram.setArrayTypesReadOnly(true);
+    try {
+      notExclusiveLivenesses = computeNotExclusiveLivenesses(exclusiveFragments, atomIndex);
+    } finally {
+      jprogram.setArrayTypesReadOnly(false);
+    }
 
+    Map<Fragment, LivenessPredicate> notExclusiveLivenessByFragment = Maps.newHashMap();
+    int i = 0;
     for (Fragment fragment : exclusiveFragments) {
-      assert fragment.isExclusive();
+      notExclusiveLivenessByFragment.put(fragment, notExclusiveLivenesses.get(i++));
+    }
+    return notExclusiveLivenessByFragment;
+  }
 
-      dependencyRecorder.startDependencyGraph("sp" + fragment.getFragmentId(),
-          dependencyGraphNameAfterInitialSequence);
-      ControlFlowAnalyzer cfa = new ControlFlowAnalyzer(initialSequenceCfa);
-      cfa.setDependencyRecorder(dependencyRecorder);
-      for (Fragment otherFragment : exclusiveFragments) {
-        // don't trace the initial fragments as they have already been traced and their atoms are
-        // already in {@code initialSequenceCfa}.
-        if (otherFragment.isInitial()) {
-          continue;
-        }
-        if (otherFragment == fragment) {
-          continue;
-        }
-        for (JRunAsync otherRunAsync : otherFragment.getRunAsyncs()) {
-          cfa.traverseFromRunAsync(otherRunAsync);
-        }
+  /**
+   * Computes what is live in (WholeProgram - Fragment) for each exclusive fragment, in order.
+   */
+  private List<LivenessPredicate> computeNotExclusiveLivenesses(
+      final Collection<Fragment> exclusiveFragments, final AtomIndex atomIndex) {
+    List<LivenessPredicate> notExclusiveLivenesses;
+    if (dependencyRecorder != MultipleDependencyGraphRecorder.NULL_RECORDER) {
+      notExclusiveLivenesses = Lists.newArrayList();
+      for (Fragment fragment : exclusiveFragments) {
+        notExclusiveLivenesses.add(
+            computeNotExclusiveLiveness(fragment, exclusiveFragments, atomIndex));
       }
-      dependencyRecorder.endDependencyGraph();
-      notExclusiveCfaByFragment.put(fragment, cfa);
+    } else {
+      List<Callable<LivenessPredicate>> tasks = Lists.newArrayList();
+      for (final Fragment fragment : exclusiveFragments) {
+        tasks.add(new Callable<LivenessPredicate>() {
+          @Override
+          public LivenessPredicate call() {
+            return computeNotExclusiveLiveness(fragment, exclusiveFragments, atomIndex);
+          }
+        });
+      }
+      notExclusiveLivenesses = ParallelTasks.invokeAll(tasks);
     }
-    return notExclusiveCfaByFragment;
+    return notExclusiveLivenesses;
+  }
+
+  /**
+   * Computes what is live in (WholeProgram - Fragment) for one exclusive fragment.
+   */
+  private LivenessPredicate computeNotExclusiveLiveness(Fragment fragment,
+      Collection<Fragment> exclusiveFragments, AtomIndex atomIndex) {
+    assert fragment.isExclusive();
+
+    dependencyRecorder.startDependencyGraph("sp" + fragment.getFragmentId(),
+        dependencyGraphNameAfterInitialSequence());
+    ControlFlowAnalyzer cfa = new ControlFlowAnalyzer(initialSequenceCfa);
+    cfa.setDependencyRecorder(dependencyRecorder);
+    for (Fragment otherFragment : exclusiveFragments) {
+      // don't trace the initial fragments as they have already been traced and their atoms are
+      // already in {@code initialSequenceCfa}.
+      if (otherFragment.isInitial()) {
+        continue;
+      }
+      if (otherFragment == fragment) {
+        continue;
+      }
+      for (JRunAsync otherRunAsync : otherFragment.getRunAsyncs()) {
+        cfa.traverseFromRunAsync(otherRunAsync);
+      }
+    }
+    dependencyRecorder.endDependencyGraph();
+    return new BitSetLivenessPredicate(atomIndex, cfa);
   }
 
   /**
@@ -337,10 +385,10 @@ public class CodeSplitter {
    */
   private ExclusivityMap computeExclusivityMapWithFixups(Collection<Fragment> exclusiveFragments) {
     ControlFlowAnalyzer completeCfa = computeCompleteCfa();
-    Map<Fragment, ControlFlowAnalyzer> notExclusiveCfaByFragment =
-        computeNotExclusiveCfaForFragments(exclusiveFragments);
+    Map<Fragment, LivenessPredicate> notExclusiveLivenessByFragment =
+        computeNotExclusiveLivenessForFragments(exclusiveFragments, new AtomIndex(completeCfa));
     ExclusivityMap exclusivityMap =  ExclusivityMap.computeExclusivityMap(exclusiveFragments,
-        completeCfa, notExclusiveCfaByFragment);
+        completeCfa, notExclusiveLivenessByFragment);
     exclusivityMap.fixUpLoadOrderDependencies(logger, jprogram, methodsStillInJavaScript);
     return exclusivityMap;
   }
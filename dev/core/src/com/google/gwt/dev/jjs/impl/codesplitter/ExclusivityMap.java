@@ -22,7 +22,6 @@ import com.google.gwt.dev.jjs.ast.JDeclaredType;
 import com.google.gwt.dev.jjs.ast.JExpression;
 import com.google.gwt.dev.jjs.ast.JField;
 import com.google.gwt.dev.jjs.ast.JMethod;
-import com.google.gwt.dev.jjs.ast.JNode;
 import com.google.gwt.dev.jjs.ast.JProgram;
 import com.google.gwt.dev.jjs.ast.JRunAsync;
 import com.google.gwt.dev.jjs.ast.JType;
@@ -30,6 +29,7 @@ import com.google.gwt.dev.jjs.ast.JVisitor;
 import com.google.gwt.dev.jjs.ast.js.JsniMethodRef;
 import com.google.gwt.dev.jjs.impl.ControlFlowAnalyzer;
 import com.google.gwt.dev.js.ast.JsStatement;
+import com.google.gwt.thirdparty.guava.common.base.Predicate;
 import com.google.gwt.thirdparty.guava.common.base.Predicates;
 import com.google.gwt.thirdparty.guava.common.collect.Maps;
 import com.google.gwt.thirdparty.guava.common.collect.Sets;
@@ -189,12 +189,15 @@ class ExclusivityMap {
    * Map atoms to exclusive fragments. Do this by trying to find code atoms that
    * are only needed by a single split point. Such code can be moved to the
    * exclusively live fragment associated with that split point.
+   *
+   * @param notExclusiveLivenessByFragment for each exclusive fragment, what is live in the
+   *          whole program except that fragment
    */
   public static ExclusivityMap computeExclusivityMap(Collection<Fragment> exclusiveFragments,
       ControlFlowAnalyzer completeCfa,
-      Map<Fragment, ControlFlowAnalyzer> notExclusiveCfaByFragment) {
+      Map<Fragment, ? extends LivenessPredicate> notExclusiveLivenessByFragment) {
     ExclusivityMap exclusivityMap = new ExclusivityMap();
-    exclusivityMap.compute(exclusiveFragments, completeCfa, notExclusiveCfaByFragment);
+    exclusivityMap.compute(exclusiveFragments, completeCfa, notExclusiveLivenessByFragment);
     return exclusivityMap;
   }
 
@@ -244,7 +247,7 @@ class ExclusivityMap {
    * exclusively live fragment associated with that split point.
    */
   private void compute(Collection<Fragment> exclusiveFragments, ControlFlowAnalyzer completeCfa,
-      Map<Fragment, ControlFlowAnalyzer> notExclusiveCfaByFragment) {
+      Map<Fragment, ? extends LivenessPredicate> notExclusiveLivenessByFragment) {
 
     Set<JField> allLiveFields = filter(Sets.union(completeCfa.getLiveFieldsAndMethods(),
         completeCfa.getFieldsWritten()), JField.class);
@@ -254,17 +257,28 @@ class ExclusivityMap {
 
     for (Fragment fragment : exclusiveFragments) {
       assert fragment.isExclusive();
-      ControlFlowAnalyzer complementCfa = notExclusiveCfaByFragment.get(fragment);
-      Set<JNode> nodesNotExclusiveToFragment = Sets.union(complementCfa.getLiveFieldsAndMethods(),
-          complementCfa.getFieldsWritten());
+      final LivenessPredicate complementLiveness = notExclusiveLivenessByFragment.get(fragment);
 
-      putIfAbsent(fragmentForField, fragment,
-          Sets.difference(allLiveFields, nodesNotExclusiveToFragment));
+      putIfAbsent(fragmentForField, fragment, Sets.filter(allLiveFields, new Predicate<JField>() {
+        @Override
+        public boolean apply(JField field) {
+          return !complementLiveness.isLive(field);
+        }
+      }));
       putIfAbsent(fragmentForMethod, fragment,
-          Sets.difference(allLiveMethods, complementCfa.getLiveFieldsAndMethods()));
+          Sets.filter(allLiveMethods, new Predicate<JMethod>() {
+            @Override
+            public boolean apply(JMethod method) {
+              return !complementLiveness.isLive(method);
+            }
+          }));
       putIfAbsent(fragmentForType, fragment,
-          Sets.difference(allLiveTypes,
-              filter(complementCfa.getInstantiatedTypes(), JDeclaredType.class)));
+          Sets.filter(allLiveTypes, new Predicate<JDeclaredType>() {
+            @Override
+            public boolean apply(JDeclaredType type) {
+              return !complementLiveness.isLive(type);
+            }
+          }));
     }
 
     // Assign all living atoms to left overs.
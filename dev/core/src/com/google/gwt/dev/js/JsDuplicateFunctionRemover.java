@@ -15,20 +15,42 @@
  */
 package com.google.gwt.dev.js;
 
+import com.google.gwt.dev.js.ast.JsBinaryOperation;
 import com.google.gwt.dev.js.ast.JsBlock;
+import com.google.gwt.dev.js.ast.JsBooleanLiteral;
 import com.google.gwt.dev.js.ast.JsContext;
+import com.google.gwt.dev.js.ast.JsExpression;
+import com.google.gwt.dev.js.ast.JsForIn;
 import com.google.gwt.dev.js.ast.JsFunction;
 import com.google.gwt.dev.js.ast.JsInvocation;
+import com.google.gwt.dev.js.ast.JsLabel;
 import com.google.gwt.dev.js.ast.JsModVisitor;
 import com.google.gwt.dev.js.ast.JsName;
 import com.google.gwt.dev.js.ast.JsNameOf;
 import com.google.gwt.dev.js.ast.JsNameRef;
+import com.google.gwt.dev.js.ast.JsNode;
+import com.google.gwt.dev.js.ast.JsNumberLiteral;
+import com.google.gwt.dev.js.ast.JsNumericEntry;
+import com.google.gwt.dev.js.ast.JsOperator;
+import com.google.gwt.dev.js.ast.JsParameter;
+import com.google.gwt.dev.js.ast.JsPostfixOperation;
+import com.google.gwt.dev.js.ast.JsPrefixOperation;
 import com.google.gwt.dev.js.ast.JsProgram;
+import com.google.gwt.dev.js.ast.JsRegExp;
+import com.google.gwt.dev.js.ast.JsStringLiteral;
+import com.google.gwt.dev.js.ast.JsVars.JsVar;
+import com.google.gwt.dev.js.ast.JsVisitable;
 import com.google.gwt.dev.js.ast.JsVisitor;
 import com.google.gwt.dev.util.collect.Stack;
+import com.google.gwt.thirdparty.guava.common.collect.ArrayListMultimap;
+import com.google.gwt.thirdparty.guava.common.collect.ListMultimap;
 import com.google.gwt.thirdparty.guava.common.collect.Maps;
 import com.google.gwt.thirdparty.guava.common.collect.Sets;
+import com.google.gwt.thirdparty.guava.common.hash.HashCode;
+import com.google.gwt.thirdparty.guava.common.hash.Hasher;
+import com.google.gwt.thirdparty.guava.common.hash.Hashing;
 
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
@@ -49,13 +71,20 @@ public class JsDuplicateFunctionRemover {
 
     private final Stack<JsNameRef> invocationQualifiers = new Stack<JsNameRef>();
 
-    // static / global methods
-    private final Map<String, JsName> uniqueBodies = Maps.newHashMap();
+    private final Map<JsFunction, HashCode> hashesByFunction;
 
-    // vtable methods
-    private final Map<String, JsFunction> uniqueMethodBodies = Maps.newHashMap();
+    // the printed parameters and body of the functions that were compared, by function
+    private final Map<JsFunction, String> sourcesByFunction = Maps.newIdentityHashMap();
 
-    public DuplicateFunctionBodyRecorder() {
+    // static / global methods, by the hash of their parameters and body
+    private final ListMultimap<HashCode, JsFunction> uniqueBodies = ArrayListMultimap.create();
+
+    // vtable methods, by the hash of their parameters and body
+    private final ListMultimap<HashCode, JsFunction> uniqueMethodBodies =
+        ArrayListMultimap.create();
+
+    public DuplicateFunctionBodyRecorder(Map<JsFunction, HashCode> hashesByFunction) {
+      this.hashesByFunction = hashesByFunction;
       // Add sentinel to stop Stack.peek() from throwing exception.
       invocationQualifiers.push(null);
     }
@@ -95,29 +124,52 @@ public class JsDuplicateFunctionRemover {
 
     @Override
     public boolean visit(JsFunction x, JsContext ctx) {
-      String fnSource = x.toSource();
-      String body = fnSource.substring(fnSource.indexOf("("));
       /*
        * Static function processed separate from virtual functions
        */
       if (x.getName() != null) {
-        JsName original = uniqueBodies.get(body);
+        JsFunction original = findOrAddOriginal(uniqueBodies, x);
         if (original != null) {
-          duplicateOriginalMap.put(x.getName(), original);
-        } else {
-          uniqueBodies.put(body, x.getName());
+          duplicateOriginalMap.put(x.getName(), original.getName());
         }
       } else if (x.isFromJava()) {
-         JsFunction original = uniqueMethodBodies.get(body);
-         if (original != null) {
-           duplicateMethodOriginalMap.put(x, original);
-         } else {
-           uniqueMethodBodies.put(body, x);
-         }
+        JsFunction original = findOrAddOriginal(uniqueMethodBodies, x);
+        if (original != null) {
+          duplicateMethodOriginalMap.put(x, original);
+        }
       }
       return true;
     }
 
+    /**
+     * Returns the function seen before with the same parameters and body as {@code x}, or
+     * {@code null} after recording {@code x} as the first of its kind.
+     */
+    private JsFunction findOrAddOriginal(ListMultimap<HashCode, JsFunction> uniqueFunctions,
+        JsFunction x) {
+      List<JsFunction> candidates = uniqueFunctions.get(hashesByFunction.get(x));
+      if (!candidates.isEmpty()) {
+        // Only functions that share a hash, almost always duplicates, are ever printed.
+        String source = getParametersAndBody(x);
+        for (JsFunction candidate : candidates) {
+          if (source.equals(getParametersAndBody(candidate))) {
+            return candidate;
+          }
+        }
+      }
+      candidates.add(x);
+      return null;
+    }
+
+    private String getParametersAndBody(JsFunction x) {
+      String source = sourcesByFunction.get(x);
+      if (source == null) {
+        source = parametersAndBody(x);
+        sourcesByFunction.put(x, source);
+      }
+      return source;
+    }
+
     @Override
     public boolean visit(JsInvocation x, JsContext ctx) {
       if (x.getQualifier() instanceof JsNameRef) {
@@ -127,6 +179,201 @@ public class JsDuplicateFunctionRemover {
     }
   }
 
+  /**
+   * Hashes the parameters and body of every function from the structure of its AST, in a single
+   * traversal: the hash of a nested function is computed once and folded into the hash of the
+   * function that encloses it.
+   * <p>
+   * Only node kinds and what source generation prints for each node (short identifiers, operators
+   * and literals) are hashed, so functions that print the same hash the same. Functions that print
+   * differently may rarely share a hash; their source is compared before they are treated as
+   * duplicates.
+   */
+  private static class FunctionHasher extends JsVisitor {
+
+    private static final int END_OF_NODE = -1;
+
+    private final Map<JsFunction, HashCode> hashesByFunction = Maps.newIdentityHashMap();
+
+    /**
+     * The hashers of the enclosing functions, with {@code null} for code outside any function.
+     */
+    private final Stack<Hasher> enclosingHashers = new Stack<Hasher>();
+
+    /**
+     * The hasher of the innermost function, or {@code null} outside any function.
+     */
+    private Hasher hasher;
+
+    @Override
+    public void endVisit(JsFunction x, JsContext ctx) {
+      HashCode hash = hasher.hash();
+      hashesByFunction.put(x, hash);
+      hasher = enclosingHashers.pop();
+      if (hasher != null) {
+        putName(x.getName());
+        hasher.putBytes(hash.asBytes());
+      }
+    }
+
+    public Map<JsFunction, HashCode> getHashes() {
+      return hashesByFunction;
+    }
+
+    @Override
+    public boolean visit(JsBinaryOperation x, JsContext ctx) {
+      putOperator(x.getOperator());
+      return true;
+    }
+
+    @Override
+    public boolean visit(JsBooleanLiteral x, JsContext ctx) {
+      putBoolean(x.getValue());
+      return false;
+    }
+
+    @Override
+    public boolean visit(JsForIn x, JsContext ctx) {
+      putName(x.getIterVarName());
+      return true;
+    }
+
+    @Override
+    public boolean visit(JsFunction x, JsContext ctx) {
+      enclosingHashers.push(hasher);
+      hasher = Hashing.murmur3_128().newHasher();
+      return true;
+    }
+
+    @Override
+    public boolean visit(JsLabel x, JsContext ctx) {
+      putName(x.getName());
+      return true;
+    }
+
+    @Override
+    public boolean visit(JsNameOf x, JsContext ctx) {
+      putName(x.getName());
+      return false;
+    }
+
+    @Override
+    public boolean visit(JsNameRef x, JsContext ctx) {
+      putString(x.getShortIdent());
+      return true;
+    }
+
+    @Override
+    public boolean visit(JsNumberLiteral x, JsContext ctx) {
+      if (hasher != null) {
+        hasher.putDouble(x.getValue());
+      }
+      return false;
+    }
+
+    @Override
+    public boolean visit(JsNumericEntry x, JsContext ctx) {
+      if (hasher != null) {
+        hasher.putInt(x.getValue());
+      }
+      return false;
+    }
+
+    @Override
+    public boolean visit(JsParameter x, JsContext ctx) {
+      putName(x.getName());
+      return false;
+    }
+
+    @Override
+    public boolean visit(JsPostfixOperation x, JsContext ctx) {
+      putOperator(x.getOperator());
+      return true;
+    }
+
+    @Override
+    public boolean visit(JsPrefixOperation x, JsContext ctx) {
+      putOperator(x.getOperator());
+      return true;
+    }
+
+    @Override
+    public boolean visit(JsRegExp x, JsContext ctx) {
+      putString(x.getPattern());
+      putString(x.getFlags());
+      return false;
+    }
+
+    @Override
+    public boolean visit(JsStringLiteral x, JsContext ctx) {
+      putString(x.getValue());
+      return false;
+    }
+
+    @Override
+    public boolean visit(JsVar x, JsContext ctx) {
+      putName(x.getName());
+      return true;
+    }
+
+    @Override
+    protected <T extends JsVisitable> T doAccept(T node) {
+      // Bracket every node, so that the same nodes in a different shape hash differently.
+      putInt(((JsNode) node).getKind().ordinal());
+      super.doAccept(node);
+      putInt(END_OF_NODE);
+      return node;
+    }
+
+    @Override
+    protected <T extends JsVisitable> void doAcceptList(List<T> collection) {
+      for (T node : collection) {
+        doAccept(node);
+      }
+    }
+
+    @Override
+    protected JsExpression doAcceptLvalue(JsExpression expr) {
+      return doAccept(expr);
+    }
+
+    @Override
+    protected <T extends JsVisitable> void doAcceptWithInsertRemove(List<T> collection) {
+      doAcceptList(collection);
+    }
+
+    private void putBoolean(boolean value) {
+      if (hasher != null) {
+        hasher.putBoolean(value);
+      }
+    }
+
+    private void putInt(int value) {
+      if (hasher != null) {
+        hasher.putInt(value);
+      }
+    }
+
+    private void putName(JsName name) {
+      putString(name == null ? null : name.getShortIdent());
+    }
+
+    private void putOperator(JsOperator operator) {
+      putString(operator.getSymbol());
+    }
+
+    private void putString(String value) {
+      if (hasher == null) {
+        return;
+      }
+      if (value == null) {
+        hasher.putInt(-1);
+      } else {
+        hasher.putInt(value.length()).putUnencodedChars(value);
+      }
+    }
+  }
+
   private class ReplaceDuplicateInvocationNameRefs extends JsModVisitor {
 
     private final Set<JsName> blacklist;
@@ -222,6 +469,11 @@ public class JsDuplicateFunctionRemover {
     return new JsDuplicateFunctionRemover(program, nameGenerator).execImpl();
   }
 
+  private static String parametersAndBody(JsFunction x) {
+    String fnSource = x.toSource();
+    return fnSource.substring(fnSource.indexOf("("));
+  }
+
   private final JsProgram program;
 
   /**
@@ -241,7 +493,9 @@ public class JsDuplicateFunctionRemover {
     for (int i = 0; i < program.getFragmentCount(); i++) {
       JsBlock fragment = program.getFragmentBlock(i);
 
-      DuplicateFunctionBodyRecorder dfbr = new DuplicateFunctionBodyRecorder();
+      FunctionHasher hasher = new FunctionHasher();
+      hasher.accept(fragment);
+      DuplicateFunctionBodyRecorder dfbr = new DuplicateFunctionBodyRecorder(hasher.getHashes());
       dfbr.accept(fragment);
       Map<JsFunction, JsName> newNamesByHoistedFunction = Maps.newHashMap();
       // Hoist all anonymous duplicate functions.
@@ -19,13 +19,117 @@ import com.google.gwt.dev.cfg.ConfigurationProperties;
 import com.google.gwt.dev.js.ast.JsName;
 import com.google.gwt.dev.js.ast.JsProgram;
 import com.google.gwt.dev.js.ast.JsScope;
+import com.google.gwt.dev.util.StringInterningObjectInputStream;
+import com.google.gwt.thirdparty.guava.common.collect.ImmutableMap;
+import com.google.gwt.thirdparty.guava.common.collect.Lists;
+import com.google.gwt.thirdparty.guava.common.collect.Maps;
+import com.google.gwt.thirdparty.guava.common.collect.Sets;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.io.Serializable;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 /**
  * A namer that uses short, unrecognizable idents to minimize generated code
  * size.
+ * <p>
+ * Given a {@link JsObfuscateNamerState} from a previous compile, names in the global and object
+ * scopes keep the short idents they had, where they still can, so that the output of compiles that
+ * only differ in a few types differs in as few names as possible.
  */
 public class JsObfuscateNamer extends JsNamer implements FreshNameGenerator {
 
+  /**
+   * The short idents assigned to names in the global and object scopes, keyed by scope and
+   * original ident, so that they can be persisted and reused by the next compile.
+   */
+  public static class JsObfuscateNamerState implements Serializable {
+
+    /**
+     * Reads a state written by {@link #writeTo}.
+     */
+    public static JsObfuscateNamerState readFrom(File file)
+        throws IOException, ClassNotFoundException {
+      try (InputStream in = new FileInputStream(file);
+          ObjectInputStream objectIn = new StringInterningObjectInputStream(in)) {
+        return (JsObfuscateNamerState) objectIn.readObject();
+      }
+    }
+
+    private final Map<String, Map<String, Integer>> idsByIdentByScope = Maps.newHashMap();
+
+    private transient int newNameCount;
+    private transient int reassignedNameCount;
+    private transient int reusedNameCount;
+
+    /**
+     * Returns the number of names, in the last run of the namer, that had no ident assigned before.
+     */
+    public int getNewNameCount() {
+      return newNameCount;
+    }
+
+    /**
+     * Returns the number of names, in the last run of the namer, that could not keep their ident.
+     */
+    public int getReassignedNameCount() {
+      return reassignedNameCount;
+    }
+
+    /**
+     * Returns the number of names, in the last run of the namer, that kept their ident.
+     */
+    public int getReusedNameCount() {
+      return reusedNameCount;
+    }
+
+    /**
+     * Writes this state to {@code file}, replacing it atomically where the file system allows.
+     */
+    public void writeTo(File file) throws IOException {
+      File tempFile = File.createTempFile(file.getName(), ".tmp", file.getParentFile());
+      try {
+        try (OutputStream out = new FileOutputStream(tempFile);
+            ObjectOutputStream objectOut = new ObjectOutputStream(out)) {
+          objectOut.writeObject(this);
+        }
+        try {
+          Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.ATOMIC_MOVE,
+              StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+          Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+      } finally {
+        tempFile.delete();
+      }
+    }
+
+    private void resetCounts() {
+      newNameCount = 0;
+      reassignedNameCount = 0;
+      reusedNameCount = 0;
+    }
+  }
+
+  /**
+   * The system property that names a directory in which production compiles keep a
+   * {@link JsObfuscateNamerState} per module and permutation, to reuse obfuscated names across
+   * compiles.
+   */
+  public static final String NAME_TABLE_DIR_PROPERTY = "gwt.jjs.obfuscatedNameTableDir";
+
   /**
    * A lookup table of base-64 chars we use to encode idents.
    */
@@ -42,7 +146,16 @@ public class JsObfuscateNamer extends JsNamer implements FreshNameGenerator {
 
   public static FreshNameGenerator exec(JsProgram program, ConfigurationProperties config)
       throws IllegalNameException {
-    JsObfuscateNamer namer = new JsObfuscateNamer(program, config);
+    return exec(program, config, null);
+  }
+
+  /**
+   * Runs the namer, reusing the idents recorded in {@code state} where possible and recording the
+   * new ones in it. A {@code null} state assigns all idents from scratch.
+   */
+  public static FreshNameGenerator exec(JsProgram program, ConfigurationProperties config,
+      JsObfuscateNamerState state) throws IllegalNameException {
+    JsObfuscateNamer namer = new JsObfuscateNamer(program, config, state);
     namer.execImpl();
     return namer;
   }
@@ -75,8 +188,19 @@ public class JsObfuscateNamer extends JsNamer implements FreshNameGenerator {
    */
   private int maxId = -1;
 
+  private final JsObfuscateNamerState state;
+
   public JsObfuscateNamer(JsProgram program, ConfigurationProperties config) {
+    this(program, config, null);
+  }
+
+  public JsObfuscateNamer(JsProgram program, ConfigurationProperties config,
+      JsObfuscateNamerState state) {
     super(program, config);
+    this.state = state;
+    if (state != null) {
+      state.resetCounts();
+    }
   }
 
   @Override
@@ -100,7 +224,18 @@ public class JsObfuscateNamer extends JsNamer implements FreshNameGenerator {
     // maxChildId is now the max of all of my children's ids
 
     // Visit my idents.
-    int curId = maxChildId;
+    int curId = state != null && hasStableIdents(scope)
+        ? assignStableIdents(scope, maxChildId) : assignIdents(scope, maxChildId);
+
+    maxChildId = Math.max(mySiblingsMaxId, curId);
+    maxId = Math.max(maxId, maxChildId);
+  }
+
+  /**
+   * Assigns idents to the names of {@code scope}, starting at {@code curId}, and returns the id
+   * after the last one used.
+   */
+  private int assignIdents(JsScope scope, int curId) {
     for (JsName name : scope.getAllNames()) {
 
       if (!referenced.contains(name)) {
@@ -124,9 +259,82 @@ public class JsObfuscateNamer extends JsNamer implements FreshNameGenerator {
       }
       name.setShortIdent(newIdent);
     }
+    return curId;
+  }
 
-    maxChildId = Math.max(mySiblingsMaxId, curId);
-    maxId = Math.max(maxId, maxChildId);
+  /**
+   * Like {@link #assignIdents}, but first gives each name the ident it had in the previous compile
+   * if that ident is still legal and doesn't collide with the idents of the child scopes, and
+   * records the idents in {@link #state}.
+   */
+  private int assignStableIdents(JsScope scope, int firstId) {
+    String scopeKey = scope.toString();
+    Map<String, Integer> previousIds = state.idsByIdentByScope.get(scopeKey);
+    if (previousIds == null) {
+      previousIds = ImmutableMap.of();
+    }
+    Map<String, Integer> ids = Maps.newHashMap();
+    Set<Integer> usedIds = Sets.newHashSet();
+    List<JsName> unassignedNames = Lists.newArrayList();
+    int endId = firstId;
+
+    for (JsName name : scope.getAllNames()) {
+      if (!referenced.contains(name)) {
+        // Don't allocate idents for non-referenced names.
+        continue;
+      }
+
+      if (!name.isObfuscatable()) {
+        // Unobfuscatable names become themselves.
+        name.setShortIdent(name.getIdent());
+        continue;
+      }
+
+      Integer previousId = previousIds.get(name.getIdent());
+      if (previousId == null) {
+        state.newNameCount++;
+        unassignedNames.add(name);
+      } else if (previousId < firstId || !isLegal(scope, makeObfuscatedIdent(previousId))) {
+        state.reassignedNameCount++;
+        unassignedNames.add(name);
+      } else {
+        state.reusedNameCount++;
+        name.setShortIdent(makeObfuscatedIdent(previousId));
+        ids.put(name.getIdent(), previousId);
+        usedIds.add(previousId);
+        endId = Math.max(endId, previousId + 1);
+      }
+    }
+
+    // Fill the ids left over by names that are gone first.
+    int curId = firstId;
+    for (JsName name : unassignedNames) {
+      while (usedIds.contains(curId) || !isLegal(scope, makeObfuscatedIdent(curId))) {
+        curId++;
+      }
+      name.setShortIdent(makeObfuscatedIdent(curId));
+      ids.put(name.getIdent(), curId);
+      endId = Math.max(endId, ++curId);
+    }
+
+    state.idsByIdentByScope.put(scopeKey, ids);
+    return endId;
+  }
+
+  /**
+   * Whether the names of {@code scope} are identified by their original idents alone, which is
+   * the case for the global scope and for the object scope and its children.
+   */
+  private boolean hasStableIdents(JsScope scope) {
+    if (scope == program.getScope()) {
+      return true;
+    }
+    for (JsScope ancestor = scope; ancestor != null; ancestor = ancestor.getParent()) {
+      if (ancestor == program.getObjectScope()) {
+        return true;
+      }
+    }
+    return false;
   }
 
   private boolean isLegal(JsScope scope, String newIdent) {
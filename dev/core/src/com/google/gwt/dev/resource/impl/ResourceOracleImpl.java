@@ -19,6 +19,7 @@ import com.google.gwt.core.ext.TreeLogger;
 import com.google.gwt.dev.cfg.ResourceLoader;
 import com.google.gwt.dev.cfg.ResourceLoaders;
 import com.google.gwt.dev.resource.Resource;
+import com.google.gwt.dev.util.ParallelTasks;
 import com.google.gwt.dev.util.log.speedtracer.CompilerEventType;
 import com.google.gwt.dev.util.log.speedtracer.SpeedTracerLogger;
 import com.google.gwt.dev.util.log.speedtracer.SpeedTracerLogger.Event;
@@ -46,6 +47,7 @@ import java.util.Locale;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
+import java.util.concurrent.Callable;
 
 /**
  * The normal implementation of {@code ResourceOracle}.
@@ -209,17 +211,25 @@ public class ResourceOracleImpl extends AbstractResourceOracle {
   /**
    * Preinitializes the classpath for a given {@link ResourceLoader}.
    */
-  public static void preload(TreeLogger logger, ResourceLoader resources) {
+  public static void preload(final TreeLogger logger, ResourceLoader resources) {
     Event resourceOracle =
         SpeedTracerLogger.start(CompilerEventType.RESOURCE_ORACLE, "phase", "preload");
     List<ClassPathEntry> entries = getAllClassPathEntries(logger, resources);
+    List<Callable<Void>> indexings = new ArrayList<Callable<Void>>();
     for (ClassPathEntry entry : entries) {
       // We only handle pre-indexing jars, the file system could change.
       if (entry instanceof ZipFileClassPathEntry) {
-        ZipFileClassPathEntry zpe = (ZipFileClassPathEntry) entry;
-        zpe.index(logger);
+        final ZipFileClassPathEntry zpe = (ZipFileClassPathEntry) entry;
+        indexings.add(new Callable<Void>() {
+          @Override
+          public Void call() {
+            zpe.index(logger);
+            return null;
+          }
+        });
       }
     }
+    ParallelTasks.invokeAll(indexings);
     resourceOracle.end();
   }
 
@@ -247,12 +257,27 @@ public class ResourceOracleImpl extends AbstractResourceOracle {
     Map<String, ResourceDescription> resourceDescriptionsByPath =
         new LinkedHashMap<String, ResourceDescription>();
 
-    for (ClassPathEntry classPathEntry : classPathEntries) {
-      TreeLogger branchForClassPathEntry =
+    // Scan the entries at the same time, then merge what they found in class path order so that
+    // earlier entries still shadow later ones.
+    List<TreeLogger> branchesForClassPathEntries = new ArrayList<TreeLogger>();
+    List<Callable<Map<AbstractResource, ResourceResolution>>> scans =
+        new ArrayList<Callable<Map<AbstractResource, ResourceResolution>>>();
+    for (final ClassPathEntry classPathEntry : classPathEntries) {
+      final TreeLogger branchForClassPathEntry =
           Messages.EXAMINING_PATH_ROOT.branch(refreshBranch, classPathEntry.getLocation(), null);
+      branchesForClassPathEntries.add(branchForClassPathEntry);
+      scans.add(new Callable<Map<AbstractResource, ResourceResolution>>() {
+        @Override
+        public Map<AbstractResource, ResourceResolution> call() {
+          return classPathEntry.findApplicableResources(branchForClassPathEntry, pathPrefixSet);
+        }
+      });
+    }
+    List<Map<AbstractResource, ResourceResolution>> scanResults = ParallelTasks.invokeAll(scans);
 
-      Map<AbstractResource, ResourceResolution> prefixesByResource =
-          classPathEntry.findApplicableResources(branchForClassPathEntry, pathPrefixSet);
+    for (int i = 0; i < scanResults.size(); i++) {
+      TreeLogger branchForClassPathEntry = branchesForClassPathEntries.get(i);
+      Map<AbstractResource, ResourceResolution> prefixesByResource = scanResults.get(i);
       for (Entry<AbstractResource, ResourceResolution> entry : prefixesByResource.entrySet()) {
         AbstractResource resource = entry.getKey();
         ResourceResolution resourceResolution = entry.getValue();
@@ -21,12 +21,15 @@ import com.google.gwt.dev.util.collect.IdentityHashSet;
 import com.google.gwt.dev.util.collect.IdentityMaps;
 import com.google.gwt.dev.util.collect.Sets;
 import com.google.gwt.dev.util.msg.Message1String;
+import com.google.gwt.thirdparty.guava.common.collect.Lists;
 import com.google.gwt.thirdparty.guava.common.collect.MapMaker;
 import com.google.gwt.thirdparty.guava.common.collect.Maps;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.Enumeration;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.zip.ZipEntry;
@@ -103,15 +106,33 @@ public class ZipFileClassPathEntry extends ClassPathEntry {
    */
   private final Map<PathPrefixSet, ZipFileSnapshot> cachedSnapshots = new MapMaker().weakKeys().makeMap();
 
+  /**
+   * The entry names read from the {@link ZipFileIndexCache}, until the index is built.
+   */
+  private List<String> cachedEntryNames;
+
+  private final File file;
   private final long lastModified;
   private final String location;
-  private final ZipFile zipFile;
+  private final long size;
+
+  /**
+   * Opened when first needed; an archive whose entries are in the {@link ZipFileIndexCache} is
+   * only opened to read resources.
+   */
+  private ZipFile zipFile;
 
   private ZipFileClassPathEntry(File zipFile) throws IOException {
     assert zipFile.isAbsolute();
+    this.file = zipFile;
     this.lastModified = zipFile.lastModified();
-    this.zipFile = new ZipFile(zipFile);
+    this.size = zipFile.length();
     this.location = zipFile.toURI().toString();
+    this.cachedEntryNames = ZipFileIndexCache.read(zipFile, lastModified, size);
+    if (cachedEntryNames == null) {
+      // Fails right away if the file isn't an archive.
+      this.zipFile = new ZipFile(zipFile);
+    }
   }
 
   /**
@@ -135,8 +156,17 @@ public class ZipFileClassPathEntry extends ClassPathEntry {
     return location;
   }
 
+  /**
+   * Returns the archive, opening it if needed.
+   *
+   * @throws UncheckedIOException if the archive can't be opened
+   */
   public ZipFile getZipFile() {
-    return zipFile;
+    try {
+      return openZipFile();
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
   }
 
   public long lastModified() {
@@ -150,24 +180,41 @@ public class ZipFileClassPathEntry extends ClassPathEntry {
     }
   }
 
+  synchronized ZipFile openZipFile() throws IOException {
+    if (zipFile == null) {
+      zipFile = new ZipFile(file);
+    }
+    return zipFile;
+  }
+
   private Set<ZipFileResource> buildIndex(TreeLogger logger) {
-    logger = Messages.BUILDING_INDEX.branch(logger, zipFile.getName(), null);
+    logger = Messages.BUILDING_INDEX.branch(logger, file.getPath(), null);
+
+    List<String> entryNames = cachedEntryNames;
+    cachedEntryNames = null;
+    if (entryNames == null) {
+      entryNames = Lists.newArrayList();
+      Enumeration<? extends ZipEntry> e = zipFile.entries();
+      while (e.hasMoreElements()) {
+        ZipEntry zipEntry = e.nextElement();
+        if (zipEntry.isDirectory()) {
+          // Skip directories.
+          continue;
+        }
+        if (zipEntry.getName().startsWith("META-INF/")) {
+          // Skip META-INF since classloaders normally make this invisible.
+          continue;
+        }
+        entryNames.add(zipEntry.getName());
+      }
+      ZipFileIndexCache.write(file, lastModified, size, entryNames);
+    }
 
     Set<ZipFileResource> results = new IdentityHashSet<ZipFileResource>();
-    Enumeration<? extends ZipEntry> e = zipFile.entries();
-    while (e.hasMoreElements()) {
-      ZipEntry zipEntry = e.nextElement();
-      if (zipEntry.isDirectory()) {
-        // Skip directories.
-        continue;
-      }
-      if (zipEntry.getName().startsWith("META-INF/")) {
-        // Skip META-INF since classloaders normally make this invisible.
-        continue;
-      }
-      ZipFileResource zipResource = new ZipFileResource(this, zipEntry.getName());
+    for (String entryName : entryNames) {
+      ZipFileResource zipResource = new ZipFileResource(this, entryName);
       results.add(zipResource);
-      Messages.READ_ZIP_ENTRY.log(logger, zipEntry.getName(), null);
+      Messages.READ_ZIP_ENTRY.log(logger, entryName, null);
     }
     return Sets.normalize(results);
   }
@@ -175,7 +222,7 @@ public class ZipFileClassPathEntry extends ClassPathEntry {
   private Map<AbstractResource, ResourceResolution> computeApplicableResources(
       TreeLogger logger, PathPrefixSet pathPrefixSet) {
     logger = Messages.FINDING_INCLUDED_RESOURCES.branch(logger,
-        zipFile.getName(), null);
+        file.getPath(), null);
 
     Map<AbstractResource, ResourceResolution> results =
         new IdentityHashMap<AbstractResource, ResourceResolution>();
@@ -0,0 +1,152 @@
+/*
+ * Copyright 2026 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.gwt.dev.resource.impl;
+
+import com.google.gwt.thirdparty.guava.common.collect.ImmutableList;
+import com.google.gwt.thirdparty.guava.common.hash.Hashing;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+
+/**
+ * A directory of files that list the entries of jar and zip files, so that listing an unchanged
+ * archive doesn't require opening it, even in a new process.
+ * <p>
+ * Each archive's index is kept in its own file, named after a hash of the archive's path. An
+ * index is only used while the archive's modification time and size are the same as when it was
+ * written. The directory is set with {@link #setCacheDir} or the system property
+ * {@value #CACHE_DIR_PROPERTY}; without one, nothing is cached.
+ */
+public class ZipFileIndexCache {
+
+  /**
+   * The system property that sets the directory that holds the indexes.
+   */
+  public static final String CACHE_DIR_PROPERTY = "gwt.zipIndexCacheDir";
+
+  private static final int VERSION = 1;
+
+  private static volatile File cacheDir = System.getProperty(CACHE_DIR_PROPERTY) == null
+      ? null : new File(System.getProperty(CACHE_DIR_PROPERTY));
+
+  /**
+   * Returns the directory that holds the indexes, or null if indexes aren't kept.
+   */
+  public static File getCacheDir() {
+    return cacheDir;
+  }
+
+  /**
+   * Sets the directory that holds the indexes, or null to stop keeping them.
+   */
+  public static void setCacheDir(File dir) {
+    cacheDir = dir;
+  }
+
+  /**
+   * Returns the names of the entries of an archive, as last written by {@link #write}, or null if
+   * there is no index for the archive as it is now.
+   */
+  static List<String> read(File archive, long lastModified, long size) {
+    File indexFile = getIndexFile(archive);
+    if (indexFile == null || !indexFile.isFile()) {
+      return null;
+    }
+    try (DataInputStream in = new DataInputStream(
+        new BufferedInputStream(new FileInputStream(indexFile)))) {
+      if (in.readInt() != VERSION || !in.readUTF().equals(archive.getPath())
+          || in.readLong() != lastModified || in.readLong() != size) {
+        return null;
+      }
+      int numEntries = in.readInt();
+      ImmutableList.Builder<String> entryNames = ImmutableList.builder();
+      for (int i = 0; i < numEntries; i++) {
+        entryNames.add(in.readUTF());
+      }
+      return entryNames.build();
+    } catch (IOException e) {
+      // A damaged index; it will be rewritten.
+      return null;
+    }
+  }
+
+  /**
+   * Records the names of the entries of an archive with the given modification time and size.
+   * Failures are ignored; the archive will simply be listed again next time.
+   */
+  static void write(File archive, long lastModified, long size, List<String> entryNames) {
+    File indexFile = getIndexFile(archive);
+    if (indexFile == null) {
+      return;
+    }
+    File tempFile = null;
+    try {
+      File dir = indexFile.getParentFile();
+      if (!dir.isDirectory() && !dir.mkdirs()) {
+        return;
+      }
+      tempFile = File.createTempFile(indexFile.getName(), ".tmp", dir);
+      try (DataOutputStream out = new DataOutputStream(
+          new BufferedOutputStream(new FileOutputStream(tempFile)))) {
+        out.writeInt(VERSION);
+        out.writeUTF(archive.getPath());
+        out.writeLong(lastModified);
+        out.writeLong(size);
+        out.writeInt(entryNames.size());
+        for (String entryName : entryNames) {
+          out.writeUTF(entryName);
+        }
+      }
+      // Readers in other processes must never see a partially written index.
+      try {
+        Files.move(tempFile.toPath(), indexFile.toPath(), StandardCopyOption.ATOMIC_MOVE,
+            StandardCopyOption.REPLACE_EXISTING);
+      } catch (AtomicMoveNotSupportedException e) {
+        Files.move(tempFile.toPath(), indexFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+      }
+      tempFile = null;
+    } catch (IOException ignored) {
+    } finally {
+      if (tempFile != null) {
+        tempFile.delete();
+      }
+    }
+  }
+
+  private static File getIndexFile(File archive) {
+    File dir = cacheDir;
+    if (dir == null) {
+      return null;
+    }
+    String hash = Hashing.murmur3_128().hashString(archive.getPath(), StandardCharsets.UTF_8)
+        .toString();
+    return new File(dir, hash + ".idx");
+  }
+
+  private ZipFileIndexCache() {
+  }
+}
@@ -23,29 +23,189 @@ import java.io.InputStream;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
 import java.io.OutputStream;
-import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
 
 /**
  * A nifty class that lets you squirrel away data on the file system. Write
- * once, read many times. Instance of this are thread-safe by way of internal
- * synchronization.
- *
- * Note that in the current implementation, the backing temp file will get
- * arbitrarily large as you continue adding things to it. There is no internal
+ * once, read many times. Instance of this are thread-safe.
+ * <p>
+ * Data is appended to one of several backing files, called stripes, so that
+ * threads writing at the same time rarely wait for each other; the lock of a
+ * stripe is only held while space is reserved in it, or for the whole copy in
+ * {@link #transferFromStream(InputStream)}, whose length is not known up
+ * front. Reads take no lock at all: they use positional reads, or memory-map
+ * the data if it is large.
+ * <p>
+ * If the system property {@value #COMPRESS_PROPERTY} is set, data is deflated
+ * before it is written, which trades CPU time for less disk traffic.
+ * <p>
+ * Note that in the current implementation, the backing temp files will get
+ * arbitrarily large as you continue adding things to them. There is no internal
  * GC or compaction.
  */
 public class DiskCache {
   /**
    * For future thought: if we used Object tokens instead of longs, we could
    * actually track references and do GC/compaction on the underlying file.
-   *
-   * I considered using memory mapping, but I didn't see any obvious way to make
-   * the map larger after the fact, which kind of defeats the infinite-append
-   * design. At any rate, I measured the current performance of this design to
-   * be so fast relative to what I'm using it for, I didn't pursue this further.
    */
 
+  /**
+   * A snapshot of the usage statistics of a {@link DiskCache}.
+   */
+  public static final class Stats {
+    private final long bytesRead;
+    private final long bytesStored;
+    private final long bytesWritten;
+    private final long reads;
+    private final long waitNanos;
+    private final long writes;
+
+    private Stats(long reads, long bytesRead, long writes, long bytesWritten,
+        long bytesStored, long waitNanos) {
+      this.reads = reads;
+      this.bytesRead = bytesRead;
+      this.writes = writes;
+      this.bytesWritten = bytesWritten;
+      this.bytesStored = bytesStored;
+      this.waitNanos = waitNanos;
+    }
+
+    /**
+     * Returns the number of bytes returned by reads, before any compression.
+     */
+    public long getBytesRead() {
+      return bytesRead;
+    }
+
+    /**
+     * Returns the number of bytes written to the backing files, which is less
+     * than {@link #getBytesWritten()} if compression is enabled.
+     */
+    public long getBytesStored() {
+      return bytesStored;
+    }
+
+    /**
+     * Returns the number of bytes written, before any compression.
+     */
+    public long getBytesWritten() {
+      return bytesWritten;
+    }
+
+    /**
+     * Returns the number of reads.
+     */
+    public long getReads() {
+      return reads;
+    }
+
+    /**
+     * Returns the total time writers spent waiting for the lock of a stripe.
+     */
+    public long getWaitNanos() {
+      return waitNanos;
+    }
+
+    /**
+     * Returns the number of writes.
+     */
+    public long getWrites() {
+      return writes;
+    }
+
+    @Override
+    public String toString() {
+      return reads + " reads (" + bytesRead + " bytes), " + writes + " writes (" + bytesWritten
+          + " bytes, " + bytesStored + " stored), " + waitNanos / 1000000 + " ms waiting";
+    }
+  }
+
+  /**
+   * One of the backing files. Space is reserved under {@link #lock}; the data
+   * is then written with positional writes, which need no lock.
+   */
+  private static final class Stripe {
+    private final FileChannel channel;
+
+    /**
+     * The offset at which the next record will be written. Guarded by
+     * {@link #lock}.
+     */
+    private long end;
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    Stripe() throws IOException {
+      File temp = File.createTempFile("gwt", "byte-cache");
+      temp.deleteOnExit();
+      channel = FileChannel.open(temp.toPath(), StandardOpenOption.READ,
+          StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+    }
+  }
+
+  /**
+   * An OutputStream that writes to a stripe from a given offset on.
+   */
+  private static final class StripeOutputStream extends OutputStream {
+    private long position;
+    private final Stripe stripe;
+
+    StripeOutputStream(Stripe stripe, long position) {
+      this.stripe = stripe;
+      this.position = position;
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+      writeFully(stripe.channel, ByteBuffer.wrap(b, off, len), position);
+      position += len;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+      write(new byte[] {(byte) b}, 0, 1);
+    }
+  }
+
+  /**
+   * A system property that enables compression of the cached data.
+   */
+  public static final String COMPRESS_PROPERTY = "gwt.diskCache.compress";
+
+  /**
+   * A system property that sets the number of stripes (backing files).
+   */
+  public static final String STRIPES_PROPERTY = "gwt.diskCache.stripes";
+
+  /**
+   * Set in the length of a record if it is compressed; the uncompressed length
+   * follows.
+   */
+  private static final int COMPRESSED_FLAG = 0x80000000;
+
+  /**
+   * Records at least this large are memory-mapped rather than copied when read.
+   */
+  private static final int MAPPED_READ_THRESHOLD = 1024 * 1024;
+
+  private static final int MAX_STRIPES = 64;
+
+  /**
+   * Tokens hold the index of the stripe above this bit and the offset into the
+   * stripe below it.
+   */
+  private static final int STRIPE_SHIFT = 56;
+
   /**
    * The size of a {@link #threadLocalBuf}, which should be large enough for
    * efficient data transfer but small enough to fit easily into the L2 cache of
@@ -62,42 +222,104 @@ public class DiskCache {
   /**
    * A global shared Disk cache.
    */
-  public static DiskCache INSTANCE = new DiskCache();
+  public static DiskCache INSTANCE = new DiskCache(Integer.getInteger(STRIPES_PROPERTY,
+      Math.min(8, Runtime.getRuntime().availableProcessors())),
+      Boolean.getBoolean(COMPRESS_PROPERTY));
 
-  private boolean atEnd = true;
-  private final RandomAccessFile file;
+  private final AtomicLong bytesRead = new AtomicLong();
+  private final AtomicLong bytesStored = new AtomicLong();
+  private final AtomicLong bytesWritten = new AtomicLong();
+  private final boolean compress;
+  private final AtomicLong reads = new AtomicLong();
+  private final Stripe[] stripes;
+  private final AtomicLong waitNanos = new AtomicLong();
+  private final AtomicLong writes = new AtomicLong();
 
-  private DiskCache() {
+  DiskCache(int stripeCount, boolean compress) {
+    this.compress = compress;
+    stripes = new Stripe[Math.max(1, Math.min(MAX_STRIPES, stripeCount))];
     try {
-      File temp = File.createTempFile("gwt", "byte-cache");
-      temp.deleteOnExit();
-      file = new RandomAccessFile(temp, "rw");
-      file.setLength(0);
+      for (int i = 0; i < stripes.length; i++) {
+        stripes[i] = new Stripe();
+      }
       registerShutdownHook();
     } catch (IOException e) {
       throw new RuntimeException("Unable to initialize byte cache", e);
     }
   }
 
+  /**
+   * Returns the usage statistics of this cache so far.
+   */
+  public Stats getStats() {
+    return new Stats(reads.get(), bytesRead.get(), writes.get(), bytesWritten.get(),
+        bytesStored.get(), waitNanos.get());
+  }
+
   /**
    * Retrieve the underlying bytes.
    *
    * @param token a previously returned token
    * @return the bytes that were written
    */
-  public synchronized byte[] readByteArray(long token) {
+  public byte[] readByteArray(long token) {
     try {
-      atEnd = false;
-      file.seek(token);
-      int length = file.readInt();
+      ByteBuffer record = readRecord(token);
+      int length = recordLength(record);
       byte[] result = new byte[length];
-      file.readFully(result);
+      if (isCompressed(record)) {
+        Inflater inflater = new Inflater();
+        try {
+          if (record.hasArray()) {
+            inflater.setInput(record.array(), record.arrayOffset() + record.position(),
+                record.remaining());
+          } else {
+            byte[] compressed = new byte[record.remaining()];
+            record.get(compressed);
+            inflater.setInput(compressed);
+          }
+          int inflated = 0;
+          while (inflated < length && !inflater.finished()) {
+            int n = inflater.inflate(result, inflated, length - inflated);
+            if (n == 0 && inflater.needsInput()) {
+              break;
+            }
+            inflated += n;
+          }
+          if (inflated != length) {
+            throw new IOException("Truncated compressed record");
+          }
+        } catch (DataFormatException e) {
+          throw new IOException("Corrupt compressed record", e);
+        } finally {
+          inflater.end();
+        }
+      } else {
+        record.get(result);
+      }
+      countRead(length);
       return result;
     } catch (IOException e) {
       throw new RuntimeException("Unable to read from byte cache", e);
     }
   }
 
+  /**
+   * Returns the number of bytes written for a token, without reading them.
+   *
+   * @param token a previously returned token
+   * @return the length of the bytes that were written
+   */
+  public int readLength(long token) {
+    try {
+      ByteBuffer header = readHeader(getStripe(token), getOffset(token));
+      int length = header.getInt(0);
+      return (length & COMPRESSED_FLAG) != 0 ? header.getInt(4) : length;
+    } catch (IOException e) {
+      throw new RuntimeException("Unable to read from byte cache", e);
+    }
+  }
+
   /**
    * Deserialize the underlying bytes as an object.
    *
@@ -108,9 +330,7 @@ public class DiskCache {
    */
   public <T> T readObject(long token, Class<T> type) {
     try {
-      byte[] bytes = readByteArray(token);
-      ByteArrayInputStream in = new ByteArrayInputStream(bytes);
-      ObjectInputStream objectInputStream = new StringInterningObjectInputStream(in);
+      ObjectInputStream objectInputStream = new StringInterningObjectInputStream(openStream(token));
       return type.cast(objectInputStream.readObject());
     } catch (ClassNotFoundException | IOException e) {
       throw new RuntimeException("Unexpected exception deserializing from disk cache", e);
@@ -135,72 +355,60 @@ public class DiskCache {
    *
    * @return a token to retrieve the data later
    */
-  public synchronized long transferFromStream(InputStream in) throws IOException {
+  public long transferFromStream(InputStream in) throws IOException {
     assert in != null;
     byte[] buf = takeThreadLocalBuf();
+    int stripeIndex = lockStripe();
+    Stripe stripe = stripes[stripeIndex];
     try {
-      long position = moveToEndPosition();
-
-      // Placeholder, we don't know the length yet.
-      file.writeInt(-1);
+      long position = stripe.end;
+      int headerLength = compress ? 8 : 4;
+      StripeOutputStream stripeOut = new StripeOutputStream(stripe, position + headerLength);
+      OutputStream out = compress ? new DeflaterOutputStream(stripeOut) : stripeOut;
 
       // Transfer all the bytes.
-      int length = 0;
+      long length = 0;
       int bytesRead;
       while ((bytesRead = in.read(buf)) != -1) {
-        file.write(buf, 0, bytesRead);
+        out.write(buf, 0, bytesRead);
         length += bytesRead;
       }
+      out.close();
+      long stored = stripeOut.position - position - headerLength;
+      if (length > Integer.MAX_VALUE || stored > Integer.MAX_VALUE) {
+        throw new IOException("Stream is too large for the byte cache");
+      }
 
       // Now go back and fill in the length.
-      file.seek(position);
-      file.writeInt(length);
-      // Don't eagerly seek the end, the next operation might be a read.
-      atEnd = false;
-      return position;
+      ByteBuffer header = ByteBuffer.allocate(headerLength);
+      if (compress) {
+        header.putInt((int) stored | COMPRESSED_FLAG).putInt((int) length);
+      } else {
+        header.putInt((int) length);
+      }
+      header.flip();
+      writeFully(stripe.channel, header, position);
+      stripe.end = position + headerLength + stored;
+      countWrite(length, headerLength + stored);
+      return toToken(stripeIndex, position);
     } finally {
+      stripe.lock.unlock();
       releaseThreadLocalBuf(buf);
     }
   }
 
-  /**
-   * Returns a thread-local buffer for efficient data transfer. Usages should be non-reentrant,
-   * resulting in a max of one buffer per thread.
-   */
-  private static byte[] takeThreadLocalBuf() {
-    byte[] buf = threadLocalBuf.get();
-    if (buf == null) {
-      throw new IllegalStateException("Reentrant usage, or failed to return!");
-    }
-    threadLocalBuf.set(null);
-    return buf;
-  }
-
-  private static void releaseThreadLocalBuf(byte[] buf) {
-    threadLocalBuf.set(buf);
-  }
-
   /**
    * Writes the underlying bytes into the specified output stream.
    *
    * @param token a previously returned token
    * @param out the stream to write into
    */
-  public synchronized void transferToStream(long token, OutputStream out) throws IOException {
+  public void transferToStream(long token, OutputStream out) throws IOException {
     byte[] buf = takeThreadLocalBuf();
     try {
-      atEnd = false;
-      file.seek(token);
-      int length = file.readInt();
-      int bufLen = buf.length;
-      while (length > bufLen) {
-        int read = file.read(buf, 0, bufLen);
-        length -= read;
-        out.write(buf, 0, read);
-      }
-      while (length > 0) {
-        int read = file.read(buf, 0, length);
-        length -= read;
+      InputStream in = openStream(token);
+      int read;
+      while ((read = in.read(buf)) != -1) {
         out.write(buf, 0, read);
       }
     } finally {
@@ -213,12 +421,40 @@ public class DiskCache {
    *
    * @return a token to retrieve the data later
    */
-  public synchronized long writeByteArray(byte[] bytes) {
+  public long writeByteArray(byte[] bytes) {
+    ByteBuffer record;
+    if (compress) {
+      ByteArrayOutputStream compressed = new ByteArrayOutputStream(bytes.length / 2 + 16);
+      try (DeflaterOutputStream out = new DeflaterOutputStream(compressed, new Deflater(
+          Deflater.BEST_SPEED))) {
+        out.write(bytes);
+      } catch (IOException e) {
+        throw new RuntimeException("Unexpected IOException on in-memory stream", e);
+      }
+      record = ByteBuffer.allocate(8 + compressed.size());
+      record.putInt(compressed.size() | COMPRESSED_FLAG).putInt(bytes.length);
+      record.put(compressed.toByteArray());
+    } else {
+      record = ByteBuffer.allocate(4 + bytes.length);
+      record.putInt(bytes.length);
+      record.put(bytes);
+    }
+    record.flip();
+
+    int stripeIndex = lockStripe();
+    Stripe stripe = stripes[stripeIndex];
+    long position;
     try {
-      long position = moveToEndPosition();
-      file.writeInt(bytes.length);
-      file.write(bytes);
-      return position;
+      position = stripe.end;
+      stripe.end += record.remaining();
+    } finally {
+      stripe.lock.unlock();
+    }
+    try {
+      int stored = record.remaining();
+      writeFully(stripe.channel, record, position);
+      countWrite(bytes.length, stored);
+      return toToken(stripeIndex, position);
     } catch (IOException e) {
       throw new RuntimeException("Unable to write to byte cache", e);
     }
@@ -248,41 +484,167 @@ public class DiskCache {
     return writeByteArray(str.getBytes(StandardCharsets.UTF_8));
   }
 
+  private static long getOffset(long token) {
+    return token & ((1L << STRIPE_SHIFT) - 1);
+  }
+
+  private static boolean isCompressed(ByteBuffer record) {
+    return (record.getInt(0) & COMPRESSED_FLAG) != 0;
+  }
+
+  private static void readFully(FileChannel channel, ByteBuffer buffer, long position)
+      throws IOException {
+    while (buffer.hasRemaining()) {
+      int read = channel.read(buffer, position);
+      if (read < 0) {
+        throw new IOException("Unexpected end of byte cache");
+      }
+      position += read;
+    }
+  }
+
   /**
-   * Moves to the end of the file if necessary and returns the offset position.
-   * Caller must synchronize.
-   *
-   * @return the offset position of the end of the file
-   * @throws IOException
+   * Returns the uncompressed length of a record returned by
+   * {@link #readRecord(long)}.
    */
-  private long moveToEndPosition() throws IOException {
-    // Get an end pointer.
-    if (atEnd) {
-      return file.getFilePointer();
+  private static int recordLength(ByteBuffer record) {
+    return isCompressed(record) ? record.getInt(4) : record.getInt(0);
+  }
+
+  private static long toToken(int stripeIndex, long position) {
+    return ((long) stripeIndex << STRIPE_SHIFT) | position;
+  }
+
+  private static void writeFully(FileChannel channel, ByteBuffer buffer, long position)
+      throws IOException {
+    while (buffer.hasRemaining()) {
+      position += channel.write(buffer, position);
+    }
+  }
+
+  private void countRead(long length) {
+    reads.incrementAndGet();
+    bytesRead.addAndGet(length);
+  }
+
+  private void countWrite(long length, long stored) {
+    writes.incrementAndGet();
+    bytesWritten.addAndGet(length);
+    bytesStored.addAndGet(stored);
+  }
+
+  private Stripe getStripe(long token) {
+    return stripes[(int) (token >>> STRIPE_SHIFT)];
+  }
+
+  /**
+   * Locks a stripe to append to and returns its index. The stripe of the
+   * current thread is preferred, but if it is busy any free stripe is taken.
+   */
+  private int lockStripe() {
+    int preferred = (int) (Thread.currentThread().getId() % stripes.length);
+    for (int i = 0; i < stripes.length; i++) {
+      int index = (preferred + i) % stripes.length;
+      if (stripes[index].lock.tryLock()) {
+        return index;
+      }
+    }
+    long start = System.nanoTime();
+    stripes[preferred].lock.lock();
+    waitNanos.addAndGet(System.nanoTime() - start);
+    return preferred;
+  }
+
+  /**
+   * Returns a stream over the uncompressed bytes of a token.
+   */
+  private InputStream openStream(long token) throws IOException {
+    ByteBuffer record = readRecord(token);
+    countRead(recordLength(record));
+    InputStream in = record.hasArray()
+        ? new ByteArrayInputStream(record.array(), record.arrayOffset() + record.position(),
+            record.remaining())
+        : new ByteBufferInputStream(record);
+    return isCompressed(record) ? new InflaterInputStream(in) : in;
+  }
+
+  /**
+   * Reads the header of a record, which is 4 bytes long, or 8 bytes if the
+   * record is compressed.
+   */
+  private static ByteBuffer readHeader(Stripe stripe, long position) throws IOException {
+    ByteBuffer header = ByteBuffer.allocate(8);
+    header.limit(4);
+    readFully(stripe.channel, header, position);
+    if ((header.getInt(0) & COMPRESSED_FLAG) != 0) {
+      header.limit(8);
+      readFully(stripe.channel, header, position + 4);
+    }
+    return header;
+  }
+
+  /**
+   * Reads a record. The returned buffer is positioned at the data, after the
+   * header, which remains available with absolute gets. Large records are
+   * memory-mapped rather than copied.
+   */
+  private ByteBuffer readRecord(long token) throws IOException {
+    Stripe stripe = getStripe(token);
+    long position = getOffset(token);
+    int length = readHeader(stripe, position).getInt(0);
+    int headerLength = 4;
+    if ((length & COMPRESSED_FLAG) != 0) {
+      length &= ~COMPRESSED_FLAG;
+      headerLength = 8;
+    }
+
+    ByteBuffer record;
+    if (length >= MAPPED_READ_THRESHOLD) {
+      record = stripe.channel.map(FileChannel.MapMode.READ_ONLY, position, headerLength + length);
     } else {
-      long position = file.length();
-      file.seek(position);
-      atEnd = true;
-      return position;
+      record = ByteBuffer.allocate(headerLength + length);
+      readFully(stripe.channel, record, position);
+      record.flip();
+    }
+    record.position(headerLength);
+    return record;
+  }
+
+  /**
+   * Returns a thread-local buffer for efficient data transfer. Usages should be non-reentrant,
+   * resulting in a max of one buffer per thread.
+   */
+  private static byte[] takeThreadLocalBuf() {
+    byte[] buf = threadLocalBuf.get();
+    if (buf == null) {
+      throw new IllegalStateException("Reentrant usage, or failed to return!");
     }
+    threadLocalBuf.set(null);
+    return buf;
+  }
+
+  private static void releaseThreadLocalBuf(byte[] buf) {
+    threadLocalBuf.set(buf);
   }
 
   /**
-   * Register a shutdown hook to close the RandomAccessFile associated with the temp file.<br>
+   * Register a shutdown hook to close the backing files.<br>
    * There is a known <a href="https://bugs.java.com/bugdatabase/view_bug.do?bug_id=4171239">bug</a>
-   * in Windows that prevents the 'temp' file from being deleted by 'deleteOnExit'
-   * (see {@link DiskCache#DiskCache()}) because it is still open by the RandomAccessFile.<br>
-   * This hook forces the RandomAccessFile to be closed at shutdown to allow the correct
+   * in Windows that prevents the 'temp' files from being deleted by 'deleteOnExit'
+   * (see {@link Stripe#Stripe()}) while they are still open.<br>
+   * This hook forces the files to be closed at shutdown to allow the correct
    * 'temp' file removal.
    */
   private void registerShutdownHook() {
     Runtime.getRuntime().addShutdownHook(new Thread(new Runnable() {
       @Override
       public void run() {
-        try {
-          file.close();
-        } catch (IOException e) {
-          // No exception handling in a shutdown hook
+        for (Stripe stripe : stripes) {
+          try {
+            stripe.channel.close();
+          } catch (IOException e) {
+            // No exception handling in a shutdown hook
+          }
         }
       }
     }));
@@ -0,0 +1,143 @@
+/*
+ * Copyright 2026 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.gwt.dev.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Runs independent pieces of compiler work at the same time, on a fork-join
+ * pool shared by the whole process.
+ * <p>
+ * Sharing one pool keeps the number of busy threads near the number of
+ * processors even when several permutations are compiled in the same JVM and
+ * each of them splits its own work. The pool's size can be set with the system
+ * property {@value #PARALLELISM_PROPERTY}; a value of 1 runs all tasks on the
+ * calling thread.
+ */
+public class ParallelTasks {
+
+  /**
+   * The system property that sets how many threads may run tasks.
+   */
+  public static final String PARALLELISM_PROPERTY = "gwt.parallelTasks";
+
+  private static final int PARALLELISM = Math.max(1, Integer.getInteger(PARALLELISM_PROPERTY,
+      Runtime.getRuntime().availableProcessors()));
+
+  private static final ForkJoinPool POOL = PARALLELISM == 1 ? null : new ForkJoinPool(
+      PARALLELISM, new ForkJoinPool.ForkJoinWorkerThreadFactory() {
+        @Override
+        public ForkJoinWorkerThread newThread(ForkJoinPool pool) {
+          ForkJoinWorkerThread thread =
+              ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+          // Let the process exit while the pool is idle.
+          thread.setDaemon(true);
+          thread.setName("GwtParallelTasks-" + thread.getPoolIndex());
+          return thread;
+        }
+      }, null, false);
+
+  /**
+   * Returns the number of threads that may run tasks at the same time.
+   */
+  public static int getParallelism() {
+    return PARALLELISM;
+  }
+
+  /**
+   * Runs the given tasks, possibly at the same time, and returns their results
+   * in the same order as the tasks. Once all the tasks have finished, the
+   * exception thrown by the first failed task (in task order) is rethrown:
+   * unchecked exceptions as is, checked ones wrapped in a RuntimeException.
+   */
+  public static <T> List<T> invokeAll(List<? extends Callable<T>> tasks) {
+    List<T> results = new ArrayList<T>(tasks.size());
+    if (POOL == null || tasks.size() <= 1) {
+      for (Callable<T> task : tasks) {
+        results.add(call(task));
+      }
+      return results;
+    }
+
+    final List<Task<T>> forkJoinTasks = new ArrayList<Task<T>>(tasks.size());
+    for (Callable<T> task : tasks) {
+      forkJoinTasks.add(new Task<T>(task));
+    }
+    if (ForkJoinTask.inForkJoinPool()) {
+      // Already running a task; let this thread help with the new ones.
+      ForkJoinTask.invokeAll(forkJoinTasks);
+    } else {
+      POOL.invoke(new RecursiveAction() {
+        @Override
+        protected void compute() {
+          invokeAll(forkJoinTasks);
+        }
+      });
+    }
+    for (Task<T> task : forkJoinTasks) {
+      if (task.failure instanceof Error) {
+        throw (Error) task.failure;
+      } else if (task.failure != null) {
+        throw (RuntimeException) task.failure;
+      }
+      results.add(task.result);
+    }
+    return results;
+  }
+
+  private static <T> T call(Callable<T> task) {
+    try {
+      return task.call();
+    } catch (RuntimeException e) {
+      throw e;
+    } catch (Exception e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+  /**
+   * Runs a Callable, keeping its exception instead of letting the pool copy it.
+   */
+  private static class Task<T> extends RecursiveAction {
+    private final Callable<T> callable;
+    private T result;
+    private Throwable failure;
+
+    Task(Callable<T> callable) {
+      this.callable = callable;
+    }
+
+    @Override
+    protected void compute() {
+      try {
+        result = call(callable);
+      } catch (RuntimeException e) {
+        failure = e;
+      } catch (Error e) {
+        failure = e;
+      }
+    }
+  }
+
+  private ParallelTasks() {
+  }
+}
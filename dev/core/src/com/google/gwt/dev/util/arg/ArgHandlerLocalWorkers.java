@@ -37,7 +37,8 @@ public class ArgHandlerLocalWorkers extends ArgHandlerInt {
 
   @Override
   public String getPurpose() {
-    return "The number of local workers to use when compiling permutations";
+    return "The number of local workers to use when compiling permutations; "
+        + "0 picks a number from the available processors and memory";
   }
 
   @Override
@@ -0,0 +1,71 @@
+/*
+ * Copyright 2026 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.gwt.dev.util.log;
+
+import com.google.gwt.core.ext.TreeLogger;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Forwards to another logger until a flag is set, after which any use of this
+ * logger or its branches throws a {@link CancellationException}. Since the
+ * compiler logs as it goes, passing it a CancellableTreeLogger makes a compile
+ * stop soon after it is cancelled.
+ */
+public class CancellableTreeLogger extends TreeLogger implements CanUpdateMetrics {
+
+  private final AtomicBoolean cancelled;
+  private final TreeLogger delegate;
+
+  /**
+   * @param delegate the logger to forward to
+   * @param cancelled the flag that cancels the work using this logger once set
+   */
+  public CancellableTreeLogger(TreeLogger delegate, AtomicBoolean cancelled) {
+    this.delegate = delegate;
+    this.cancelled = cancelled;
+  }
+
+  @Override
+  public TreeLogger branch(Type type, String msg, Throwable caught, HelpInfo helpInfo) {
+    checkCancelled();
+    return new CancellableTreeLogger(delegate.branch(type, msg, caught, helpInfo), cancelled);
+  }
+
+  @Override
+  public boolean isLoggable(Type type) {
+    checkCancelled();
+    return delegate.isLoggable(type);
+  }
+
+  @Override
+  public void log(Type type, String msg, Throwable caught, HelpInfo helpInfo) {
+    checkCancelled();
+    delegate.log(type, msg, caught, helpInfo);
+  }
+
+  @Override
+  public void setAmount(MetricName name, long amount) {
+    name.setAmount(delegate, amount);
+  }
+
+  private void checkCancelled() {
+    if (cancelled.get()) {
+      throw new CancellationException("cancelled");
+    }
+  }
+}
@@ -64,6 +64,10 @@ import java.util.Set;
  *       &lt;javascript fragments="1" size="123">
  *         &lt;fragment size="123" initial="true" />
  *       &lt;/javascript>
+ *       &lt;optimizers>
+ *         &lt;optimizer name="Pruner" runs="3" skipped="0" elapsed="12" visited="300"
+ *             changed="20" />
+ *       &lt;/optimizers>
  *     &lt;/compilation>
  *   &lt;/compilations>
  *
@@ -148,6 +152,21 @@ public class CompilerMetricsXmlFormatter {
         }
         pw.append("   </javascript>\n");
       }
+
+      List<CompilationMetricsArtifact.OptimizerMetrics> optimizerMetrics =
+          metrics.getOptimizerMetrics();
+      if (!optimizerMetrics.isEmpty()) {
+        pw.append("   <optimizers>\n");
+        for (CompilationMetricsArtifact.OptimizerMetrics optimizer : optimizerMetrics) {
+          pw.append("    <optimizer name=\"" + optimizer.getName() + "\" ");
+          pw.append("runs=\"" + optimizer.getRuns() + "\" ");
+          pw.append("skipped=\"" + optimizer.getSkipped() + "\" ");
+          pw.append("elapsed=\"" + optimizer.getElapsedMilliseconds() + "\" ");
+          pw.append("visited=\"" + optimizer.getNodesVisited() + "\" ");
+          pw.append("changed=\"" + optimizer.getNodesChanged() + "\" />\n");
+        }
+        pw.append("   </optimizers>\n");
+      }
       pw.append("  </compilation>\n");
     }
 
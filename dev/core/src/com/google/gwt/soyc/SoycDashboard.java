@@ -19,17 +19,26 @@ package com.google.gwt.soyc;
 import com.google.gwt.core.ext.linker.CompilationMetricsArtifact;
 import com.google.gwt.core.ext.linker.ModuleMetricsArtifact;
 import com.google.gwt.core.ext.linker.PrecompilationMetricsArtifact;
+import com.google.gwt.core.linker.SoycReportLinker;
+import com.google.gwt.dev.util.ParallelTasks;
 import com.google.gwt.dev.util.StringInterner;
 import com.google.gwt.soyc.MakeTopLevelHtmlForPerm.DependencyLinker;
 import com.google.gwt.soyc.MakeTopLevelHtmlForPerm.NullDependencyLinker;
+import com.google.gwt.soyc.io.ArtifactsOutputDirectory;
+import com.google.gwt.soyc.io.FileSystemOutputDirectory;
 import com.google.gwt.soyc.io.OutputDirectory;
 
 import org.xml.sax.Attributes;
 import org.xml.sax.SAXException;
 import org.xml.sax.helpers.DefaultHandler;
 
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
@@ -38,6 +47,10 @@ import java.util.Map;
 import java.util.Map.Entry;
 import java.util.TreeMap;
 import java.util.TreeSet;
+import java.util.concurrent.Callable;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.GZIPInputStream;
 
 import javax.xml.parsers.ParserConfigurationException;
 import javax.xml.parsers.SAXParser;
@@ -61,6 +74,46 @@ public class SoycDashboard {
     }
   }
 
+  private static final Pattern SPLIT_POINTS_FILE = Pattern.compile("splitPoints(\\d+)\\.xml\\.gz");
+
+  /**
+   * Renders the compile report from the data that a compile recorded without it, for instance
+   * with {@code -XdisableSoycHtml}. The only argument is the directory that holds the data,
+   * {@code <extra>/<module>/soycReport}, and the report is written to its
+   * {@value ArtifactsOutputDirectory#COMPILE_REPORT_DIRECTORY} subdirectory. Permutations are
+   * rendered in parallel.
+   */
+  public static void main(String[] args) throws IOException {
+    if (args.length != 1) {
+      System.err.println("Usage: java " + SoycDashboard.class.getName()
+          + " <directory of compile report data>");
+      System.exit(1);
+    }
+    final File dataDir = new File(args[0]);
+    Map<String, List<String>> permInfo = readPermutationDescriptions(dataDir);
+    if (permInfo.isEmpty()) {
+      System.err.println("No compile report data found in " + dataDir);
+      System.exit(1);
+    }
+
+    final OutputDirectory outDir = new FileSystemOutputDirectory(
+        new File(dataDir, ArtifactsOutputDirectory.COMPILE_REPORT_DIRECTORY));
+    List<Callable<Void>> tasks = new ArrayList<Callable<Void>>();
+    for (final String permutationId : permInfo.keySet()) {
+      tasks.add(new Callable<Void>() {
+        @Override
+        public Void call() throws Exception {
+          SoycDashboard dashboard = new SoycDashboard(outDir);
+          dashboard.readPermutation(dataDir, permutationId);
+          dashboard.generateForOnePermutation();
+          return null;
+        }
+      });
+    }
+    ParallelTasks.invokeAll(tasks);
+    new SoycDashboard(outDir).generateCrossPermutationFiles(permInfo);
+  }
+
   /*
    * cleans up the RPC code categories
    */
@@ -95,6 +148,10 @@ public class SoycDashboard {
     }
   }
 
+  private static InputStream openWithGunzip(File file) throws IOException {
+    return new BufferedInputStream(new GZIPInputStream(new FileInputStream(file)));
+  }
+
   private static DefaultHandler parseXMLDocumentDependencies(
       final Map<String, Map<String, String>> allDependencies) {
     DefaultHandler handler = new DefaultHandler() {
@@ -153,6 +210,37 @@ public class SoycDashboard {
     return handler;
   }
 
+  /**
+   * Finds the permutations with recorded data in {@code dataDir}, along with their descriptions
+   * if {@link SoycReportLinker} recorded them.
+   */
+  private static Map<String, List<String>> readPermutationDescriptions(File dataDir)
+      throws IOException {
+    Map<String, List<String>> permInfo = new TreeMap<String, List<String>>();
+    String[] fileNames = dataDir.list();
+    if (fileNames == null) {
+      return permInfo;
+    }
+    for (String fileName : fileNames) {
+      Matcher matcher = SPLIT_POINTS_FILE.matcher(fileName);
+      if (matcher.matches()) {
+        permInfo.put(matcher.group(1), new ArrayList<String>());
+      }
+    }
+
+    File descriptionsFile = new File(dataDir, SoycReportLinker.PERMUTATION_DESCRIPTIONS_FILE);
+    if (descriptionsFile.isFile()) {
+      for (String line : Files.readAllLines(descriptionsFile.toPath(), StandardCharsets.UTF_8)) {
+        int tab = line.indexOf('\t');
+        List<String> permDesc = tab < 0 ? null : permInfo.get(line.substring(0, tab));
+        if (permDesc != null) {
+          permDesc.add(line.substring(tab + 1));
+        }
+      }
+    }
+    return permInfo;
+  }
+
   /**
    * Global information for the current permutation being emitted.
    */
@@ -240,6 +328,30 @@ public class SoycDashboard {
     saxParser.parse(stream, splitPointHandler);
   }
 
+  /**
+   * Starts a new permutation and reads the data recorded for it in {@code dataDir}.
+   */
+  public void readPermutation(File dataDir, String permutationId)
+      throws ParserConfigurationException, SAXException, IOException {
+    startNewPermutation(permutationId);
+    try (InputStream in = openWithGunzip(new File(dataDir, "splitPoints" + permutationId
+        + ".xml.gz"))) {
+      readSplitPoints(in);
+    }
+    File sizeMaps = new File(dataDir, "stories" + permutationId + ".xml.gz");
+    if (sizeMaps.isFile()) {
+      try (InputStream in = openWithGunzip(sizeMaps)) {
+        readSizeMaps(in);
+      }
+    }
+    File dependencies = new File(dataDir, "dependencies" + permutationId + ".xml.gz");
+    if (dependencies.isFile()) {
+      try (InputStream in = openWithGunzip(dependencies)) {
+        readDependencies(in);
+      }
+    }
+  }
+
   public void startNewPermutation(String permutationId) {
     globalInformation = new GlobalInformation(permutationId);
     makeTopLevelHtmlForPerm = new MakeTopLevelHtmlForPerm(globalInformation,
@@ -77,4 +77,15 @@ public class SoycReportLinkerTest extends TestCase {
       assertFalse(soyc.anyReportFilesPresent(artifacts));
     }
   }
+
+  public void testAnyReportDataPresent() {
+    SoycReportLinker soyc = new SoycReportLinker();
+
+    ArtifactSet artifacts = new ArtifactSet();
+    artifacts.add(emitted("compile-report/SoycDashboard-0-index.html"));
+    assertFalse(soyc.anyReportDataPresent(artifacts));
+
+    artifacts.add(emitted("splitPoints0.xml.gz"));
+    assertTrue(soyc.anyReportDataPresent(artifacts));
+  }
 }
@@ -0,0 +1,70 @@
+/*
+ * Copyright 2026 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.gwt.dev;
+
+import junit.framework.TestCase;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+/**
+ * Tests {@link ExternalPermutationWorkerFactory}.
+ */
+public class ExternalPermutationWorkerFactoryTest extends TestCase {
+
+  private static final long MB = 1024 * 1024;
+
+  public void testComputeLocalWorkerCount_limitedByMemory() {
+    // 8 GB, less the 2 GB of this JVM, holds 3 workers of 2 GB.
+    assertEquals(3, ExternalPermutationWorkerFactory.computeLocalWorkerCount(8, 8192 * MB,
+        2048 * MB, 2048 * MB));
+  }
+
+  public void testComputeLocalWorkerCount_limitedByProcessors() {
+    assertEquals(4, ExternalPermutationWorkerFactory.computeLocalWorkerCount(4, 65536 * MB,
+        2048 * MB, 1024 * MB));
+  }
+
+  public void testComputeLocalWorkerCount_atLeastOne() {
+    assertEquals(1, ExternalPermutationWorkerFactory.computeLocalWorkerCount(8, 4096 * MB,
+        4096 * MB, 1024 * MB));
+  }
+
+  public void testComputeLocalWorkerCount_unknownMemory() {
+    assertEquals(1, ExternalPermutationWorkerFactory.computeLocalWorkerCount(8, -1,
+        1024 * MB, 1024 * MB));
+    assertEquals(1, ExternalPermutationWorkerFactory.computeLocalWorkerCount(8, 8192 * MB,
+        1024 * MB, -1));
+  }
+
+  public void testGetMaxHeap() {
+    assertEquals(512 * MB, ExternalPermutationWorkerFactory.getMaxHeap(
+        Arrays.asList("-Dfoo=bar", "-Xmx512m"), 8192 * MB));
+    assertEquals(2048 * MB, ExternalPermutationWorkerFactory.getMaxHeap(
+        Arrays.asList("-Xmx512m", "-XX:MaxHeapSize=2G"), 8192 * MB));
+    assertEquals(1000, ExternalPermutationWorkerFactory.getMaxHeap(
+        Arrays.asList("-Xmx1000"), 8192 * MB));
+    assertEquals(-1, ExternalPermutationWorkerFactory.getMaxHeap(
+        Arrays.asList("-Xmxlots"), 8192 * MB));
+  }
+
+  public void testGetMaxHeap_default() {
+    assertEquals(2048 * MB, ExternalPermutationWorkerFactory.getMaxHeap(
+        Collections.<String>emptyList(), 8192 * MB));
+    assertEquals(-1, ExternalPermutationWorkerFactory.getMaxHeap(
+        Collections.<String>emptyList(), -1));
+  }
+}
@@ -16,6 +16,7 @@ package com.google.gwt.dev;
 import com.google.gwt.core.ext.TreeLogger;
 import com.google.gwt.dev.cfg.PropertyCombinations.PermutationDescription;
 import com.google.gwt.dev.jjs.ast.JTypeOracle;
+import com.google.gwt.thirdparty.guava.common.base.Strings;
 import com.google.gwt.thirdparty.guava.common.collect.ImmutableMap;
 import com.google.gwt.thirdparty.guava.common.collect.Sets;
 
@@ -23,10 +24,18 @@ import junit.framework.TestCase;
 
 import org.apache.commons.io.FileUtils;
 
+import java.io.File;
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.Arrays;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Tests for {@link MinimalRebuildCacheManager}.
@@ -163,4 +172,263 @@ public class MinimalRebuildCacheManagerTest extends TestCase {
     // Show that the reread cache contains the same data as the original.
     assertTrue(startingCache.hasSameContent(reloadedCache));
   }
+
+  public void testOnlyChangedTypesAreWritten() throws InterruptedException, IOException {
+    Path cacheDir = Files.createTempDirectory(null);
+    String moduleName = "com.google.FooModule";
+    PermutationDescription permutationDescription = new PermutationDescription();
+    MinimalRebuildCacheManager minimalRebuildCacheManager = new MinimalRebuildCacheManager(
+        TreeLogger.NULL, cacheDir.toFile(), ImmutableMap.<String, String>of());
+
+    String fooJs = Strings.repeat("Some Js for Foo. ", 1000);
+    MinimalRebuildCache cache =
+        minimalRebuildCacheManager.getCache(moduleName, permutationDescription);
+    cache.setJsForType(TreeLogger.NULL, "Foo", fooJs);
+    cache.setJsForType(TreeLogger.NULL, "Bar", "Some Js for Bar");
+    minimalRebuildCacheManager.putCache(moduleName, permutationDescription, cache);
+    minimalRebuildCacheManager.syncReadDiskCache(moduleName, permutationDescription);
+    long sizeAfterFirstSave = getTypesFile(cacheDir.toFile()).length();
+    assertTrue(sizeAfterFirstSave > fooJs.length());
+
+    // Only Bar is written again.
+    cache = minimalRebuildCacheManager.getCache(moduleName, permutationDescription);
+    cache.setJsForType(TreeLogger.NULL, "Bar", "Other Js for Bar");
+    minimalRebuildCacheManager.putCache(moduleName, permutationDescription, cache);
+    minimalRebuildCacheManager.syncReadDiskCache(moduleName, permutationDescription);
+    long sizeAfterSecondSave = getTypesFile(cacheDir.toFile()).length();
+    assertTrue(sizeAfterSecondSave > sizeAfterFirstSave);
+    assertTrue(sizeAfterSecondSave - sizeAfterFirstSave < 1000);
+    assertTrue(minimalRebuildCacheManager.shutdown());
+
+    // A new manager reads types when they are used and doesn't write them again.
+    minimalRebuildCacheManager = new MinimalRebuildCacheManager(
+        TreeLogger.NULL, cacheDir.toFile(), ImmutableMap.<String, String>of());
+    cache = minimalRebuildCacheManager.getCache(moduleName, permutationDescription);
+    assertEquals(fooJs, cache.getJs("Foo"));
+    assertEquals("Other Js for Bar", cache.getJs("Bar"));
+    minimalRebuildCacheManager.putCache(moduleName, permutationDescription, cache);
+    MinimalRebuildCache reloadedCache =
+        minimalRebuildCacheManager.syncReadDiskCache(moduleName, permutationDescription);
+    assertEquals(sizeAfterSecondSave, getTypesFile(cacheDir.toFile()).length());
+    assertTrue(cache.hasSameContent(reloadedCache));
+
+    minimalRebuildCacheManager.deleteCaches();
+    assertTrue(minimalRebuildCacheManager.shutdown());
+    FileUtils.deleteDirectory(cacheDir.toFile());
+  }
+
+  public void testUnusedTypeOutputIsDropped() throws InterruptedException, IOException {
+    Path cacheDir = Files.createTempDirectory(null);
+    String moduleName = "com.google.FooModule";
+    PermutationDescription permutationDescription = new PermutationDescription();
+    MinimalRebuildCacheManager minimalRebuildCacheManager = new MinimalRebuildCacheManager(
+        TreeLogger.NULL, cacheDir.toFile(), ImmutableMap.<String, String>of());
+
+    // Keep replacing the JS of Foo until the file is rewritten.
+    File firstTypesFile = null;
+    String fooJs = null;
+    for (int i = 0; i < 10; i++) {
+      MinimalRebuildCache cache =
+          minimalRebuildCacheManager.getCache(moduleName, permutationDescription);
+      fooJs = Strings.repeat("Some Js for Foo " + i + ". ", 20000);
+      cache.setJsForType(TreeLogger.NULL, "Foo", fooJs);
+      cache.setJsForType(TreeLogger.NULL, "Bar", "Some Js for Bar");
+      minimalRebuildCacheManager.putCache(moduleName, permutationDescription, cache);
+      minimalRebuildCacheManager.syncReadDiskCache(moduleName, permutationDescription);
+      if (firstTypesFile == null) {
+        firstTypesFile = getTypesFile(cacheDir.toFile());
+      }
+    }
+    File typesFile = getTypesFile(cacheDir.toFile());
+    assertFalse(typesFile.equals(firstTypesFile));
+    assertTrue(typesFile.length() < 4 * fooJs.length());
+    assertTrue(minimalRebuildCacheManager.shutdown());
+
+    minimalRebuildCacheManager = new MinimalRebuildCacheManager(
+        TreeLogger.NULL, cacheDir.toFile(), ImmutableMap.<String, String>of());
+    MinimalRebuildCache cache =
+        minimalRebuildCacheManager.getCache(moduleName, permutationDescription);
+    assertEquals(fooJs, cache.getJs("Foo"));
+    assertEquals("Some Js for Bar", cache.getJs("Bar"));
+    assertTrue(minimalRebuildCacheManager.shutdown());
+    FileUtils.deleteDirectory(cacheDir.toFile());
+  }
+
+  public void testUnreadableTypeOutputForcesFullRebuild()
+      throws InterruptedException, IOException {
+    Path cacheDir = Files.createTempDirectory(null);
+    String moduleName = "com.google.FooModule";
+    PermutationDescription permutationDescription = new PermutationDescription();
+    MinimalRebuildCacheManager minimalRebuildCacheManager = new MinimalRebuildCacheManager(
+        TreeLogger.NULL, cacheDir.toFile(), ImmutableMap.<String, String>of());
+
+    MinimalRebuildCache cache =
+        minimalRebuildCacheManager.getCache(moduleName, permutationDescription);
+    cache.recordNestedTypeName("Foo", "Foo");
+    cache.setJsForType(TreeLogger.NULL, "Foo", "Some Js for Foo");
+    cache.setJsForType(TreeLogger.NULL, "Bar", "Some Js for Bar");
+    cache.getImmediateTypeRelations().getImmediateSuperclassesByClass().put("Bar", "Foo");
+    minimalRebuildCacheManager.putCache(moduleName, permutationDescription, cache);
+    assertTrue(minimalRebuildCacheManager.shutdown());
+
+    minimalRebuildCacheManager = new MinimalRebuildCacheManager(
+        TreeLogger.NULL, cacheDir.toFile(), ImmutableMap.<String, String>of());
+    MinimalRebuildCache failingCache =
+        minimalRebuildCacheManager.getCache(moduleName, permutationDescription);
+    MinimalRebuildCache unreadableCache =
+        minimalRebuildCacheManager.getCache(moduleName, permutationDescription);
+
+    // Damage the file that holds the output of types, without changing its length.
+    File typesFile = getTypesFile(cacheDir.toFile());
+    Files.write(typesFile.toPath(), new byte[(int) typesFile.length()]);
+
+    // Output that can't be read fails the compile, rather than being left out of it.
+    try {
+      failingCache.getJs("Bar");
+      fail("Expected the damaged output to fail");
+    } catch (UncheckedIOException e) {
+      // Expected.
+    }
+
+    // The caches that use the file are cleared, so that everything is compiled again.
+    assertTrue(unreadableCache.computeAndClearStaleTypesCache(TreeLogger.NULL,
+        new JTypeOracle(null, unreadableCache)).isEmpty());
+    assertFalse(unreadableCache.hasJs("Foo"));
+    assertFalse(unreadableCache.hasJs("Bar"));
+
+    minimalRebuildCacheManager.deleteCaches();
+    assertTrue(minimalRebuildCacheManager.shutdown());
+    FileUtils.deleteDirectory(cacheDir.toFile());
+  }
+
+  public void testCopiesReadDeletedTypeOutput() throws InterruptedException, IOException {
+    Path cacheDir = Files.createTempDirectory(null);
+    String moduleName = "com.google.FooModule";
+    PermutationDescription permutationDescription = new PermutationDescription();
+    MinimalRebuildCacheManager minimalRebuildCacheManager = new MinimalRebuildCacheManager(
+        TreeLogger.NULL, cacheDir.toFile(), ImmutableMap.<String, String>of());
+
+    MinimalRebuildCache cache =
+        minimalRebuildCacheManager.getCache(moduleName, permutationDescription);
+    String fooJs = Strings.repeat("Some Js for Foo. ", 100000);
+    cache.recordNestedTypeName("Foo", "Foo");
+    cache.setJsForType(TreeLogger.NULL, "Foo", fooJs);
+    cache.setJsForType(TreeLogger.NULL, "Bar", "Some Js for Bar");
+    cache.getImmediateTypeRelations().getImmediateSuperclassesByClass().put("Bar", "Foo");
+    minimalRebuildCacheManager.putCache(moduleName, permutationDescription, cache);
+    assertTrue(minimalRebuildCacheManager.shutdown());
+
+    minimalRebuildCacheManager = new MinimalRebuildCacheManager(
+        TreeLogger.NULL, cacheDir.toFile(), ImmutableMap.<String, String>of());
+    MinimalRebuildCache inFlightCache =
+        minimalRebuildCacheManager.getCache(moduleName, permutationDescription);
+    File firstTypesFile = getTypesFile(cacheDir.toFile());
+
+    // Another compile replaces the output of Foo, which makes the next save compact the file.
+    cache = minimalRebuildCacheManager.getCache(moduleName, permutationDescription);
+    cache.setJsForType(TreeLogger.NULL, "Foo", "Other Js for Foo");
+    minimalRebuildCacheManager.putCache(moduleName, permutationDescription, cache);
+    minimalRebuildCacheManager.syncReadDiskCache(moduleName, permutationDescription);
+    assertFalse(getTypesFile(cacheDir.toFile()).equals(firstTypesFile));
+
+    // A compile that started from the cache before can still read the compacted file.
+    assertTrue(inFlightCache.computeAndClearStaleTypesCache(TreeLogger.NULL,
+        new JTypeOracle(null, inFlightCache)).isEmpty());
+    assertEquals(fooJs, inFlightCache.getJs("Foo"));
+    assertEquals("Some Js for Bar", inFlightCache.getJs("Bar"));
+
+    // Even once the caches on disk are deleted.
+    MinimalRebuildCache otherInFlightCache =
+        minimalRebuildCacheManager.getCache(moduleName, permutationDescription);
+    minimalRebuildCacheManager.deleteCaches();
+    assertEquals("Other Js for Foo", otherInFlightCache.getJs("Foo"));
+    assertEquals("Some Js for Bar", otherInFlightCache.getJs("Bar"));
+
+    assertTrue(minimalRebuildCacheManager.shutdown());
+    FileUtils.deleteDirectory(cacheDir.toFile());
+  }
+
+  public void testCachesInMemoryAreBoundedByWeight() throws InterruptedException, IOException {
+    Path cacheDir = Files.createTempDirectory(null);
+    PermutationDescription permutationDescription = new PermutationDescription();
+    // Room for two caches without per-type output but not for one with 1000 JS entries and another.
+    MinimalRebuildCacheManager minimalRebuildCacheManager = new MinimalRebuildCacheManager(
+        TreeLogger.NULL, cacheDir.toFile(), ImmutableMap.<String, String>of(), 2500);
+
+    MinimalRebuildCache fooCache =
+        minimalRebuildCacheManager.getCache("com.google.FooModule", permutationDescription);
+    for (int i = 0; i < 1000; i++) {
+      fooCache.setJsForType(TreeLogger.NULL, "Foo" + i, "Some Js for Foo" + i);
+    }
+    minimalRebuildCacheManager.putCache("com.google.FooModule", permutationDescription, fooCache);
+    MinimalRebuildCache barCache =
+        minimalRebuildCacheManager.getCache("com.google.BarModule", permutationDescription);
+    minimalRebuildCacheManager.putCache("com.google.BarModule", permutationDescription, barCache);
+
+    // FooModule's cache was evicted, and is read from disk again.
+    fooCache = minimalRebuildCacheManager.getCache("com.google.FooModule", permutationDescription);
+    assertEquals("Some Js for Foo999", fooCache.getJs("Foo999"));
+    minimalRebuildCacheManager.getCache("com.google.BarModule", permutationDescription);
+
+    assertEquals(new ImmutableMap.Builder<String, Long>().put("hits", 1L).put("misses", 3L)
+        .put("evictions", 1L).put("diskReads", 1L).put("size", 2L).put("weight", 2000L).build(),
+        minimalRebuildCacheManager.getMemoryCacheStats());
+
+    minimalRebuildCacheManager.deleteCaches();
+    assertTrue(minimalRebuildCacheManager.shutdown());
+    FileUtils.deleteDirectory(cacheDir.toFile());
+  }
+
+  public void testMemoryCacheStatsReportChargedWeights() throws Exception {
+    String moduleName = "com.google.FooModule";
+    PermutationDescription permutationDescription = new PermutationDescription();
+    final MinimalRebuildCacheManager minimalRebuildCacheManager = new MinimalRebuildCacheManager(
+        TreeLogger.NULL, null, ImmutableMap.<String, String>of());
+
+    // A blank cache is put in memory, and weighs what it weighed then even once it is filled.
+    MinimalRebuildCache cache =
+        minimalRebuildCacheManager.getCache(moduleName, permutationDescription);
+    for (int i = 0; i < 100; i++) {
+      cache.setJsForType(TreeLogger.NULL, "Foo" + i, "Some Js for Foo" + i);
+    }
+    assertEquals(1000L, getMemoryCacheWeight(minimalRebuildCacheManager));
+    minimalRebuildCacheManager.putCache(moduleName, permutationDescription, cache);
+    assertEquals(1100L, getMemoryCacheWeight(minimalRebuildCacheManager));
+
+    // Stats don't wait for the manager, which may be reading a cache from disk.
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    try {
+      synchronized (minimalRebuildCacheManager) {
+        Future<Map<String, Long>> stats = executor.submit(new Callable<Map<String, Long>>() {
+          @Override
+          public Map<String, Long> call() {
+            return minimalRebuildCacheManager.getMemoryCacheStats();
+          }
+        });
+        assertEquals(Long.valueOf(1L), stats.get(30, TimeUnit.SECONDS).get("size"));
+      }
+    } finally {
+      executor.shutdown();
+    }
+
+    minimalRebuildCacheManager.deleteCaches();
+    assertEquals(0L, getMemoryCacheWeight(minimalRebuildCacheManager));
+    assertTrue(minimalRebuildCacheManager.shutdown());
+  }
+
+  private static long getMemoryCacheWeight(MinimalRebuildCacheManager minimalRebuildCacheManager) {
+    return minimalRebuildCacheManager.getMemoryCacheStats().get("weight");
+  }
+
+  private static File getTypesFile(File cacheDir) {
+    File[] typesFiles = new File(cacheDir, "gwt-rebuildCache").listFiles();
+    assertEquals(Arrays.toString(typesFiles), 2, typesFiles.length);
+    for (File file : typesFiles) {
+      if (file.getName().contains("-types-")) {
+        return file;
+      }
+    }
+    fail("No file holds the output of types");
+    return null;
+  }
 }
@@ -0,0 +1,122 @@
+/*
+ * Copyright 2026 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.gwt.dev;
+
+import com.google.gwt.core.ext.TreeLogger;
+import com.google.gwt.dev.cfg.ModuleDef;
+import com.google.gwt.dev.cfg.ModuleDefLoader;
+import com.google.gwt.dev.jjs.PermutationResult;
+import com.google.gwt.dev.jjs.UnifiedAst;
+import com.google.gwt.dev.util.FileBackedObject;
+import com.google.gwt.dev.util.StringInterningObjectInputStream;
+import com.google.gwt.dev.util.log.PrintWriterTreeLogger;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.InputStream;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Compares the Java-serialization based conversation that
+ * {@link ExternalPermutationWorkerFactory} used to have with its workers to
+ * {@link PermutationWorkerProtocol}: the bytes sent over the socket to compile
+ * every permutation of a module, and the time a worker needs to load the AST.
+ * <p>
+ * Run with {@code main}, passing the name of a module on the classpath.
+ */
+public class PermutationWorkerProtocolBenchmark {
+
+  public static void main(String[] args) throws Exception {
+    if (args.length != 1) {
+      System.err.println("Usage: PermutationWorkerProtocolBenchmark <module name>");
+      System.exit(1);
+    }
+    PrintWriterTreeLogger logger = new PrintWriterTreeLogger();
+    logger.setMaxDetail(TreeLogger.WARN);
+
+    ModuleDef module = ModuleDefLoader.loadFromClassPath(logger, args[0]);
+    CompilerContext compilerContext = new CompilerContext.Builder()
+        .options(new PrecompileTaskOptionsImpl()).module(module).build();
+    Precompilation precompilation = Precompile.precompile(logger, compilerContext);
+    if (precompilation == null) {
+      System.err.println("Precompile failed");
+      System.exit(1);
+    }
+    UnifiedAst ast = precompilation.getUnifiedAst();
+    Permutation[] permutations = precompilation.getPermutations();
+    List<FileBackedObject<PermutationResult>> resultFiles =
+        new ArrayList<FileBackedObject<PermutationResult>>();
+    for (int i = 0; i < permutations.length; i++) {
+      resultFiles.add(new FileBackedObject<PermutationResult>(PermutationResult.class,
+          new File("permutation-" + i + ".ser").getAbsoluteFile()));
+    }
+
+    File legacyFile = File.createTempFile("legacyPermutationWorker", ".ser");
+    legacyFile.deleteOnExit();
+    long start = System.nanoTime();
+    try (ObjectOutputStream out = new ObjectOutputStream(new FileOutputStream(legacyFile))) {
+      out.writeObject(ast);
+    }
+    long legacyWrite = System.nanoTime() - start;
+    start = System.nanoTime();
+    try (InputStream in = new FileInputStream(legacyFile)) {
+      ((UnifiedAst) new StringInterningObjectInputStream(in).readObject()).prepare();
+    }
+    long legacyLoad = System.nanoTime() - start;
+
+    ByteArrayOutputStream legacyBytes = new ByteArrayOutputStream();
+    ObjectOutputStream legacyOut = new ObjectOutputStream(legacyBytes);
+    legacyOut.writeObject(legacyFile);
+    for (int i = 0; i < permutations.length; i++) {
+      legacyOut.writeBoolean(true);
+      legacyOut.writeObject(resultFiles.get(i));
+      legacyOut.writeObject(permutations[i]);
+    }
+    legacyOut.writeBoolean(false);
+    legacyOut.flush();
+
+    File sharedFile = File.createTempFile("sharedPermutationWorker", ".ast");
+    sharedFile.deleteOnExit();
+    start = System.nanoTime();
+    ast.writeShared(sharedFile);
+    long sharedWrite = System.nanoTime() - start;
+    start = System.nanoTime();
+    UnifiedAst.readShared(sharedFile).prepare();
+    long sharedLoad = System.nanoTime() - start;
+
+    PermutationWorkerProtocol protocol = new PermutationWorkerProtocol(
+        new ByteArrayInputStream(new byte[0]), new ByteArrayOutputStream());
+    protocol.writeAstFile(sharedFile);
+    for (int i = 0; i < permutations.length; i++) {
+      protocol.writeCompileRequest(resultFiles.get(i), permutations[i]);
+    }
+    protocol.writeShutdown();
+
+    System.out.println(module.getName() + ": " + permutations.length + " permutations, "
+        + ast.getSerializedAstSize() + " bytes of serialized AST");
+    System.out.println("  legacy: " + legacyBytes.size() + " bytes sent, AST file "
+        + legacyFile.length() + " bytes, written in " + legacyWrite / 1000000
+        + " ms, loaded by a worker in " + legacyLoad / 1000000 + " ms");
+    System.out.println("  binary: " + protocol.getBytesWritten() + " bytes sent, AST file "
+        + sharedFile.length() + " bytes, written in " + sharedWrite / 1000000
+        + " ms, loaded by a worker in " + sharedLoad / 1000000 + " ms");
+  }
+}
@@ -0,0 +1,147 @@
+/*
+ * Copyright 2026 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.gwt.dev;
+
+import com.google.gwt.core.ext.UnableToCompleteException;
+import com.google.gwt.dev.cfg.BindingProperties;
+import com.google.gwt.dev.cfg.BindingProperty;
+import com.google.gwt.dev.cfg.ConditionNone;
+import com.google.gwt.dev.cfg.ConfigurationProperties;
+import com.google.gwt.dev.jjs.PermutationResult;
+import com.google.gwt.dev.util.FileBackedObject;
+
+import junit.framework.TestCase;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.Collections;
+
+/**
+ * Tests {@link PermutationWorkerProtocol}.
+ */
+public class PermutationWorkerProtocolTest extends TestCase {
+
+  private static final ByteArrayInputStream NO_INPUT = new ByteArrayInputStream(new byte[0]);
+
+  public void testCompileRequests() throws Exception {
+    BindingProperty userAgent = new BindingProperty("user.agent");
+    userAgent.addDefinedValue(new ConditionNone(), "safari");
+    userAgent.addDefinedValue(new ConditionNone(), "gecko1_8");
+    BindingProperty[] orderedProperties = {userAgent};
+    ConfigurationProperties configurationProperties = new ConfigurationProperties(
+        Collections.singletonMap("foo", Collections.singletonList("bar")));
+
+    Permutation safari = createPermutation(0, orderedProperties, "safari",
+        configurationProperties);
+    Permutation gecko = createPermutation(1, orderedProperties, "gecko1_8",
+        configurationProperties);
+    File resultDirectory = new File("results");
+
+    ByteArrayOutputStream hostOut = new ByteArrayOutputStream();
+    PermutationWorkerProtocol host = new PermutationWorkerProtocol(NO_INPUT, hostOut);
+    host.writeAstFile(new File("unified.ast"));
+    host.writeCompileRequest(createResultFile(resultDirectory, 0), safari);
+    int firstRequestBytes = hostOut.size();
+    host.writeCompileRequest(createResultFile(resultDirectory, 1), gecko);
+    int secondRequestBytes = hostOut.size() - firstRequestBytes;
+    host.writeShutdown();
+
+    // The shared properties and strings are only sent the first time.
+    assertEquals(hostOut.size(), host.getBytesWritten());
+    assertTrue(secondRequestBytes * 4 < firstRequestBytes);
+
+    PermutationWorkerProtocol worker = new PermutationWorkerProtocol(
+        new ByteArrayInputStream(hostOut.toByteArray()), new ByteArrayOutputStream());
+    assertEquals(new File("unified.ast").getAbsolutePath(), worker.readAstFile().getPath());
+
+    PermutationWorkerProtocol.CompileRequest first = worker.readCompileRequest();
+    assertEquals(new File(resultDirectory, "permutation-0.ser").getAbsolutePath(),
+        first.getResultFile().getPath());
+    assertPermutation(safari, first.getPermutation());
+
+    PermutationWorkerProtocol.CompileRequest second = worker.readCompileRequest();
+    assertEquals(new File(resultDirectory, "permutation-1.ser").getAbsolutePath(),
+        second.getResultFile().getPath());
+    assertPermutation(gecko, second.getPermutation());
+    BindingProperties firstProperties =
+        first.getPermutation().getProperties().getSoftProperties().get(0);
+    BindingProperties secondProperties =
+        second.getPermutation().getProperties().getSoftProperties().get(0);
+    assertSame(firstProperties.getOrderedProps(), secondProperties.getOrderedProps());
+    assertSame(firstProperties.getConfigurationProperties(),
+        secondProperties.getConfigurationProperties());
+
+    assertNull(worker.readCompileRequest());
+  }
+
+  public void testHandshakeAndResults() throws Exception {
+    ByteArrayOutputStream workerOut = new ByteArrayOutputStream();
+    PermutationWorkerProtocol worker = new PermutationWorkerProtocol(NO_INPUT, workerOut);
+    worker.writeHello("cookie");
+    worker.writeMemoryUse(5L << 32);
+    worker.writeResult(null);
+    worker.writeResult(new UnableToCompleteException());
+
+    PermutationWorkerProtocol host = new PermutationWorkerProtocol(
+        new ByteArrayInputStream(workerOut.toByteArray()), new ByteArrayOutputStream());
+    assertEquals("cookie", host.readHello());
+    assertEquals(5L << 32, host.readMemoryUse());
+    assertNull(host.readResult());
+    assertTrue(host.readResult() instanceof UnableToCompleteException);
+  }
+
+  public void testRejectsOtherVersions() throws Exception {
+    ByteArrayOutputStream workerOut = new ByteArrayOutputStream();
+    new PermutationWorkerProtocol(NO_INPUT, workerOut).writeHello("cookie");
+    byte[] bytes = workerOut.toByteArray();
+    // The version follows the magic number.
+    bytes[7]++;
+
+    PermutationWorkerProtocol host = new PermutationWorkerProtocol(
+        new ByteArrayInputStream(bytes), new ByteArrayOutputStream());
+    try {
+      host.readHello();
+      fail("Expected IOException");
+    } catch (IOException expected) {
+    }
+  }
+
+  private static void assertPermutation(Permutation expected, Permutation actual) {
+    assertEquals(expected.getId(), actual.getId());
+    assertEquals(1, actual.getPropertyAndBindingInfos().size());
+    PropertyAndBindingInfo expectedInfo = expected.getPropertyAndBindingInfos().get(0);
+    PropertyAndBindingInfo actualInfo = actual.getPropertyAndBindingInfos().get(0);
+    assertEquals(expectedInfo.getPropertyValues(), actualInfo.getPropertyValues());
+    assertEquals(expectedInfo.getReboundTypes(), actualInfo.getReboundTypes());
+    assertEquals(expected.getProperties().prettyPrint(), actual.getProperties().prettyPrint());
+  }
+
+  private static Permutation createPermutation(int id, BindingProperty[] orderedProperties,
+      String userAgent, ConfigurationProperties configurationProperties) {
+    Permutation permutation = new Permutation(id, new BindingProperties(orderedProperties,
+        new String[] {userAgent}, configurationProperties));
+    permutation.putRebindAnswer("com.example.Foo", "com.example.Foo_" + userAgent);
+    permutation.putRebindAnswer("com.example.Bar", "com.example.BarImpl");
+    return permutation;
+  }
+
+  private static FileBackedObject<PermutationResult> createResultFile(File directory, int id) {
+    return new FileBackedObject<PermutationResult>(PermutationResult.class,
+        new File(directory, "permutation-" + id + ".ser").getAbsoluteFile());
+  }
+}
@@ -0,0 +1,190 @@
+/*
+ * Copyright 2026 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.gwt.dev.javac;
+
+import com.google.gwt.core.ext.TreeLogger;
+import com.google.gwt.dev.jjs.ast.JDeclaredType;
+import com.google.gwt.thirdparty.guava.common.collect.ImmutableList;
+import com.google.gwt.thirdparty.guava.common.collect.Lists;
+import com.google.gwt.thirdparty.guava.common.collect.Sets;
+
+import junit.framework.TestCase;
+
+import org.eclipse.jdt.core.compiler.CategorizedProblem;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Unit test for {@link CompilationUnitBuildQueue}.
+ */
+public class CompilationUnitBuildQueueTest extends TestCase {
+
+  /**
+   * Builds a mock unit, or fails.
+   */
+  private class MockBuilder extends CompilationUnitBuilder {
+    private final String typeName;
+    private final Throwable failure;
+
+    MockBuilder(String typeName) {
+      this(typeName, null);
+    }
+
+    MockBuilder(String typeName, Throwable failure) {
+      this.typeName = typeName;
+      this.failure = failure;
+    }
+
+    @Override
+    public CompilationUnit build() {
+      if (failure instanceof RuntimeException) {
+        throw (RuntimeException) failure;
+      } else if (failure instanceof Error) {
+        throw (Error) failure;
+      }
+      buildThreadNames.add(Thread.currentThread().getName());
+      final CompiledClass compiledClass =
+          new MockCompiledClass(null, typeName.replace('.', '/'), typeName) {
+            @Override
+            public String getSignatureHash() {
+              hashedClassNames.add(getSourceName());
+              return "signature of " + getSourceName();
+            }
+          };
+      return new MockCompilationUnit(typeName, "source of " + typeName) {
+        @Override
+        public Collection<CompiledClass> getCompiledClasses() {
+          return ImmutableList.of(compiledClass);
+        }
+      };
+    }
+
+    @Override
+    public ContentId getContentId() {
+      return new ContentId(typeName, "source of " + typeName);
+    }
+
+    @Override
+    public String getLocation() {
+      return "/mock/" + Shared.toPath(typeName);
+    }
+
+    @Override
+    public String getSourceMapPath() {
+      return Shared.toPath(typeName);
+    }
+
+    @Override
+    public String getTypeName() {
+      return typeName;
+    }
+
+    @Override
+    protected String doGetSource() {
+      return "source of " + typeName;
+    }
+
+    @Override
+    protected CompilationUnit makeUnit(List<CompiledClass> compiledClasses,
+        List<JDeclaredType> types, Dependencies dependencies,
+        Collection<? extends JsniMethod> jsniMethods, MethodArgNamesLookup methodArgs,
+        CategorizedProblem[] errors) {
+      throw new UnsupportedOperationException();
+    }
+  }
+
+  private final Set<String> buildThreadNames =
+      Collections.synchronizedSet(Sets.<String>newHashSet());
+  private final Set<String> hashedClassNames =
+      Collections.synchronizedSet(Sets.<String>newHashSet());
+
+  public void testBuildsOnTheThreads() {
+    CompilationUnitBuildQueue buildQueue = createBuildQueue(4);
+    for (int i = 0; i < 100; i++) {
+      buildQueue.add(new MockBuilder("com.example.Foo" + i));
+    }
+    buildQueue.close();
+
+    assertEquals(100, buildQueue.finish().size());
+    assertEquals(100, hashedClassNames.size());
+    for (String buildThreadName : buildThreadNames) {
+      assertTrue(buildThreadName, buildThreadName.startsWith("CompilationUnitBuilder-"));
+    }
+  }
+
+  public void testUnitsAreSorted() {
+    CompilationUnitBuildQueue buildQueue = createBuildQueue(4);
+    List<String> typeNames = Lists.newArrayList();
+    for (int i = 0; i < 100; i++) {
+      typeNames.add("com.example.Foo" + i);
+    }
+    Collections.shuffle(typeNames);
+    for (String typeName : typeNames) {
+      buildQueue.add(new MockBuilder(typeName));
+    }
+    buildQueue.close();
+
+    List<CompilationUnit> units = buildQueue.finish();
+    List<CompilationUnit> sortedUnits = Lists.newArrayList(units);
+    Collections.sort(sortedUnits, CompilationUnit.COMPARATOR);
+    assertEquals(sortedUnits, units);
+  }
+
+  public void testNothingToBuild() {
+    CompilationUnitBuildQueue buildQueue = createBuildQueue(4);
+    buildQueue.close();
+
+    assertTrue(buildQueue.finish().isEmpty());
+  }
+
+  public void testFailureIsRethrown() {
+    CompilationUnitBuildQueue buildQueue = createBuildQueue(4);
+    IllegalStateException failure = new IllegalStateException();
+    buildQueue.add(new MockBuilder("com.example.Foo"));
+    buildQueue.add(new MockBuilder("com.example.Bar", failure));
+    buildQueue.add(new MockBuilder("com.example.Baz"));
+    buildQueue.close();
+
+    try {
+      buildQueue.finish();
+      fail("Expected the failure to be rethrown");
+    } catch (IllegalStateException e) {
+      assertSame(failure, e);
+    }
+  }
+
+  public void testErrorIsWrapped() {
+    CompilationUnitBuildQueue buildQueue = createBuildQueue(4);
+    AssertionError failure = new AssertionError();
+    buildQueue.add(new MockBuilder("com.example.Foo", failure));
+    buildQueue.close();
+
+    try {
+      buildQueue.finish();
+      fail("Expected the failure to be rethrown");
+    } catch (RuntimeException e) {
+      assertSame(failure, e.getCause());
+    }
+  }
+
+  private static CompilationUnitBuildQueue createBuildQueue(int threadCount) {
+    return new CompilationUnitBuildQueue(threadCount,
+        new ProgressLogger(TreeLogger.NULL, TreeLogger.TRACE, 100, 10));
+  }
+}
@@ -29,6 +29,7 @@ import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
+import java.io.RandomAccessFile;
 import java.io.Serializable;
 import java.io.UncheckedIOException;
 import java.util.Arrays;
@@ -320,6 +321,121 @@ public class PersistentUnitCacheTest extends TestCase {
     cache.shutdown();
   }
 
+  /**
+   * A compaction leaves the largest file alone while most of it is still used, and only copies
+   * the units from the other files.
+   */
+  public void testCompactionKeepsMostlyUsedFile() throws IOException, InterruptedException,
+      UnableToCompleteException, ExecutionException {
+    File parentDir = lastParentDir = File.createTempFile("persistentCacheTest", "");
+    File unitCacheDir = mkCacheDir(parentDir);
+
+    PersistentUnitCache cache = new PersistentUnitCache(logger, parentDir, hash1);
+    for (int i = 0; i < 10; i++) {
+      cache.internalAdd(new MockCompilationUnit("com.example.Base" + i, "Base source")).get();
+    }
+    cache.cleanup(logger);
+    cache.waitForCleanup();
+    String[] fileNames = unitCacheDir.list();
+    Arrays.sort(fileNames);
+    File baseFile = new File(unitCacheDir, fileNames[0]);
+
+    // Each cleanup rotates to a new file, until there are enough files to compact them.
+    MockCompilationUnit lastUnit = null;
+    for (int i = 1; i <= PersistentUnitCache.CACHE_FILE_THRESHOLD; i++) {
+      lastUnit = new MockCompilationUnit("com.example.Foo", "Foo source" + i);
+      cache.internalAdd(lastUnit).get();
+      cache.cleanup(logger);
+      cache.waitForCleanup();
+    }
+    cache.shutdown();
+
+    // The base file and the file the other units were compacted into.
+    assertNumCacheFiles(unitCacheDir, 2);
+    assertTrue(baseFile.isFile());
+
+    cache = new PersistentUnitCache(logger, parentDir, hash1);
+    for (int i = 0; i < 10; i++) {
+      assertNotNull(cache.find("com/example/Base" + i + ".java"));
+    }
+    CompilationUnit result = cache.find("com/example/Foo.java");
+    assertNotNull(result);
+    assertEquals(lastUnit.getContentId(), result.getContentId());
+    cache.shutdown();
+  }
+
+  /**
+   * A cache file that wasn't closed has no index, so its units are found by reading it through,
+   * up to the last unit that was completely written.
+   */
+  public void testUnclosedCacheFile() throws IOException, InterruptedException,
+      UnableToCompleteException, ExecutionException {
+    File parentDir = lastParentDir = File.createTempFile("persistentCacheTest", "");
+    File unitCacheDir = mkCacheDir(parentDir);
+
+    PersistentUnitCache cache = new PersistentUnitCache(logger, parentDir, hash1);
+    MockCompilationUnit foo = new MockCompilationUnit("com.example.Foo", "Foo: source1");
+    cache.internalAdd(foo).get();
+    cache.internalAdd(new MockCompilationUnit("com.example.Bar", "Bar: source1")).get();
+    cache.shutdown();
+    assertNumCacheFiles(unitCacheDir, 1);
+
+    // Cut off the index, along with the end of the last unit.
+    File cacheFile = unitCacheDir.listFiles()[0];
+    RandomAccessFile file = new RandomAccessFile(cacheFile, "rw");
+    try {
+      file.seek(file.length() - 12);
+      file.setLength(file.readLong() - 10);
+    } finally {
+      file.close();
+    }
+
+    cache = new PersistentUnitCache(logger, parentDir, hash1);
+    CompilationUnit result = cache.find("com/example/Foo.java");
+    assertNotNull(result);
+    assertEquals(foo.getContentId(), result.getContentId());
+    assertNull(cache.find("com/example/Bar.java"));
+    cache.shutdown();
+    assertNumCacheFiles(unitCacheDir, 1);
+  }
+
+  /**
+   * Units are only read when they are found, so a damaged unit only causes a cache miss.
+   */
+  public void testDamagedUnit() throws IOException, InterruptedException,
+      UnableToCompleteException, ExecutionException {
+    File parentDir = lastParentDir = File.createTempFile("persistentCacheTest", "");
+    File unitCacheDir = mkCacheDir(parentDir);
+
+    PersistentUnitCache cache = new PersistentUnitCache(logger, parentDir, hash1);
+    MockCompilationUnit foo = new MockCompilationUnit("com.example.Foo", "Foo: source1");
+    cache.internalAdd(foo).get();
+    MockCompilationUnit bar = new MockCompilationUnit("com.example.Bar", "Bar: source1");
+    cache.internalAdd(bar).get();
+    cache.shutdown();
+
+    // Overwrite the start of the first unit, which follows the file and record headers.
+    File cacheFile = unitCacheDir.listFiles()[0];
+    RandomAccessFile file = new RandomAccessFile(cacheFile, "rw");
+    try {
+      file.seek(8 + 1);
+      file.readUTF();
+      file.readUTF();
+      file.skipBytes(8 + 8 + 4);
+      file.writeInt(0);
+    } finally {
+      file.close();
+    }
+
+    cache = new PersistentUnitCache(logger, parentDir, hash1);
+    assertNull(cache.find(foo.getContentId()));
+    assertNull(cache.find("com/example/Foo.java"));
+    CompilationUnit result = cache.find("com/example/Bar.java");
+    assertNotNull(result);
+    assertEquals(bar.getContentId(), result.getContentId());
+    cache.shutdown();
+  }
+
   private void assertNumCacheFiles(File unitCacheDir, int expected) {
     String[] actualFiles = unitCacheDir.list();
     if (expected == actualFiles.length) {
@@ -0,0 +1,107 @@
+/*
+ * Copyright 2026 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.gwt.dev.jjs;
+
+import com.google.gwt.dev.jjs.Correlation.Axis;
+import com.google.gwt.dev.jjs.Correlation.Literal;
+import com.google.gwt.dev.jjs.CorrelationFactory.RealCorrelationFactory;
+
+import junit.framework.TestCase;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+
+/**
+ * Tests for {@link SourceInfoCorrelation} and {@link SourceOrigin}.
+ */
+public class SourceInfoCorrelationTest extends TestCase {
+
+  private static final Correlation CLASS_LITERAL =
+      RealCorrelationFactory.INSTANCE.by(Literal.CLASS);
+  private static final Correlation STRING_LITERAL =
+      RealCorrelationFactory.INSTANCE.by(Literal.STRING);
+
+  public void testChildInheritsCorrelations() {
+    SourceInfoCorrelation parent = new SourceInfoCorrelation(SourceOrigin.UNKNOWN);
+    parent.addCorrelation(CLASS_LITERAL);
+    SourceInfo child = parent.makeChild();
+    assertSame(CLASS_LITERAL, child.getCorrelation(Axis.LITERAL));
+
+    child.addCorrelation(STRING_LITERAL);
+    assertSame(STRING_LITERAL, child.getCorrelation(Axis.LITERAL));
+    assertSame(CLASS_LITERAL, parent.getCorrelation(Axis.LITERAL));
+    assertNull(child.getCorrelation(Axis.METHOD));
+
+    Correlation[] correlations = child.getCorrelations();
+    assertEquals(Axis.values().length, correlations.length);
+    assertSame(STRING_LITERAL, correlations[Axis.LITERAL.ordinal()]);
+
+    // The array returned is a copy.
+    correlations[Axis.LITERAL.ordinal()] = null;
+    assertSame(STRING_LITERAL, child.getCorrelation(Axis.LITERAL));
+  }
+
+  public void testCorrelationsSurviveSerialization() throws Exception {
+    SourceInfoCorrelation info = new SourceInfoCorrelation(SourceOrigin.UNKNOWN);
+    info.addCorrelation(STRING_LITERAL);
+    SourceInfo copy = reserialize(info);
+    assertEquals(STRING_LITERAL, copy.getCorrelation(Axis.LITERAL));
+
+    // The copy's correlations can still be changed on their own.
+    copy.addCorrelation(CLASS_LITERAL);
+    assertEquals(CLASS_LITERAL, copy.getCorrelation(Axis.LITERAL));
+    assertSame(STRING_LITERAL, info.getCorrelation(Axis.LITERAL));
+  }
+
+  public void testPositions() throws Exception {
+    checkPositions(10, 20);
+    checkPositions(0, 0);
+    checkPositions(1000000, 1002000);
+    // Too far or too long to pack.
+    checkPositions(2000000, 2000001);
+    checkPositions(10, 100000);
+    checkPositions(-1, 5);
+
+    SourceOrigin lineOnly = SourceOrigin.create(-1, -1, 7, "Foo.java");
+    assertEquals(-1, lineOnly.getStartPos());
+    assertEquals(-1, lineOnly.getEndPos());
+    assertEquals(7, lineOnly.getStartLine());
+  }
+
+  private static void checkPositions(int startPos, int endPos) throws Exception {
+    SourceOrigin origin = SourceOrigin.create(startPos, endPos, 3, "Foo.java");
+    assertEquals(startPos, origin.getStartPos());
+    assertEquals(endPos, origin.getEndPos());
+    assertEquals(3, origin.getStartLine());
+    assertEquals("Foo.java", origin.getFileName());
+    assertEquals(origin, reserialize(origin));
+  }
+
+  private static <T> T reserialize(T object) throws IOException, ClassNotFoundException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    ObjectOutputStream out = new ObjectOutputStream(bytes);
+    out.writeObject(object);
+    out.close();
+    ObjectInputStream in =
+        new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+    @SuppressWarnings("unchecked")
+    T copy = (T) in.readObject();
+    return copy;
+  }
+}
@@ -0,0 +1,72 @@
+/*
+ * Copyright 2026 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.gwt.dev.jjs;
+
+import com.google.gwt.dev.MinimalRebuildCache;
+import com.google.gwt.dev.PrecompileTaskOptionsImpl;
+import com.google.gwt.dev.jjs.ast.JProgram;
+import com.google.gwt.dev.js.ast.JsProgram;
+import com.google.gwt.thirdparty.guava.common.collect.ImmutableSet;
+
+import junit.framework.TestCase;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Tests {@link UnifiedAst}.
+ */
+public class UnifiedAstTest extends TestCase {
+
+  public void testReadShared() throws Exception {
+    PrecompileTaskOptionsImpl options = new PrecompileTaskOptionsImpl();
+    options.setOptimizationLevel(7);
+    UnifiedAst ast = new UnifiedAst(options,
+        new UnifiedAst.AST(new JProgram(new MinimalRebuildCache()), new JsProgram()), false,
+        ImmutableSet.of("com.example.Foo", "com.example.Bar"));
+
+    File file = File.createTempFile("unifiedAstTest", ".ast");
+    try {
+      ast.writeShared(file);
+      UnifiedAst shared = UnifiedAst.readShared(file);
+
+      assertEquals(ast.getRebindRequests(), shared.getRebindRequests());
+      assertEquals(7, shared.getOptions().getOptimizationLevel());
+      assertEquals(ast.getSerializedAstSize(), shared.getSerializedAstSize());
+
+      // Each call makes a fresh copy from the mapped file.
+      UnifiedAst.AST first = shared.getFreshAst();
+      UnifiedAst.AST second = shared.getFreshAst();
+      assertNotNull(first.getJProgram());
+      assertNotSame(first.getJProgram(), second.getJProgram());
+    } finally {
+      file.delete();
+    }
+  }
+
+  public void testReadSharedRejectsOtherFiles() throws Exception {
+    File file = File.createTempFile("unifiedAstTest", ".ast");
+    try {
+      try {
+        UnifiedAst.readShared(file);
+        fail("Expected IOException");
+      } catch (IOException expected) {
+      }
+    } finally {
+      file.delete();
+    }
+  }
+}
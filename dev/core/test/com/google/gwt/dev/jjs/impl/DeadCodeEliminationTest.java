@@ -16,9 +16,14 @@
 package com.google.gwt.dev.jjs.impl;
 
 import com.google.gwt.core.ext.TreeLogger;
+import com.google.gwt.dev.jjs.ast.HasName;
+import com.google.gwt.dev.jjs.ast.JField;
 import com.google.gwt.dev.jjs.ast.JMethod;
 import com.google.gwt.dev.jjs.ast.JProgram;
+import com.google.gwt.thirdparty.guava.common.collect.Lists;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Locale;
 
 /**
@@ -513,6 +518,42 @@ public class DeadCodeEliminationTest extends OptimizerTestBase {
         + "EntryPoint$B.m2();");
   }
 
+  public void testParallelExecMatchesSerialExec() throws Exception {
+    addSnippetClassDecl("static class A { int x = 1 + 2; A() { if (false) { x = 3; } } }");
+    addSnippetClassDecl("static final int C = 2 + 3;");
+    StringBuilder snippet = new StringBuilder();
+    for (int n = 0; n < 100; n++) {
+      addSnippetClassDecl("static int m" + n + "() { new A(); if (" + n + " < 50) { return C; }"
+          + " return b ? C * " + n + " : " + n + " + 1; }");
+      snippet.append("i += m" + n + "();\n");
+    }
+    JProgram serialProgram = compileSnippet("void", snippet.toString());
+    JProgram parallelProgram = compileSnippet("void", snippet.toString());
+    FullOptimizerContext serialCtx = new FullOptimizerContext(serialProgram);
+    FullOptimizerContext parallelCtx = new FullOptimizerContext(parallelProgram);
+    int step = serialCtx.getOptimizationStep();
+
+    OptimizerStats serialStats = DeadCodeElimination.exec(serialProgram, serialCtx, false);
+    OptimizerStats parallelStats = DeadCodeElimination.exec(parallelProgram, parallelCtx, true);
+
+    assertTrue(serialStats.didChange());
+    assertEquals(serialStats.getNumMods(), parallelStats.getNumMods());
+    assertEquals(serialProgram.toSource(), parallelProgram.toSource());
+    assertEquals(qualifiedNames(serialCtx.getModifiedMethodsSince(step)),
+        qualifiedNames(parallelCtx.getModifiedMethodsSince(step)));
+    assertEquals(qualifiedNames(serialCtx.getModifiedFieldsSince(step)),
+        qualifiedNames(parallelCtx.getModifiedFieldsSince(step)));
+  }
+
+  private static List<String> qualifiedNames(Collection<? extends HasName> members) {
+    List<String> names = Lists.newArrayList();
+    for (HasName member : members) {
+      names.add(member instanceof JMethod ? ((JMethod) member).getQualifiedName()
+          : ((JField) member).getQualifiedName());
+    }
+    return names;
+  }
+
   private boolean runMethodInliner;
   private boolean runSpecializer;
 
@@ -0,0 +1,236 @@
+/*
+ * Copyright 2026 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.gwt.dev.jjs.impl;
+
+import com.google.gwt.core.ext.linker.impl.StandardStatementRanges;
+import com.google.gwt.core.ext.soyc.Range;
+import com.google.gwt.dev.jjs.JsSourceMap;
+import com.google.gwt.dev.jjs.SourceOrigin;
+import com.google.gwt.thirdparty.guava.common.collect.Lists;
+
+import junit.framework.TestCase;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Tests for {@link JsFunctionClusterer} and {@link MinHashClustering}.
+ */
+public class JsFunctionClustererTest extends TestCase {
+
+  private static final String LONG_FUNCTION = "function g(){return 12345}\n";
+  private static final String VARIABLE = "var v=0;\n";
+  private static final String SHORT_FUNCTION = "function f(){}\n";
+
+  public void testMinHashOrderIsPermutation() {
+    List<String> codes = Lists.newArrayList();
+    for (int i = 0; i < 200; i++) {
+      codes.add("function f" + i + "(){return " + (i * 7919 % 1000) + "}");
+    }
+    int[] order = MinHashClustering.order(codes);
+    assertEquals(0, order[0]);
+    int[] sorted = order.clone();
+    Arrays.sort(sorted);
+    for (int i = 0; i < sorted.length; i++) {
+      assertEquals(i, sorted[i]);
+    }
+    assertTrue(Arrays.equals(order, MinHashClustering.order(codes)));
+  }
+
+  public void testMinHashPutsSimilarCodeTogether() {
+    List<String> codes = Lists.newArrayList();
+    for (int i = 0; i < 20; i++) {
+      codes.add("function a" + i + "(b,c){var d=b.length;for(var e=0;e<d;e++){c.push(b[e])}}");
+      codes.add("function x" + i + "(){return $wnd.document.getElementById('root').innerHTML}");
+    }
+    int[] order = MinHashClustering.order(codes);
+
+    // The two kinds of function should end up in two runs.
+    int numChanges = 0;
+    for (int i = 1; i < order.length; i++) {
+      if (order[i] % 2 != order[i - 1] % 2) {
+        numChanges++;
+      }
+    }
+    assertEquals(1, numChanges);
+  }
+
+  /**
+   * MinHash may find different neighbors than edit distance, but the clustered
+   * code should compress about as well.
+   */
+  public void testMinHashCompressesAsWellAsEditDistance() throws IOException {
+    String js = generateFunctions(3000);
+    int originalSize = gzipSize(js);
+    int editDistanceSize = gzipSize(cluster(js, JsFunctionClusterer.Strategy.EDIT_DISTANCE));
+    int minHashSize = gzipSize(cluster(js, JsFunctionClusterer.Strategy.MIN_HASH));
+    assertTrue("edit distance: " + editDistanceSize + " original: " + originalSize,
+        editDistanceSize < originalSize);
+    assertTrue("minHash: " + minHashSize + " edit distance: " + editDistanceSize,
+        minHashSize <= editDistanceSize * 1.02);
+  }
+
+  public void testSimilarity() {
+    int[] signature = MinHashClustering.signature("function a(){return 1}");
+    assertEquals(signature.length, MinHashClustering.similarity(signature, signature));
+    assertTrue(MinHashClustering.similarity(signature,
+        MinHashClustering.signature("function a(){return 2}")) > MinHashClustering.similarity(
+        signature, MinHashClustering.signature("var zzz=[new Date,new Object]")));
+  }
+
+  public void testSourceMapFollowsStatementsWithEditDistance() {
+    checkSourceMapFollowsStatements(JsFunctionClusterer.Strategy.EDIT_DISTANCE);
+  }
+
+  public void testSourceMapFollowsStatementsWithMinHash() {
+    checkSourceMapFollowsStatements(JsFunctionClusterer.Strategy.MIN_HASH);
+  }
+
+  public void testSourceMapFollowsStatementsOnOneLine() {
+    String js = LONG_FUNCTION.trim() + VARIABLE.trim() + SHORT_FUNCTION.trim();
+    int longStart = 0;
+    int variableStart = LONG_FUNCTION.trim().length();
+    int shortStart = variableStart + VARIABLE.trim().length();
+    StandardStatementRanges ranges = new StandardStatementRanges(
+        Lists.newArrayList(longStart, variableStart, shortStart),
+        Lists.newArrayList(variableStart, shortStart, js.length()));
+    int returnStart = js.indexOf("return");
+    List<Range> mappings = Lists.newArrayList(
+        new Range(returnStart, returnStart + 12, 0, returnStart, 0, returnStart + 12,
+            SourceOrigin.UNKNOWN));
+
+    JsFunctionClusterer clusterer = new JsFunctionClusterer(
+        new JsNoopTransformer(js, ranges, new JsSourceMap(mappings, js.length(), 1)),
+        JsFunctionClusterer.Strategy.EDIT_DISTANCE);
+    clusterer.exec();
+
+    String newJs = clusterer.getJs();
+    assertEquals(SHORT_FUNCTION.trim() + LONG_FUNCTION.trim() + VARIABLE.trim(), newJs);
+    int newReturnStart = newJs.indexOf("return");
+    assertRange(newReturnStart, newReturnStart + 12, 0, newReturnStart, 0, newReturnStart + 12,
+        clusterer.getSourceInfoMap().getRanges().get(0));
+  }
+
+  private static String cluster(String js, JsFunctionClusterer.Strategy strategy) {
+    List<Integer> starts = Lists.newArrayList();
+    List<Integer> ends = Lists.newArrayList();
+    for (int start = 0; start < js.length(); start = ends.get(ends.size() - 1)) {
+      starts.add(start);
+      ends.add(js.indexOf('\n', start) + 1);
+    }
+    JsFunctionClusterer clusterer = new JsFunctionClusterer(
+        new JsNoopTransformer(js, new StandardStatementRanges(starts, ends), null), strategy);
+    clusterer.exec();
+    return clusterer.getJs();
+  }
+
+  /**
+   * Generates functions in the shape of obfuscated compiler output: a few kinds
+   * of method bodies with varying names, shuffled so that similar functions are
+   * rarely next to each other.
+   */
+  private static String generateFunctions(int count) {
+    String[] templates = {
+        "function %1$s(a){return a.%2$s}",
+        "function %1$s(a,b){a.%2$s=b}",
+        "function %1$s(a){var b;b=new %3$s;b.%2$s=a;return b}",
+        "function %1$s(a,b){var c,d;for(c=0,d=a.length;c<d;++c){b.%2$s(a[c])}}",
+        "function %1$s(a){if(a==null){throw new %3$s('%2$s')}return a.%2$s()}",
+        "function %1$s(a,b){return $wnd.document.createElement('%2$s').%3$s(a,b)}",
+        "function %1$s(){%3$s.call(this);this.%2$s=new %3$s}",
+        "function %1$s(a){switch(a.%2$s){case 0:return %3$s;case 1:return null}return a}"};
+    Random random = new Random(42);
+    List<String> functions = Lists.newArrayList();
+    for (int i = 0; i < count; i++) {
+      functions.add(String.format(templates[random.nextInt(templates.length)] + "\n",
+          identifier(i), identifier(random.nextInt(count)), identifier(random.nextInt(count))));
+    }
+    Collections.shuffle(functions, random);
+    StringBuilder js = new StringBuilder();
+    for (String function : functions) {
+      js.append(function);
+    }
+    return js.toString();
+  }
+
+  private static int gzipSize(String js) throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (GZIPOutputStream out = new GZIPOutputStream(bytes)) {
+      out.write(js.getBytes(StandardCharsets.UTF_8));
+    }
+    return bytes.size();
+  }
+
+  private static String identifier(int index) {
+    StringBuilder name = new StringBuilder();
+    do {
+      name.append((char) ('a' + index % 26));
+      index /= 26;
+    } while (index > 0);
+    return "$" + name;
+  }
+
+  private void checkSourceMapFollowsStatements(JsFunctionClusterer.Strategy strategy) {
+    String js = LONG_FUNCTION + VARIABLE + SHORT_FUNCTION;
+    int variableStart = LONG_FUNCTION.length();
+    int shortStart = variableStart + VARIABLE.length();
+    StandardStatementRanges ranges = new StandardStatementRanges(
+        Lists.newArrayList(0, variableStart, shortStart),
+        Lists.newArrayList(variableStart, shortStart, js.length()));
+    int returnStart = js.indexOf("return");
+    int assignmentStart = js.indexOf("v=0");
+    List<Range> mappings = Lists.newArrayList(
+        new Range(0, js.length(), 0, 0, 3, 0, SourceOrigin.UNKNOWN),
+        new Range(returnStart, returnStart + 12, 0, returnStart, 0, returnStart + 12,
+            SourceOrigin.UNKNOWN),
+        new Range(assignmentStart, assignmentStart + 3, 1, 4, 1, 7, SourceOrigin.UNKNOWN),
+        new Range(shortStart, shortStart + 14, -1, -1, -1, -1, SourceOrigin.UNKNOWN));
+
+    JsFunctionClusterer clusterer = new JsFunctionClusterer(
+        new JsNoopTransformer(js, ranges, new JsSourceMap(mappings, js.length(), 3)), strategy);
+    clusterer.exec();
+
+    // Functions come first, shortest first, and then everything else.
+    String newJs = clusterer.getJs();
+    assertEquals(SHORT_FUNCTION + LONG_FUNCTION + VARIABLE, newJs);
+
+    List<Range> newMappings = clusterer.getSourceInfoMap().getRanges();
+    assertEquals(4, newMappings.size());
+    assertRange(0, js.length(), 0, 0, 3, 0, newMappings.get(0));
+    int newReturnStart = newJs.indexOf("return");
+    assertRange(newReturnStart, newReturnStart + 12, 1, returnStart, 1, returnStart + 12,
+        newMappings.get(1));
+    int newAssignmentStart = newJs.indexOf("v=0");
+    assertRange(newAssignmentStart, newAssignmentStart + 3, 2, 4, 2, 7, newMappings.get(2));
+    assertRange(0, 14, -1, -1, -1, -1, newMappings.get(3));
+  }
+
+  private static void assertRange(int start, int end, int startLine, int startColumn, int endLine,
+      int endColumn, Range range) {
+    assertEquals(start, range.getStart());
+    assertEquals(end, range.getEnd());
+    assertEquals(startLine, range.getStartLine());
+    assertEquals(startColumn, range.getStartColumn());
+    assertEquals(endLine, range.getEndLine());
+    assertEquals(endColumn, range.getEndColumn());
+  }
+}
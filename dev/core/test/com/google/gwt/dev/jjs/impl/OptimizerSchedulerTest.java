@@ -0,0 +1,163 @@
+/*
+ * Copyright 2026 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.gwt.dev.jjs.impl;
+
+import com.google.gwt.dev.jjs.ast.JBooleanLiteral;
+import com.google.gwt.dev.jjs.ast.JModVisitor;
+import com.google.gwt.dev.jjs.ast.JNode;
+import com.google.gwt.dev.jjs.ast.JNullLiteral;
+import com.google.gwt.dev.jjs.ast.JVisitor;
+import com.google.gwt.dev.jjs.impl.OptimizerScheduler.Optimizer;
+import com.google.gwt.dev.jjs.impl.OptimizerScheduler.Profile;
+import com.google.gwt.thirdparty.guava.common.base.Ticker;
+import com.google.gwt.thirdparty.guava.common.collect.ImmutableList;
+
+import junit.framework.TestCase;
+
+import java.util.List;
+
+/**
+ * Tests {@link OptimizerScheduler}.
+ */
+public class OptimizerSchedulerTest extends TestCase {
+
+  /**
+   * Advances the clock by a fixed time and reports a fixed number of changes.
+   */
+  private class FakeOptimizer implements Optimizer {
+    private final long elapsedNanos;
+    private final int numMods;
+    private int numRuns;
+
+    FakeOptimizer(long elapsedNanos, int numMods) {
+      this.elapsedNanos = elapsedNanos;
+      this.numMods = numMods;
+    }
+
+    @Override
+    public OptimizerStats exec() {
+      numRuns++;
+      nanos += elapsedNanos;
+      return new OptimizerStats("fake").recordModified(numMods);
+    }
+  }
+
+  private static final long SLOW_NANOS = OptimizerScheduler.MIN_SKIPPED_NANOS;
+
+  private long nanos;
+  private final Ticker ticker = new Ticker() {
+    @Override
+    public long read() {
+      return nanos;
+    }
+  };
+
+  public void testProfiles() {
+    OptimizerScheduler scheduler = new OptimizerScheduler(0, false, ticker);
+    FakeOptimizer pruner = new FakeOptimizer(SLOW_NANOS, 0);
+    FakeOptimizer finalizer = new FakeOptimizer(SLOW_NANOS, 7);
+    for (int pass = 0; pass < 3; pass++) {
+      OptimizerStats stats = scheduler.run(Pruner.class, pruner);
+      assertEquals(SLOW_NANOS, stats.getElapsedNanos());
+      scheduler.run(Finalizer.class, finalizer);
+    }
+
+    // Without a minimum yield, nothing is skipped.
+    assertEquals(3, pruner.numRuns);
+    List<Profile> profiles = scheduler.getProfiles();
+    assertEquals(2, profiles.size());
+    assertEquals("Pruner", profiles.get(0).getName());
+    assertEquals(3, profiles.get(0).getNumRuns());
+    assertEquals(0, profiles.get(0).getNumSkipped());
+    assertEquals(0, profiles.get(0).getNumVisits());
+    assertEquals(0, profiles.get(0).getNumMods());
+    assertEquals(3 * SLOW_NANOS, profiles.get(0).getElapsedNanos());
+    assertEquals("Finalizer", profiles.get(1).getName());
+    assertEquals(21, profiles.get(1).getNumMods());
+  }
+
+  public void testCountsTraversedNodes() {
+    final List<JNode> nodes =
+        ImmutableList.<JNode>of(JBooleanLiteral.TRUE, JBooleanLiteral.FALSE, JNullLiteral.INSTANCE);
+    Optimizer optimizer = new Optimizer() {
+      @Override
+      public OptimizerStats exec() {
+        new JVisitor().accept(nodes);
+        new JModVisitor().accept(nodes.get(0));
+        return new OptimizerStats("fake");
+      }
+    };
+
+    OptimizerScheduler scheduler = new OptimizerScheduler(0, true, ticker);
+    scheduler.run(Pruner.class, optimizer);
+    scheduler.run(Pruner.class, optimizer);
+    assertEquals(8, scheduler.getProfiles().get(0).getNumVisits());
+
+    // Visitors stop counting once the optimizer is done.
+    new JVisitor().accept(nodes);
+    assertEquals(8, scheduler.getProfiles().get(0).getNumVisits());
+
+    scheduler = new OptimizerScheduler(0, false, ticker);
+    scheduler.run(Pruner.class, optimizer);
+    assertEquals(0, scheduler.getProfiles().get(0).getNumVisits());
+  }
+
+  public void testSkipsUnproductiveOptimizers() {
+    OptimizerScheduler scheduler = new OptimizerScheduler(1, false, ticker);
+    FakeOptimizer unproductive = new FakeOptimizer(SLOW_NANOS, 0);
+    FakeOptimizer productive = new FakeOptimizer(SLOW_NANOS, Integer.MAX_VALUE);
+
+    // Runs in pass 1, skipped in 2, runs in 3, skipped in 4 and 5, runs in 6, skipped in 7-10.
+    boolean[] expectedRuns = {true, false, true, false, false, true, false, false, false, false};
+    for (boolean expectedRun : expectedRuns) {
+      int runsBefore = unproductive.numRuns;
+      OptimizerStats stats = scheduler.run(Pruner.class, unproductive);
+      assertEquals(expectedRun, unproductive.numRuns > runsBefore);
+      assertEquals(expectedRun ? SLOW_NANOS : 0, stats.getElapsedNanos());
+      scheduler.run(Finalizer.class, productive);
+    }
+
+    assertEquals(expectedRuns.length, productive.numRuns);
+    Profile profile = scheduler.getProfiles().get(0);
+    assertEquals(3, profile.getNumRuns());
+    assertEquals(7, profile.getNumSkipped());
+  }
+
+  public void testFastOptimizersAreNotSkipped() {
+    OptimizerScheduler scheduler = new OptimizerScheduler(1, false, ticker);
+    FakeOptimizer fast = new FakeOptimizer(SLOW_NANOS - 1, 0);
+    for (int pass = 0; pass < 5; pass++) {
+      scheduler.run(Pruner.class, fast);
+    }
+    assertEquals(5, fast.numRuns);
+  }
+
+  public void testSkipsAtMostMaxPasses() {
+    OptimizerScheduler scheduler = new OptimizerScheduler(1, false, ticker);
+    FakeOptimizer unproductive = new FakeOptimizer(SLOW_NANOS, 0);
+    int skippedInARow = 0;
+    for (int pass = 0; pass < 40; pass++) {
+      int runsBefore = unproductive.numRuns;
+      scheduler.run(Pruner.class, unproductive);
+      if (unproductive.numRuns > runsBefore) {
+        skippedInARow = 0;
+      } else {
+        skippedInARow++;
+        assertTrue(skippedInARow <= OptimizerScheduler.MAX_SKIPPED_PASSES);
+      }
+    }
+  }
+}
@@ -67,6 +67,17 @@ public class OptimizerStatsTest extends TestCase {
     assertEquals(30, stats.getNumVisits());
   }
 
+  public void testElapsedNanos() {
+    OptimizerStats stats = new OptimizerStats("foo");
+    assertEquals(0, stats.getElapsedNanos());
+    stats.recordElapsedNanos(100).recordElapsedNanos(20);
+    assertEquals(120, stats.getElapsedNanos());
+
+    OptimizerStats childStats = new OptimizerStats("bar").recordElapsedNanos(3);
+    stats.add(childStats);
+    assertEquals(123, stats.getElapsedNanos());
+  }
+
   public void testOptimizerStatsChangeChildOnly() {
     OptimizerStats stats = new OptimizerStats("foo");
     OptimizerStats childStats = new OptimizerStats("bar");
@@ -0,0 +1,100 @@
+/*
+ * Copyright 2026 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.gwt.dev.jjs.impl.codesplitter;
+
+import com.google.gwt.dev.jjs.ast.JDeclaredType;
+import com.google.gwt.dev.jjs.ast.JField;
+import com.google.gwt.dev.jjs.ast.JMethod;
+import com.google.gwt.dev.jjs.ast.JProgram;
+import com.google.gwt.dev.jjs.impl.ControlFlowAnalyzer;
+import com.google.gwt.dev.jjs.impl.JJSTestBase;
+import com.google.gwt.dev.jjs.impl.codesplitter.BitSetLivenessPredicate.AtomIndex;
+
+/**
+ * Tests for {@link BitSetLivenessPredicate}.
+ */
+public class BitSetLivenessPredicateTest extends JJSTestBase {
+
+  private JProgram program;
+  private AtomIndex atomIndex;
+
+  @Override
+  public void setUp() throws Exception {
+    super.setUp();
+    addSnippetClassDecl("static class A {}");
+    addSnippetClassDecl("static class B {}");
+    addSnippetClassDecl("static class Shared {}");
+    addSnippetClassDecl("static int aField");
+    addSnippetClassDecl("static int sharedField");
+    addSnippetClassDecl("static void a() { aField = 1; new A(); shared(); }");
+    addSnippetClassDecl("static void b() { new B(); new int[1][1].toString(); shared(); }");
+    addSnippetClassDecl("static void shared() { sharedField = 2; new Shared(); }");
+    addSnippetClassDecl("static void unused() { new A(); }");
+    program = compileSnippet("void", "a(); b();", true);
+    ControlFlowAnalyzer completeCfa = new ControlFlowAnalyzer(program);
+    completeCfa.traverseFrom(findMainMethod(program));
+    atomIndex = new AtomIndex(completeCfa);
+  }
+
+  public void testIsLive() {
+    LivenessPredicate liveness = new BitSetLivenessPredicate(atomIndex, traverseFrom("b"));
+
+    assertTrue(liveness.isLive(findMethod(program, "b")));
+    assertTrue(liveness.isLive(findMethod(program, "shared")));
+    assertFalse(liveness.isLive(findMethod(program, "a")));
+    assertTrue(liveness.isLive(findField(program, "EntryPoint.sharedField")));
+    assertFalse(liveness.isLive(findField(program, "EntryPoint.aField")));
+    assertTrue(liveness.isLive(program.getFromTypeMap("test.EntryPoint$B")));
+    assertTrue(liveness.isLive(program.getFromTypeMap("test.EntryPoint$Shared")));
+    assertFalse(liveness.isLive(program.getFromTypeMap("test.EntryPoint$A")));
+    assertTrue(liveness.miscellaneousStatementsAreLive());
+  }
+
+  public void testAtomsNotLiveInTheWholeProgramAreNotLive() {
+    LivenessPredicate liveness = new BitSetLivenessPredicate(atomIndex, traverseFrom("a"));
+
+    assertFalse(liveness.isLive(findMethod(program, "unused")));
+    assertFalse(liveness.isLive(findMethod(program, "b")));
+  }
+
+  /**
+   * Tests that the predicate answers like the {@link CfaLivenessPredicate} of the analysis it was
+   * computed from, for every atom in the program.
+   */
+  public void testSameAsCfaLivenessPredicate() {
+    for (String methodName : new String[] {"a", "b", "shared", MAIN_METHOD_NAME}) {
+      ControlFlowAnalyzer cfa = traverseFrom(methodName);
+      assertSameLiveness(new CfaLivenessPredicate(cfa),
+          new BitSetLivenessPredicate(atomIndex, cfa));
+    }
+  }
+
+  private void assertSameLiveness(LivenessPredicate expected, LivenessPredicate actual) {
+    for (JDeclaredType type : program.getDeclaredTypes()) {
+      assertEquals(type.getName(), expected.isLive(type), actual.isLive(type));
+      for (JField field : type.getFields()) {
+        assertEquals(field.getQualifiedName(), expected.isLive(field), actual.isLive(field));
+      }
+      for (JMethod method : type.getMethods()) {
+        assertEquals(method.getQualifiedName(), expected.isLive(method), actual.isLive(method));
+      }
+    }
+  }
+
+  private ControlFlowAnalyzer traverseFrom(String methodName) {
+    ControlFlowAnalyzer cfa = new ControlFlowAnalyzer(program);
+    cfa.traverseFrom(findMethod(program, methodName));
+    return cfa;
+  }
+}
@@ -35,8 +35,10 @@ import com.google.gwt.dev.js.ast.JsExprStmt;
 import com.google.gwt.dev.js.ast.JsFunction;
 import com.google.gwt.dev.js.ast.JsName;
 import com.google.gwt.dev.js.ast.JsNode;
+import com.google.gwt.dev.js.ast.JsProgram;
 import com.google.gwt.dev.js.ast.JsVisitor;
 import com.google.gwt.dev.util.Pair;
+import com.google.gwt.thirdparty.guava.common.collect.Lists;
 import com.google.gwt.thirdparty.guava.common.collect.Sets;
 
 import java.util.List;
@@ -96,6 +98,7 @@ public class CodeSplitterTest extends FullCompileTestBase {
 
   private boolean closureOutputFormat = false;
   private JavaToJavaScriptMap currentJjsMap;
+  private MultipleDependencyGraphRecorder dependencyRecorder;
 
   @Override
   public void setUp() throws Exception {
@@ -106,6 +109,7 @@ public class CodeSplitterTest extends FullCompileTestBase {
     setProperties(new BindingProperty[]{stackMode}, new String[]{"STRIP"},
         new ConfigurationProperty[]{initialSequenceProp});
     currentJjsMap = null;
+    dependencyRecorder = NULL_RECORDER;
   }
 
   public void testSimple() throws UnableToCompleteException {
@@ -404,6 +408,44 @@ public class CodeSplitterTest extends FullCompileTestBase {
     assertInFragment("functionC", 1);
   }
 
+  /**
+   * Tests that fragments are the same whether what is live without each fragment is computed in
+   * parallel or, as when dependencies are recorded, serially.
+   */
+  public void testParallelSameAsSerial() throws UnableToCompleteException {
+    StringBuilder code = new StringBuilder();
+    code.append("package test;\n");
+    code.append("import com.google.gwt.core.client.GWT;\n");
+    code.append("import com.google.gwt.core.client.RunAsyncCallback;\n");
+    code.append("public class EntryPoint {\n");
+    code.append("static int fieldA;\n");
+    code.append("static Object fieldShared;\n");
+    code.append(functionA);
+    code.append(functionB);
+    code.append(functionC);
+    code.append(functionD);
+    code.append("public static void functionArrays() { fieldShared = new Object[1][1]; }\n");
+    code.append("  public static void onModuleLoad() {\n");
+    code.append(createRunAsync("functionA(); fieldA = 1;"));
+    code.append(createRunAsync("functionA(); functionB(); functionArrays();"));
+    code.append(createRunAsync("functionC(); functionArrays();"));
+    code.append(createRunAsync("functionD(); fieldShared = new int[fieldA];"));
+    code.append("  }\n");
+    code.append("}\n");
+
+    // Computed serially, because the test's recorder isn't the shared one that does nothing.
+    expectedFragmentCount = 6;
+    compileSnippetToJS(code.toString());
+    // init + 4 fragments + leftover.
+    assertFragmentCount(6);
+    List<String> serialFragments = getFragmentSources();
+
+    dependencyRecorder = MultipleDependencyGraphRecorder.NULL_RECORDER;
+    jsProgram = new JsProgram();
+    compileSnippetToJS(code.toString());
+    assertEquals(serialFragments, getFragmentSources());
+  }
+
   /**
    * Test that the conversion from -XfragmentCount expectCount into number of exclusive fragments
    * is correct.
@@ -507,6 +549,14 @@ public class CodeSplitterTest extends FullCompileTestBase {
     assertInFragment("functionC", 3);
   }
 
+  private List<String> getFragmentSources() {
+    List<String> fragmentSources = Lists.newArrayList();
+    for (int fragmentNumber = 0; fragmentNumber < jsProgram.getFragmentCount(); fragmentNumber++) {
+      fragmentSources.add(jsProgram.getFragmentBlock(fragmentNumber).toSource());
+    }
+    return fragmentSources;
+  }
+
   private void assertFragmentCount(int num) {
     assertEquals(num, jsProgram.getFragmentCount());
   }
@@ -703,7 +753,7 @@ public class CodeSplitterTest extends FullCompileTestBase {
     currentJjsMap = super.compileSnippetToJS(code).getLeft();
     CodeSplitter.exec(logger, jProgram, jsProgram, currentJjsMap, expectedFragmentCount,
         leftOverMergeSize,
-       NULL_RECORDER);
+        dependencyRecorder);
     return null;
   }
 
@@ -0,0 +1,127 @@
+/*
+ * Copyright 2026 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.gwt.dev.jjs.impl.codesplitter;
+
+import com.google.gwt.dev.jjs.ast.JDeclaredType;
+import com.google.gwt.dev.jjs.ast.JField;
+import com.google.gwt.dev.jjs.ast.JMethod;
+import com.google.gwt.dev.jjs.ast.JProgram;
+import com.google.gwt.dev.jjs.impl.ControlFlowAnalyzer;
+import com.google.gwt.dev.jjs.impl.JJSTestBase;
+import com.google.gwt.dev.jjs.impl.codesplitter.BitSetLivenessPredicate.AtomIndex;
+import com.google.gwt.thirdparty.guava.common.collect.ImmutableList;
+import com.google.gwt.thirdparty.guava.common.collect.ImmutableMap;
+
+import java.util.List;
+
+/**
+ * Tests for {@link ExclusivityMap#computeExclusivityMap}.
+ */
+public class ExclusivityMapTest extends JJSTestBase {
+
+  private JProgram program;
+  private ControlFlowAnalyzer completeCfa;
+  private Fragment fragmentA;
+  private Fragment fragmentB;
+  private List<Fragment> exclusiveFragments;
+
+  @Override
+  public void setUp() throws Exception {
+    super.setUp();
+    addSnippetClassDecl("static class A {}");
+    addSnippetClassDecl("static class B {}");
+    addSnippetClassDecl("static class Shared {}");
+    addSnippetClassDecl("static int aField");
+    addSnippetClassDecl("static int sharedField");
+    addSnippetClassDecl("static void a() { aField = 1; new A(); shared(); }");
+    addSnippetClassDecl("static void b() { new B(); shared(); }");
+    addSnippetClassDecl("static void shared() { sharedField = 2; new Shared(); }");
+    program = compileSnippet("void", "a(); b();", true);
+    completeCfa = new ControlFlowAnalyzer(program);
+    completeCfa.traverseFrom(findMainMethod(program));
+    fragmentA = new Fragment(Fragment.Type.EXCLUSIVE);
+    fragmentB = new Fragment(Fragment.Type.EXCLUSIVE);
+    exclusiveFragments = ImmutableList.of(fragmentA, fragmentB);
+  }
+
+  public void testAtomsAreExclusiveToTheOnlyFragmentThatNeedsThem() {
+    // What is live without fragment A is what B needs, and the other way around.
+    AtomIndex atomIndex = new AtomIndex(completeCfa);
+    ExclusivityMap exclusivityMap = ExclusivityMap.computeExclusivityMap(exclusiveFragments,
+        completeCfa, ImmutableMap.of(
+            fragmentA, new BitSetLivenessPredicate(atomIndex, traverseFrom("b")),
+            fragmentB, new BitSetLivenessPredicate(atomIndex, traverseFrom("a"))));
+
+    assertTrue(exclusivityMap.isLiveInFragment(fragmentA, findMethod(program, "a")));
+    assertFalse(exclusivityMap.isLiveInFragment(fragmentB, findMethod(program, "a")));
+    assertTrue(exclusivityMap.isLiveInFragment(fragmentA, findField(program, "EntryPoint.aField")));
+    assertFalse(exclusivityMap.isLiveInFragment(fragmentB,
+        findField(program, "EntryPoint.aField")));
+    assertTrue(exclusivityMap.isLiveInFragment(fragmentA, getType("A")));
+    assertFalse(exclusivityMap.isLiveInFragment(fragmentB, getType("A")));
+    assertTrue(exclusivityMap.isLiveInFragment(fragmentB, getType("B")));
+    assertFalse(exclusivityMap.isLiveInFragment(fragmentA, getType("B")));
+
+    // Atoms that both fragments need are left over, and live in both.
+    for (Fragment fragment : exclusiveFragments) {
+      assertTrue(exclusivityMap.isLiveInFragment(fragment, findMethod(program, "shared")));
+      assertTrue(exclusivityMap.isLiveInFragment(fragment,
+          findField(program, "EntryPoint.sharedField")));
+      assertTrue(exclusivityMap.isLiveInFragment(fragment, getType("Shared")));
+    }
+  }
+
+  /**
+   * Tests that bit set predicates select the same atoms as predicates that query the analyses they
+   * were computed from.
+   */
+  public void testSameAsWithCfaLivenessPredicates() {
+    ControlFlowAnalyzer notExclusiveToA = traverseFrom("b");
+    ControlFlowAnalyzer notExclusiveToB = traverseFrom("a");
+    AtomIndex atomIndex = new AtomIndex(completeCfa);
+    ExclusivityMap expected = ExclusivityMap.computeExclusivityMap(exclusiveFragments,
+        completeCfa, ImmutableMap.of(
+            fragmentA, new CfaLivenessPredicate(notExclusiveToA),
+            fragmentB, new CfaLivenessPredicate(notExclusiveToB)));
+    ExclusivityMap actual = ExclusivityMap.computeExclusivityMap(exclusiveFragments,
+        completeCfa, ImmutableMap.of(
+            fragmentA, new BitSetLivenessPredicate(atomIndex, notExclusiveToA),
+            fragmentB, new BitSetLivenessPredicate(atomIndex, notExclusiveToB)));
+
+    for (Fragment fragment : exclusiveFragments) {
+      for (JDeclaredType type : program.getDeclaredTypes()) {
+        assertEquals(type.getName(), expected.isLiveInFragment(fragment, type),
+            actual.isLiveInFragment(fragment, type));
+        for (JField field : type.getFields()) {
+          assertEquals(field.getQualifiedName(), expected.isLiveInFragment(fragment, field),
+              actual.isLiveInFragment(fragment, field));
+        }
+        for (JMethod method : type.getMethods()) {
+          assertEquals(method.getQualifiedName(), expected.isLiveInFragment(fragment, method),
+              actual.isLiveInFragment(fragment, method));
+        }
+      }
+    }
+  }
+
+  private JDeclaredType getType(String simpleName) {
+    return program.getFromTypeMap("test.EntryPoint$" + simpleName);
+  }
+
+  private ControlFlowAnalyzer traverseFrom(String methodName) {
+    ControlFlowAnalyzer cfa = new ControlFlowAnalyzer(program);
+    cfa.traverseFrom(findMethod(program, methodName));
+    return cfa;
+  }
+}
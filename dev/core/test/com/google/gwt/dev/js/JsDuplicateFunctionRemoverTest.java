@@ -75,6 +75,40 @@ public class JsDuplicateFunctionRemoverTest extends OptimizerTestBase {
         optimize("function a(){};function b(){} a(); b();"));
   }
 
+  public void testDontRemoveDifferentBodies() throws Exception {
+    assertEquals("function a(){return 1}\n;function b(){return 2}\na();b();",
+        optimize("function a(){return 1};function b(){return 2} a(); b();"));
+    // Same body, different parameters.
+    assertEquals("function a(c){return 1}\n;function b(){return 1}\na();b();",
+        optimize("function a(c){return 1};function b(){return 1} a(); b();"));
+  }
+
+  public void testDontRemoveBodiesThatDifferInOneToken() throws Exception {
+    assertEquals("function a(){return 1+2}\n;function b(){return 1-2}\na();b();",
+        optimize("function a(){return 1+2};function b(){return 1-2} a(); b();"));
+    assertEquals("function a(){return 'x'}\n;function b(){return 'y'}\na();b();",
+        optimize("function a(){return 'x'};function b(){return 'y'} a(); b();"));
+    assertEquals(
+        "function a(){return function c(){}}\n;function b(){return function d(){}}\na();b();",
+        optimize("function a(){return function c(){}};function b(){return function d(){}}"
+            + " a(); b();"));
+  }
+
+  /**
+   * Tests that functions whose trees have the same shape, but which print differently, are told
+   * apart.
+   */
+  public void testDontRemoveBodiesWithTheSameShape() throws Exception {
+    assertEquals("function a(c){for(c;;)break}\n;function b(c){for(;c;)break}\na();b();",
+        optimize("function a(c){for(c;;)break};function b(c){for(;c;)break} a(); b();"));
+  }
+
+  public void testRemoveDuplicatesWithNestedFunctions() throws Exception {
+    assertEquals("function a(){return function(){return 1}}\n;a();a();",
+        optimize("function a(){return function(){return 1}};"
+            + "function b(){return function(){return 1}} a(); b();"));
+  }
+
   public void testVirtualRemoveDuplicates() throws Exception {
     JsProgram program = new JsProgram();
     String js = "_.method1=function(){};_.method2=function(){};_.method1();_.method2();";
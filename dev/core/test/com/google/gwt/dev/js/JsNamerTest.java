@@ -20,6 +20,7 @@ import com.google.gwt.dev.jjs.JsOutputOption;
 import com.google.gwt.dev.jjs.SourceOrigin;
 import com.google.gwt.dev.js.JsIncrementalNamer.JsIncrementalNamerState;
 import com.google.gwt.dev.js.JsNamer.IllegalNameException;
+import com.google.gwt.dev.js.JsObfuscateNamer.JsObfuscateNamerState;
 import com.google.gwt.dev.js.ast.JsBlock;
 import com.google.gwt.dev.js.ast.JsExprStmt;
 import com.google.gwt.dev.js.ast.JsFunction;
@@ -36,6 +37,7 @@ import com.google.gwt.thirdparty.guava.common.collect.Maps;
 
 import junit.framework.TestCase;
 
+import java.io.File;
 import java.io.IOException;
 import java.io.StringReader;
 import java.util.Arrays;
@@ -155,6 +157,45 @@ public class JsNamerTest extends TestCase {
     }
   }
 
+  public void testObfuscateNamerReusesNames() throws Exception {
+    JsObfuscateNamerState state = new JsObfuscateNamerState();
+    assertEquals("function a(){return 1}\nfunction b(){return 2}\na();b();",
+        renameObfuscated("function f1(){return 1} function f2(){return 2} f1(); f2();", state));
+    assertEquals(0, state.getReusedNameCount());
+    assertEquals(2, state.getNewNameCount());
+
+    // The state survives being persisted.
+    File file = File.createTempFile("names", ".ser");
+    try {
+      state.writeTo(file);
+      state = JsObfuscateNamerState.readFrom(file);
+    } finally {
+      file.delete();
+    }
+
+    // f2 keeps its name and f0 takes the one f1 left.
+    assertEquals("function a(){return 0}\nfunction b(){return 2}\na();b();",
+        renameObfuscated("function f0(){return 0} function f2(){return 2} f0(); f2();", state));
+    assertEquals(1, state.getReusedNameCount());
+    assertEquals(0, state.getReassignedNameCount());
+    assertEquals(1, state.getNewNameCount());
+
+    // The parameters now use f2's name, so f2 gets another one.
+    assertEquals("function c(a,b){return a+b}\nc();",
+        renameObfuscated("function f2(x,y){return x+y} f2();", state));
+    assertEquals(0, state.getReusedNameCount());
+    assertEquals(1, state.getReassignedNameCount());
+  }
+
+  private String renameObfuscated(String js, JsObfuscateNamerState state) throws Exception {
+    JsProgram program = parseJs(js);
+    JsSymbolResolver.exec(program);
+    JsObfuscateNamer.exec(program, props.makeConfig(), state);
+    TextOutput text = new DefaultTextOutput(true);
+    new JsSourceGenerationVisitor(text).accept(program);
+    return text.toString();
+  }
+
   private JsProgram parseJs(String js) throws IOException, JsParserException {
     JsProgram program = new JsProgram();
     List<JsStatement> expected = JsParser.parse(SourceOrigin.UNKNOWN,
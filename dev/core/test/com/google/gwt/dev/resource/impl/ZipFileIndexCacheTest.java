@@ -0,0 +1,126 @@
+/*
+ * Copyright 2026 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.gwt.dev.resource.impl;
+
+import com.google.gwt.core.ext.TreeLogger;
+import com.google.gwt.thirdparty.guava.common.collect.ImmutableList;
+import com.google.gwt.thirdparty.guava.common.collect.Sets;
+import com.google.gwt.thirdparty.guava.common.io.CharStreams;
+
+import junit.framework.TestCase;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Set;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Tests for {@link ZipFileIndexCache}.
+ */
+public class ZipFileIndexCacheTest extends TestCase {
+
+  private File archive;
+  private File cacheDir;
+
+  @Override
+  protected void setUp() throws Exception {
+    File dir = Files.createTempDirectory("zipIndexCacheTest").toFile();
+    cacheDir = new File(dir, "cache");
+    archive = new File(dir, "test.jar");
+    ZipOutputStream out = new ZipOutputStream(new FileOutputStream(archive));
+    try {
+      out.putNextEntry(new ZipEntry("META-INF/MANIFEST.MF"));
+      out.putNextEntry(new ZipEntry("com/example/"));
+      out.putNextEntry(new ZipEntry("com/example/A.java"));
+      out.write("class A {}".getBytes(StandardCharsets.UTF_8));
+      out.putNextEntry(new ZipEntry("com/example/B.java"));
+      out.write("class B {}".getBytes(StandardCharsets.UTF_8));
+    } finally {
+      out.close();
+    }
+    ZipFileIndexCache.setCacheDir(cacheDir);
+    ZipFileClassPathEntry.clearCache();
+  }
+
+  @Override
+  protected void tearDown() {
+    ZipFileIndexCache.setCacheDir(null);
+    ZipFileClassPathEntry.clearCache();
+  }
+
+  public void testReadWrite() {
+    assertNull(ZipFileIndexCache.read(archive, 1, 2));
+    ZipFileIndexCache.write(archive, 1, 2, ImmutableList.of("a/B.java", "c.txt"));
+    assertEquals(ImmutableList.of("a/B.java", "c.txt"), ZipFileIndexCache.read(archive, 1, 2));
+
+    // The archive changed.
+    assertNull(ZipFileIndexCache.read(archive, 1, 3));
+    assertNull(ZipFileIndexCache.read(archive, 4, 2));
+  }
+
+  public void testNoCacheDir() {
+    ZipFileIndexCache.setCacheDir(null);
+    ZipFileIndexCache.write(archive, 1, 2, ImmutableList.of("c.txt"));
+    assertNull(ZipFileIndexCache.read(archive, 1, 2));
+    assertFalse(cacheDir.exists());
+  }
+
+  public void testClassPathEntryWritesIndex() throws IOException {
+    assertEquals(Sets.newHashSet("com/example/A.java", "com/example/B.java"),
+        findPaths(ZipFileClassPathEntry.get(archive)));
+    assertEquals(ImmutableList.of("com/example/A.java", "com/example/B.java"),
+        ZipFileIndexCache.read(archive, archive.lastModified(), archive.length()));
+  }
+
+  public void testClassPathEntryUsesIndex() throws IOException {
+    // An index that doesn't match the contents shows that the archive isn't listed again.
+    ZipFileIndexCache.write(archive, archive.lastModified(), archive.length(),
+        ImmutableList.of("com/example/A.java"));
+    ZipFileClassPathEntry entry = ZipFileClassPathEntry.get(archive);
+    assertEquals(Sets.newHashSet("com/example/A.java"), findPaths(entry));
+
+    // The archive is still opened to read resources.
+    AbstractResource resource = entry.findApplicableResources(TreeLogger.NULL,
+        createInclusivePathPrefixSet()).keySet().iterator().next();
+    InputStreamReader reader =
+        new InputStreamReader(resource.openContents(), StandardCharsets.UTF_8);
+    try {
+      assertEquals("class A {}", CharStreams.toString(reader));
+    } finally {
+      reader.close();
+    }
+  }
+
+  private static Set<String> findPaths(ZipFileClassPathEntry entry) {
+    Set<String> paths = Sets.newHashSet();
+    for (AbstractResource resource : entry.findApplicableResources(TreeLogger.NULL,
+        createInclusivePathPrefixSet()).keySet()) {
+      paths.add(resource.getPath());
+    }
+    return paths;
+  }
+
+  private static PathPrefixSet createInclusivePathPrefixSet() {
+    PathPrefixSet pathPrefixSet = new PathPrefixSet();
+    pathPrefixSet.add(new PathPrefix("", null));
+    return pathPrefixSet;
+  }
+}
@@ -17,7 +17,16 @@ package com.google.gwt.dev.util;
 
 import junit.framework.TestCase;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 /**
  * Tests {@link DiskCache}.
@@ -76,4 +85,77 @@ public class DiskCacheTest extends TestCase {
           expected, actual);
     }
   }
+
+  public void testCompressed() throws IOException {
+    DiskCache compressed = new DiskCache(2, true);
+    byte[] small = new byte[] {1, 5, 9, 7, 3, 4, 2};
+    byte[] large = createBytes(3 * 1024 * 1024);
+    long smallToken = compressed.writeByteArray(small);
+    long largeToken = compressed.writeByteArray(large);
+    long streamToken = compressed.transferFromStream(new ByteArrayInputStream(large));
+
+    assertTrue(Arrays.equals(small, compressed.readByteArray(smallToken)));
+    assertTrue(Arrays.equals(large, compressed.readByteArray(largeToken)));
+    assertEquals(large.length, compressed.readLength(streamToken));
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    compressed.transferToStream(streamToken, out);
+    assertTrue(Arrays.equals(large, out.toByteArray()));
+
+    DiskCache.Stats stats = compressed.getStats();
+    assertEquals(3, stats.getWrites());
+    assertEquals(small.length + 2L * large.length, stats.getBytesWritten());
+    assertTrue(stats.getBytesStored() < stats.getBytesWritten());
+    assertEquals(3, stats.getReads());
+  }
+
+  public void testConcurrentWrites() throws Exception {
+    final DiskCache striped = new DiskCache(4, false);
+    ExecutorService executor = Executors.newFixedThreadPool(8);
+    try {
+      List<Future<Void>> futures = new ArrayList<Future<Void>>();
+      for (int i = 0; i < 8; i++) {
+        final int seed = i;
+        futures.add(executor.submit(new Callable<Void>() {
+          @Override
+          public Void call() {
+            for (int j = 0; j < 200; j++) {
+              byte[] bytes = createBytes(seed * 1000 + j);
+              long token = striped.writeByteArray(bytes);
+              assertTrue(Arrays.equals(bytes, striped.readByteArray(token)));
+            }
+            return null;
+          }
+        }));
+      }
+      for (Future<Void> future : futures) {
+        future.get();
+      }
+    } finally {
+      executor.shutdown();
+    }
+    assertEquals(1600, striped.getStats().getWrites());
+    assertEquals(1600, striped.getStats().getReads());
+  }
+
+  public void testLargeObject() {
+    // Large enough to be memory-mapped when read.
+    byte[] large = createBytes(2 * 1024 * 1024);
+    long token = diskCache.writeObject(large);
+    assertTrue(Arrays.equals(large, diskCache.readObject(token, byte[].class)));
+  }
+
+  public void testTransferFromStream() throws IOException {
+    byte[] bytes = createBytes(100000);
+    long token = diskCache.transferFromStream(new ByteArrayInputStream(bytes));
+    assertEquals(bytes.length, diskCache.readLength(token));
+    assertTrue(Arrays.equals(bytes, diskCache.readByteArray(token)));
+  }
+
+  private static byte[] createBytes(int length) {
+    byte[] bytes = new byte[length];
+    for (int i = 1; i < length; ++i) {
+      bytes[i] = (byte) (i * 31 + bytes[i - 1] + (i % 7 == 0 ? 1 : 0));
+    }
+    return bytes;
+  }
 }
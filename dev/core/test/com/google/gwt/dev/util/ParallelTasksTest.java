@@ -0,0 +1,132 @@
+/*
+ * Copyright 2026 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.gwt.dev.util;
+
+import junit.framework.TestCase;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+/**
+ * Tests {@link ParallelTasks}.
+ */
+public class ParallelTasksTest extends TestCase {
+
+  public void testResultsInTaskOrder() {
+    List<Callable<Integer>> tasks = new ArrayList<Callable<Integer>>();
+    for (int i = 0; i < 100; i++) {
+      final int value = i;
+      tasks.add(new Callable<Integer>() {
+        @Override
+        public Integer call() throws InterruptedException {
+          // Finish in a different order than started.
+          Thread.sleep((100 - value) % 7);
+          return value * value;
+        }
+      });
+    }
+
+    List<Integer> results = ParallelTasks.invokeAll(tasks);
+    assertEquals(100, results.size());
+    for (int i = 0; i < 100; i++) {
+      assertEquals(i * i, results.get(i).intValue());
+    }
+  }
+
+  public void testNestedTasks() {
+    List<Callable<Integer>> tasks = new ArrayList<Callable<Integer>>();
+    for (int i = 0; i < 10; i++) {
+      final int outer = i;
+      tasks.add(new Callable<Integer>() {
+        @Override
+        public Integer call() {
+          List<Callable<Integer>> inner = new ArrayList<Callable<Integer>>();
+          for (int j = 0; j < 10; j++) {
+            inner.add(Callables.constant(outer));
+          }
+          int sum = 0;
+          for (int value : ParallelTasks.invokeAll(inner)) {
+            sum += value;
+          }
+          return sum;
+        }
+      });
+    }
+
+    List<Integer> results = ParallelTasks.invokeAll(tasks);
+    for (int i = 0; i < 10; i++) {
+      assertEquals(i * 10, results.get(i).intValue());
+    }
+  }
+
+  public void testFirstExceptionIsRethrown() {
+    final IllegalStateException first = new IllegalStateException("first");
+    List<Callable<Integer>> tasks = new ArrayList<Callable<Integer>>();
+    tasks.add(Callables.constant(1));
+    tasks.add(new Callable<Integer>() {
+      @Override
+      public Integer call() {
+        throw first;
+      }
+    });
+    tasks.add(new Callable<Integer>() {
+      @Override
+      public Integer call() {
+        throw new IllegalArgumentException("second");
+      }
+    });
+    try {
+      ParallelTasks.invokeAll(tasks);
+      fail("Expected IllegalStateException");
+    } catch (IllegalStateException e) {
+      assertSame(first, e);
+    }
+  }
+
+  public void testCheckedExceptionIsWrapped() {
+    final IOException cause = new IOException();
+    List<Callable<Integer>> tasks = Collections.<Callable<Integer>>singletonList(
+        new Callable<Integer>() {
+          @Override
+          public Integer call() throws IOException {
+            throw cause;
+          }
+        });
+    try {
+      ParallelTasks.invokeAll(tasks);
+      fail("Expected RuntimeException");
+    } catch (RuntimeException e) {
+      assertSame(cause, e.getCause());
+    }
+  }
+
+  /**
+   * Creates Callables that return a constant.
+   */
+  private static class Callables {
+    static <T> Callable<T> constant(final T value) {
+      return new Callable<T>() {
+        @Override
+        public T call() {
+          return value;
+        }
+      };
+    }
+  }
+}
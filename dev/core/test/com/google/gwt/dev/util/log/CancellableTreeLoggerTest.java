@@ -0,0 +1,62 @@
+/*
+ * Copyright 2026 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.gwt.dev.util.log;
+
+import com.google.gwt.core.ext.TreeLogger;
+
+import junit.framework.TestCase;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Tests {@link CancellableTreeLogger}.
+ */
+public class CancellableTreeLoggerTest extends TestCase {
+
+  public void testForwardsUntilCancelled() {
+    StringWriter out = new StringWriter();
+    PrintWriterTreeLogger delegate = new PrintWriterTreeLogger(new PrintWriter(out, true));
+    AtomicBoolean cancelled = new AtomicBoolean();
+    TreeLogger logger = new CancellableTreeLogger(delegate, cancelled);
+
+    TreeLogger branch = logger.branch(TreeLogger.INFO, "branch");
+    branch.log(TreeLogger.INFO, "message");
+    assertTrue(logger.isLoggable(TreeLogger.INFO));
+    assertTrue(out.toString().contains("branch"));
+    assertTrue(out.toString().contains("message"));
+
+    cancelled.set(true);
+    try {
+      logger.log(TreeLogger.INFO, "dropped");
+      fail("Expected CancellationException");
+    } catch (CancellationException expected) {
+    }
+    try {
+      branch.isLoggable(TreeLogger.INFO);
+      fail("Expected CancellationException");
+    } catch (CancellationException expected) {
+    }
+    try {
+      branch.branch(TreeLogger.INFO, "dropped");
+      fail("Expected CancellationException");
+    } catch (CancellationException expected) {
+    }
+    assertFalse(out.toString().contains("dropped"));
+  }
+}
@@ -0,0 +1,70 @@
+/*
+ * Copyright 2026 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.gwt.soyc;
+
+import com.google.gwt.core.linker.SoycReportLinker;
+import com.google.gwt.thirdparty.guava.common.io.MoreFiles;
+import com.google.gwt.thirdparty.guava.common.io.RecursiveDeleteOption;
+
+import junit.framework.TestCase;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Tests rendering a compile report from recorded data with {@link SoycDashboard#main}.
+ */
+public class SoycDashboardTest extends TestCase {
+
+  private static final String EMPTY_REPORT =
+      "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n<soyc>\n</soyc>\n";
+
+  public void testRendersRecordedData() throws IOException {
+    File dataDir = Files.createTempDirectory("soycReport").toFile();
+    try {
+      for (int permutationId = 0; permutationId < 2; permutationId++) {
+        writeGzipped(new File(dataDir, "splitPoints" + permutationId + ".xml.gz"), EMPTY_REPORT);
+        writeGzipped(new File(dataDir, "stories" + permutationId + ".xml.gz"), EMPTY_REPORT);
+      }
+      Files.write(new File(dataDir, SoycReportLinker.PERMUTATION_DESCRIPTIONS_FILE).toPath(),
+          "0\t{user.agent=gecko1_8}\n1\t{user.agent=safari}\n".getBytes(StandardCharsets.UTF_8));
+
+      SoycDashboard.main(new String[] {dataDir.getPath()});
+
+      File reportDir = new File(dataDir, "compile-report");
+      String index = new String(Files.readAllBytes(new File(reportDir, "index.html").toPath()),
+          StandardCharsets.UTF_8);
+      assertTrue(index.contains("{user.agent=safari}"));
+      assertTrue(new File(reportDir, "soyc.css").exists());
+      assertTrue(new File(reportDir, "SoycDashboard-0-index.html").exists());
+      assertTrue(new File(reportDir, "SoycDashboard-1-index.html").exists());
+      assertTrue(new File(reportDir, "total-1-overallBreakdown.html").exists());
+    } finally {
+      MoreFiles.deleteRecursively(dataDir.toPath(), RecursiveDeleteOption.ALLOW_INSECURE);
+    }
+  }
+
+  private static void writeGzipped(File file, String contents) throws IOException {
+    try (OutputStream out = new GZIPOutputStream(new FileOutputStream(file))) {
+      out.write(contents.getBytes(StandardCharsets.UTF_8));
+    }
+  }
+}
@@ -26,14 +26,29 @@ import com.google.gwt.core.ext.linker.EmittedArtifact.Visibility;
 import com.google.gwt.core.ext.linker.LinkerOrder;
 import com.google.gwt.core.ext.linker.LinkerOrder.Order;
 import com.google.gwt.core.ext.linker.Shardable;
+import com.google.gwt.core.ext.linker.SyntheticArtifact;
+import com.google.gwt.dev.util.ParallelTasks;
 import com.google.gwt.dev.util.collect.HashSet;
+import com.google.gwt.thirdparty.guava.common.collect.Lists;
+import com.google.gwt.thirdparty.guava.common.hash.Hashing;
+import com.google.gwt.thirdparty.guava.common.hash.HashingInputStream;
+import com.google.gwt.thirdparty.guava.common.io.ByteStreams;
 import com.google.gwt.util.regexfilter.RegexFilter;
 
-import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
 import java.util.zip.Deflater;
 import java.util.zip.GZIPOutputStream;
 
@@ -56,6 +71,14 @@ import java.util.zip.GZIPOutputStream;
  * are left in the artifact set. If the configuration property
  * <code>precompress.leave.originals</code> is set to <code>false</code>,
  * however, then the uncompressed version is removed.
+ *
+ * <p>
+ * Artifacts are compressed in parallel, and the compressed data is streamed
+ * through files rather than held in memory. If the system property
+ * {@value #CACHE_DIR_PROPERTY} names a directory, the compressed artifacts are
+ * kept there, named after a hash of their contents, so that artifacts that
+ * didn't change since a previous build aren't compressed again. Files that no
+ * build used for 30 days are deleted at the end of each link.
  */
 @Shardable
 @LinkerOrder(Order.POST)
@@ -77,6 +100,24 @@ public class PrecompressLinker extends AbstractLinker {
     }
   }
 
+  /**
+   * The system property that sets the directory that keeps compressed
+   * artifacts between builds.
+   */
+  public static final String CACHE_DIR_PROPERTY = "gwt.precompress.cacheDir";
+
+  /**
+   * How long a file is kept in the cache directory after a build last used it.
+   */
+  private static final long CACHE_ENTRY_MAX_AGE_MILLIS = TimeUnit.DAYS.toMillis(30);
+
+  /**
+   * The names of the files in the cache directory: compressed artifacts, and
+   * the temporary files they are written to.
+   */
+  private static final Pattern CACHE_FILE_NAME =
+      Pattern.compile("[0-9a-f]{64}\\.gz(\\d*\\.tmp)?");
+
   /**
    * Buffer size to use when streaming data from artifacts and through
    * {@link GZIPOutputStream}.
@@ -102,6 +143,46 @@ public class PrecompressLinker extends AbstractLinker {
     throw new UnableToCompleteException();
   }
 
+  /**
+   * Deletes the files in the cache directory that no build used for
+   * {@link #CACHE_ENTRY_MAX_AGE_MILLIS}, including temporary files left behind
+   * by builds that were killed.
+   */
+  private static void evictUnusedCacheFiles(TreeLogger logger, File cacheDir) {
+    File[] files = cacheDir.listFiles();
+    if (files == null) {
+      return;
+    }
+    long oldestUse = System.currentTimeMillis() - CACHE_ENTRY_MAX_AGE_MILLIS;
+    int deleteCount = 0;
+    for (File file : files) {
+      if (CACHE_FILE_NAME.matcher(file.getName()).matches()
+          && file.lastModified() < oldestUse && file.delete()) {
+        deleteCount++;
+      }
+    }
+    if (deleteCount > 0) {
+      logger.log(TreeLogger.TRACE, "Deleted " + deleteCount + " unused files from "
+          + cacheDir);
+    }
+  }
+
+  /**
+   * Writes the gzipped contents of an artifact to a file and returns the size
+   * of the uncompressed contents.
+   */
+  private static long gzip(TreeLogger logger, EmittedArtifact art, File file)
+      throws IOException, UnableToCompleteException {
+    try (InputStream originalBytes = art.getContents(logger);
+        OutputStream gzip = new GZIPOutputStream(new FileOutputStream(file), BUF_SIZE) {
+          {
+            def.setLevel(Deflater.BEST_COMPRESSION);
+          }
+        }) {
+      return ByteStreams.copy(originalBytes, gzip);
+    }
+  }
+
   @Override
   public String getDescription() {
     return "PrecompressLinker";
@@ -126,61 +207,129 @@ public class PrecompressLinker extends AbstractLinker {
       allPaths.add(art.getPartialPath());
     }
 
-    try {
-      // Buffer for streaming data to be compressed
-      byte[] buf = new byte[BUF_SIZE];
-
-      ArtifactSet updated = new ArtifactSet(artifacts);
-      for (EmittedArtifact art : artifacts.find(EmittedArtifact.class)) {
-        if (art.getVisibility() != Visibility.Public) {
-          // only compress things that will be served to the client
-          continue;
-        }
-        if (art.getPartialPath().endsWith(".gz")) {
-          // Already a compressed artifact
-          continue;
-        }
-        if (allPaths.contains(art.getPartialPath() + ".gz")) {
-          // It's already been compressed
-          continue;
-        }
-        if (!filter.isIncluded(logger.branch(TreeLogger.TRACE,
-            "Checking the path patterns"), art.getPartialPath())) {
-          continue;
+    File cacheDir = System.getProperty(CACHE_DIR_PROPERTY) == null
+        ? null : new File(System.getProperty(CACHE_DIR_PROPERTY));
+    if (cacheDir != null && !cacheDir.isDirectory() && !cacheDir.mkdirs()) {
+      logger.log(TreeLogger.WARN, "Unable to create " + cacheDir
+          + "; compressing every artifact");
+      cacheDir = null;
+    }
+
+    List<EmittedArtifact> toCompress = Lists.newArrayList();
+    List<Callable<SyntheticArtifact>> tasks = Lists.newArrayList();
+    for (EmittedArtifact art : artifacts.find(EmittedArtifact.class)) {
+      if (art.getVisibility() != Visibility.Public) {
+        // only compress things that will be served to the client
+        continue;
+      }
+      if (art.getPartialPath().endsWith(".gz")) {
+        // Already a compressed artifact
+        continue;
+      }
+      if (allPaths.contains(art.getPartialPath() + ".gz")) {
+        // It's already been compressed
+        continue;
+      }
+      if (!filter.isIncluded(logger.branch(TreeLogger.TRACE,
+          "Checking the path patterns"), art.getPartialPath())) {
+        continue;
+      }
+
+      final TreeLogger compressBranch = logger.branch(TreeLogger.TRACE,
+          "Compressing " + art.getPartialPath());
+      final EmittedArtifact original = art;
+      final File finalCacheDir = cacheDir;
+      toCompress.add(art);
+      tasks.add(new Callable<SyntheticArtifact>() {
+        @Override
+        public SyntheticArtifact call() throws UnableToCompleteException {
+          try {
+            return compress(compressBranch, original, finalCacheDir);
+          } catch (IOException e) {
+            compressBranch.log(TreeLogger.ERROR, "Unexpected exception", e);
+            throw new UnableToCompleteException();
+          }
         }
+      });
+    }
+
+    List<SyntheticArtifact> compressed;
+    try {
+      compressed = ParallelTasks.invokeAll(tasks);
+    } catch (RuntimeException e) {
+      if (e.getCause() instanceof UnableToCompleteException) {
+        throw (UnableToCompleteException) e.getCause();
+      }
+      throw e;
+    }
 
-        TreeLogger compressBranch = logger.branch(TreeLogger.TRACE,
-            "Compressing " + art.getPartialPath());
-
-        InputStream originalBytes = art.getContents(compressBranch);
-        ByteArrayOutputStream compressedBytes = new ByteArrayOutputStream();
-        GZIPOutputStream gzip = new GZIPOutputStream(compressedBytes) {
-            {
-              def.setLevel(Deflater.BEST_COMPRESSION);
-            }
-        };
-
-        int originalLength = 0;
-        int n;
-        while ((n = originalBytes.read(buf)) > 0) {
-          originalLength += n;
-          gzip.write(buf, 0, n);
+    if (cacheDir != null) {
+      evictUnusedCacheFiles(logger, cacheDir);
+    }
+
+    ArtifactSet updated = new ArtifactSet(artifacts);
+    for (int i = 0; i < compressed.size(); i++) {
+      if (compressed.get(i) != null) {
+        updated.add(compressed.get(i));
+        if (!leaveOriginals) {
+          updated.remove(toCompress.get(i));
         }
-        gzip.close();
-
-        byte[] compressed = compressedBytes.toByteArray();
-        if (compressed.length < originalLength) {
-          updated.add(emitBytes(compressBranch, compressed,
-              art.getPartialPath() + ".gz"));
-          if (!leaveOriginals) {
-            updated.remove(art);
+      }
+    }
+    return updated;
+  }
+
+  /**
+   * Returns the gzipped version of an artifact, or null if it isn't smaller
+   * than the original.
+   *
+   * @param cacheDir the directory that keeps compressed artifacts between
+   *          builds, or null
+   */
+  private SyntheticArtifact compress(TreeLogger logger, EmittedArtifact art,
+      File cacheDir) throws IOException, UnableToCompleteException {
+    File compressedFile;
+    long originalLength;
+    if (cacheDir == null) {
+      compressedFile = File.createTempFile("gwt-precompress", ".gz");
+      originalLength = gzip(logger, art, compressedFile);
+    } else {
+      try (HashingInputStream hashingIn = new HashingInputStream(
+          Hashing.sha256(), art.getContents(logger))) {
+        originalLength = ByteStreams.exhaust(hashingIn);
+        compressedFile = new File(cacheDir, hashingIn.hash() + ".gz");
+      }
+      // Mark the file as used, so that it isn't evicted; fails if it doesn't exist yet.
+      if (!compressedFile.setLastModified(System.currentTimeMillis())) {
+        File tempFile = File.createTempFile(compressedFile.getName(), ".tmp",
+            cacheDir);
+        try {
+          gzip(logger, art, tempFile);
+          // Other builds must never see a partially written file.
+          try {
+            Files.move(tempFile.toPath(), compressedFile.toPath(),
+                StandardCopyOption.ATOMIC_MOVE,
+                StandardCopyOption.REPLACE_EXISTING);
+          } catch (AtomicMoveNotSupportedException e) {
+            Files.move(tempFile.toPath(), compressedFile.toPath(),
+                StandardCopyOption.REPLACE_EXISTING);
           }
+        } finally {
+          tempFile.delete();
         }
       }
-      return updated;
-    } catch (IOException e) {
-      logger.log(TreeLogger.ERROR, "Unexpected exception", e);
-      throw new UnableToCompleteException();
+    }
+
+    try {
+      if (compressedFile.length() >= originalLength) {
+        return null;
+      }
+      return emitInputStream(logger, new FileInputStream(compressedFile),
+          art.getPartialPath() + ".gz");
+    } finally {
+      if (cacheDir == null) {
+        compressedFile.delete();
+      }
     }
   }
 }
@@ -32,6 +32,7 @@ public abstract class AbstractRemoteServiceServlet extends HttpServlet {
 
   protected transient ThreadLocal<HttpServletRequest> perThreadRequest;
   protected transient ThreadLocal<HttpServletResponse> perThreadResponse;
+  private transient ThreadLocal<RPCRequestContext> perThreadContext;
 
   public AbstractRemoteServiceServlet() {
     super();
@@ -53,11 +54,7 @@ public abstract class AbstractRemoteServiceServlet extends HttpServlet {
     try {
       // Store the request & response objects in thread-local storage.
       //
-      synchronized (this) {
-        validateThreadLocalData();
-        perThreadRequest.set(request);
-        perThreadResponse.set(response);
-      }
+      enterRequestContext(new RPCRequestContext(request, response));
 
       processPost(request, response);
 
@@ -68,8 +65,7 @@ public abstract class AbstractRemoteServiceServlet extends HttpServlet {
     } finally {
       // null the thread-locals to avoid holding request/response
       //
-      perThreadRequest.set(null);
-      perThreadResponse.set(null);
+      exitRequestContext();
     }
   }
 
@@ -122,6 +118,18 @@ public abstract class AbstractRemoteServiceServlet extends HttpServlet {
     return getThreadLocalRequest().getHeader(STRONG_NAME_HEADER);
   }
 
+  /**
+   * Returns the request and response of the current call, or <code>null</code>
+   * if the current thread is not processing a call. The returned context can be
+   * passed to other threads.
+   */
+  protected final RPCRequestContext getRequestContext() {
+    synchronized (this) {
+      validateThreadLocalData();
+      return perThreadContext.get();
+    }
+  }
+
   /**
    * Gets the <code>HttpServletRequest</code> object for the current call. It is
    * stored thread-locally so that simultaneous invocations can have different
@@ -183,11 +191,35 @@ public abstract class AbstractRemoteServiceServlet extends HttpServlet {
   }
 
   /**
-   * Initializes the perThreadRequest and perThreadResponse fields if they are
-   * null. This will occur the first time they are accessed after an instance of
-   * this class is constructed or deserialized. This method should be called
-   * from within a 'synchronized(this) {}' block in order to ensure that only
-   * one thread creates the objects.
+   * Makes the given context the current call of this thread, as returned by
+   * {@link #getRequestContext()}, {@link #getThreadLocalRequest()} and
+   * {@link #getThreadLocalResponse()}, until {@link #exitRequestContext()} is
+   * called.
+   */
+  final void enterRequestContext(RPCRequestContext context) {
+    synchronized (this) {
+      validateThreadLocalData();
+      perThreadContext.set(context);
+      perThreadRequest.set(context.getRequest());
+      perThreadResponse.set(context.getResponse());
+    }
+  }
+
+  /**
+   * Clears the current call of this thread.
+   */
+  final void exitRequestContext() {
+    perThreadContext.set(null);
+    perThreadRequest.set(null);
+    perThreadResponse.set(null);
+  }
+
+  /**
+   * Initializes the perThreadRequest, perThreadResponse and perThreadContext
+   * fields if they are null. This will occur the first time they are accessed
+   * after an instance of this class is constructed or deserialized. This method
+   * should be called from within a 'synchronized(this) {}' block in order to
+   * ensure that only one thread creates the objects.
    */
   private void validateThreadLocalData() {
     if (perThreadRequest == null) {
@@ -196,5 +228,8 @@ public abstract class AbstractRemoteServiceServlet extends HttpServlet {
     if (perThreadResponse == null) {
       perThreadResponse = new ThreadLocal<HttpServletResponse>();
     }
+    if (perThreadContext == null) {
+      perThreadContext = new ThreadLocal<RPCRequestContext>();
+    }
   }
 }
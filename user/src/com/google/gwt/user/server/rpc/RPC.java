@@ -341,11 +341,26 @@ public final class RPC {
    */
   public static String encodeResponseForFailedRequest(RPCRequest rpcRequest, Throwable cause)
       throws SerializationException {
+    return encodeRPCResponseForFailedRequest(rpcRequest, cause).toString();
+  }
+
+  /**
+   * Like {@link #encodeResponseForFailedRequest(RPCRequest, Throwable)}, but
+   * returns the serialized exception as an {@link RPCResponse} that can be
+   * streamed to the client instead of as a String.
+   *
+   * @param rpcRequest the RPCRequest that failed to execute, may be null
+   * @param cause the {@link Throwable} that was thrown
+   * @return an {@link RPCResponse} that encodes the exception
+   * @throws SerializationException if the result cannot be serialized
+   */
+  public static RPCResponse encodeRPCResponseForFailedRequest(RPCRequest rpcRequest,
+      Throwable cause) throws SerializationException {
     if (rpcRequest == null) {
-      return RPC.encodeResponseForFailure(null, cause,
+      return encodeRPCResponseForFailure(null, cause,
           getDefaultSerializationPolicy(), AbstractSerializationStream.DEFAULT_FLAGS);
     } else {
-      return RPC.encodeResponseForFailure(null, cause,
+      return encodeRPCResponseForFailure(null, cause,
           rpcRequest.getSerializationPolicy(), rpcRequest.getFlags());
     }
   }
@@ -403,6 +418,12 @@ public final class RPC {
 
   public static String encodeResponseForFailure(Method serviceMethod, Throwable cause,
       SerializationPolicy serializationPolicy, int flags) throws SerializationException {
+    return encodeRPCResponseForFailure(serviceMethod, cause, serializationPolicy, flags)
+        .toString();
+  }
+
+  private static RPCResponse encodeRPCResponseForFailure(Method serviceMethod, Throwable cause,
+      SerializationPolicy serializationPolicy, int flags) throws SerializationException {
     if (cause == null) {
       throw new NullPointerException("cause cannot be null");
     }
@@ -470,6 +491,12 @@ public final class RPC {
 
   public static String encodeResponseForSuccess(Method serviceMethod, Object object,
       SerializationPolicy serializationPolicy, int flags) throws SerializationException {
+    return encodeRPCResponseForSuccess(serviceMethod, object, serializationPolicy, flags)
+        .toString();
+  }
+
+  private static RPCResponse encodeRPCResponseForSuccess(Method serviceMethod, Object object,
+      SerializationPolicy serializationPolicy, int flags) throws SerializationException {
     if (serviceMethod == null) {
       throw new NullPointerException("serviceMethod cannot be null");
     }
@@ -574,6 +601,37 @@ public final class RPC {
 
   public static String invokeAndEncodeResponse(Object target, Method serviceMethod, Object[] args,
       SerializationPolicy serializationPolicy, int flags) throws SerializationException {
+    return invokeAndEncodeRPCResponse(target, serviceMethod, args, serializationPolicy, flags)
+        .toString();
+  }
+
+  /**
+   * Like {@link #invokeAndEncodeResponse(Object, Method, Object[], SerializationPolicy, int)},
+   * but returns the serialized result as an {@link RPCResponse} instead of a
+   * String. The response can then be written with
+   * {@link RPCResponse#writeTo(java.io.Writer)}, which avoids holding the
+   * entire payload in memory.
+   *
+   * @param target instance on which to invoke the serviceMethod
+   * @param serviceMethod the method to invoke
+   * @param args arguments used for the method invocation
+   * @param serializationPolicy determines the serialization policy to be used
+   * @param flags the flags of the request
+   * @return an {@link RPCResponse} which encodes either the method's return or
+   *         a checked exception thrown by the method
+   *
+   * @throws NullPointerException if the serviceMethod or the
+   *           serializationPolicy are <code>null</code>
+   * @throws SecurityException if the method cannot be accessed or if the number
+   *           or type of actual and formal arguments differ
+   * @throws SerializationException if an object could not be serialized by the
+   *           stream
+   * @throws UnexpectedException if the serviceMethod throws a checked exception
+   *           that is not declared in its signature
+   */
+  public static RPCResponse invokeAndEncodeRPCResponse(Object target, Method serviceMethod,
+      Object[] args, SerializationPolicy serializationPolicy, int flags)
+      throws SerializationException {
     if (serviceMethod == null) {
       throw new NullPointerException("serviceMethod");
     }
@@ -582,11 +640,12 @@ public final class RPC {
       throw new NullPointerException("serializationPolicy");
     }
 
-    String responsePayload;
+    RPCResponse responsePayload;
     try {
       Object result = serviceMethod.invoke(target, args);
 
-      responsePayload = encodeResponseForSuccess(serviceMethod, result, serializationPolicy, flags);
+      responsePayload =
+          encodeRPCResponseForSuccess(serviceMethod, result, serializationPolicy, flags);
     } catch (IllegalAccessException e) {
       SecurityException securityException =
           new SecurityException(formatIllegalAccessErrorMessage(target, serviceMethod));
@@ -602,7 +661,8 @@ public final class RPC {
       //
       Throwable cause = e.getCause();
 
-      responsePayload = encodeResponseForFailure(serviceMethod, cause, serializationPolicy, flags);
+      responsePayload =
+          encodeRPCResponseForFailure(serviceMethod, cause, serializationPolicy, flags);
     }
 
     return responsePayload;
@@ -622,18 +682,21 @@ public final class RPC {
   }
 
   /**
-   * Returns a string that encodes the results of an RPC call. Private overload
-   * that takes a flag signaling the preamble of the response payload.
+   * Returns an {@link RPCResponse} that encodes the results of an RPC call.
+   * Private overload that takes a flag signaling the preamble of the response
+   * payload.
    * 
    * @param object the object that we wish to send back to the client
    * @param wasThrown if true, the object being returned was an exception thrown
    *          by the service method; if false, it was the result of the service
    *          method's invocation
-   * @return a string that encodes the response from a service method
+   * @return an {@link RPCResponse} that encodes the response from a service
+   *         method
    * @throws SerializationException if the object cannot be serialized
    */
-  private static String encodeResponse(Class<?> responseClass, Object object, boolean wasThrown,
-      int flags, SerializationPolicy serializationPolicy) throws SerializationException {
+  private static RPCResponse encodeResponse(Class<?> responseClass, Object object,
+      boolean wasThrown, int flags, SerializationPolicy serializationPolicy)
+      throws SerializationException {
 
     ServerSerializationStreamWriter stream =
         new ServerSerializationStreamWriter(serializationPolicy, getRpcVersion());
@@ -644,8 +707,7 @@ public final class RPC {
       stream.serializeValue(object, responseClass);
     }
 
-    String bufferStr = (wasThrown ? "//EX" : "//OK") + stream.toString();
-    return bufferStr;
+    return new RPCResponse(stream, wasThrown);
   }
 
   private static String formatIllegalAccessErrorMessage(Object target, Method serviceMethod) {
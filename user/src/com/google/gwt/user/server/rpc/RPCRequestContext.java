@@ -0,0 +1,59 @@
+/*
+ * Copyright 2026 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.gwt.user.server.rpc;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * The HTTP request and response of the RPC call being processed by an
+ * {@link AbstractRemoteServiceServlet}.
+ * <p>
+ * Unlike {@link AbstractRemoteServiceServlet#getThreadLocalRequest()} and
+ * {@link AbstractRemoteServiceServlet#getThreadLocalResponse()}, a context does
+ * not depend on the thread it is used from, so service code that hands work to
+ * other threads can pass it along explicitly. The current context is available
+ * from {@link AbstractRemoteServiceServlet#getRequestContext()}.
+ * </p>
+ */
+public final class RPCRequestContext {
+
+  private final HttpServletRequest request;
+
+  private final HttpServletResponse response;
+
+  /**
+   * Construct an RPCRequestContext.
+   */
+  public RPCRequestContext(HttpServletRequest request, HttpServletResponse response) {
+    this.request = request;
+    this.response = response;
+  }
+
+  /**
+   * Returns the request of the call.
+   */
+  public HttpServletRequest getRequest() {
+    return request;
+  }
+
+  /**
+   * Returns the response of the call.
+   */
+  public HttpServletResponse getResponse() {
+    return response;
+  }
+}
@@ -0,0 +1,91 @@
+/*
+ * Copyright 2026 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.gwt.user.server.rpc;
+
+import com.google.gwt.user.server.rpc.impl.ServerSerializationStreamWriter;
+
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Describes an outgoing RPC response whose values have been serialized but not
+ * yet rendered into the wire format. The response can either be turned into a
+ * String, which is what the {@link RPC}<code>.encodeResponse*</code> methods
+ * return, or be written straight to a {@link Writer} without building the
+ * whole payload in memory.
+ */
+public final class RPCResponse {
+
+  /**
+   * The stream holding the serialized tokens of this response.
+   */
+  private final ServerSerializationStreamWriter stream;
+
+  /**
+   * Whether the serialized value is an exception thrown by the service method.
+   */
+  private final boolean wasThrown;
+
+  /**
+   * Construct an RPCResponse.
+   */
+  public RPCResponse(ServerSerializationStreamWriter stream, boolean wasThrown) {
+    this.stream = stream;
+    this.wasThrown = wasThrown;
+  }
+
+  /**
+   * Returns an estimate of the number of characters in the encoded response,
+   * not counting escape sequences. This is cheap to compute and is meant for
+   * decisions such as whether the response is worth compressing.
+   */
+  public int getEstimatedLength() {
+    return getPrefix().length() + stream.getEstimatedLength();
+  }
+
+  /**
+   * Returns <code>true</code> if the response encodes an exception thrown by
+   * the service method rather than its return value.
+   */
+  public boolean wasThrown() {
+    return wasThrown;
+  }
+
+  /**
+   * Writes the encoded response to the given writer. The output is identical to
+   * {@link #toString()}.
+   *
+   * @param out the writer that receives the encoded response; it is not
+   *          flushed or closed by this method
+   * @throws IOException if writing to <code>out</code> fails
+   */
+  public void writeTo(Writer out) throws IOException {
+    out.write(getPrefix());
+    stream.writeTo(out);
+  }
+
+  /**
+   * Returns the encoded response as a String.
+   */
+  @Override
+  public String toString() {
+    return getPrefix() + stream.toString();
+  }
+
+  private String getPrefix() {
+    return wasThrown ? "//EX" : "//OK";
+  }
+}
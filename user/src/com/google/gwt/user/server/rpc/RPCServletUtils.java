@@ -16,9 +16,13 @@
 package com.google.gwt.user.server.rpc;
 
 
+import java.io.BufferedWriter;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
 import java.lang.reflect.Method;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
@@ -116,7 +120,19 @@ public class RPCServletUtils {
    *         length exceeds 256 bytes
    */
   public static boolean exceedsUncompressedContentLengthLimit(String content) {
-    return (content.length() * 2) > UNCOMPRESSED_BYTE_SIZE_LIMIT;
+    return exceedsUncompressedContentLengthLimit(content.length());
+  }
+
+  /**
+   * Returns <code>true</code> if the estimated UTF-8 byte length of a response
+   * with the given number of characters exceeds 256 bytes.
+   *
+   * @param contentLength the number of characters in the response
+   * @return <code>true</code> if the response content's estimated UTF-8 byte
+   *         length exceeds 256 bytes
+   */
+  public static boolean exceedsUncompressedContentLengthLimit(int contentLength) {
+    return (contentLength * 2) > UNCOMPRESSED_BYTE_SIZE_LIMIT;
   }
 
   /**
@@ -378,6 +394,37 @@ public class RPCServletUtils {
     response.getOutputStream().write(responseBytes);
   }
 
+  /**
+   * Prepares the {@link HttpServletResponse} for a response whose content is
+   * streamed rather than passed in as a String, and returns a UTF-8 writer for
+   * that content. If <code>gzipResponse</code> is <code>true</code>, the
+   * content is gzipped as it is written.
+   * <p>
+   * The response is sent in chunks, without a Content-Length header. The
+   * caller must close the returned writer once the content has been written,
+   * which finishes the gzip stream if there is one.
+   * </p>
+   *
+   * @param response response instance
+   * @param gzipResponse if <code>true</code> the response content will be gzip
+   *          encoded as it is written into the response
+   * @return a writer for the response content
+   * @throws IOException if the response's output stream cannot be opened
+   */
+  public static Writer openResponseWriter(HttpServletResponse response, boolean gzipResponse)
+      throws IOException {
+    response.setContentType(CONTENT_TYPE_APPLICATION_JSON_UTF8);
+    response.setStatus(HttpServletResponse.SC_OK);
+    response.setHeader(CONTENT_DISPOSITION, ATTACHMENT);
+
+    OutputStream output = response.getOutputStream();
+    if (gzipResponse) {
+      setGzipEncodingHeader(response);
+      output = new GZIPOutputStream(output, BUFFER_SIZE);
+    }
+    return new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8), BUFFER_SIZE);
+  }
+
   /**
    * Called when the servlet itself has a problem, rather than the invoked
    * third-party method. It writes a simple 500 message back to the client.
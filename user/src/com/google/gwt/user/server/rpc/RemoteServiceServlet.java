@@ -25,12 +25,30 @@ import com.google.gwt.user.client.rpc.SerializationException;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.Writer;
+import java.lang.reflect.Method;
 import java.net.MalformedURLException;
 import java.net.URL;
 import java.text.ParseException;
+import java.util.ArrayDeque;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.Map;
-
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.servlet.AsyncContext;
 import javax.servlet.ServletConfig;
 import javax.servlet.ServletException;
 import javax.servlet.http.HttpServlet;
@@ -45,6 +63,41 @@ import javax.servlet.http.HttpServletResponse;
 public class RemoteServiceServlet extends AbstractRemoteServiceServlet
     implements SerializationPolicyProvider {
 
+  /**
+   * The system property that enables streamed responses. See
+   * {@link #isStreamingResponses()}.
+   */
+  public static final String STREAM_RESPONSES_PROPERTY = "gwt.rpc.streamResponses";
+
+  /**
+   * The system property that enables asynchronous processing of calls. See
+   * {@link #isAsync()}.
+   */
+  public static final String ASYNC_PROPERTY = "gwt.rpc.async";
+
+  /**
+   * The system property that enables loading every serialization policy in the
+   * web application when the servlet is initialized. See
+   * {@link #shouldPreloadSerializationPolicies()}.
+   */
+  public static final String PRELOAD_SERIALIZATION_POLICIES_PROPERTY =
+      "gwt.rpc.preloadSerializationPolicies";
+
+  /**
+   * The system property that sets the maximum number of entries in the
+   * serialization policy cache of each servlet. Defaults to
+   * {@value #DEFAULT_SERIALIZATION_POLICY_CACHE_SIZE}.
+   */
+  public static final String SERIALIZATION_POLICY_CACHE_SIZE_PROPERTY =
+      "gwt.rpc.serializationPolicyCacheSize";
+
+  /**
+   * The default maximum number of entries in the serialization policy cache.
+   * Each deployed permutation of a module needs one entry per module base URL
+   * it is served from.
+   */
+  public static final int DEFAULT_SERIALIZATION_POLICY_CACHE_SIZE = 1024;
+
   /**
    * Loads a serialization policy stored as a servlet resource in the same
    * ServletContext as this servlet. Returns null if not found.
@@ -52,6 +105,21 @@ public class RemoteServiceServlet extends AbstractRemoteServiceServlet
    */
   static SerializationPolicy loadSerializationPolicy(HttpServlet servlet,
       HttpServletRequest request, String moduleBaseURL, String strongName) {
+    String serializationPolicyFilePath = getSerializationPolicyFilePath(servlet, request,
+        moduleBaseURL, strongName);
+    if (serializationPolicyFilePath == null) {
+      return null;
+    }
+    return loadSerializationPolicyFile(servlet, serializationPolicyFilePath);
+  }
+
+  /**
+   * Returns the context-relative path of the serialization policy file for the
+   * given module base URL and strong name, or null (after logging a message) if
+   * the module is not in the same web application as the servlet.
+   */
+  private static String getSerializationPolicyFilePath(HttpServlet servlet,
+      HttpServletRequest request, String moduleBaseURL, String strongName) {
     // The request can tell you the path of the web app relative to the
     // container root.
     String contextPath = request.getContextPath();
@@ -66,8 +134,6 @@ public class RemoteServiceServlet extends AbstractRemoteServiceServlet
       }
     }
 
-    SerializationPolicy serializationPolicy = null;
-
     /*
      * Check that the module path must be in the same web app as the servlet
      * itself. If you need to implement a scheme different than this, override
@@ -80,56 +146,66 @@ public class RemoteServiceServlet extends AbstractRemoteServiceServlet
           + contextPath
           + ".  Your module may not be properly configured or your client and server code maybe out of date.";
       servlet.log(message);
-    } else {
-      // Strip off the context path from the module base URL. It should be a
-      // strict prefix.
-      String contextRelativePath = modulePath.substring(contextPath.length());
+      return null;
+    }
 
-      String serializationPolicyFilePath = SerializationPolicyLoader.getSerializationPolicyFileName(contextRelativePath
-          + strongName);
+    // Strip off the context path from the module base URL. It should be a
+    // strict prefix.
+    String contextRelativePath = modulePath.substring(contextPath.length());
 
-      // Open the RPC resource file and read its contents.
-      InputStream is = servlet.getServletContext().getResourceAsStream(
-          serializationPolicyFilePath);
-      try {
-        if (is != null) {
-          try {
-            serializationPolicy = SerializationPolicyLoader.loadFromStream(is,
-                null);
-            if (serializationPolicy.hasClientFields()) {
-              if (ENABLE_ENHANCED_CLASSES) {
-                servlet.log("WARNING: Service deserializes enhanced JPA/JDO classes, which is " +
-                        "unsafe. See https://github.com/gwtproject/gwt/issues/9709 for more " +
-                        "detail on the vulnerability that this presents.");
-              } else {
-                servlet.log("ERROR: Service deserializes enhanced JPA/JDO classes, which is " +
-                        "unsafe. Review build logs to see which classes are affected, or set " +
-                        ENABLE_GWT_ENHANCED_CLASSES_PROPERTY + " to true to allow using this " +
-                        "service. See https://github.com/gwtproject/gwt/issues/9709 for more " +
-                        "detail.");
-                serializationPolicy = null;
-              }
+    return SerializationPolicyLoader.getSerializationPolicyFileName(contextRelativePath
+        + strongName);
+  }
+
+  /**
+   * Loads the serialization policy stored at the given context-relative path.
+   * Returns null (after logging a message) if it is missing or unusable.
+   */
+  private static SerializationPolicy loadSerializationPolicyFile(HttpServlet servlet,
+      String serializationPolicyFilePath) {
+    SerializationPolicy serializationPolicy = null;
+
+    // Open the RPC resource file and read its contents.
+    InputStream is = servlet.getServletContext().getResourceAsStream(
+        serializationPolicyFilePath);
+    try {
+      if (is != null) {
+        try {
+          serializationPolicy = SerializationPolicyLoader.loadFromStream(is,
+              null);
+          if (serializationPolicy.hasClientFields()) {
+            if (ENABLE_ENHANCED_CLASSES) {
+              servlet.log("WARNING: Service deserializes enhanced JPA/JDO classes, which is " +
+                      "unsafe. See https://github.com/gwtproject/gwt/issues/9709 for more " +
+                      "detail on the vulnerability that this presents.");
+            } else {
+              servlet.log("ERROR: Service deserializes enhanced JPA/JDO classes, which is " +
+                      "unsafe. Review build logs to see which classes are affected, or set " +
+                      ENABLE_GWT_ENHANCED_CLASSES_PROPERTY + " to true to allow using this " +
+                      "service. See https://github.com/gwtproject/gwt/issues/9709 for more " +
+                      "detail.");
+              serializationPolicy = null;
             }
-          } catch (ParseException e) {
-            servlet.log("ERROR: Failed to parse the policy file '"
-                + serializationPolicyFilePath + "'", e);
-          } catch (IOException e) {
-            servlet.log("ERROR: Could not read the policy file '"
-                + serializationPolicyFilePath + "'", e);
           }
-        } else {
-          String message = "ERROR: The serialization policy file '"
-              + serializationPolicyFilePath
-              + "' was not found; did you forget to include it in this deployment?";
-          servlet.log(message);
+        } catch (ParseException e) {
+          servlet.log("ERROR: Failed to parse the policy file '"
+              + serializationPolicyFilePath + "'", e);
+        } catch (IOException e) {
+          servlet.log("ERROR: Could not read the policy file '"
+              + serializationPolicyFilePath + "'", e);
         }
-      } finally {
-        if (is != null) {
-          try {
-            is.close();
-          } catch (IOException e) {
-            // Ignore this error
-          }
+      } else {
+        String message = "ERROR: The serialization policy file '"
+            + serializationPolicyFilePath
+            + "' was not found; did you forget to include it in this deployment?";
+        servlet.log(message);
+      }
+    } finally {
+      if (is != null) {
+        try {
+          is.close();
+        } catch (IOException e) {
+          // Ignore this error
         }
       }
     }
@@ -142,9 +218,26 @@ public class RemoteServiceServlet extends AbstractRemoteServiceServlet
 
   /**
    * A cache of moduleBaseURL and serialization policy strong name to
-   * {@link SerializationPolicy}.
+   * {@link SerializationPolicy}. Each policy is loaded by the first request that
+   * needs it; concurrent requests for the same policy wait for that load, while
+   * requests for other policies proceed without locking.
+   */
+  private final ConcurrentMap<String, FutureTask<SerializationPolicy>> serializationPolicyCache =
+      new ConcurrentHashMap<String, FutureTask<SerializationPolicy>>();
+
+  /**
+   * The maximum number of entries in {@link #serializationPolicyCache}. Since
+   * the strong name comes from the client, the cache is bounded so that
+   * requests for made-up policies cannot grow it without limit.
+   */
+  private int serializationPolicyCacheSize = DEFAULT_SERIALIZATION_POLICY_CACHE_SIZE;
+
+  /**
+   * Serialization policies loaded at init, by context-relative file path; see
+   * {@link #shouldPreloadSerializationPolicies()}.
    */
-  private final Map<String, SerializationPolicy> serializationPolicyCache = new HashMap<String, SerializationPolicy>();
+  private Map<String, SerializationPolicy> preloadedSerializationPolicies =
+      Collections.emptyMap();
 
   /**
    * The implementation of the service.
@@ -158,6 +251,22 @@ public class RemoteServiceServlet extends AbstractRemoteServiceServlet
    */
   private int codeServerPort = 0;
 
+  /**
+   * Whether responses are written straight to the servlet output stream; see
+   * {@link #isStreamingResponses()}.
+   */
+  private boolean streamResponses = false;
+
+  /**
+   * Whether calls are processed asynchronously; see {@link #isAsync()}.
+   */
+  private boolean async = false;
+
+  /**
+   * The executor that runs asynchronous calls, or null if they are disabled.
+   */
+  private Executor asyncExecutor;
+
   /**
    * The default constructor used by service implementations that
    * extend this class.  The servlet will delegate AJAX requests to
@@ -183,6 +292,29 @@ public class RemoteServiceServlet extends AbstractRemoteServiceServlet
   public void init(ServletConfig config) throws ServletException {
     super.init(config);
     codeServerPort = getCodeServerPort();
+    streamResponses = Boolean.getBoolean(STREAM_RESPONSES_PROPERTY);
+    async = Boolean.getBoolean(ASYNC_PROPERTY);
+    if (isAsync()) {
+      asyncExecutor = createAsyncExecutor();
+    }
+    serializationPolicyCacheSize = Math.max(1, Integer.getInteger(
+        SERIALIZATION_POLICY_CACHE_SIZE_PROPERTY, DEFAULT_SERIALIZATION_POLICY_CACHE_SIZE));
+    if (shouldPreloadSerializationPolicies()) {
+      preloadedSerializationPolicies = preloadSerializationPolicies();
+    }
+  }
+
+  /**
+   * Overridden to shut down the executor created by
+   * {@link #createAsyncExecutor()}, if it is an {@link ExecutorService}.
+   */
+  @Override
+  public void destroy() {
+    if (asyncExecutor instanceof ExecutorService) {
+      ((ExecutorService) asyncExecutor).shutdown();
+    }
+    asyncExecutor = null;
+    super.destroy();
   }
 
   /**
@@ -238,16 +370,52 @@ public class RemoteServiceServlet extends AbstractRemoteServiceServlet
   }
 
   @Override
-  public final SerializationPolicy getSerializationPolicy(String moduleBaseURL,
-      String strongName) {
+  public final SerializationPolicy getSerializationPolicy(final String moduleBaseURL,
+      final String strongName) {
+    String key = moduleBaseURL + strongName;
+    FutureTask<SerializationPolicy> entry = serializationPolicyCache.get(key);
+    if (entry == null) {
+      FutureTask<SerializationPolicy> newEntry = new FutureTask<SerializationPolicy>(
+          new Callable<SerializationPolicy>() {
+            @Override
+            public SerializationPolicy call() {
+              return loadSerializationPolicy(moduleBaseURL, strongName);
+            }
+          });
+      entry = serializationPolicyCache.putIfAbsent(key, newEntry);
+      if (entry == null) {
+        entry = newEntry;
+        evictSerializationPolicies(key);
+        // Load on this thread, which may need its thread-local request.
+        newEntry.run();
+      }
+    }
 
-    SerializationPolicy serializationPolicy = getCachedSerializationPolicy(
-        moduleBaseURL, strongName);
-    if (serializationPolicy != null) {
-      return serializationPolicy;
+    try {
+      return entry.get();
+    } catch (InterruptedException e) {
+      // Interrupted while another request loads the policy; load it ourselves.
+      Thread.currentThread().interrupt();
+      return loadSerializationPolicy(moduleBaseURL, strongName);
+    } catch (ExecutionException e) {
+      // Don't cache failures; the next request will try again.
+      serializationPolicyCache.remove(key, entry);
+      Throwable cause = e.getCause();
+      if (cause instanceof Error) {
+        throw (Error) cause;
+      }
+      throw (RuntimeException) cause;
     }
+  }
 
-    serializationPolicy = doGetSerializationPolicy(getThreadLocalRequest(),
+  /**
+   * Loads the serialization policy for the given module and strong name,
+   * falling back to the Super Dev Mode code server and then to the default
+   * policy. Never returns null.
+   */
+  private SerializationPolicy loadSerializationPolicy(String moduleBaseURL,
+      String strongName) {
+    SerializationPolicy serializationPolicy = doGetSerializationPolicy(getThreadLocalRequest(),
         moduleBaseURL, strongName);
 
     // Try SuperDevMode, if configured.
@@ -269,10 +437,6 @@ public class RemoteServiceServlet extends AbstractRemoteServiceServlet
       serializationPolicy = RPC.getDefaultSerializationPolicy();
     }
 
-    // This could cache null or an actual instance. Either way we will not
-    // attempt to lookup the policy again.
-    putCachedSerializationPolicy(moduleBaseURL, strongName, serializationPolicy);
-
     return serializationPolicy;
   }
 
@@ -361,6 +525,72 @@ public class RemoteServiceServlet extends AbstractRemoteServiceServlet
     }
   }
 
+  /**
+   * Process a call originating from the given request, like
+   * {@link #processCall(String)}, but returns the response as an
+   * {@link RPCResponse} that can be streamed to the client. This is the method
+   * used instead of {@link #processCall(String)} when
+   * {@link #isStreamingResponses()} returns <code>true</code>.
+   *
+   * @param payload the UTF-8 request payload
+   * @return an {@link RPCResponse} which encodes either the method's return, a
+   *         checked exception thrown by the method, or an
+   *         {@link IncompatibleRemoteServiceException}
+   * @throws SerializationException if we cannot serialize the response
+   * @throws UnexpectedException if the invocation throws a checked exception
+   *           that is not declared in the service method's signature
+   * @throws RuntimeException if the service method throws an unchecked
+   *           exception (the exception will be the one thrown by the service)
+   */
+  public RPCResponse processStreamedCall(String payload) throws SerializationException {
+    // First, check for possible XSRF situation
+    checkPermutationStrongName();
+
+    RPCRequest rpcRequest;
+    try {
+      rpcRequest = RPC.decodeRequest(payload, delegate.getClass(), this);
+    } catch (IncompatibleRemoteServiceException ex) {
+      log(
+          "An IncompatibleRemoteServiceException was thrown while processing this call.",
+          ex);
+      return RPC.encodeRPCResponseForFailedRequest(null, ex);
+    }
+    return processStreamedCall(rpcRequest);
+  }
+
+  /**
+   * Process an already decoded RPC request, like
+   * {@link #processCall(RPCRequest)}, but returns the response as an
+   * {@link RPCResponse} that can be streamed to the client.
+   *
+   * @param rpcRequest the already decoded RPC request
+   * @return an {@link RPCResponse} which encodes either the method's return, a
+   *         checked exception thrown by the method, or an
+   *         {@link IncompatibleRemoteServiceException}
+   * @throws SerializationException if we cannot serialize the response
+   * @throws UnexpectedException if the invocation throws a checked exception
+   *           that is not declared in the service method's signature
+   * @throws RuntimeException if the service method throws an unchecked
+   *           exception (the exception will be the one thrown by the service)
+   */
+  public RPCResponse processStreamedCall(RPCRequest rpcRequest) throws SerializationException {
+    try {
+      onAfterRequestDeserialized(rpcRequest);
+      return RPC.invokeAndEncodeRPCResponse(delegate, rpcRequest.getMethod(),
+          rpcRequest.getParameters(), rpcRequest.getSerializationPolicy(),
+          rpcRequest.getFlags());
+    } catch (IncompatibleRemoteServiceException ex) {
+      log(
+          "An IncompatibleRemoteServiceException was thrown while processing this call.",
+          ex);
+      return RPC.encodeRPCResponseForFailedRequest(rpcRequest, ex);
+    } catch (RpcTokenException tokenException) {
+      log("An RpcTokenException was thrown while processing this call.",
+          tokenException);
+      return RPC.encodeRPCResponseForFailedRequest(rpcRequest, tokenException);
+    }
+  }
+
   /**
    * Standard HttpServlet method: handle the POST.
    * 
@@ -383,18 +613,14 @@ public class RemoteServiceServlet extends AbstractRemoteServiceServlet
     //
     onBeforeRequestDeserialized(requestPayload);
 
-    // Invoke the core dispatching logic, which returns the serialized
-    // result.
-    //
-    String responsePayload = processCall(requestPayload);
-
-    // Let subclasses see the serialized response.
-    //
-    onAfterResponseSerialized(responsePayload);
+    if (asyncExecutor != null && request.isAsyncSupported()) {
+      // Release the container thread while the call runs on the executor.
+      //
+      dispatchAsync(new RPCRequestContext(request, response), requestPayload);
+      return;
+    }
 
-    // Write the response.
-    //
-    writeResponse(request, response, responsePayload);
+    processPayload(request, response, requestPayload);
   }
 
   /**
@@ -415,13 +641,109 @@ public class RemoteServiceServlet extends AbstractRemoteServiceServlet
     }
   }
 
+  /**
+   * Creates the executor that runs calls when {@link #isAsync()} is enabled.
+   * Called once, from {@link #init(ServletConfig)}.
+   * <p>
+   * The default implementation uses a new virtual thread per call when running
+   * on a JDK that supports them (21 or later), and otherwise a cached pool of
+   * daemon threads. If the returned executor is an {@link ExecutorService}, it
+   * is shut down by {@link #destroy()}.
+   * </p>
+   */
+  protected Executor createAsyncExecutor() {
+    try {
+      // Looked up reflectively, since this code must also run on older JDKs.
+      Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+      return (Executor) factory.invoke(null);
+    } catch (ReflectiveOperationException e) {
+      // No virtual threads; fall back to platform threads.
+    }
+    final String threadNamePrefix = getClass().getSimpleName() + "-async-";
+    return Executors.newCachedThreadPool(new ThreadFactory() {
+      private final AtomicInteger threadCount = new AtomicInteger();
+
+      @Override
+      public Thread newThread(Runnable r) {
+        Thread thread = new Thread(r, threadNamePrefix + threadCount.incrementAndGet());
+        thread.setDaemon(true);
+        return thread;
+      }
+    });
+  }
+
+  /**
+   * Returns <code>true</code> if calls should be processed asynchronously. The
+   * request is read on the container thread, then the servlet switches the
+   * request to asynchronous mode and invokes the service method and writes the
+   * response on a thread of the executor returned by
+   * {@link #createAsyncExecutor()}. Container threads are thus not tied up by
+   * slow service methods. Requests that do not support asynchronous processing
+   * (for example because a filter in the chain does not) are processed
+   * synchronously as usual.
+   * <p>
+   * During the call, {@link #getThreadLocalRequest()} and
+   * {@link #getThreadLocalResponse()} work as usual on the executor thread.
+   * Service methods that pass work to other threads should pass along the
+   * {@link #getRequestContext() request context} instead.
+   * </p>
+   * <p>
+   * The default implementation returns the value of the
+   * {@value #ASYNC_PROPERTY} system property. Override this method to enable
+   * asynchronous processing for a single servlet.
+   * </p>
+   */
+  protected boolean isAsync() {
+    return async;
+  }
+
+  /**
+   * Returns <code>true</code> if responses should be written straight to the
+   * servlet output stream, optionally through a gzip stream, instead of being
+   * rendered into a String first. This avoids several full-size copies of
+   * large responses.
+   * <p>
+   * When this returns <code>true</code>, {@link #processStreamedCall(String)}
+   * is used in place of {@link #processCall(String)}, and
+   * {@link #onAfterResponseSerialized(String)} and
+   * {@link #shouldCompressResponse(HttpServletRequest, HttpServletResponse, String)}
+   * are not called. Servlets that override those methods should leave streaming
+   * disabled.
+   * </p>
+   * <p>
+   * The default implementation returns the value of the
+   * {@value #STREAM_RESPONSES_PROPERTY} system property. Override this method
+   * to enable streaming for a single servlet.
+   * </p>
+   */
+  protected boolean isStreamingResponses() {
+    return streamResponses;
+  }
+
+  /**
+   * Returns <code>true</code> if {@link #init(ServletConfig)} should load every
+   * serialization policy file (<code>*.gwt.rpc</code>) in the web application
+   * up front, so that the first request for each module does not pay for
+   * parsing its policy. Preloaded policies are used by the default
+   * {@link #doGetSerializationPolicy} only.
+   * <p>
+   * The default implementation returns the value of the
+   * {@value #PRELOAD_SERIALIZATION_POLICIES_PROPERTY} system property.
+   * </p>
+   */
+  protected boolean shouldPreloadSerializationPolicies() {
+    return Boolean.getBoolean(PRELOAD_SERIALIZATION_POLICIES_PROPERTY);
+  }
+
   /**
    * Loads the {@link SerializationPolicy} for given module base URL and strong name.
    * Returns the policy if successful or null if not found. Due to caching, this method
-   * will only be called once for each combination of moduleBaseURL and strongName.</p>
+   * will normally only be called once for each combination of moduleBaseURL and strongName,
+   * though it may be called again if the policy has been evicted from the cache.</p>
    *
    * <p>The default implementation loads serialization policies stored as servlet resources
-   * in the same ServletContext as this servlet.
+   * in the same ServletContext as this servlet, or uses the copy loaded at init if
+   * {@link #shouldPreloadSerializationPolicies()} is enabled.
    *
    * <p>Override this method to load the {@link SerializationPolicy} using an
    * alternative approach.
@@ -433,7 +755,17 @@ public class RemoteServiceServlet extends AbstractRemoteServiceServlet
    */
   protected SerializationPolicy doGetSerializationPolicy(
       HttpServletRequest request, String moduleBaseURL, String strongName) {
-    return RemoteServiceServlet.loadSerializationPolicy(this, request, moduleBaseURL, strongName);
+    String serializationPolicyFilePath = getSerializationPolicyFilePath(this, request,
+        moduleBaseURL, strongName);
+    if (serializationPolicyFilePath == null) {
+      return null;
+    }
+    SerializationPolicy serializationPolicy =
+        preloadedSerializationPolicies.get(serializationPolicyFilePath);
+    if (serializationPolicy != null) {
+      return serializationPolicy;
+    }
+    return loadSerializationPolicyFile(this, serializationPolicyFilePath);
   }
 
   /**
@@ -521,19 +853,113 @@ public class RemoteServiceServlet extends AbstractRemoteServiceServlet
     return RPCServletUtils.exceedsUncompressedContentLengthLimit(responsePayload);
   }
 
-  private SerializationPolicy getCachedSerializationPolicy(
-      String moduleBaseURL, String strongName) {
-    synchronized (serializationPolicyCache) {
-      return serializationPolicyCache.get(moduleBaseURL + strongName);
+  /**
+   * Removes arbitrary entries other than <code>keep</code> until the
+   * serialization policy cache is within its size limit. Evicted policies are
+   * simply loaded again if they are requested later.
+   */
+  private void evictSerializationPolicies(String keep) {
+    Iterator<String> it = serializationPolicyCache.keySet().iterator();
+    while (serializationPolicyCache.size() > serializationPolicyCacheSize && it.hasNext()) {
+      if (!it.next().equals(keep)) {
+        it.remove();
+      }
     }
   }
 
-  private void putCachedSerializationPolicy(String moduleBaseURL,
-      String strongName, SerializationPolicy serializationPolicy) {
-    synchronized (serializationPolicyCache) {
-      serializationPolicyCache.put(moduleBaseURL + strongName,
-          serializationPolicy);
+  /**
+   * Loads every serialization policy file in the web application, keyed by its
+   * context-relative path. The contents of <code>WEB-INF</code> are skipped.
+   */
+  private Map<String, SerializationPolicy> preloadSerializationPolicies() {
+    Map<String, SerializationPolicy> policies = new HashMap<String, SerializationPolicy>();
+    ArrayDeque<String> directories = new ArrayDeque<String>();
+    directories.add("/");
+    while (!directories.isEmpty()) {
+      Set<String> paths = getServletContext().getResourcePaths(directories.remove());
+      if (paths == null) {
+        continue;
+      }
+      for (String path : paths) {
+        if (path.endsWith("/")) {
+          if (!path.equals("/WEB-INF/")) {
+            directories.add(path);
+          }
+        } else if (path.endsWith(SerializationPolicyLoader.getSerializationPolicyFileName(""))) {
+          SerializationPolicy serializationPolicy = loadSerializationPolicyFile(this, path);
+          if (serializationPolicy != null) {
+            policies.put(path, serializationPolicy);
+          }
+        }
+      }
     }
+    log("Preloaded " + policies.size() + " serialization policies");
+    return policies;
+  }
+
+  /**
+   * Switches the request to asynchronous mode and processes the call on the
+   * async executor. If the executor rejects the call, it is processed on the
+   * current thread instead.
+   */
+  private void dispatchAsync(final RPCRequestContext context, final String requestPayload) {
+    final AsyncContext asyncContext = context.getRequest().startAsync(context.getRequest(),
+        context.getResponse());
+    // Service methods are not expected to time out in synchronous mode either.
+    asyncContext.setTimeout(0);
+    Runnable call = new Runnable() {
+      @Override
+      public void run() {
+        enterRequestContext(context);
+        try {
+          processPayload(context.getRequest(), context.getResponse(), requestPayload);
+        } catch (Throwable e) {
+          try {
+            doUnexpectedFailure(e);
+          } catch (Throwable failure) {
+            // There is no container to rethrow to on this thread.
+            log("Exception while dispatching incoming RPC call", failure);
+          }
+        } finally {
+          exitRequestContext();
+          asyncContext.complete();
+        }
+      }
+    };
+    try {
+      asyncExecutor.execute(call);
+    } catch (RejectedExecutionException e) {
+      call.run();
+    }
+  }
+
+  /**
+   * Processes a call whose payload has been read, and writes its response.
+   */
+  private void processPayload(HttpServletRequest request, HttpServletResponse response,
+      String requestPayload) throws IOException, SerializationException {
+    if (isStreamingResponses()) {
+      // Serialize the result and write it out without rendering it to a String
+      // first. The whole object graph is serialized before anything is written,
+      // so serialization failures can still be reported as a generic failure.
+      //
+      RPCResponse rpcResponse = processStreamedCall(requestPayload);
+      writeStreamedResponse(request, response, rpcResponse);
+      return;
+    }
+
+    // Invoke the core dispatching logic, which returns the serialized
+    // result.
+    //
+    String responsePayload = processCall(requestPayload);
+
+    // Let subclasses see the serialized response.
+    //
+    onAfterResponseSerialized(responsePayload);
+
+    // Write the response.
+    //
+    writeResponse(request, response, responsePayload);
   }
 
   private void writeResponse(HttpServletRequest request,
@@ -544,4 +970,18 @@ public class RemoteServiceServlet extends AbstractRemoteServiceServlet
     RPCServletUtils.writeResponse(getServletContext(), response,
         responsePayload, gzipEncode);
   }
+
+  private void writeStreamedResponse(HttpServletRequest request,
+      HttpServletResponse response, RPCResponse rpcResponse) throws IOException {
+    boolean gzipEncode = RPCServletUtils.acceptsGzipEncoding(request)
+        && RPCServletUtils.exceedsUncompressedContentLengthLimit(
+            rpcResponse.getEstimatedLength());
+
+    Writer writer = RPCServletUtils.openResponseWriter(response, gzipEncode);
+    try {
+      rpcResponse.writeTo(writer);
+    } finally {
+      writer.close();
+    }
+  }
 }
@@ -0,0 +1,260 @@
+/*
+ * Copyright 2026 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.gwt.user.server.rpc.impl;
+
+import com.google.gwt.user.client.rpc.SerializationException;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.Type;
+import java.lang.reflect.TypeVariable;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * Reads and writes one serializable field of a class on behalf of the
+ * server-side RPC streams. Accessors are created once per field and cached by
+ * {@link SerializabilityUtil#getSerializableFieldAccessors}, so access checks
+ * are done up front rather than on every instance. Primitive fields are
+ * transferred through typed method handles, which avoids boxing.
+ * <p>
+ * If a method handle cannot be created for a field, the accessor falls back to
+ * reflection with the same behavior as {@link Field#get} and
+ * {@link Field#set}.
+ */
+final class FieldAccessor {
+
+  /**
+   * The kinds of fields that are transferred with a dedicated stream method.
+   */
+  private enum Kind {
+    BOOLEAN, BYTE, CHAR, DOUBLE, FLOAT, INT, LONG, OBJECT, SHORT, STRING
+  }
+
+  /**
+   * Map of field types onto the {@link Kind} used to transfer them; all other
+   * types are {@link Kind#OBJECT}.
+   */
+  private static final Map<Class<?>, Kind> CLASS_TO_KIND = new IdentityHashMap<Class<?>, Kind>();
+
+  static {
+    CLASS_TO_KIND.put(boolean.class, Kind.BOOLEAN);
+    CLASS_TO_KIND.put(byte.class, Kind.BYTE);
+    CLASS_TO_KIND.put(char.class, Kind.CHAR);
+    CLASS_TO_KIND.put(double.class, Kind.DOUBLE);
+    CLASS_TO_KIND.put(float.class, Kind.FLOAT);
+    CLASS_TO_KIND.put(int.class, Kind.INT);
+    CLASS_TO_KIND.put(long.class, Kind.LONG);
+    CLASS_TO_KIND.put(short.class, Kind.SHORT);
+    CLASS_TO_KIND.put(String.class, Kind.STRING);
+  }
+
+  /**
+   * Creates an accessor for the given field.
+   */
+  static FieldAccessor create(Field field) {
+    Kind kind = CLASS_TO_KIND.get(field.getType());
+    if (kind == null) {
+      kind = Kind.OBJECT;
+    }
+
+    MethodHandle getter = null;
+    MethodHandle setter = null;
+    try {
+      field.setAccessible(true);
+      Class<?> valueType = kind == Kind.OBJECT ? Object.class : field.getType();
+      MethodHandles.Lookup lookup = MethodHandles.lookup();
+      getter = lookup.unreflectGetter(field)
+          .asType(MethodType.methodType(valueType, Object.class));
+      setter = lookup.unreflectSetter(field)
+          .asType(MethodType.methodType(void.class, Object.class, valueType));
+    } catch (IllegalAccessException e) {
+      // Fall back to reflection, which reports the failure on first use.
+      getter = null;
+      setter = null;
+    } catch (RuntimeException e) {
+      // The field cannot be made accessible (e.g. it is in a module that is
+      // not open); fall back to reflection as above.
+      getter = null;
+      setter = null;
+    }
+    return new FieldAccessor(field, kind, getter, setter);
+  }
+
+  private final Field field;
+
+  private final Kind kind;
+
+  /**
+   * A handle of type {@code (Object) -> T}, where T is the field type for
+   * primitives and Strings and Object otherwise, or null to use reflection.
+   */
+  private final MethodHandle getter;
+
+  /**
+   * A handle of type {@code (Object, T) -> void}, or null to use reflection.
+   */
+  private final MethodHandle setter;
+
+  private FieldAccessor(Field field, Kind kind, MethodHandle getter, MethodHandle setter) {
+    this.field = field;
+    this.kind = kind;
+    this.getter = getter;
+    this.setter = setter;
+  }
+
+  /**
+   * Reads the next value of the field from the stream and stores it in the
+   * given instance.
+   */
+  void deserialize(ServerSerializationStreamReader stream, Object instance,
+      DequeMap<TypeVariable<?>, Type> resolvedTypes) throws SerializationException {
+    if (setter == null) {
+      Object value = stream.deserializeValue(field.getType(), field.getGenericType(),
+          resolvedTypes);
+      try {
+        field.setAccessible(true);
+        field.set(instance, value);
+      } catch (IllegalAccessException e) {
+        throw new SerializationException(e);
+      } catch (IllegalArgumentException e) {
+        throw new SerializationException(e);
+      }
+      return;
+    }
+
+    try {
+      switch (kind) {
+        case BOOLEAN:
+          setter.invokeExact(instance, stream.readBoolean());
+          break;
+        case BYTE:
+          setter.invokeExact(instance, stream.readByte());
+          break;
+        case CHAR:
+          setter.invokeExact(instance, stream.readChar());
+          break;
+        case DOUBLE:
+          setter.invokeExact(instance, stream.readDouble());
+          break;
+        case FLOAT:
+          setter.invokeExact(instance, stream.readFloat());
+          break;
+        case INT:
+          setter.invokeExact(instance, stream.readInt());
+          break;
+        case LONG:
+          setter.invokeExact(instance, stream.readLong());
+          break;
+        case SHORT:
+          setter.invokeExact(instance, stream.readShort());
+          break;
+        case STRING:
+          setter.invokeExact(instance, stream.readString());
+          break;
+        default:
+          Object value = stream.readObject(field.getGenericType(), resolvedTypes);
+          try {
+            setter.invokeExact(instance, value);
+          } catch (ClassCastException e) {
+            // Matches the IllegalArgumentException thrown by Field.set
+            throw new SerializationException(e);
+          }
+          break;
+      }
+    } catch (SerializationException e) {
+      throw e;
+    } catch (RuntimeException e) {
+      throw e;
+    } catch (Error e) {
+      throw e;
+    } catch (Throwable e) {
+      throw new SerializationException(e);
+    }
+  }
+
+  /**
+   * Returns the field this accessor reads and writes.
+   */
+  Field getField() {
+    return field;
+  }
+
+  /**
+   * Writes the value of the field in the given instance to the stream.
+   */
+  void serialize(ServerSerializationStreamWriter stream, Object instance)
+      throws SerializationException {
+    if (getter == null) {
+      Object value;
+      try {
+        field.setAccessible(true);
+        value = field.get(instance);
+      } catch (IllegalAccessException e) {
+        throw new SerializationException(e);
+      } catch (IllegalArgumentException e) {
+        throw new SerializationException(e);
+      }
+      stream.serializeValue(value, field.getType());
+      return;
+    }
+
+    try {
+      switch (kind) {
+        case BOOLEAN:
+          stream.writeBoolean((boolean) getter.invokeExact(instance));
+          break;
+        case BYTE:
+          stream.writeByte((byte) getter.invokeExact(instance));
+          break;
+        case CHAR:
+          stream.writeChar((char) getter.invokeExact(instance));
+          break;
+        case DOUBLE:
+          stream.writeDouble((double) getter.invokeExact(instance));
+          break;
+        case FLOAT:
+          stream.writeFloat((float) getter.invokeExact(instance));
+          break;
+        case INT:
+          stream.writeInt((int) getter.invokeExact(instance));
+          break;
+        case LONG:
+          stream.writeLong((long) getter.invokeExact(instance));
+          break;
+        case SHORT:
+          stream.writeShort((short) getter.invokeExact(instance));
+          break;
+        case STRING:
+          stream.writeString((String) getter.invokeExact(instance));
+          break;
+        default:
+          stream.writeObject((Object) getter.invokeExact(instance));
+          break;
+      }
+    } catch (SerializationException e) {
+      throw e;
+    } catch (RuntimeException e) {
+      throw e;
+    } catch (Error e) {
+      throw e;
+    } catch (Throwable e) {
+      throw new SerializationException(e);
+    }
+  }
+}
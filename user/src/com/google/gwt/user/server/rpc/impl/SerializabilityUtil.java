@@ -74,6 +74,14 @@ public class SerializabilityUtil {
   private static final Map<Class<?>, Field[]> classSerializableFieldsCache =
       new ConcurrentHashMap<Class<?>, Field[]>();
 
+  /**
+   * A permanent cache of accessors for the serializable fields of classes, in
+   * the same order as {@link #classSerializableFieldsCache}. This is safe for
+   * the same reason.
+   */
+  private static final Map<Class<?>, FieldAccessor[]> classSerializableFieldAccessorsCache =
+      new ConcurrentHashMap<Class<?>, FieldAccessor[]>();
+
   /**
    * A permanent cache of all which classes onto custom field serializers. This
    * is safe to do because a Class is guaranteed not to change within the
@@ -205,6 +213,25 @@ public class SerializabilityUtil {
     return serializableFields;
   }
 
+  /**
+   * Returns accessors for the fields returned by
+   * {@link #applyFieldSerializationPolicy(Class, SerializationPolicy)}, in the
+   * same order. The accessors are created once per class.
+   */
+  static FieldAccessor[] getSerializableFieldAccessors(Class<?> clazz,
+      SerializationPolicy policy) {
+    FieldAccessor[] accessors = classSerializableFieldAccessorsCache.get(clazz);
+    if (accessors == null) {
+      Field[] serializableFields = applyFieldSerializationPolicy(clazz, policy);
+      accessors = new FieldAccessor[serializableFields.length];
+      for (int i = 0; i < serializableFields.length; i++) {
+        accessors[i] = FieldAccessor.create(serializableFields[i]);
+      }
+      classSerializableFieldAccessorsCache.put(clazz, accessors);
+    }
+    return accessors;
+  }
+
   public static SerializedInstanceReference decodeSerializedInstanceReference(
       String encodedSerializedInstanceReference) {
     final String[] components =
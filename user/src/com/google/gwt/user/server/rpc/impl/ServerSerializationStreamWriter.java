@@ -24,6 +24,8 @@ import com.google.gwt.user.server.rpc.SerializationPolicy;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.ObjectOutputStream;
+import java.io.UncheckedIOException;
+import java.io.Writer;
 import java.lang.reflect.Field;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
@@ -69,49 +71,101 @@ public final class ServerSerializationStreamWriter extends
     }
 
     public void addToken(CharSequence token) {
+      beginToken();
+      append(token);
+    }
+
+    public void addEscapedToken(String token) {
+      addToken(escapeString(token, true, this));
+    }
+
+    public void addToken(int i) {
+      addToken(String.valueOf(i));
+    }
+
+    public boolean isJavaScript() {
+      return javascript;
+    }
+
+    public void setJavaScript(boolean javascript) {
+      this.javascript = javascript;
+    }
+
+    @Override
+    public String toString() {
+      if (total > maximumArrayLength) {
+        return "[" + buffer.toString() + POSTLUDE;
+      } else {
+        return "[" + buffer.toString() + "]";
+      }
+    }
+
+    void append(CharSequence chars) {
+      buffer.append(chars);
+    }
+
+    /**
+     * Emits the separator that precedes the next token, starting a new chunk
+     * when the current one is full.
+     */
+    void beginToken() {
       total++;
       if (count++ == maximumArrayLength) {
         if (total == maximumArrayLength + 1) {
-          buffer.append(PRELUDE);
+          append(PRELUDE);
           javascript = true;
         } else {
-          buffer.append("],[");
+          append("],[");
         }
         count = 0;
         needsComma = false;
       }
 
       if (needsComma) {
-        buffer.append(",");
+        append(",");
       } else {
         needsComma = true;
       }
-
-      buffer.append(token);
     }
 
-    public void addEscapedToken(String token) {
-      addToken(escapeString(token, true, this));
+    String getPostlude() {
+      return total > maximumArrayLength ? POSTLUDE : "]";
     }
+  }
 
-    public void addToken(int i) {
-      addToken(String.valueOf(i));
-    }
+  /**
+   * A {@link LengthConstrainedArray} that writes its tokens straight to a
+   * {@link Writer} instead of buffering them. The opening bracket is written
+   * on construction and {@link #finish()} must be called once all tokens have
+   * been added.
+   */
+  private static final class StreamingLengthConstrainedArray extends LengthConstrainedArray {
+    private final Writer out;
 
-    public boolean isJavaScript() {
-      return javascript;
+    public StreamingLengthConstrainedArray(Writer out) {
+      super(0);
+      this.out = out;
+      append("[");
     }
 
-    public void setJavaScript(boolean javascript) {
-      this.javascript = javascript;
+    public void finish() {
+      append(getPostlude());
     }
 
+    /**
+     * Returns a placeholder, since the tokens were written out rather than kept.
+     */
     @Override
     public String toString() {
-      if (total > maximumArrayLength) {
-        return "[" + buffer.toString() + POSTLUDE;
-      } else {
-        return "[" + buffer.toString() + "]";
+      return "[streamed]";
+    }
+
+    @Override
+    void append(CharSequence chars) {
+      try {
+        out.append(chars);
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
       }
     }
   }
@@ -630,7 +684,40 @@ public final class ServerSerializationStreamWriter extends
 
     return stream.toString();
   }
-  
+
+  /**
+   * Writes the same encoding as {@link #toString()} directly to the given
+   * writer. Tokens are emitted in reverse order as they are visited, so the
+   * response is never held in memory as a single String.
+   *
+   * @param out the writer that receives the encoded response; it is not
+   *          flushed or closed by this method
+   * @throws IOException if writing to <code>out</code> fails
+   */
+  public void writeTo(Writer out) throws IOException {
+    StreamingLengthConstrainedArray stream = new StreamingLengthConstrainedArray(out);
+    try {
+      writePayload(stream);
+      writeStringTable(stream, out);
+      writeHeader(stream);
+      stream.finish();
+    } catch (UncheckedIOException e) {
+      throw e.getCause();
+    }
+  }
+
+  /**
+   * Returns an estimate of the number of characters that {@link #toString()}
+   * or {@link #writeTo(Writer)} will produce, not counting escape sequences.
+   */
+  public int getEstimatedLength() {
+    int length = tokenListCharCount + tokenList.size();
+    for (String s : getStringTable()) {
+      length += s.length() + 3;
+    }
+    return length;
+  }
+
   @Override
   public void writeLong(long value) {
     if (getVersion() == SERIALIZATION_STREAM_MIN_VERSION) {
@@ -725,8 +812,6 @@ public final class ServerSerializationStreamWriter extends
   private void serializeClass(Object instance, Class<?> instanceClass)
       throws SerializationException {
     assert (instance != null);
-    Field[] serializableFields = SerializabilityUtil.applyFieldSerializationPolicy(instanceClass,
-        serializationPolicy);
 
     /**
      * If clientFieldNames is non-null, identify any additional server-only fields and serialize
@@ -734,44 +819,66 @@ public final class ServerSerializationStreamWriter extends
      * as a String and written prior to the rest of the field data.
      */
     Set<String> clientFieldNames = serializationPolicy.getClientFieldNamesForEnhancedClass(instanceClass);
-    if (clientFieldNames != null) {
-      List<Field> serverFields = new ArrayList<Field>();
-      for (Field declField : serializableFields) {
-        assert (declField != null);
-        
-        // Identify server-only fields
-        if (!clientFieldNames.contains(declField.getName())) {
-          serverFields.add(declField);
-          continue;
-        }
+    if (clientFieldNames == null) {
+      // The common case: write every field through its precomputed accessor.
+      for (FieldAccessor accessor : SerializabilityUtil.getSerializableFieldAccessors(
+          instanceClass, serializationPolicy)) {
+        accessor.serialize(this, instance);
       }
-      
-      // Serialize the server-only fields into a byte array and encode as a String
-      try {
-        ByteArrayOutputStream baos = new ByteArrayOutputStream();
-        ObjectOutputStream oos = new ObjectOutputStream(baos);
-        oos.writeInt(serverFields.size());
-        for (Field f : serverFields) {
-          oos.writeObject(f.getName());
-          f.setAccessible(true);
-          Object fieldData = f.get(instance);
-          oos.writeObject(fieldData);
-        }
-        oos.close();
+    } else {
+      serializeEnhancedClassFields(instance, instanceClass, clientFieldNames);
+    }
 
-        byte[] serializedData = baos.toByteArray();
-        String encodedData = Base64Utils.toBase64(serializedData);
-        writeString(encodedData);
-      } catch (IllegalAccessException e) {
-        throw new SerializationException(e);
-      } catch (IOException e) {
-        throw new SerializationException(e);
+    Class<?> superClass = instanceClass.getSuperclass();
+    if (serializationPolicy.shouldSerializeFields(superClass)) {
+      serializeImpl(instance, superClass);
+    }
+  }
+
+  /**
+   * Serializes the fields of an enhanced class, which has server-only fields in
+   * addition to those known by the client.
+   */
+  private void serializeEnhancedClassFields(Object instance, Class<?> instanceClass,
+      Set<String> clientFieldNames) throws SerializationException {
+    Field[] serializableFields = SerializabilityUtil.applyFieldSerializationPolicy(instanceClass,
+        serializationPolicy);
+    List<Field> serverFields = new ArrayList<Field>();
+    for (Field declField : serializableFields) {
+      assert (declField != null);
+
+      // Identify server-only fields
+      if (!clientFieldNames.contains(declField.getName())) {
+        serverFields.add(declField);
+        continue;
       }
     }
+
+    // Serialize the server-only fields into a byte array and encode as a String
+    try {
+      ByteArrayOutputStream baos = new ByteArrayOutputStream();
+      ObjectOutputStream oos = new ObjectOutputStream(baos);
+      oos.writeInt(serverFields.size());
+      for (Field f : serverFields) {
+        oos.writeObject(f.getName());
+        f.setAccessible(true);
+        Object fieldData = f.get(instance);
+        oos.writeObject(fieldData);
+      }
+      oos.close();
+
+      byte[] serializedData = baos.toByteArray();
+      String encodedData = Base64Utils.toBase64(serializedData);
+      writeString(encodedData);
+    } catch (IllegalAccessException e) {
+      throw new SerializationException(e);
+    } catch (IOException e) {
+      throw new SerializationException(e);
+    }
     
     // Write the client-visible field data
     for (Field declField : serializableFields) {
-      if ((clientFieldNames != null) && !clientFieldNames.contains(declField.getName())) {
+      if (!clientFieldNames.contains(declField.getName())) {
         // Skip server-only fields
         continue;
       }
@@ -796,11 +903,6 @@ public final class ServerSerializationStreamWriter extends
         throw new SerializationException(e);
       }
     }
-
-    Class<?> superClass = instanceClass.getSuperclass();
-    if (serializationPolicy.shouldSerializeFields(superClass)) {
-      serializeImpl(instance, superClass);
-    }
   }
 
   private void serializeImpl(Object instance, Class<?> instanceClass)
@@ -889,4 +991,18 @@ public final class ServerSerializationStreamWriter extends
     stream.addToken(tableStream.toString());
     stream.setJavaScript(stream.isJavaScript() || tableStream.isJavaScript());
   }
+
+  /**
+   * Streaming counterpart of {@link #writeStringTable(LengthConstrainedArray)};
+   * the nested table is written in place rather than built up as a token.
+   */
+  private void writeStringTable(StreamingLengthConstrainedArray stream, Writer out) {
+    stream.beginToken();
+    StreamingLengthConstrainedArray tableStream = new StreamingLengthConstrainedArray(out);
+    for (String s : getStringTable()) {
+      tableStream.addEscapedToken(s);
+    }
+    tableStream.finish();
+    stream.setJavaScript(stream.isJavaScript() || tableStream.isJavaScript());
+  }
 }
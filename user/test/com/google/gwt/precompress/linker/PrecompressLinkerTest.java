@@ -24,19 +24,24 @@ import com.google.gwt.core.ext.linker.EmittedArtifact;
 import com.google.gwt.core.ext.linker.EmittedArtifact.Visibility;
 import com.google.gwt.core.ext.linker.SelectionProperty;
 import com.google.gwt.core.ext.linker.SyntheticArtifact;
+import com.google.gwt.thirdparty.guava.common.base.Strings;
 
 import junit.framework.TestCase;
 
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.UnsupportedEncodingException;
+import java.nio.file.Files;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.SortedSet;
 import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
 import java.util.zip.GZIPInputStream;
 import java.util.zip.GZIPOutputStream;
 
@@ -257,6 +262,86 @@ public class PrecompressLinkerTest extends TestCase {
         uncompressibleGz);
   }
 
+  /**
+   * Test that compressed artifacts are kept in the cache directory and reused
+   * by later builds.
+   */
+  public void testCacheDir() throws UnableToCompleteException, IOException {
+    File cacheDir = Files.createTempDirectory("precompress").toFile();
+    System.setProperty(PrecompressLinker.CACHE_DIR_PROPERTY, cacheDir.getPath());
+    try {
+      ArtifactSet updated = linkArtifacts();
+      EmittedArtifact foo = findArtifact(updated, "foo.js");
+      assertEqualBytes(contents(foo),
+          decompress(contents(findArtifact(updated, "foo.js.gz"))));
+      assertNull(findArtifact(updated, "uncompressible.js.gz"));
+
+      // foo.js and uncompressible.js
+      File[] cachedFiles = cacheDir.listFiles();
+      assertEquals(2, cachedFiles.length);
+
+      // Replace the cached files to show that they are used as they are.
+      byte[] otherCompressed = compress("other".getBytes("UTF-8"));
+      for (File cachedFile : cachedFiles) {
+        FileOutputStream out = new FileOutputStream(cachedFile);
+        try {
+          out.write(otherCompressed);
+        } finally {
+          out.close();
+        }
+      }
+      updated = linkArtifacts();
+      assertEqualBytes("other".getBytes("UTF-8"),
+          decompress(contents(findArtifact(updated, "foo.js.gz"))));
+      assertEqualBytes("other".getBytes("UTF-8"),
+          decompress(contents(findArtifact(updated, "uncompressible.js.gz"))));
+    } finally {
+      System.clearProperty(PrecompressLinker.CACHE_DIR_PROPERTY);
+      for (File cachedFile : cacheDir.listFiles()) {
+        cachedFile.delete();
+      }
+      cacheDir.delete();
+    }
+  }
+
+  /**
+   * Test that files no build used for a while are deleted from the cache
+   * directory, and that using a file keeps it.
+   */
+  public void testCacheDirEviction() throws UnableToCompleteException, IOException {
+    File cacheDir = Files.createTempDirectory("precompress").toFile();
+    System.setProperty(PrecompressLinker.CACHE_DIR_PROPERTY, cacheDir.getPath());
+    try {
+      linkArtifacts();
+      File[] cachedFiles = cacheDir.listFiles();
+      assertEquals(2, cachedFiles.length);
+
+      long longAgo = System.currentTimeMillis() - TimeUnit.DAYS.toMillis(31);
+      File unusedFile = new File(cacheDir, Strings.repeat("0", 64) + ".gz");
+      File leftoverFile = new File(cacheDir, Strings.repeat("1", 64) + ".gz123.tmp");
+      File otherFile = new File(cacheDir, "other.txt");
+      for (File file : new File[] {unusedFile, leftoverFile, otherFile, cachedFiles[0],
+          cachedFiles[1]}) {
+        file.createNewFile();
+        assertTrue(file.setLastModified(longAgo));
+      }
+
+      linkArtifacts();
+      assertFalse(unusedFile.exists());
+      assertFalse(leftoverFile.exists());
+      assertTrue(otherFile.exists());
+      for (File cachedFile : cachedFiles) {
+        assertTrue(cachedFile.lastModified() > longAgo);
+      }
+    } finally {
+      System.clearProperty(PrecompressLinker.CACHE_DIR_PROPERTY);
+      for (File cachedFile : cacheDir.listFiles()) {
+        cachedFile.delete();
+      }
+      cacheDir.delete();
+    }
+  }
+
   /**
    * Test that the blacklist takes effect.
    */
@@ -31,6 +31,7 @@ import com.google.gwt.user.server.rpc.RPCTest;
 import com.google.gwt.user.server.rpc.RPCTypeCheckTest;
 import com.google.gwt.user.server.rpc.RemoteServiceServletTest;
 import com.google.gwt.user.server.rpc.SerializationPolicyLoaderTest;
+import com.google.gwt.user.server.rpc.impl.FieldAccessorTest;
 import com.google.gwt.user.server.rpc.impl.LegacySerializationPolicyTest;
 import com.google.gwt.user.server.rpc.impl.ServerSerializationStreamWriterTest;
 import com.google.gwt.user.server.rpc.impl.StandardSerializationPolicyTest;
@@ -72,6 +73,7 @@ public class RpcJreSuite {
     suite.addTestSuite(AbstractXsrfProtectedServiceServletTest.class);
     suite.addTestSuite(ClientSerializationStreamReaderTest.class);
     suite.addTestSuite(ServerSerializationStreamWriterTest.class);
+    suite.addTestSuite(FieldAccessorTest.class);
     return suite;
   }
 }
@@ -29,7 +29,9 @@ import com.google.gwt.user.server.rpc.impl.TypeNameObfuscator;
 
 import junit.framework.TestCase;
 
+import java.io.IOException;
 import java.io.Serializable;
+import java.io.StringWriter;
 import java.lang.reflect.Method;
 import java.util.Set;
 
@@ -849,6 +851,46 @@ public class RPCTest extends TestCase {
     }, A_method1, null);
   }
 
+  /**
+   * Tests that {@link RPC#invokeAndEncodeRPCResponse} writes the same payload
+   * that {@link RPC#invokeAndEncodeResponse} returns, for both a return value
+   * and a thrown exception.
+   */
+  public void testInvokeAndEncodeRPCResponse() throws SecurityException,
+      NoSuchMethodException, SerializationException, IOException {
+    A a = new A() {
+      @Override
+      public void method1() throws SerializableException {
+        throw new SerializableException("failed");
+      }
+
+      @Override
+      public int method2() {
+        return 42;
+      }
+
+      @Override
+      public int method3(int val) {
+        return val;
+      }
+    };
+    SerializationPolicy policy = RPC.getDefaultSerializationPolicy();
+
+    for (String methodName : new String[] {"method1", "method2"}) {
+      Method method = A.class.getMethod(methodName);
+      String expected = RPC.invokeAndEncodeResponse(a, method, null, policy,
+          AbstractSerializationStream.DEFAULT_FLAGS);
+      RPCResponse response = RPC.invokeAndEncodeRPCResponse(a, method, null, policy,
+          AbstractSerializationStream.DEFAULT_FLAGS);
+
+      StringWriter writer = new StringWriter();
+      response.writeTo(writer);
+      assertEquals(expected, writer.toString());
+      assertEquals(expected, response.toString());
+      assertEquals(expected.startsWith("//EX"), response.wasThrown());
+    }
+  }
+
   public void testSerializationStreamDequote() throws SerializationException {
     ServerSerializationStreamReader reader = new ServerSerializationStreamReader(
         null, null);
@@ -17,20 +17,32 @@ package com.google.gwt.user.server.rpc;
 
 import com.google.gwt.user.client.rpc.IsSerializable;
 import com.google.gwt.user.client.rpc.SerializationException;
+import com.google.gwt.user.server.rpc.impl.StandardSerializationPolicy;
 
 import junit.framework.TestCase;
 
 import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.InputStream;
 import java.io.Serializable;
 import java.io.UnsupportedEncodingException;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
 import java.net.MalformedURLException;
 import java.net.URL;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Enumeration;
 import java.util.EventListener;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Executor;
 
+import javax.servlet.AsyncContext;
 import javax.servlet.Filter;
 import javax.servlet.FilterRegistration;
 import javax.servlet.FilterRegistration.Dynamic;
@@ -39,16 +51,21 @@ import javax.servlet.Servlet;
 import javax.servlet.ServletConfig;
 import javax.servlet.ServletContext;
 import javax.servlet.ServletException;
+import javax.servlet.ServletOutputStream;
 import javax.servlet.ServletRegistration;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
 import javax.servlet.SessionCookieConfig;
 import javax.servlet.SessionTrackingMode;
+import javax.servlet.WriteListener;
 import javax.servlet.descriptor.JspConfigDescriptor;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
 
 /**
  * Test some of the failure modes associated with
- * {@link RemoteServiceServlet#doGetSerializationPolicy(HttpServletRequest, String, String)}.
- * 
- * TODO: test caching of policies?
+ * {@link RemoteServiceServlet#doGetSerializationPolicy(HttpServletRequest, String, String)},
+ * and the caching and preloading of policies.
  */
 public class RemoteServiceServletTest extends TestCase {
 
@@ -71,6 +88,23 @@ public class RemoteServiceServletTest extends TestCase {
     }
   }
 
+  /**
+   * Counts the policies loaded through
+   * {@link RemoteServiceServlet#doGetSerializationPolicy}.
+   */
+  private static class CountingRemoteServiceServlet extends RemoteServiceServlet {
+    private final List<String> loadedStrongNames = new ArrayList<String>();
+
+    @Override
+    protected SerializationPolicy doGetSerializationPolicy(HttpServletRequest request,
+        String moduleBaseURL, String strongName) {
+      loadedStrongNames.add(strongName);
+      return new StandardSerializationPolicy(
+          new HashMap<Class<?>, Boolean>(), new HashMap<Class<?>, Boolean>(),
+          new HashMap<Class<?>, String>());
+    }
+  }
+
   private static class MockServletConfig implements ServletConfig {
     private ServletContext context;
 
@@ -310,6 +344,106 @@ public class RemoteServiceServletTest extends TestCase {
     }
   }
 
+  public void testAsyncCall() throws Exception {
+    final List<String> asyncContextCalls = new ArrayList<String>();
+    final AsyncContext asyncContext = (AsyncContext) Proxy.newProxyInstance(
+        getClass().getClassLoader(), new Class<?>[] {AsyncContext.class},
+        new InvocationHandler() {
+          @Override
+          public Object invoke(Object proxy, Method method, Object[] args) {
+            asyncContextCalls.add(method.getName());
+            return null;
+          }
+        });
+    final MockHttpServletRequestContextPath mockRequest = new MockHttpServletRequestContextPath() {
+      @Override
+      public String getHeader(String name) {
+        return null;
+      }
+
+      @Override
+      public boolean isAsyncSupported() {
+        return true;
+      }
+
+      @Override
+      public AsyncContext startAsync(ServletRequest request, ServletResponse response) {
+        asyncContextCalls.add("startAsync");
+        return asyncContext;
+      }
+    };
+    final ByteArrayOutputStream body = new ByteArrayOutputStream();
+    final ServletOutputStream out = new ServletOutputStream() {
+      @Override
+      public boolean isReady() {
+        return true;
+      }
+
+      @Override
+      public void setWriteListener(WriteListener writeListener) {
+        throw new UnsupportedOperationException();
+      }
+
+      @Override
+      public void write(int b) {
+        body.write(b);
+      }
+    };
+    HttpServletResponse mockResponse = (HttpServletResponse) Proxy.newProxyInstance(
+        getClass().getClassLoader(), new Class<?>[] {HttpServletResponse.class},
+        new InvocationHandler() {
+          @Override
+          public Object invoke(Object proxy, Method method, Object[] args) {
+            return "getOutputStream".equals(method.getName()) ? out : null;
+          }
+        });
+
+    final List<Runnable> queued = new ArrayList<Runnable>();
+    final List<Object> seenByCall = new ArrayList<Object>();
+    RemoteServiceServlet rss = new RemoteServiceServlet() {
+      @Override
+      public String processCall(String payload) {
+        seenByCall.add(payload);
+        seenByCall.add(getThreadLocalRequest());
+        seenByCall.add(getRequestContext().getRequest());
+        return "//OK[1,[],0,7]";
+      }
+
+      @Override
+      protected Executor createAsyncExecutor() {
+        return new Executor() {
+          @Override
+          public void execute(Runnable command) {
+            queued.add(command);
+          }
+        };
+      }
+
+      @Override
+      protected boolean isAsync() {
+        return true;
+      }
+
+      @Override
+      protected String readContent(HttpServletRequest request) {
+        return "payload";
+      }
+    };
+    rss.init(new MockServletConfig(new MockServletContext()));
+
+    rss.doPost(mockRequest, mockResponse);
+    assertEquals(1, queued.size());
+    assertEquals(Arrays.asList("startAsync", "setTimeout"), asyncContextCalls);
+    assertTrue(seenByCall.isEmpty());
+    assertNull(rss.getRequestContext());
+
+    queued.get(0).run();
+    assertEquals(Arrays.<Object>asList("payload", mockRequest, mockRequest), seenByCall);
+    assertEquals("//OK[1,[],0,7]", body.toString("UTF-8"));
+    assertEquals(Arrays.asList("startAsync", "setTimeout", "complete"), asyncContextCalls);
+    assertNull(rss.getRequestContext());
+  }
+
   public void testDoGetSerializationPolicy_FailToOpenMD5Resource()
       throws ServletException {
     MockServletContext mockContext = new MockServletContext() {
@@ -407,6 +541,89 @@ public class RemoteServiceServletTest extends TestCase {
     assertNotValidDeserialize(serializationPolicy, Baz.class);
   }
 
+  public void testGetSerializationPolicy_Cached() throws ServletException {
+    CountingRemoteServiceServlet rss = new CountingRemoteServiceServlet();
+    rss.init(new MockServletConfig(new MockServletContext()));
+
+    SerializationPolicy first = rss.getSerializationPolicy("http://www.google.com/MyModule/",
+        "12345");
+    SerializationPolicy second = rss.getSerializationPolicy("http://www.google.com/MyModule/",
+        "12345");
+    rss.getSerializationPolicy("http://www.google.com/MyModule/", "67890");
+
+    assertSame(first, second);
+    assertEquals(Arrays.asList("12345", "67890"), rss.loadedStrongNames);
+  }
+
+  public void testGetSerializationPolicy_CacheIsBounded() throws ServletException {
+    CountingRemoteServiceServlet rss = new CountingRemoteServiceServlet();
+    System.setProperty(RemoteServiceServlet.SERIALIZATION_POLICY_CACHE_SIZE_PROPERTY, "1");
+    try {
+      rss.init(new MockServletConfig(new MockServletContext()));
+    } finally {
+      System.clearProperty(RemoteServiceServlet.SERIALIZATION_POLICY_CACHE_SIZE_PROPERTY);
+    }
+
+    rss.getSerializationPolicy("http://www.google.com/MyModule/", "12345");
+    rss.getSerializationPolicy("http://www.google.com/MyModule/", "67890");
+    rss.getSerializationPolicy("http://www.google.com/MyModule/", "67890");
+    rss.getSerializationPolicy("http://www.google.com/MyModule/", "12345");
+
+    assertEquals(Arrays.asList("12345", "67890", "12345"), rss.loadedStrongNames);
+  }
+
+  public void testPreloadSerializationPolicies() throws ServletException {
+    final String resourcePath = "/MyModule/"
+        + SerializationPolicyLoader.getSerializationPolicyFileName("12345");
+    final List<String> openedResources = new ArrayList<String>();
+    MockServletContext mockContext = new MockServletContext() {
+      @Override
+      public InputStream getResourceAsStream(String resource) {
+        openedResources.add(resource);
+        if (resourcePath.equals(resource)) {
+          try {
+            String payLoad = Foo.class.getName() + ",true\n";
+            return new ByteArrayInputStream(
+                payLoad.getBytes(SerializationPolicyLoader.SERIALIZATION_POLICY_FILE_ENCODING));
+          } catch (UnsupportedEncodingException e) {
+            return null;
+          }
+        }
+        return null;
+      }
+
+      @Override
+      public Set<String> getResourcePaths(String path) {
+        if ("/".equals(path)) {
+          return new HashSet<String>(Arrays.asList("/MyModule/", "/WEB-INF/", "/index.html"));
+        } else if ("/MyModule/".equals(path)) {
+          return new HashSet<String>(Arrays.asList(resourcePath, "/MyModule/MyModule.nocache.js"));
+        } else if ("/WEB-INF/".equals(path)) {
+          fail("WEB-INF should not be scanned");
+        }
+        return null;
+      }
+    };
+    RemoteServiceServlet rss = new RemoteServiceServlet() {
+      @Override
+      protected boolean shouldPreloadSerializationPolicies() {
+        return true;
+      }
+    };
+    rss.init(new MockServletConfig(mockContext));
+    assertEquals(Arrays.asList(resourcePath), openedResources);
+
+    MockHttpServletRequestContextPath mockRequest = new MockHttpServletRequestContextPath();
+    mockRequest.contextPath = "";
+    SerializationPolicy serializationPolicy = rss.doGetSerializationPolicy(
+        mockRequest, "http://www.google.com/MyModule/", "12345");
+    assertNotNull(serializationPolicy);
+    assertDeserializeFields(serializationPolicy, Foo.class);
+
+    // The preloaded copy was used.
+    assertEquals(Arrays.asList(resourcePath), openedResources);
+  }
+
   private void assertDeserializeFields(SerializationPolicy policy,
       Class<?> clazz) {
     assertTrue(policy.shouldDeserializeFields(clazz));
@@ -0,0 +1,145 @@
+/*
+ * Copyright 2026 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.gwt.user.server.rpc.impl;
+
+import static com.google.gwt.user.client.rpc.impl.AbstractSerializationStream.RPC_SEPARATOR_CHAR;
+
+import com.google.gwt.user.client.rpc.IsSerializable;
+import com.google.gwt.user.client.rpc.SerializationException;
+import com.google.gwt.user.client.rpc.impl.AbstractSerializationStream;
+import com.google.gwt.user.server.Base64Utils;
+import com.google.gwt.user.server.rpc.RPC;
+import com.google.gwt.user.server.rpc.SerializationPolicy;
+
+import junit.framework.TestCase;
+
+import java.lang.reflect.Type;
+import java.lang.reflect.TypeVariable;
+
+/**
+ * Tests {@link FieldAccessor}.
+ */
+public class FieldAccessorTest extends TestCase {
+
+  /**
+   * A class with one field of every kind. The field names are chosen so that
+   * the serialization order, which is by name, is the declaration order.
+   */
+  @SuppressWarnings("unused")
+  private static class AllKinds implements IsSerializable {
+    private boolean aBoolean;
+    private byte bByte;
+    private char cChar;
+    private double dDouble;
+    private float eFloat;
+    private int fInt;
+    private long gLong;
+    private short hShort;
+    private String iString;
+    private Object jObject;
+    private transient int notSerialized;
+  }
+
+  public void testAccessorsAreCached() {
+    SerializationPolicy policy = RPC.getDefaultSerializationPolicy();
+    FieldAccessor[] accessors = SerializabilityUtil.getSerializableFieldAccessors(
+        AllKinds.class, policy);
+    assertSame(accessors,
+        SerializabilityUtil.getSerializableFieldAccessors(AllKinds.class, policy));
+    assertEquals(10, accessors.length);
+    assertEquals("aBoolean", accessors[0].getField().getName());
+    assertEquals("jObject", accessors[9].getField().getName());
+  }
+
+  public void testDeserialize() throws SerializationException {
+    String encoded = ""
+        + AbstractSerializationStream.SERIALIZATION_STREAM_VERSION
+        + RPC_SEPARATOR_CHAR + // version
+        "0" + RPC_SEPARATOR_CHAR + // flags
+        "1" + RPC_SEPARATOR_CHAR + // string table entry count
+        "hello" + RPC_SEPARATOR_CHAR + // string table entry #1
+        "0" + RPC_SEPARATOR_CHAR + // module base URL
+        "0" + RPC_SEPARATOR_CHAR + // strong name
+        "1" + RPC_SEPARATOR_CHAR + // aBoolean
+        "-7" + RPC_SEPARATOR_CHAR + // bByte
+        "65" + RPC_SEPARATOR_CHAR + // cChar
+        "1.5" + RPC_SEPARATOR_CHAR + // dDouble
+        "2.5" + RPC_SEPARATOR_CHAR + // eFloat
+        "123456" + RPC_SEPARATOR_CHAR + // fInt
+        Base64Utils.toBase64(1L << 40) + RPC_SEPARATOR_CHAR + // gLong
+        "-300" + RPC_SEPARATOR_CHAR + // hShort
+        "1" + RPC_SEPARATOR_CHAR + // iString
+        "0" + RPC_SEPARATOR_CHAR; // jObject
+
+    ServerSerializationStreamReader reader = new ServerSerializationStreamReader(null, null);
+    reader.prepareToRead(encoded);
+    AllKinds instance = new AllKinds();
+    instance.jObject = "replaced by null";
+    DequeMap<TypeVariable<?>, Type> resolvedTypes = new DequeMap<TypeVariable<?>, Type>();
+    for (FieldAccessor accessor : SerializabilityUtil.getSerializableFieldAccessors(
+        AllKinds.class, RPC.getDefaultSerializationPolicy())) {
+      accessor.deserialize(reader, instance, resolvedTypes);
+    }
+
+    assertTrue(instance.aBoolean);
+    assertEquals(-7, instance.bByte);
+    assertEquals('A', instance.cChar);
+    assertEquals(1.5, instance.dDouble);
+    assertEquals(2.5f, instance.eFloat);
+    assertEquals(123456, instance.fInt);
+    assertEquals(1L << 40, instance.gLong);
+    assertEquals(-300, instance.hShort);
+    assertEquals("hello", instance.iString);
+    assertNull(instance.jObject);
+  }
+
+  public void testSerializeMatchesDirectWrites() throws SerializationException {
+    AllKinds instance = new AllKinds();
+    instance.aBoolean = true;
+    instance.bByte = -7;
+    instance.cChar = 'A';
+    instance.dDouble = 1.5;
+    instance.eFloat = 2.5f;
+    instance.fInt = 123456;
+    instance.gLong = 1L << 40;
+    instance.hShort = -300;
+    instance.iString = "hello";
+    instance.jObject = null;
+
+    SerializationPolicy policy = RPC.getDefaultSerializationPolicy();
+    ServerSerializationStreamWriter viaAccessors = new ServerSerializationStreamWriter(policy);
+    viaAccessors.prepareToWrite();
+    for (FieldAccessor accessor : SerializabilityUtil.getSerializableFieldAccessors(
+        AllKinds.class, policy)) {
+      accessor.serialize(viaAccessors, instance);
+    }
+
+    ServerSerializationStreamWriter direct = new ServerSerializationStreamWriter(policy);
+    direct.prepareToWrite();
+    direct.writeBoolean(instance.aBoolean);
+    direct.writeByte(instance.bByte);
+    direct.writeChar(instance.cChar);
+    direct.writeDouble(instance.dDouble);
+    direct.writeFloat(instance.eFloat);
+    direct.writeInt(instance.fInt);
+    direct.writeLong(instance.gLong);
+    direct.writeShort(instance.hShort);
+    direct.writeString(instance.iString);
+    direct.writeObject(instance.jObject);
+
+    assertEquals(direct.toString(), viaAccessors.toString());
+  }
+}
@@ -0,0 +1,129 @@
+/*
+ * Copyright 2026 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.gwt.user.server.rpc.impl;
+
+import java.io.BufferedWriter;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Compares the bytes allocated per response when a serialized RPC response is
+ * rendered to a String and then encoded and gzipped in memory, as
+ * {@link com.google.gwt.user.server.rpc.RPCServletUtils#writeResponse} does,
+ * against streaming it through
+ * {@link ServerSerializationStreamWriter#writeTo(Writer)}.
+ * <p>
+ * Only the rendering is measured; the object graph is serialized once up
+ * front. Run with {@code main}, optionally passing the number of list
+ * elements in the simulated response.
+ */
+public class ServerSerializationStreamWriterBenchmark {
+
+  private static final int ITERATIONS = 20;
+
+  private static final int WARMUP_ITERATIONS = 10;
+
+  /**
+   * Discards everything written to it.
+   */
+  private static final OutputStream NULL_OUTPUT = new OutputStream() {
+    @Override
+    public void write(byte[] b, int off, int len) {
+    }
+
+    @Override
+    public void write(int b) {
+    }
+  };
+
+  public static void main(String[] args) throws IOException {
+    int elements = args.length > 0 ? Integer.parseInt(args[0]) : 50000;
+    ServerSerializationStreamWriter writer = createResponse(elements);
+
+    long buffered = measure(writer, false);
+    long streamed = measure(writer, true);
+    System.out.println("Response with " + elements + " elements, ~"
+        + writer.getEstimatedLength() + " chars");
+    System.out.println("  buffered: " + buffered + " bytes allocated per response");
+    System.out.println("  streamed: " + streamed + " bytes allocated per response");
+  }
+
+  /**
+   * Returns the average number of bytes allocated by the current thread to
+   * render and gzip the response, or -1 if the JVM cannot measure it.
+   */
+  static long measure(ServerSerializationStreamWriter writer, boolean streamed)
+      throws IOException {
+    java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+    if (!(bean instanceof com.sun.management.ThreadMXBean)) {
+      return -1;
+    }
+    com.sun.management.ThreadMXBean threadBean = (com.sun.management.ThreadMXBean) bean;
+    if (!threadBean.isThreadAllocatedMemorySupported()) {
+      return -1;
+    }
+    threadBean.setThreadAllocatedMemoryEnabled(true);
+
+    for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+      render(writer, streamed);
+    }
+    long threadId = Thread.currentThread().getId();
+    long before = threadBean.getThreadAllocatedBytes(threadId);
+    for (int i = 0; i < ITERATIONS; i++) {
+      render(writer, streamed);
+    }
+    return (threadBean.getThreadAllocatedBytes(threadId) - before) / ITERATIONS;
+  }
+
+  /**
+   * Simulates a list of DTOs, each with an id, a name drawn from a limited
+   * set of strings and a flag.
+   */
+  static ServerSerializationStreamWriter createResponse(int elements) {
+    ServerSerializationStreamWriter writer = new ServerSerializationStreamWriter(null, 8);
+    writer.prepareToWrite();
+    writer.writeInt(elements);
+    for (int i = 0; i < elements; i++) {
+      writer.writeInt(i);
+      writer.writeString("customer name " + (i % 5000));
+      writer.writeBoolean(i % 2 == 0);
+    }
+    return writer;
+  }
+
+  private static void render(ServerSerializationStreamWriter writer, boolean streamed)
+      throws IOException {
+    if (streamed) {
+      Writer out = new BufferedWriter(new OutputStreamWriter(
+          new GZIPOutputStream(NULL_OUTPUT, 4096), StandardCharsets.UTF_8), 4096);
+      writer.writeTo(out);
+      out.close();
+    } else {
+      byte[] responseBytes = ("//OK" + writer.toString()).getBytes(StandardCharsets.UTF_8);
+      ByteArrayOutputStream output = new ByteArrayOutputStream(responseBytes.length);
+      GZIPOutputStream gzipOutputStream = new GZIPOutputStream(output);
+      gzipOutputStream.write(responseBytes);
+      gzipOutputStream.close();
+      NULL_OUTPUT.write(output.toByteArray());
+    }
+  }
+}
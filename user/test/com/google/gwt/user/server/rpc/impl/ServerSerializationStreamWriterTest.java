@@ -18,6 +18,14 @@ package com.google.gwt.user.server.rpc.impl;
 
 import junit.framework.TestCase;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
 /**
  * Tests {@link ServerSerializationStreamWriter}.
  */
@@ -122,6 +130,54 @@ public class ServerSerializationStreamWriterTest extends TestCase {
     assertEquals("[\"NaN\",\"Infinity\",\"-Infinity\",[],0,8]", writer.toString());
   }
 
+  public void testWriteToMatchesToString() throws IOException {
+    ServerSerializationStreamWriter writer = new ServerSerializationStreamWriter(null, 8);
+    writer.writeDouble(Double.NaN);
+    writer.writeString("first");
+    writer.writeString("second \"quoted\"");
+    writer.writeString("first");
+    writer.writeLong(Long.MAX_VALUE);
+    assertWriteToMatchesToString(writer);
+
+    // An empty stream still has a string table and a header.
+    assertWriteToMatchesToString(new ServerSerializationStreamWriter(null, 8));
+  }
+
+  public void testWriteToMatchesToString_fallbacks() throws IOException {
+    StringBuilder longString = new StringBuilder(66000);
+    for (int i = 0; i < 66000; i++) {
+      longString.append("a");
+    }
+
+    // Split string nodes make the string table JavaScript.
+    ServerSerializationStreamWriter writer = new ServerSerializationStreamWriter(null, 8);
+    writer.writeString(longString.toString());
+    assertWriteToMatchesToString(writer);
+
+    // So does chunking of the payload into several arrays.
+    int maxArrayLength =
+        ServerSerializationStreamWriter.LengthConstrainedArray.MAXIMUM_ARRAY_LENGTH_DEFAULT * 2
+        + 100;
+    writer = new ServerSerializationStreamWriter(null, 8);
+    for (int i = 0; i < maxArrayLength; i++) {
+      writer.writeInt(i);
+    }
+    assertWriteToMatchesToString(writer);
+  }
+
+  public void testWriteToWritesTheSameBytesAsToString() throws IOException {
+    ServerSerializationStreamWriter writer =
+        ServerSerializationStreamWriterBenchmark.createResponse(20000);
+    writer.writeString("non-ASCII \u00e9\u4e2d\ud83d\ude00");
+
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    Writer out = new OutputStreamWriter(bytes, StandardCharsets.UTF_8);
+    writer.writeTo(out);
+    out.flush();
+    assertTrue(Arrays.equals(writer.toString().getBytes(StandardCharsets.UTF_8),
+        bytes.toByteArray()));
+  }
+
   public void testVersion8Fallbacks() {
     StringBuilder longString = new StringBuilder(66000);
     for (int i = 0; i < 660000; i++) {
@@ -146,4 +202,10 @@ public class ServerSerializationStreamWriterTest extends TestCase {
     assertEquals("7", encoded.substring(encoded.lastIndexOf(",") + 1, encoded.lastIndexOf("]")));
   }
 
+  private static void assertWriteToMatchesToString(ServerSerializationStreamWriter writer)
+      throws IOException {
+    StringWriter out = new StringWriter();
+    writer.writeTo(out);
+    assertEquals(writer.toString(), out.toString());
+  }
 }